@@ -0,0 +1,10 @@
+#!/bin/bash
+# Usage: ./run-benchmarks.sh [JMH options], for example "./run-benchmarks.sh Tracker" to run only TrackerBenchmark.
+# Results are written to tests/benchmarks/target/jmh-result.json so that runs can be compared.
+set -euo pipefail
+
+echo 'Build benchmarks'
+mvn package -B -e -V -Ptests -pl tests/benchmarks -am -DskipTests
+
+echo 'Run benchmarks'
+java -jar tests/benchmarks/target/benchmarks.jar -rf json -rff tests/benchmarks/target/jmh-result.json "$@"
@@ -21,9 +21,11 @@ package org.sonar.ce;
 
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.monitoring.CEQueueStatusImpl;
+import org.sonar.server.computation.monitoring.CeStepMetrics;
 import org.sonar.server.computation.monitoring.CeTasksMBeanImpl;
 import org.sonar.server.computation.queue.CeQueueCleaner;
 import org.sonar.server.computation.queue.CeQueueInitializer;
+import org.sonar.server.computation.queue.CeTaskScheduler;
 import org.sonar.server.computation.queue.InternalCeQueueImpl;
 
 public class CeQueueModule extends Module {
@@ -32,9 +34,11 @@ public class CeQueueModule extends Module {
     add(
       // queue state
       InternalCeQueueImpl.class,
+      CeTaskScheduler.class,
 
       // queue monitoring
       CEQueueStatusImpl.class,
+      CeStepMetrics.class,
       CeTasksMBeanImpl.class,
 
       // queue cleaning
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import fi.iki.elonen.NanoHTTPD;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import org.sonar.ce.httpd.HttpAction;
+import org.sonar.server.computation.monitoring.CeStepMetrics;
+import org.sonar.server.computation.monitoring.CeStepMetrics.StepStatistics;
+
+import static fi.iki.elonen.NanoHTTPD.MIME_PLAINTEXT;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.METHOD_NOT_ALLOWED;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.OK;
+import static fi.iki.elonen.NanoHTTPD.newFixedLengthResponse;
+
+/**
+ * Serves the statistics of the steps of the Compute Engine tasks in the text exposition format of Prometheus.
+ */
+public class MetricsHttpAction implements HttpAction {
+
+  private static final String PATH = "metrics";
+  private static final String TEXT_FORMAT_MIME_TYPE = "text/plain; version=0.0.4";
+  private static final String METRIC_PREFIX = "sonar_ce_step_";
+
+  private final CeStepMetrics stepMetrics;
+
+  public MetricsHttpAction(CeStepMetrics stepMetrics) {
+    this.stepMetrics = stepMetrics;
+  }
+
+  @Override
+  public void register(ActionRegistry registry) {
+    registry.register(PATH, this);
+  }
+
+  @Override
+  public NanoHTTPD.Response serve(NanoHTTPD.IHTTPSession session) {
+    if (session.getMethod() != NanoHTTPD.Method.GET) {
+      return newFixedLengthResponse(METHOD_NOT_ALLOWED, MIME_PLAINTEXT, null);
+    }
+
+    List<StepStatistics> statistics = stepMetrics.getStatistics();
+    StringBuilder res = new StringBuilder();
+    appendDurationHistogram(res, statistics);
+    appendCounter(res, statistics, "cpu_time_ms_total", "CPU time of the thread executing the step, in milliseconds", StepStatistics::getCpuTimeMs);
+    appendCounter(res, statistics, "allocated_bytes_total", "Bytes allocated by the thread executing the step", StepStatistics::getAllocatedBytes);
+    appendCounter(res, statistics, "sql_statements_total", "SQL statements executed by the step", StepStatistics::getSqlStatementCount);
+    appendCounter(res, statistics, "sql_rows_read_total", "Rows read from the database by the step", StepStatistics::getSqlRowsRead);
+    appendCounter(res, statistics, "sql_rows_written_total", "Rows written to the database by the step", StepStatistics::getSqlRowsWritten);
+    return newFixedLengthResponse(OK, TEXT_FORMAT_MIME_TYPE, res.toString());
+  }
+
+  private static void appendDurationHistogram(StringBuilder res, List<StepStatistics> statistics) {
+    String name = METRIC_PREFIX + "duration_ms";
+    appendHeader(res, name, "Duration of the executions of the step, in milliseconds", "histogram");
+    List<Long> bounds = CeStepMetrics.DURATION_BUCKETS_MS;
+    for (StepStatistics stepStatistics : statistics) {
+      long cumulativeCount = 0;
+      for (int bucket = 0; bucket <= bounds.size(); bucket++) {
+        cumulativeCount += stepStatistics.getDurationBucketCount(bucket);
+        String upperBound = bucket < bounds.size() ? String.valueOf(bounds.get(bucket)) : "+Inf";
+        res.append(name).append("_bucket{").append(labels(stepStatistics))
+          .append(",le=\"").append(upperBound).append("\"} ").append(cumulativeCount).append('\n');
+      }
+      appendSample(res, name + "_sum", stepStatistics, stepStatistics.getDurationMs());
+      appendSample(res, name + "_count", stepStatistics, stepStatistics.getCount());
+    }
+  }
+
+  private static void appendCounter(StringBuilder res, List<StepStatistics> statistics, String suffix, String help, ToLongFunction<StepStatistics> value) {
+    String name = METRIC_PREFIX + suffix;
+    appendHeader(res, name, help, "counter");
+    for (StepStatistics stepStatistics : statistics) {
+      appendSample(res, name, stepStatistics, value.applyAsLong(stepStatistics));
+    }
+  }
+
+  private static void appendHeader(StringBuilder res, String name, String help, String type) {
+    res.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    res.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void appendSample(StringBuilder res, String name, StepStatistics stepStatistics, long value) {
+    res.append(name).append('{').append(labels(stepStatistics)).append("} ").append(value).append('\n');
+  }
+
+  private static String labels(StepStatistics stepStatistics) {
+    return "task_type=\"" + escape(stepStatistics.getTaskType()) + "\",step=\"" + escape(stepStatistics.getStep()) + '"';
+  }
+
+  private static String escape(String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
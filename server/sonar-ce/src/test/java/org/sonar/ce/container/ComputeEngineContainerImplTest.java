@@ -90,10 +90,10 @@ public class ComputeEngineContainerImplTest {
         CONTAINER_ITSELF
           + 78 // level 4
           + 4 // content of CeConfigurationModule
-          + 3 // content of CeHttpModule
-          + 5 // content of CeQueueModule
-          + 4 // content of ProjectAnalysisTaskModule
-          + 4 // content of CeTaskProcessorModule
+          + 4 // content of CeHttpModule
+          + 7 // content of CeQueueModule
+          + 5 // content of ProjectAnalysisTaskModule
+          + 5 // content of CeTaskProcessorModule
     );
     assertThat(picoContainer.getParent().getComponentAdapters()).hasSize(
       CONTAINER_ITSELF
@@ -0,0 +1,97 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import fi.iki.elonen.NanoHTTPD;
+import java.io.IOException;
+import java.util.Collections;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.sonar.ce.httpd.HttpAction;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.server.computation.monitoring.CeStepMetrics;
+import org.sonar.server.computation.task.step.StepMetrics;
+
+import static fi.iki.elonen.NanoHTTPD.Method.GET;
+import static fi.iki.elonen.NanoHTTPD.Method.POST;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.METHOD_NOT_ALLOWED;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.sonar.ce.httpd.CeHttpUtils.createHttpSession;
+
+public class MetricsHttpActionTest {
+
+  private CeStepMetrics stepMetrics = new CeStepMetrics();
+  private MetricsHttpAction underTest = new MetricsHttpAction(stepMetrics);
+
+  @Test
+  public void register_to_path_metrics() {
+    HttpAction.ActionRegistry actionRegistry = mock(HttpAction.ActionRegistry.class);
+
+    underTest.register(actionRegistry);
+
+    verify(actionRegistry).register("metrics", underTest);
+  }
+
+  @Test
+  public void serves_METHOD_NOT_ALLOWED_error_when_method_is_not_GET() {
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(POST));
+    assertThat(response.getStatus()).isEqualTo(METHOD_NOT_ALLOWED);
+  }
+
+  @Test
+  public void serves_only_metric_descriptions_when_no_task_was_executed() throws IOException {
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(GET));
+
+    assertThat(response.getStatus()).isEqualTo(OK);
+    assertThat(readBody(response))
+      .contains("# TYPE sonar_ce_step_duration_ms histogram\n")
+      .contains("# TYPE sonar_ce_step_sql_statements_total counter\n")
+      .doesNotContain("task_type=");
+  }
+
+  @Test
+  public void serves_statistics_of_steps() throws IOException {
+    stepMetrics.addTask("REPORT", "TASK_1", Collections.singletonList(
+      new StepMetrics("Persist \"sources\"", 50, 40, 2_000, new SqlStatistics(3, 5, 7), Collections.emptyMap())));
+
+    String body = readBody(underTest.serve(createHttpSession(GET)));
+
+    String labels = "task_type=\"REPORT\",step=\"Persist \\\"sources\\\"\"";
+    assertThat(body)
+      .contains("sonar_ce_step_duration_ms_bucket{" + labels + ",le=\"10\"} 0\n")
+      .contains("sonar_ce_step_duration_ms_bucket{" + labels + ",le=\"100\"} 1\n")
+      .contains("sonar_ce_step_duration_ms_bucket{" + labels + ",le=\"+Inf\"} 1\n")
+      .contains("sonar_ce_step_duration_ms_sum{" + labels + "} 50\n")
+      .contains("sonar_ce_step_duration_ms_count{" + labels + "} 1\n")
+      .contains("sonar_ce_step_cpu_time_ms_total{" + labels + "} 40\n")
+      .contains("sonar_ce_step_allocated_bytes_total{" + labels + "} 2000\n")
+      .contains("sonar_ce_step_sql_statements_total{" + labels + "} 3\n")
+      .contains("sonar_ce_step_sql_rows_read_total{" + labels + "} 5\n")
+      .contains("sonar_ce_step_sql_rows_written_total{" + labels + "} 7\n");
+  }
+
+  private static String readBody(NanoHTTPD.Response response) throws IOException {
+    return IOUtils.toString(response.getData(), UTF_8);
+  }
+}
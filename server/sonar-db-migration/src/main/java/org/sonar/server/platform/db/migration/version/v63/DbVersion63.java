@@ -41,6 +41,9 @@ public class DbVersion63 implements DbVersion {
       .add(1506, "Add index on PROJECTS.ORGANIZATION_UUID", AddIndexOnOrganizationUuidOfProjects.class)
       .add(1507, "Drop table RESOURCE_INDEX", DropTableResourceIndex.class)
       .add(1508, "Add columns ORGANIZATIONS.DEFAULT_PERM_TEMPLATE_*", AddDefaultPermTemplateColumnsToOrganizations.class)
-      .add(1509, "Populate columns ORGANIZATIONS.DEFAULT_PERM_TEMPLATE_*", PopulateDefaultPermTemplateColumnsOfOrganizations.class);
+      .add(1509, "Populate columns ORGANIZATIONS.DEFAULT_PERM_TEMPLATE_*", PopulateDefaultPermTemplateColumnsOfOrganizations.class)
+      .add(1510, "Add column CE_ACTIVITY.STEP_METRICS", AddStepMetricsColumnToCeActivity.class)
+      .add(1511, "Add column CE_QUEUE.LANE", AddLaneColumnToCeQueue.class)
+      .add(1512, "Add column CE_ACTIVITY.LANE", AddLaneColumnToCeActivity.class);
   }
 }
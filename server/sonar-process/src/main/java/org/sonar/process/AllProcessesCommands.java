@@ -60,6 +60,8 @@ import static org.sonar.process.ProcessCommands.MAX_PROCESSES;
  *   <li>Fourth byte will always contain {@link #EMPTY} unless process declares that it is operational by writing {@link #OPERATIONAL}.
  *       This does not imply that is done starting.</li>
  *   <li>The next 8 bytes contains a long (value of {@link System#currentTimeMillis()}) which represents the date of the last ping</li>
+ *   <li>The next {@link #SYSTEM_INFO_URL_SIZE_IN_BYTES} bytes contains the URL of the HTTP server of the process</li>
+ *   <li>The last 8 bytes contains a long incremented by any process which adds tasks to the queue of current one</li>
  * </ul>
  * </p>
  */
@@ -72,8 +74,9 @@ public class AllProcessesCommands implements AutoCloseable {
   private static final int SYSTEM_INFO_URL_BYTE_OFFSET = PING_BYTE_OFFSET + 8;
 
   private static final int SYSTEM_INFO_URL_SIZE_IN_BYTES = 500;
+  private static final int QUEUE_SEQUENCE_BYTE_OFFSET = SYSTEM_INFO_URL_BYTE_OFFSET + SYSTEM_INFO_URL_SIZE_IN_BYTES;
 
-  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 1 + 1 + 1 + 1 + 8 + SYSTEM_INFO_URL_SIZE_IN_BYTES;
+  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 1 + 1 + 1 + 1 + 8 + SYSTEM_INFO_URL_SIZE_IN_BYTES + 8;
 
   // With this shared memory we can handle up to MAX_PROCESSES processes
   private static final int MAX_SHARED_MEMORY = BYTE_LENGTH_FOR_ONE_PROCESS * MAX_PROCESSES;
@@ -167,6 +170,18 @@ public class AllProcessesCommands implements AutoCloseable {
     writeBytes(processNumber, SYSTEM_INFO_URL_BYTE_OFFSET, urlBytes);
   }
 
+  /**
+   * To be executed by any process which adds tasks to the queue of the specified process. Concurrent increments may be
+   * lost, which does not matter as readers only watch for changes of the value.
+   */
+  void incrementQueueSequence(int processNumber) {
+    writeLong(processNumber, QUEUE_SEQUENCE_BYTE_OFFSET, readLong(processNumber, QUEUE_SEQUENCE_BYTE_OFFSET) + 1);
+  }
+
+  long getQueueSequence(int processNumber) {
+    return readLong(processNumber, QUEUE_SEQUENCE_BYTE_OFFSET);
+  }
+
   /**
    * To be executed by monitor process to ask for child process termination
    */
@@ -292,6 +307,16 @@ public class AllProcessesCommands implements AutoCloseable {
       return AllProcessesCommands.this.getSystemInfoUrl(processNumber);
     }
 
+    @Override
+    public void incrementQueueSequence() {
+      AllProcessesCommands.this.incrementQueueSequence(processNumber);
+    }
+
+    @Override
+    public long getQueueSequence() {
+      return AllProcessesCommands.this.getQueueSequence(processNumber);
+    }
+
     @Override
     public void askForStop() {
       AllProcessesCommands.this.askForStop(processNumber);
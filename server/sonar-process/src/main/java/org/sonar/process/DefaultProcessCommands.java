@@ -101,6 +101,16 @@ public class DefaultProcessCommands implements ProcessCommands {
     return delegate.getHttpUrl();
   }
 
+  @Override
+  public void incrementQueueSequence() {
+    delegate.incrementQueueSequence();
+  }
+
+  @Override
+  public long getQueueSequence() {
+    return delegate.getQueueSequence();
+  }
+
   @Override
   public void askForStop() {
     delegate.askForStop();
@@ -59,6 +59,17 @@ public interface ProcessCommands extends AutoCloseable {
 
   String getHttpUrl();
 
+  /**
+   * To be executed by any process which adds tasks to the queue of the process, so that it can start processing them
+   * without waiting for its next polling of the queue.
+   */
+  void incrementQueueSequence();
+
+  /**
+   * Value which changes each time {@link #incrementQueueSequence()} is called.
+   */
+  long getQueueSequence();
+
   /**
    * To be executed by monitor process to ask for child process termination
    */
@@ -114,6 +114,22 @@ public class AllProcessesCommandsTest {
     }
   }
 
+  @Test
+  public void increment_and_read_queue_sequence() throws IOException {
+    try (AllProcessesCommands commands = new AllProcessesCommands(temp.newFolder())) {
+      int offset = 512;
+      assertThat(readLong(commands, offset)).isEqualTo(0L);
+      assertThat(commands.getQueueSequence(PROCESS_NUMBER)).isEqualTo(0L);
+
+      commands.incrementQueueSequence(PROCESS_NUMBER);
+      commands.incrementQueueSequence(PROCESS_NUMBER);
+
+      assertThat(readLong(commands, offset)).isEqualTo(2L);
+      assertThat(commands.getQueueSequence(PROCESS_NUMBER)).isEqualTo(2L);
+      assertThat(commands.getQueueSequence(PROCESS_NUMBER + 1)).isEqualTo(0L);
+    }
+  }
+
   @Test
   public void ask_for_stop() throws Exception {
     try (AllProcessesCommands commands = new AllProcessesCommands(temp.newFolder())) {
@@ -22,6 +22,7 @@ package org.sonar.ce;
 import org.sonar.ce.http.CeHttpClient;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeQueueImpl;
+import org.sonar.ce.queue.ComputeEngineProcessNotifier;
 import org.sonar.ce.taskprocessor.ReportTaskProcessorDeclaration;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.queue.ReportSubmitter;
@@ -34,6 +35,7 @@ public class CeModule extends Module {
 
       // Queue
       CeQueueImpl.class,
+      ComputeEngineProcessNotifier.class,
       ReportSubmitter.class,
 
       // Core tasks processors
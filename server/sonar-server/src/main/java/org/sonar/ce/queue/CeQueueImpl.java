@@ -52,14 +52,21 @@ public class CeQueueImpl implements CeQueue {
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final CeTaskSubmitListener[] submitListeners;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
   public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+    this(dbClient, uuidFactory, defaultOrganizationProvider, new CeTaskSubmitListener[0]);
+  }
+
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider,
+    CeTaskSubmitListener[] submitListeners) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.submitListeners = submitListeners;
   }
 
   @Override
@@ -76,6 +83,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = new CeTaskSubmitToInsertedCeQueueDto(dbSession, dbClient).apply(submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      notifySubmitListeners();
       return task;
 
     } finally {
@@ -97,6 +105,7 @@ public class CeQueueImpl implements CeQueue {
         .toList();
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      notifySubmitListeners();
       return tasks;
 
     } finally {
@@ -104,6 +113,12 @@ public class CeQueueImpl implements CeQueue {
     }
   }
 
+  private void notifySubmitListeners() {
+    for (CeTaskSubmitListener submitListener : submitListeners) {
+      submitListener.onSubmit();
+    }
+  }
+
   protected CeTask loadTask(DbSession dbSession, CeQueueDto dto) {
     if (dto.getComponentUuid() == null) {
       return new CeQueueDtoToCeTask(defaultOrganizationProvider.get().getUuid()).apply(dto);
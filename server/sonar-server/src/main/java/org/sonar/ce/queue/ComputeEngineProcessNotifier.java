@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.process.DefaultProcessCommands;
+
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+import static org.sonar.process.ProcessId.COMPUTE_ENGINE;
+
+/**
+ * Notifies the Compute Engine process, through the IPC shared directory, that tasks have been submitted by the
+ * Web Server.
+ */
+public class ComputeEngineProcessNotifier implements CeTaskSubmitListener {
+  private static final Logger LOG = Loggers.get(ComputeEngineProcessNotifier.class);
+
+  private final Settings settings;
+
+  public ComputeEngineProcessNotifier(Settings settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public void onSubmit() {
+    String sharedPath = settings.getString(PROPERTY_SHARED_PATH);
+    if (sharedPath == null) {
+      // not started by the monitor, the Compute Engine will process the tasks on its next polling of the queue
+      return;
+    }
+    try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(new File(sharedPath), COMPUTE_ENGINE.getIpcIndex())) {
+      commands.incrementQueueSequence();
+    } catch (Exception e) {
+      LOG.warn("Failed to notify Compute Engine of submitted tasks", e);
+    }
+  }
+}
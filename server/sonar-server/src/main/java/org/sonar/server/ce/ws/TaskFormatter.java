@@ -40,6 +40,7 @@ import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.server.computation.queue.CeTaskLane;
 import org.sonarqube.ws.WsCe;
 
 /**
@@ -84,6 +85,7 @@ public class TaskFormatter {
       builder.setSubmitterLogin(dto.getSubmitterLogin());
     }
     builder.setSubmittedAt(DateUtils.formatDateTime(new Date(dto.getCreatedAt())));
+    setLaneAndPriority(builder, dto.getLane());
     if (dto.getStartedAt() != null) {
       builder.setStartedAt(DateUtils.formatDateTime(new Date(dto.getStartedAt())));
     }
@@ -130,6 +132,7 @@ public class TaskFormatter {
       builder.setSubmitterLogin(dto.getSubmitterLogin());
     }
     builder.setSubmittedAt(DateUtils.formatDateTime(new Date(dto.getSubmittedAt())));
+    setLaneAndPriority(builder, dto.getLane());
     if (dto.getStartedAt() != null) {
       builder.setStartedAt(DateUtils.formatDateTime(new Date(dto.getStartedAt())));
     }
@@ -152,6 +155,16 @@ public class TaskFormatter {
     return builder.build();
   }
 
+  /**
+   * The priority of a task is the weight of its lane, see {@link CeTaskLane}.
+   */
+  private static void setLaneAndPriority(WsCe.Task.Builder builder, @Nullable String lane) {
+    if (lane != null) {
+      builder.setLane(lane);
+      builder.setPriority(CeTaskLane.valueOf(lane).getWeight());
+    }
+  }
+
   private static void buildComponent(WsCe.Task.Builder builder, @Nullable ComponentDto componentDto) {
     if (componentDto != null) {
       builder.setComponentKey(componentDto.getKey());
@@ -31,4 +31,47 @@ public interface CeConfiguration {
    * when previous one had nothing to do.
    */
   long getQueuePollingDelay();
+
+  /**
+   * The number of threads used to execute independent {@link org.sonar.server.computation.task.step.ComputationStep}
+   * of a CeTask concurrently. {@code 1} means steps are executed one after the other.
+   */
+  int getStepThreadCount();
+
+  /**
+   * The maximum number of issues written to the database in a single JDBC batch when persisting the issues of a
+   * project analysis.
+   */
+  int getIssuesBatchSize();
+
+  /**
+   * The number of threads building the sources of the files of a project analysis while they are persisted.
+   */
+  int getFileSourcesThreadCount();
+
+  /**
+   * The number of threads visiting the subtrees of the modules of a project concurrently when aggregating measures
+   * with formulas (see {@link org.sonar.server.computation.task.projectanalysis.component.ParallelPathAwareCrawler}).
+   * {@code 1} means the component tree is visited by a single thread.
+   */
+  int getVisitorsThreadCount();
+
+  /**
+   * Whether {@link org.sonar.server.computation.task.projectanalysis.step.LoadCrossProjectDuplicationsRepositoryStep}
+   * checks the blocks of the files against an in-memory filter of the hashes of the duplications index before querying
+   * the database.
+   */
+  boolean isCrossProjectDuplicationsFilterEnabled();
+
+  /**
+   * The execution time, in milliseconds, above which the tasks of a component are considered large: the next tasks of
+   * the same type on this component are scheduled in the lane of large tasks.
+   */
+  long getLargeTaskThreshold();
+
+  /**
+   * The number of workers which never process large tasks, so that small tasks are not blocked behind them. It is
+   * capped to {@link #getWorkerCount()} - 1.
+   */
+  int getSmallTasksReservedWorkerCount();
 }
@@ -25,53 +25,126 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.BatchSession;
 
 import static java.lang.String.format;
 
 /**
- * Immutable implementation of {@link CeConfiguration} which takes value returned by
- * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY} and
- * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called.
+ * Immutable implementation of {@link CeConfiguration} which reads its values from the following properties:
+ * <ul>
+ *   <li>{@link #CE_WORKERS_COUNT_PROPERTY}: {@link #getWorkerCount()}</li>
+ *   <li>{@link #CE_STEP_THREAD_COUNT_PROPERTY}: {@link #getStepThreadCount()}</li>
+ *   <li>{@link #CE_ISSUES_BATCH_SIZE_PROPERTY}: {@link #getIssuesBatchSize()}</li>
+ *   <li>{@link #CE_FILE_SOURCES_THREAD_COUNT_PROPERTY}: {@link #getFileSourcesThreadCount()}</li>
+ *   <li>{@link #CE_VISITORS_THREAD_COUNT_PROPERTY}: {@link #getVisitorsThreadCount()}</li>
+ *   <li>{@link #CE_CROSS_PROJECT_DUPLICATIONS_FILTER_PROPERTY}: {@link #isCrossProjectDuplicationsFilterEnabled()}</li>
+ *   <li>{@link #CE_LARGE_TASK_THRESHOLD_PROPERTY}, in seconds: {@link #getLargeTaskThreshold()}</li>
+ *   <li>{@link #CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY}: {@link #getSmallTasksReservedWorkerCount()}</li>
+ * </ul>
+ * {@link #getQueuePollingDelay()} always returns {@link #DEFAULT_QUEUE_POLLING_DELAY}.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   public static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  public static final String CE_STEP_THREAD_COUNT_PROPERTY = "sonar.ce.stepThreadCount";
+  public static final String CE_ISSUES_BATCH_SIZE_PROPERTY = "sonar.ce.issuesBatchSize";
+  public static final String CE_FILE_SOURCES_THREAD_COUNT_PROPERTY = "sonar.ce.fileSourcesThreadCount";
+  public static final String CE_VISITORS_THREAD_COUNT_PROPERTY = "sonar.ce.visitorsThreadCount";
+  public static final String CE_CROSS_PROJECT_DUPLICATIONS_FILTER_PROPERTY = "sonar.ce.crossProjectDuplicationsFilter";
+  public static final String CE_LARGE_TASK_THRESHOLD_PROPERTY = "sonar.ce.largeTaskThreshold";
+  public static final String CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY = "sonar.ce.smallTasksReservedWorkers";
 
   private static final Logger LOG = Loggers.get(CeConfigurationImpl.class);
 
   @VisibleForTesting
   protected static final int DEFAULT_WORKER_COUNT = 1;
+  @VisibleForTesting
+  protected static final int DEFAULT_STEP_THREAD_COUNT = 1;
+  @VisibleForTesting
+  protected static final int DEFAULT_ISSUES_BATCH_SIZE = BatchSession.MAX_BATCH_SIZE;
+  @VisibleForTesting
+  protected static final int DEFAULT_FILE_SOURCES_THREAD_COUNT = 1;
+  @VisibleForTesting
+  protected static final int DEFAULT_VISITORS_THREAD_COUNT = 1;
+  @VisibleForTesting
+  protected static final boolean DEFAULT_CROSS_PROJECT_DUPLICATIONS_FILTER = false;
+  // 10 minutes
+  @VisibleForTesting
+  protected static final int DEFAULT_LARGE_TASK_THRESHOLD_SECONDS = 10 * 60;
+  @VisibleForTesting
+  protected static final int DEFAULT_SMALL_TASKS_RESERVED_WORKERS = 1;
   // 2 seconds
   @VisibleForTesting
   protected static final long DEFAULT_QUEUE_POLLING_DELAY = 2 * 1000L;
 
   private final int workerCount;
+  private final int stepThreadCount;
+  private final int issuesBatchSize;
+  private final int fileSourcesThreadCount;
+  private final int visitorsThreadCount;
+  private final boolean crossProjectDuplicationsFilterEnabled;
+  private final long largeTaskThreshold;
+  private final int smallTasksReservedWorkerCount;
 
   public CeConfigurationImpl(Settings settings) {
-    String workerCountAsStr = settings.getString(CE_WORKERS_COUNT_PROPERTY);
-    if (workerCountAsStr == null || workerCountAsStr.isEmpty()) {
-      this.workerCount = DEFAULT_WORKER_COUNT;
-    } else {
-      this.workerCount = parseStringValue(workerCountAsStr);
+    this.workerCount = readPositiveInt(settings, CE_WORKERS_COUNT_PROPERTY, DEFAULT_WORKER_COUNT);
+    this.stepThreadCount = readPositiveInt(settings, CE_STEP_THREAD_COUNT_PROPERTY, DEFAULT_STEP_THREAD_COUNT);
+    this.issuesBatchSize = readPositiveInt(settings, CE_ISSUES_BATCH_SIZE_PROPERTY, DEFAULT_ISSUES_BATCH_SIZE);
+    this.fileSourcesThreadCount = readPositiveInt(settings, CE_FILE_SOURCES_THREAD_COUNT_PROPERTY, DEFAULT_FILE_SOURCES_THREAD_COUNT);
+    this.visitorsThreadCount = readPositiveInt(settings, CE_VISITORS_THREAD_COUNT_PROPERTY, DEFAULT_VISITORS_THREAD_COUNT);
+    this.crossProjectDuplicationsFilterEnabled = readBoolean(settings, CE_CROSS_PROJECT_DUPLICATIONS_FILTER_PROPERTY, DEFAULT_CROSS_PROJECT_DUPLICATIONS_FILTER);
+    this.largeTaskThreshold = readPositiveInt(settings, CE_LARGE_TASK_THRESHOLD_PROPERTY, DEFAULT_LARGE_TASK_THRESHOLD_SECONDS) * 1000L;
+    this.smallTasksReservedWorkerCount = readNonNegativeInt(settings, CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY, DEFAULT_SMALL_TASKS_RESERVED_WORKERS);
+  }
+
+  private static int readNonNegativeInt(Settings settings, String propertyKey, int defaultValue) {
+    String valueAsStr = settings.getString(propertyKey);
+    if (valueAsStr == null || valueAsStr.isEmpty()) {
+      return defaultValue;
     }
+    try {
+      int value = Integer.parseInt(valueAsStr);
+      if (value >= 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // error below
+    }
+    throw MessageException.of(format("value '%s' of property %s is invalid. It must a positive integer or 0.", valueAsStr, propertyKey));
+  }
+
+  private static boolean readBoolean(Settings settings, String propertyKey, boolean defaultValue) {
+    String valueAsStr = settings.getString(propertyKey);
+    if (valueAsStr == null || valueAsStr.isEmpty()) {
+      return defaultValue;
+    }
+    return Boolean.parseBoolean(valueAsStr);
   }
 
-  private static int parseStringValue(String workerCountAsStr) {
+  private static int readPositiveInt(Settings settings, String propertyKey, int defaultValue) {
+    String valueAsStr = settings.getString(propertyKey);
+    if (valueAsStr == null || valueAsStr.isEmpty()) {
+      return defaultValue;
+    }
+    return parseStringValue(propertyKey, valueAsStr);
+  }
+
+  private static int parseStringValue(String propertyKey, String valueAsStr) {
     try {
-      int value = Integer.parseInt(workerCountAsStr);
+      int value = Integer.parseInt(valueAsStr);
       if (value < 1) {
-        throw parsingError(workerCountAsStr);
+        throw parsingError(propertyKey, valueAsStr);
       }
       return value;
     } catch (NumberFormatException e) {
-      throw parsingError(workerCountAsStr);
+      throw parsingError(propertyKey, valueAsStr);
     }
   }
 
-  private static MessageException parsingError(String workerCountAsStr) {
+  private static MessageException parsingError(String propertyKey, String valueAsStr) {
     return MessageException.of(format(
       "value '%s' of property %s is invalid. It must an integer strictly greater than 0.",
-      workerCountAsStr,
-      CE_WORKERS_COUNT_PROPERTY)
+      valueAsStr,
+      propertyKey)
       );
   }
 
@@ -80,6 +153,9 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     if (this.workerCount > 1) {
       LOG.info("Compute Engine will use {} concurrent workers to process tasks", this.workerCount);
     }
+    if (this.stepThreadCount > 1) {
+      LOG.info("Compute Engine will use {} threads to execute independent steps of a task", this.stepThreadCount);
+    }
   }
 
   @Override
@@ -96,4 +172,39 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   public long getQueuePollingDelay() {
     return DEFAULT_QUEUE_POLLING_DELAY;
   }
+
+  @Override
+  public int getStepThreadCount() {
+    return stepThreadCount;
+  }
+
+  @Override
+  public int getIssuesBatchSize() {
+    return issuesBatchSize;
+  }
+
+  @Override
+  public int getFileSourcesThreadCount() {
+    return fileSourcesThreadCount;
+  }
+
+  @Override
+  public int getVisitorsThreadCount() {
+    return visitorsThreadCount;
+  }
+
+  @Override
+  public boolean isCrossProjectDuplicationsFilterEnabled() {
+    return crossProjectDuplicationsFilterEnabled;
+  }
+
+  @Override
+  public long getLargeTaskThreshold() {
+    return largeTaskThreshold;
+  }
+
+  @Override
+  public int getSmallTasksReservedWorkerCount() {
+    return Math.min(smallTasksReservedWorkerCount, workerCount - 1);
+  }
 }
@@ -0,0 +1,205 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.sonar.server.computation.task.step.StepMetrics;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Aggregates, by task type and step, the {@link StepMetrics} of the Compute Engine tasks executed since startup and
+ * keeps the summary of the steps of each task until it is stored with the activity of the task.
+ * <p>
+ * Only durations are recorded for the sub-steps of a step (see
+ * {@link org.sonar.server.computation.task.step.ComputationStep.WithSubSteps}). Their statistics are identified by the
+ * description of the step and the name of the sub-step separated by {@link #SUB_STEP_SEPARATOR}.
+ * </p>
+ */
+public class CeStepMetrics {
+  public static final String SUB_STEP_SEPARATOR = " / ";
+
+  /**
+   * Upper bounds, in milliseconds, of the buckets of the histograms of the durations. Durations greater than the last
+   * bound are counted in an extra bucket.
+   */
+  public static final List<Long> DURATION_BUCKETS_MS = ImmutableList.of(10L, 100L, 1_000L, 10_000L, 60_000L, 600_000L);
+
+  private final Map<String, StepStatistics> statisticsByKey = new LinkedHashMap<>();
+  private final ConcurrentMap<String, String> summariesByTaskUuid = new ConcurrentHashMap<>();
+
+  /**
+   * Records the metrics of the steps of the specified task.
+   */
+  public void addTask(String taskType, String taskUuid, List<StepMetrics> steps) {
+    synchronized (statisticsByKey) {
+      for (StepMetrics step : steps) {
+        statistics(taskType, step.getDescription()).add(step);
+        for (Map.Entry<String, Long> subStep : step.getSubStepDurations().entrySet()) {
+          statistics(taskType, step.getDescription() + SUB_STEP_SEPARATOR + subStep.getKey()).addDuration(subStep.getValue());
+        }
+      }
+    }
+    if (!steps.isEmpty()) {
+      summariesByTaskUuid.put(taskUuid, steps.stream().map(StepMetrics::toString).collect(joining("\n")));
+    }
+  }
+
+  private StepStatistics statistics(String taskType, String step) {
+    return statisticsByKey.computeIfAbsent(taskType + '\n' + step, k -> new StepStatistics(taskType, step));
+  }
+
+  /**
+   * Returns, and forgets, the summary of the metrics of the steps of the specified task, one line per step and sub-step.
+   */
+  public Optional<String> pollTaskSummary(String taskUuid) {
+    return Optional.ofNullable(summariesByTaskUuid.remove(taskUuid));
+  }
+
+  /**
+   * Copy of the statistics of each step, in order of first execution.
+   */
+  public List<StepStatistics> getStatistics() {
+    synchronized (statisticsByKey) {
+      List<StepStatistics> res = new ArrayList<>(statisticsByKey.size());
+      for (StepStatistics statistics : statisticsByKey.values()) {
+        res.add(new StepStatistics(statistics));
+      }
+      return res;
+    }
+  }
+
+  public static final class StepStatistics {
+    private final String taskType;
+    private final String step;
+    private final long[] durationBucketCounts;
+    private long count;
+    private long durationMs;
+    private long cpuTimeMs;
+    private long allocatedBytes;
+    private long sqlStatementCount;
+    private long sqlRowsRead;
+    private long sqlRowsWritten;
+
+    private StepStatistics(String taskType, String step) {
+      this.taskType = taskType;
+      this.step = step;
+      this.durationBucketCounts = new long[DURATION_BUCKETS_MS.size() + 1];
+    }
+
+    private StepStatistics(StepStatistics source) {
+      this.taskType = source.taskType;
+      this.step = source.step;
+      this.durationBucketCounts = source.durationBucketCounts.clone();
+      this.count = source.count;
+      this.durationMs = source.durationMs;
+      this.cpuTimeMs = source.cpuTimeMs;
+      this.allocatedBytes = source.allocatedBytes;
+      this.sqlStatementCount = source.sqlStatementCount;
+      this.sqlRowsRead = source.sqlRowsRead;
+      this.sqlRowsWritten = source.sqlRowsWritten;
+    }
+
+    private void add(StepMetrics metrics) {
+      addDuration(metrics.getDurationMs());
+      cpuTimeMs += Math.max(0L, metrics.getCpuTimeMs());
+      allocatedBytes += Math.max(0L, metrics.getAllocatedBytes());
+      sqlStatementCount += metrics.getSqlStatementCount();
+      sqlRowsRead += metrics.getSqlRowsRead();
+      sqlRowsWritten += metrics.getSqlRowsWritten();
+    }
+
+    private void addDuration(long duration) {
+      count++;
+      durationMs += duration;
+      int bucket = 0;
+      while (bucket < DURATION_BUCKETS_MS.size() && duration > DURATION_BUCKETS_MS.get(bucket)) {
+        bucket++;
+      }
+      durationBucketCounts[bucket]++;
+    }
+
+    public String getTaskType() {
+      return taskType;
+    }
+
+    public String getStep() {
+      return step;
+    }
+
+    /**
+     * Number of executions of the step.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Number of executions of the step which lasted at most {@code DURATION_BUCKETS_MS.get(bucket)} milliseconds and more
+     * than the bound of the previous bucket. The last bucket counts the executions longer than the greatest bound.
+     */
+    public long getDurationBucketCount(int bucket) {
+      return durationBucketCounts[bucket];
+    }
+
+    public long getDurationMs() {
+      return durationMs;
+    }
+
+    public long getCpuTimeMs() {
+      return cpuTimeMs;
+    }
+
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    public long getSqlStatementCount() {
+      return sqlStatementCount;
+    }
+
+    public long getSqlRowsRead() {
+      return sqlRowsRead;
+    }
+
+    public long getSqlRowsWritten() {
+      return sqlRowsWritten;
+    }
+
+    @Override
+    public String toString() {
+      return taskType + " | " + step +
+        " | count=" + count +
+        " | time=" + durationMs + "ms" +
+        " | cpu=" + cpuTimeMs + "ms" +
+        " | allocated=" + allocatedBytes + "B" +
+        " | statements=" + sqlStatementCount +
+        " | rowsRead=" + sqlRowsRead +
+        " | rowsWritten=" + sqlRowsWritten;
+    }
+  }
+}
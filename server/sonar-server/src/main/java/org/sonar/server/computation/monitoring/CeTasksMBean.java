@@ -52,4 +52,11 @@ public interface CeTasksMBean {
    * Configured number of Workers.
    */
   int getWorkerCount();
+
+  /**
+   * Statistics of the executions of each step of each type of task since startup, one line per task type and step,
+   * for example {@code "REPORT | Persist sources | count=3 | time=1530ms | cpu=1200ms | allocated=104857600B | statements=120 | rowsRead=45 | rowsWritten=300"}.
+   * Durations, CPU time, allocated bytes and SQL counters are cumulated over all the executions of the step.
+   */
+  String[] getStepStatistics();
 }
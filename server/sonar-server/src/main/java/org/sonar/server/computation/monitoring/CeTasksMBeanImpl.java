@@ -29,10 +29,12 @@ import org.sonar.server.computation.configuration.CeConfiguration;
 public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSection {
   private final CEQueueStatus queueStatus;
   private final CeConfiguration ceConfiguration;
+  private final CeStepMetrics stepMetrics;
 
-  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration) {
+  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration, CeStepMetrics stepMetrics) {
     this.queueStatus = queueStatus;
     this.ceConfiguration = ceConfiguration;
+    this.stepMetrics = stepMetrics;
   }
 
   @Override
@@ -78,6 +80,13 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return ceConfiguration.getWorkerCount();
   }
 
+  @Override
+  public String[] getStepStatistics() {
+    return stepMetrics.getStatistics().stream()
+      .map(CeStepMetrics.StepStatistics::toString)
+      .toArray(String[]::new);
+  }
+
   @Override
   public ProtobufSystemInfo.Section toProtobuf() {
     ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.db.ce.CeTaskSchedulingDto;
+import org.sonar.server.computation.configuration.CeConfiguration;
+
+/**
+ * Chooses the order in which the pending tasks of the queue are tried to be started by the workers:
+ * <ul>
+ *   <li>only the oldest pending task of a component can be started, tasks of a project are never run concurrently</li>
+ *   <li>a task is {@link CeTaskLane#LARGE large} when the last execution of a task of the same type on the same
+ *   component lasted at least {@link CeConfiguration#getLargeTaskThreshold()}. Other tasks are
+ *   {@link CeTaskLane#SMALL small}</li>
+ *   <li>{@link CeConfiguration#getSmallTasksReservedWorkerCount()} workers never run large tasks</li>
+ *   <li>lanes are chosen by smooth weighted round-robin on {@link CeTaskLane#getWeight()}. The lane of a task is charged
+ *   only once the task is {@link #started(CeTaskSchedulingDto, List) started}</li>
+ *   <li>within a lane, tasks are ordered by number of tasks of their organization being already in progress, then
+ *   by submission date</li>
+ * </ul>
+ */
+@ComputeEngineSide
+public class CeTaskScheduler {
+
+  private final CeConfiguration ceConfiguration;
+
+  // credits of the smooth weighted round-robin between lanes
+  private final Map<CeTaskLane, Integer> credits = new EnumMap<>(CeTaskLane.class);
+
+  public CeTaskScheduler(CeConfiguration ceConfiguration) {
+    this.ceConfiguration = ceConfiguration;
+  }
+
+  public CeTaskLane laneOf(CeTaskSchedulingDto task) {
+    Long lastExecutionTimeMs = task.getLastExecutionTimeMs();
+    if (lastExecutionTimeMs != null && lastExecutionTimeMs >= ceConfiguration.getLargeTaskThreshold()) {
+      return CeTaskLane.LARGE;
+    }
+    return CeTaskLane.SMALL;
+  }
+
+  /**
+   * @param eligibleTasks pending tasks which can be started, ordered by submission date
+   * @param inProgressTasks tasks currently in progress
+   * @return the tasks to try to start, in this order. Empty if none can be started.
+   */
+  public synchronized List<CeTaskSchedulingDto> schedule(List<CeTaskSchedulingDto> eligibleTasks, List<CeTaskSchedulingDto> inProgressTasks) {
+    Multiset<String> inProgressByOrganization = HashMultiset.create();
+    int inProgressLargeTasks = 0;
+    for (CeTaskSchedulingDto task : inProgressTasks) {
+      inProgressByOrganization.add(task.getOrganizationUuid());
+      if (CeTaskLane.LARGE.name().equals(task.getLane())) {
+        inProgressLargeTasks++;
+      }
+    }
+
+    Map<CeTaskLane, List<CeTaskSchedulingDto>> tasksByLane = new EnumMap<>(CeTaskLane.class);
+    Set<String> componentUuids = new HashSet<>();
+    for (CeTaskSchedulingDto task : eligibleTasks) {
+      String componentUuid = task.getComponentUuid();
+      if (componentUuid == null || componentUuids.add(componentUuid)) {
+        tasksByLane.computeIfAbsent(laneOf(task), lane -> new ArrayList<>()).add(task);
+      }
+    }
+    if (inProgressLargeTasks >= ceConfiguration.getWorkerCount() - ceConfiguration.getSmallTasksReservedWorkerCount()) {
+      tasksByLane.remove(CeTaskLane.LARGE);
+    }
+    if (tasksByLane.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Comparator<CeTaskSchedulingDto> comparator = Comparator
+      .<CeTaskSchedulingDto>comparingInt(task -> inProgressByOrganization.count(task.getOrganizationUuid()))
+      .thenComparingLong(CeTaskSchedulingDto::getCreatedAt);
+    List<CeTaskSchedulingDto> result = new ArrayList<>(eligibleTasks.size());
+    for (CeTaskLane lane : orderLanes(tasksByLane.keySet())) {
+      List<CeTaskSchedulingDto> tasks = tasksByLane.get(lane);
+      tasks.sort(comparator);
+      result.addAll(tasks);
+    }
+    return result;
+  }
+
+  /**
+   * Every lane of the scheduled tasks earns its weight, and the lane of the started task pays the sum of the weights.
+   * Credits are not changed by the peeks which do not start any task.
+   *
+   * @param startedTask the task which was started
+   * @param scheduledTasks the tasks returned by the {@link #schedule(List, List)} call the started task comes from
+   */
+  public synchronized void started(CeTaskSchedulingDto startedTask, List<CeTaskSchedulingDto> scheduledTasks) {
+    Set<CeTaskLane> lanes = EnumSet.noneOf(CeTaskLane.class);
+    for (CeTaskSchedulingDto task : scheduledTasks) {
+      lanes.add(laneOf(task));
+    }
+    int totalWeight = 0;
+    for (CeTaskLane lane : lanes) {
+      credits.merge(lane, lane.getWeight(), Integer::sum);
+      totalWeight += lane.getWeight();
+    }
+    credits.merge(laneOf(startedTask), -totalWeight, Integer::sum);
+  }
+
+  /**
+   * Lanes are ordered by the credit they would have once they earn their weight. The richest one goes first.
+   */
+  private List<CeTaskLane> orderLanes(Set<CeTaskLane> lanes) {
+    List<CeTaskLane> result = new ArrayList<>(lanes);
+    result.sort(Comparator.comparingInt((CeTaskLane lane) -> credits.getOrDefault(lane, 0) + lane.getWeight()).reversed());
+    return result;
+  }
+}
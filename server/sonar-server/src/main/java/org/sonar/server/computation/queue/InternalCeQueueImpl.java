@@ -24,6 +24,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -34,11 +35,14 @@ import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeQueueImpl;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
+import org.sonar.ce.queue.CeTaskSubmitListener;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskSchedulingDto;
+import org.sonar.server.computation.monitoring.CeStepMetrics;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -46,20 +50,31 @@ import static com.google.common.base.Preconditions.checkState;
 
 @ComputeEngineSide
 public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
+  private static final int MAX_TASKS_TO_SCHEDULE = 500;
 
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
+  private final CeStepMetrics stepMetrics;
+  private final CeTaskScheduler scheduler;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    CeStepMetrics stepMetrics, CeTaskScheduler scheduler, DefaultOrganizationProvider defaultOrganizationProvider) {
+    this(system2, dbClient, uuidFactory, queueStatus, stepMetrics, scheduler, defaultOrganizationProvider, new CeTaskSubmitListener[0]);
+  }
+
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    CeStepMetrics stepMetrics, CeTaskScheduler scheduler, DefaultOrganizationProvider defaultOrganizationProvider,
+    CeTaskSubmitListener[] submitListeners) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, submitListeners);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.stepMetrics = stepMetrics;
+    this.scheduler = scheduler;
   }
 
   @Override
@@ -69,13 +84,20 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
     DbSession dbSession = dbClient.openSession(false);
     try {
-      Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession);
-      CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+      List<CeTaskSchedulingDto> inProgressTasks = dbClient.ceQueueDao().selectInProgressForScheduling(dbSession);
+      List<CeTaskSchedulingDto> eligibleTasks = dbClient.ceQueueDao().selectEligibleForScheduling(dbSession, MAX_TASKS_TO_SCHEDULE);
+      List<CeTaskSchedulingDto> scheduledTasks = scheduler.schedule(eligibleTasks, inProgressTasks);
+      for (CeTaskSchedulingDto candidate : scheduledTasks) {
+        // candidate may have been started by another worker in the meantime
+        Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession, candidate.getUuid(), scheduler.laneOf(candidate).name());
+        if (dto.isPresent()) {
+          scheduler.started(candidate, scheduledTasks);
+          CeTask task = loadTask(dbSession, dto.get());
+          queueStatus.addInProgress();
+          return Optional.of(task);
+        }
       }
-      return Optional.fromNullable(task);
+      return Optional.absent();
 
     } finally {
       dbClient.closeSession(dbSession);
@@ -99,6 +121,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateQueueStatus(status, activityDto);
       updateTaskResult(activityDto, taskResult);
       updateError(activityDto, error);
+      activityDto.setStepMetrics(stepMetrics.pollTaskSummary(task.getUuid()).orElse(null));
       remove(dbSession, queueDto.get(), activityDto);
     } finally {
       dbClient.closeSession(dbSession);
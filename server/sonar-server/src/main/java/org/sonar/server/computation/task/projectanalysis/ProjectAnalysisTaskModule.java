@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis;
 import org.sonar.server.computation.queue.ReportSubmitter;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactoryImpl;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationsFilter;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 
@@ -33,6 +34,9 @@ public class ProjectAnalysisTaskModule extends Module {
       ContainerFactoryImpl.class,
       ComputationStepExecutor.class,
       ReportTaskProcessor.class,
-      ReportSubmitter.class);
+      ReportSubmitter.class,
+
+      // cross tasks
+      CrossProjectDuplicationsFilter.class);
   }
 }
@@ -68,6 +68,14 @@ public interface AnalysisMetadataHolder {
    */
   boolean isCrossProjectDuplicationEnabled();
 
+  /**
+   * Whether data of the files which are unchanged since the previous analysis can be copied from it rather than being
+   * computed again from the report. Always {@code false} on the first analysis of a project.
+   *
+   * @throws IllegalStateException if incremental flag or base analysis has not been set
+   */
+  boolean isIncrementalAnalysis();
+
   /**
    * @throws IllegalStateException if branch has not been set
    */
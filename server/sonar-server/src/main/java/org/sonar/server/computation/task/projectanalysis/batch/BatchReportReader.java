@@ -48,8 +48,18 @@ public interface BatchReportReader {
 
   CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef);
 
+  /**
+   * Highlighting rules of which at least one line is in {@code fromLine} to {@code toLine} (inclusive).
+   */
+  CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef, int fromLine, int toLine);
+
   CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef);
 
+  /**
+   * Coverage of lines {@code fromLine} to {@code toLine} (inclusive).
+   */
+  CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef, int fromLine, int toLine);
+
   /**
    * Reads file source line by line. Return an absent optional if the file doest not exist
    */
@@ -24,23 +24,25 @@ import com.google.common.base.Throwables;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Parser;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.NoSuchElementException;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
+import org.picocontainer.Startable;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.LineReaderIterator;
+import org.sonar.scanner.protocol.output.ReportContainer;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
-public class BatchReportReaderImpl implements BatchReportReader {
+public class BatchReportReaderImpl implements BatchReportReader, Startable {
 
   private final BatchReportDirectoryHolder batchReportDirectoryHolder;
   private org.sonar.scanner.protocol.output.ScannerReportReader delegate;
+  @CheckForNull
+  private ReportContainer container;
   // caching of metadata which are read often
   private ScannerReport.Metadata metadata;
 
@@ -50,7 +52,29 @@ public class BatchReportReaderImpl implements BatchReportReader {
 
   private void ensureInitialized() {
     if (this.delegate == null) {
-      this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(batchReportDirectoryHolder.getDirectory());
+      File report = batchReportDirectoryHolder.getDirectory();
+      if (report.isFile()) {
+        this.container = ReportContainer.open(report);
+        this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(container);
+      } else {
+        this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(report);
+      }
+    }
+  }
+
+  @Override
+  public void start() {
+    // report is opened lazily, when it has been extracted
+  }
+
+  @Override
+  public void stop() {
+    if (container != null) {
+      try {
+        container.close();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to close report container " + container.getFile(), e);
+      }
     }
   }
 
@@ -66,16 +90,11 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<String> readScannerLogs() {
     ensureInitialized();
-    File file = delegate.getFileStructure().analysisLog();
-    if (!file.exists()) {
+    InputStream input = delegate.openAnalysisLog();
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
-    try {
-      InputStreamReader reader = new InputStreamReader(FileUtils.openInputStream(file), StandardCharsets.UTF_8);
-      return new LineReaderIterator(reader);
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to open file " + file, e);
-    }
+    return new LineReaderIterator(new InputStreamReader(input, StandardCharsets.UTF_8));
   }
 
   @Override
@@ -133,25 +152,33 @@ public class BatchReportReaderImpl implements BatchReportReader {
     return delegate.readComponentSyntaxHighlighting(fileRef);
   }
 
+  @Override
+  public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef, int fromLine, int toLine) {
+    ensureInitialized();
+    return delegate.readComponentSyntaxHighlighting(fileRef, fromLine, toLine);
+  }
+
   @Override
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
     ensureInitialized();
     return delegate.readComponentCoverage(fileRef);
   }
 
+  @Override
+  public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef, int fromLine, int toLine) {
+    ensureInitialized();
+    return delegate.readComponentCoverage(fileRef, fromLine, toLine);
+  }
+
   @Override
   public Optional<CloseableIterator<String>> readFileSource(int fileRef) {
     ensureInitialized();
-    File file = delegate.readFileSource(fileRef);
-    if (file == null) {
+    InputStream input = delegate.openFileSource(fileRef);
+    if (input == null) {
       return Optional.absent();
     }
 
-    try {
-      return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(FileUtils.openInputStream(file), StandardCharsets.UTF_8)));
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to traverse file: " + file, e);
-    }
+    return Optional.of(new CloseableLineIterator(new LineIterator(new InputStreamReader(input, StandardCharsets.UTF_8))));
   }
 
   private static class CloseableLineIterator extends CloseableIterator<String> {
@@ -186,35 +213,21 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.Test> readTests(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readTests(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.Test.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
+    InputStream input = delegate.openTests(testFileRef);
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
+    return new ParserCloseableIterator<>(ScannerReport.Test.parser(), input);
   }
 
   @Override
   public CloseableIterator<ScannerReport.CoverageDetail> readCoverageDetails(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readCoverageDetails(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
+    InputStream input = delegate.openCoverageDetails(testFileRef);
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
+    return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), input);
   }
 
   @Override
@@ -225,17 +238,17 @@ public class BatchReportReaderImpl implements BatchReportReader {
 
   private static class ParserCloseableIterator<T> extends CloseableIterator<T> {
     private final Parser<T> parser;
-    private final FileInputStream fileInputStream;
+    private final InputStream inputStream;
 
-    public ParserCloseableIterator(Parser<T> parser, FileInputStream fileInputStream) {
+    public ParserCloseableIterator(Parser<T> parser, InputStream inputStream) {
       this.parser = parser;
-      this.fileInputStream = fileInputStream;
+      this.inputStream = inputStream;
     }
 
     @Override
     protected T doNext() {
       try {
-        return parser.parseDelimitedFrom(fileInputStream);
+        return parser.parseDelimitedFrom(inputStream);
       } catch (InvalidProtocolBufferException e) {
         Throwables.propagate(e);
         // actually never reached
@@ -245,7 +258,7 @@ public class BatchReportReaderImpl implements BatchReportReader {
 
     @Override
     protected void doClose() throws Exception {
-      fileInputStream.close();
+      inputStream.close();
     }
   }
 }
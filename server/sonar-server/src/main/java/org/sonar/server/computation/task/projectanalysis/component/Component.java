@@ -58,8 +58,21 @@ public interface Component {
     }
   }
 
+  /**
+   * Status of a file compared to the previous analysis, as detected by the scanner.
+   */
+  enum Status {
+    UNAVAILABLE, SAME, CHANGED, ADDED
+  }
+
   Type getType();
 
+  /**
+   * Status of the component compared to the previous analysis. Always {@link Status#UNAVAILABLE} when the component
+   * is not a file or when the scanner did not provide it.
+   */
+  Status getStatus();
+
   /**
    * Returns the component uuid
    */
@@ -35,6 +35,7 @@ import static org.apache.commons.lang.StringUtils.trimToNull;
 @Immutable
 public class ComponentImpl implements Component {
   private final Type type;
+  private final Status status;
   private final String name;
   private final String key;
   private final String uuid;
@@ -49,6 +50,7 @@ public class ComponentImpl implements Component {
 
   private ComponentImpl(Builder builder) {
     this.type = builder.type;
+    this.status = builder.status;
     this.key = builder.key;
     this.name = builder.name;
     this.description = builder.description;
@@ -63,6 +65,11 @@ public class ComponentImpl implements Component {
     return type;
   }
 
+  @Override
+  public Status getStatus() {
+    return status;
+  }
+
   @Override
   public String getUuid() {
     return uuid;
@@ -117,6 +124,7 @@ public class ComponentImpl implements Component {
     private static final String NAME_CANNOT_BE_NULL = "name can't be null";
 
     private final Type type;
+    private Status status = Status.UNAVAILABLE;
     private ReportAttributes reportAttributes;
     private String uuid;
     private String key;
@@ -134,6 +142,11 @@ public class ComponentImpl implements Component {
       return this;
     }
 
+    public Builder setStatus(Status status) {
+      this.status = requireNonNull(status, "status can't be null");
+      return this;
+    }
+
     public Builder setUuid(String s) {
       this.uuid = requireNonNull(s, UUID_CANNOT_BE_NULL);
       return this;
@@ -186,6 +199,7 @@ public class ComponentImpl implements Component {
     return "ComponentImpl{" +
       "key='" + key + '\'' +
       ", type=" + type +
+      ", status=" + status +
       ", uuid='" + uuid + '\'' +
       ", name='" + name + '\'' +
       ", description='" + description + '\'' +
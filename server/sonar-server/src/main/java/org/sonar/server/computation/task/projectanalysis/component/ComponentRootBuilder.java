@@ -123,6 +123,7 @@ public class ComponentRootBuilder {
 
   private ComponentImpl.Builder createCommonBuilder(ScannerReport.Component reportComponent, String componentKey, String latestModuleKey) {
     return ComponentImpl.builder(convertType(reportComponent.getType()))
+      .setStatus(convertStatus(reportComponent.getStatus()))
       .setUuid(uuidSupplier.apply(componentKey))
       .setKey(componentKey)
       .setDescription(trimToNull(reportComponent.getDescription()))
@@ -174,7 +175,7 @@ public class ComponentRootBuilder {
   @VisibleForTesting
   static ReportAttributes createOtherReportAttributes(ScannerReport.Component component) {
     return createCommonBuilder(component)
-      .setVersion(trimToNull(component.getVersion()))
+      .setVersion(intern(trimToNull(component.getVersion())))
       .build();
   }
 
@@ -193,10 +194,18 @@ public class ComponentRootBuilder {
     checkArgument(component.getLines() > 0, "File '%s' has no line", component.getPath());
     return new FileAttributes(
       component.getIsTest(),
-      trimToNull(component.getLanguage()),
+      intern(trimToNull(component.getLanguage())),
       component.getLines());
   }
 
+  /**
+   * Languages and versions are shared by many components, but each of them is a new String when read from the report
+   */
+  @CheckForNull
+  private static String intern(@Nullable String s) {
+    return s == null ? null : s.intern();
+  }
+
   @VisibleForTesting
   static Component.Type convertType(ScannerReport.Component.ComponentType type) {
     switch (type) {
@@ -212,4 +221,18 @@ public class ComponentRootBuilder {
         throw new IllegalArgumentException("Unsupported ComponentType value " + type);
     }
   }
+
+  @VisibleForTesting
+  static Component.Status convertStatus(ScannerReport.Component.FileStatus status) {
+    switch (status) {
+      case SAME:
+        return Component.Status.SAME;
+      case CHANGED:
+        return Component.Status.CHANGED;
+      case ADDED:
+        return Component.Status.ADDED;
+      default:
+        return Component.Status.UNAVAILABLE;
+    }
+  }
 }
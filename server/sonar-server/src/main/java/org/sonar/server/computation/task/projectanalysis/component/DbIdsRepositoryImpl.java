@@ -19,32 +19,74 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
-import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
- * Cache of persisted component (component id and snapshot id) that can be used in the persistence steps
+ * Cache of persisted component (component id and snapshot id) that can be used in the persistence steps.
+ * <p>
+ * Component ids are stored in an array indexed by the refs of the components in the report, which are dense, rather
+ * than in a map of boxed values.
+ * </p>
  */
 public class DbIdsRepositoryImpl implements MutableDbIdsRepository {
+  private static final long NO_ID = -1L;
+  private static final int INITIAL_CAPACITY = 1024;
 
-  private final MapBasedDbIdsRepository<Integer> delegate = new MapBasedDbIdsRepository<>(toReportRef());
+  private long[] componentIdsByRef = newIds(INITIAL_CAPACITY);
+  private final Map<Developer, Long> developerIdsByKey = new HashMap<>();
 
   @Override
   public DbIdsRepository setComponentId(Component component, long componentId) {
-    return delegate.setComponentId(component, componentId);
+    int ref = component.getReportAttributes().getRef();
+    checkArgument(ref >= 0, "Ref of Component '%s' is negative", component.getKey());
+    ensureCapacity(ref);
+    long existingComponentId = componentIdsByRef[ref];
+    checkState(existingComponentId == NO_ID,
+      "Component id '%s' is already registered in repository for Component '%s', can not set new id '%s'", existingComponentId, component.getKey(), componentId);
+    componentIdsByRef[ref] = componentId;
+    return this;
   }
 
   @Override
   public long getComponentId(Component component) {
-    return delegate.getComponentId(component);
+    int ref = component.getReportAttributes().getRef();
+    long componentId = ref >= 0 && ref < componentIdsByRef.length ? componentIdsByRef[ref] : NO_ID;
+    checkState(componentId != NO_ID, "No component id registered in repository for Component '%s'", component.getKey());
+    return componentId;
   }
 
   @Override
   public DbIdsRepository setDeveloperId(Developer developer, long developerId) {
-    return delegate.setDeveloperId(developer, developerId);
+    Long existingId = developerIdsByKey.get(developer);
+    checkState(existingId == null, "Id '%s' is already registered in repository for Developer '%s', can not set new id '%s'", existingId, developer, developerId);
+    developerIdsByKey.put(developer, developerId);
+    return this;
   }
 
   @Override
   public long getDeveloperId(Developer developer) {
-    return delegate.getDeveloperId(developer);
+    Long devId = developerIdsByKey.get(developer);
+    checkState(devId != null, "No id registered in repository for Developer '%s'", developer);
+    return devId;
+  }
+
+  private void ensureCapacity(int ref) {
+    if (ref >= componentIdsByRef.length) {
+      int length = componentIdsByRef.length;
+      long[] ids = Arrays.copyOf(componentIdsByRef, Math.max(ref + 1, length * 2));
+      Arrays.fill(ids, length, ids.length, NO_ID);
+      componentIdsByRef = ids;
+    }
+  }
+
+  private static long[] newIds(int capacity) {
+    long[] ids = new long[capacity];
+    Arrays.fill(ids, NO_ID);
+    return ids;
   }
 }
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.List;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -93,7 +95,10 @@ public final class DepthTraversalTypeAwareCrawler implements ComponentCrawler {
   }
 
   private void visitChildren(Component component) {
-    for (Component child : component.getChildren()) {
+    // indexed loop rather than an iterator, so that crawling does not allocate anything
+    List<Component> children = component.getChildren();
+    for (int i = 0; i < children.size(); i++) {
+      Component child = children.get(i);
       if (verifyDepth(child)) {
         visit(child);
       }
@@ -71,4 +71,10 @@ final class DequeBasedPath<T> implements PathAwareVisitor.Path<T>, Iterable<Path
   public PathAwareVisitor.PathElement<T> pop() {
     return deque.pop();
   }
+
+  public DequeBasedPath<T> copy() {
+    DequeBasedPath<T> copy = new DequeBasedPath<>();
+    copy.deque.addAll(deque);
+    return copy;
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.singletonList;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+
+/**
+ * Loads data of files by batches in the order the files are visited by {@link DepthTraversalTypeAwareCrawler}, to
+ * avoid one round trip to the database per file.
+ * <p>
+ * When data of a file is requested and has not been loaded yet, data of the file and of the files visited after it
+ * are loaded with a single call to the batch loader. Data of at most {@code batchSize} files are kept in memory, each of
+ * them being released once returned. Data of a key unknown to the visit order is loaded on its own.
+ * </p>
+ * <p>
+ * Files known to have no data can be skipped by a key filter. It is called lazily on the files visited after the
+ * requested one while building the batch, so that files visited before the first requested one are never tested.
+ * </p>
+ */
+public class FileDataPrefetcher<T> {
+  private final Supplier<List<String>> keysInVisitOrderSupplier;
+  private final int batchSize;
+  private final Predicate<String> keyFilter;
+  private final Function<List<String>, Map<String, T>> batchLoader;
+
+  private Map<String, Integer> indexByKey;
+  private List<String> keysInVisitOrder;
+  private final Set<String> loadedKeys = new HashSet<>();
+  private final Map<String, T> dataByKey = new HashMap<>();
+
+  /**
+   * @param keysInVisitOrderSupplier keys of the files in visit order, called the first time data is requested
+   * @param batchLoader loads data of the specified keys. Keys without data may be omitted from the returned map.
+   */
+  public FileDataPrefetcher(Supplier<List<String>> keysInVisitOrderSupplier, int batchSize, Function<List<String>, Map<String, T>> batchLoader) {
+    this(keysInVisitOrderSupplier, key -> true, batchSize, batchLoader);
+  }
+
+  /**
+   * @param keyFilter whether a key visited after the requested one may have data and must be part of its batch
+   */
+  public FileDataPrefetcher(Supplier<List<String>> keysInVisitOrderSupplier, Predicate<String> keyFilter, int batchSize,
+    Function<List<String>, Map<String, T>> batchLoader) {
+    checkArgument(batchSize > 0, "batch size must be greater than 0");
+    this.keysInVisitOrderSupplier = keysInVisitOrderSupplier;
+    this.keyFilter = keyFilter;
+    this.batchSize = batchSize;
+    this.batchLoader = batchLoader;
+  }
+
+  /**
+   * Data of the specified key or {@code null} if the batch loader returned none.
+   */
+  @CheckForNull
+  public synchronized T get(String key) {
+    if (!loadedKeys.remove(key)) {
+      load(keysOfBatchStartingAt(key));
+      loadedKeys.remove(key);
+    }
+    return dataByKey.remove(key);
+  }
+
+  private List<String> keysOfBatchStartingAt(String key) {
+    if (indexByKey == null) {
+      keysInVisitOrder = keysInVisitOrderSupplier.get();
+      indexByKey = new HashMap<>(keysInVisitOrder.size());
+      for (int i = 0; i < keysInVisitOrder.size(); i++) {
+        indexByKey.putIfAbsent(keysInVisitOrder.get(i), i);
+      }
+    }
+    Integer index = indexByKey.get(key);
+    if (index == null) {
+      return singletonList(key);
+    }
+    List<String> keys = new ArrayList<>(batchSize);
+    keys.add(key);
+    for (int i = index + 1; i < keysInVisitOrder.size() && keys.size() < batchSize; i++) {
+      String nextKey = keysInVisitOrder.get(i);
+      if (keyFilter.test(nextKey)) {
+        keys.add(nextKey);
+      }
+    }
+    return keys;
+  }
+
+  private void load(List<String> keys) {
+    loadedKeys.clear();
+    dataByKey.clear();
+    loadedKeys.addAll(keys);
+    dataByKey.putAll(batchLoader.apply(new ArrayList<>(keys)));
+  }
+
+  /**
+   * Files of the tree of the specified root, in the order they are visited by {@link DepthTraversalTypeAwareCrawler}.
+   */
+  public static List<Component> filesInVisitOrder(Component root) {
+    List<Component> files = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, PRE_ORDER) {
+        @Override
+        public void visitFile(Component file) {
+          files.add(file);
+        }
+      }).visit(root);
+    return files;
+  }
+}
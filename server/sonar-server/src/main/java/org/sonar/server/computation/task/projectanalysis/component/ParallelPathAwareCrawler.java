@@ -0,0 +1,180 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.Profiler;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.stream.Collectors.toList;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
+
+/**
+ * This crawler makes a {@link SubtreeSafePathAwareVisitor} visit a component tree, as {@link PathAwareCrawler} does.
+ * The difference is that the children of the projects, modules, views and sub-views are visited concurrently on a
+ * {@link ForkJoinPool}, each child being the root of an independent subtree.
+ * <p>
+ * The stacked element of the parent is forked for each child visited concurrently and merged back, in the order of the
+ * children, before the parent is visited in post-order.
+ * </p>
+ */
+public final class ParallelPathAwareCrawler<T> implements ComponentCrawler {
+  private static final String THREAD_NAME_PREFIX = "ce-visitors-";
+  private static final Set<Component.Type> FORKED_TYPES = EnumSet.of(PROJECT, MODULE, VIEW, SUBVIEW);
+
+  private final SubtreeSafePathAwareVisitor<T> visitor;
+  private final int threadCount;
+
+  private ParallelPathAwareCrawler(SubtreeSafePathAwareVisitor<T> visitor, int threadCount) {
+    checkArgument(threadCount > 1, "thread count must be > 1");
+    this.visitor = visitor;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Creates the crawler making the specified visitor visit a component tree: a {@link ParallelPathAwareCrawler} if
+   * {@code threadCount} is greater than 1, otherwise a {@link PathAwareCrawler}.
+   */
+  public static <T> ComponentCrawler of(SubtreeSafePathAwareVisitor<T> visitor, int threadCount) {
+    if (threadCount > 1) {
+      return new ParallelPathAwareCrawler<>(visitor, threadCount);
+    }
+    return new PathAwareCrawler<>(visitor);
+  }
+
+  @Override
+  public void visit(Component component) {
+    ForkJoinPool pool = new ForkJoinPool(threadCount, new VisitorsThreadFactory(), null, false);
+    try {
+      VisitTask task = new VisitTask(component, new PathAwareVisitorWrapper<>(visitor));
+      pool.invoke(task);
+      task.rethrowFailure();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private void visit(Component component, PathAwareVisitorWrapper<T> visitorWrapper) {
+    try {
+      visitImpl(component, visitorWrapper);
+    } catch (RuntimeException e) {
+      VisitException.rethrowOrWrap(
+        e,
+        "Visit of Component {key=%s,type=%s} failed",
+        component.getKey(), component.getType());
+    }
+  }
+
+  private void visitImpl(Component component, PathAwareVisitorWrapper<T> visitorWrapper) {
+    CrawlerDepthLimit maxDepth = visitorWrapper.getMaxDepth();
+    if (!maxDepth.isSameAs(component.getType()) && !maxDepth.isDeeperThan(component.getType())) {
+      return;
+    }
+
+    visitorWrapper.beforeComponent(component);
+    if (visitorWrapper.getOrder() == ComponentVisitor.Order.PRE_ORDER) {
+      visitNode(component, visitorWrapper);
+    }
+    visitChildren(component, visitorWrapper);
+    if (visitorWrapper.getOrder() == ComponentVisitor.Order.POST_ORDER) {
+      visitNode(component, visitorWrapper);
+    }
+    visitorWrapper.afterComponent(component);
+  }
+
+  private void visitChildren(Component component, PathAwareVisitorWrapper<T> visitorWrapper) {
+    List<Component> children = component.getChildren();
+    if (children.size() < 2 || !FORKED_TYPES.contains(component.getType())) {
+      for (Component child : children) {
+        visit(child, visitorWrapper);
+      }
+      return;
+    }
+
+    List<VisitTask> tasks = children.stream()
+      .map(child -> new VisitTask(child, visitorWrapper.fork()))
+      .collect(toList());
+    ForkJoinTask.invokeAll(tasks);
+    for (VisitTask task : tasks) {
+      task.rethrowFailure();
+    }
+    for (VisitTask task : tasks) {
+      visitorWrapper.join(task.visitorWrapper);
+    }
+  }
+
+  private void visitNode(Component component, PathAwareVisitorWrapper<T> visitorWrapper) {
+    Profiler profiler = Profiler.create(Loggers.get(visitor.getClass()))
+      .startTrace("Visiting component {}", component.getKey());
+    VisitorsCrawler.visitByType(component, visitorWrapper);
+    profiler.stopTrace();
+  }
+
+  private final class VisitTask extends RecursiveAction {
+    private final Component component;
+    private final PathAwareVisitorWrapper<T> visitorWrapper;
+    @CheckForNull
+    private RuntimeException failure;
+
+    private VisitTask(Component component, PathAwareVisitorWrapper<T> visitorWrapper) {
+      this.component = component;
+      this.visitorWrapper = visitorWrapper;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        visit(component, visitorWrapper);
+      } catch (RuntimeException e) {
+        // kept to be rethrown by the parent task as is, ForkJoinTask would wrap it into a copy of itself
+        this.failure = e;
+      }
+    }
+
+    private void rethrowFailure() {
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  private static final class VisitorsThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName(THREAD_NAME_PREFIX + threadCount.getAndIncrement());
+      return thread;
+    }
+  }
+}
@@ -19,16 +19,22 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 
 public class PathAwareVisitorWrapper<T> implements VisitorWrapper {
 
   private final PathAwareVisitor<T> delegate;
 
-  private final DequeBasedPath<T> stack = new DequeBasedPath<>();
+  private final DequeBasedPath<T> stack;
 
   public PathAwareVisitorWrapper(PathAwareVisitor<T> delegate) {
+    this(delegate, new DequeBasedPath<>());
+  }
+
+  private PathAwareVisitorWrapper(PathAwareVisitor<T> delegate, DequeBasedPath<T> stack) {
     this.delegate = delegate;
+    this.stack = stack;
   }
 
   @Override
@@ -96,6 +102,33 @@ public class PathAwareVisitorWrapper<T> implements VisitorWrapper {
     return delegate.getMaxDepth();
   }
 
+  /**
+   * Creates a wrapper to visit a child of the current Component concurrently with its other children.
+   *
+   * @throws IllegalStateException if the wrapped visitor is not a {@link SubtreeSafePathAwareVisitor}
+   */
+  PathAwareVisitorWrapper<T> fork() {
+    SubtreeSafePathAwareVisitor<T> visitor = subtreeSafeDelegate();
+    DequeBasedPath<T> forkedStack = stack.copy();
+    PathAwareVisitor.PathElement<T> current = forkedStack.pop();
+    forkedStack.add(new PathElementImpl<>(current.getComponent(), visitor.fork(current.getComponent(), current.getElement())));
+    return new PathAwareVisitorWrapper<>(delegate, forkedStack);
+  }
+
+  /**
+   * Merges the stacked element of the current Component in a wrapper created by {@link #fork()}, once the child it has
+   * been created for has been visited.
+   */
+  void join(PathAwareVisitorWrapper<T> fork) {
+    PathAwareVisitor.PathElement<T> current = stack.iterator().next();
+    subtreeSafeDelegate().merge(current.getComponent(), current.getElement(), fork.stack.current());
+  }
+
+  private SubtreeSafePathAwareVisitor<T> subtreeSafeDelegate() {
+    checkState(delegate instanceof SubtreeSafePathAwareVisitor, "Visitor %s does not support visiting subtrees concurrently", delegate);
+    return (SubtreeSafePathAwareVisitor<T>) delegate;
+  }
+
   private T createForComponent(Component component) {
     switch (component.getType()) {
       case PROJECT:
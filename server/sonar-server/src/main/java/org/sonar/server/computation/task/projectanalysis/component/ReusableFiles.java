@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import com.google.common.base.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+import org.sonar.server.property.InternalProperties;
+import org.sonar.server.qualityprofile.QPMeasureData;
+import org.sonar.server.qualityprofile.QualityProfile;
+
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+
+/**
+ * Files of an incremental analysis which are unchanged since the previous analysis. Their open issues are copied from
+ * the previous analysis rather than being tracked again from the report, except the issues of common rules which
+ * depend on measures like coverage or duplications.
+ * <p>
+ * Files are reusable only when the analysis uses the same quality profiles, with the same rules, and the same plugins
+ * as the previous analysis. Otherwise the issues of unchanged files may have changed too.
+ * </p>
+ *
+ * @see AnalysisMetadataHolder#isIncrementalAnalysis()
+ */
+public class ReusableFiles {
+  private static final Logger LOG = Loggers.get(ReusableFiles.class);
+  private static final String PLUGINS_PROPERTY_PREFIX = "ce.plugins.";
+
+  private final AnalysisMetadataHolder analysisMetadataHolder;
+  private final TreeRootHolder treeRootHolder;
+  private final BatchReportReader reportReader;
+  private final MetricRepository metricRepository;
+  private final MeasureRepository measureRepository;
+  private final InternalProperties internalProperties;
+
+  @CheckForNull
+  private Boolean sameConfiguration;
+
+  public ReusableFiles(AnalysisMetadataHolder analysisMetadataHolder, TreeRootHolder treeRootHolder, BatchReportReader reportReader,
+    MetricRepository metricRepository, MeasureRepository measureRepository, InternalProperties internalProperties) {
+    this.analysisMetadataHolder = analysisMetadataHolder;
+    this.treeRootHolder = treeRootHolder;
+    this.reportReader = reportReader;
+    this.metricRepository = metricRepository;
+    this.measureRepository = measureRepository;
+    this.internalProperties = internalProperties;
+  }
+
+  public boolean isReusable(Component component) {
+    return component.getType() == Component.Type.FILE
+      && component.getStatus() == Component.Status.SAME
+      && analysisMetadataHolder.isIncrementalAnalysis()
+      && hasSameConfigurationAsPreviousAnalysis();
+  }
+
+  private synchronized boolean hasSameConfigurationAsPreviousAnalysis() {
+    if (sameConfiguration == null) {
+      sameConfiguration = hasSameQualityProfiles() && hasSamePlugins();
+      if (!sameConfiguration) {
+        LOG.info("Quality profiles or plugins changed since previous analysis, issues of unchanged files are tracked again");
+      }
+    }
+    return sameConfiguration;
+  }
+
+  private boolean hasSameQualityProfiles() {
+    Optional<Measure> baseMeasure = measureRepository.getBaseMeasure(treeRootHolder.getRoot(), metricRepository.getByKey(CoreMetrics.QUALITY_PROFILES_KEY));
+    if (!baseMeasure.isPresent() || baseMeasure.get().getStringValue() == null) {
+      return false;
+    }
+    Map<String, QualityProfile> profiles = analysisMetadataHolder.getQProfilesByLanguage();
+    Set<QualityProfile> baseProfiles = QPMeasureData.fromJson(baseMeasure.get().getStringValue()).getProfiles();
+    if (baseProfiles.size() != profiles.size()) {
+      return false;
+    }
+    for (QualityProfile baseProfile : baseProfiles) {
+      QualityProfile profile = profiles.get(baseProfile.getLanguageKey());
+      if (profile == null
+        || !profile.getQpKey().equals(baseProfile.getQpKey())
+        || profile.getRulesUpdatedAt().after(baseProfile.getRulesUpdatedAt())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasSamePlugins() {
+    String plugins = pluginsFingerprint(reportReader.readMetadata());
+    return internalProperties.read(pluginsPropertyKey(treeRootHolder.getRoot().getUuid()))
+      .map(plugins::equals)
+      .orElse(false);
+  }
+
+  /**
+   * Key of the internal property storing the {@link #pluginsFingerprint(ScannerReport.Metadata) fingerprint} of the
+   * plugins used by the last analysis of the specified project. The uuid is hashed so that the key always fits in
+   * the column.
+   */
+  public static String pluginsPropertyKey(String projectUuid) {
+    return PLUGINS_PROPERTY_PREFIX + md5Hex(projectUuid);
+  }
+
+  public static String pluginsFingerprint(ScannerReport.Metadata metadata) {
+    StringBuilder plugins = new StringBuilder();
+    for (Map.Entry<String, String> plugin : new TreeMap<>(metadata.getPluginVersionsMap()).entrySet()) {
+      plugins.append(plugin.getKey()).append(':').append(plugin.getValue()).append(';');
+    }
+    return md5Hex(plugins.toString());
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link PathAwareVisitor} which supports having sibling subtrees of the component tree visited concurrently by
+ * {@link ParallelPathAwareCrawler}.
+ * <p>
+ * Implementations must be thread safe and must only share state between the visits of two components through their
+ * common ancestors: a Component is always visited by the same thread in pre-order and in post-order, but its
+ * children may each be visited by a different thread. Any repository written to during the visit must be thread safe.
+ * </p>
+ * <p>
+ * When the children of a Component are visited concurrently, each child is visited with its own copy of the path in
+ * which the stacked element of the Component is replaced by the element returned by {@link #fork(Component, Object)}.
+ * Once all the children have been visited, the forked elements are merged, in the order of the children, into the
+ * stacked element of the Component with {@link #merge(Component, Object, Object)}, before the Component is visited in
+ * post-order.
+ * </p>
+ * Stacked elements of the ancestors of the Component are shared by all the children and must only be read.
+ */
+public interface SubtreeSafePathAwareVisitor<T> extends PathAwareVisitor<T> {
+
+  /**
+   * Creates the stacked element of the specified Component to be used by the visit of one of its children.
+   */
+  @Nullable
+  T fork(Component component, @Nullable T element);
+
+  /**
+   * Merges into the stacked element of the specified Component the element created by {@link #fork(Component, Object)}
+   * once the visit of the child it has been created for is over.
+   */
+  void merge(Component component, @Nullable T element, @Nullable T forkedElement);
+}
@@ -114,6 +114,16 @@ public class VisitorsCrawler implements ComponentCrawler {
   private void visitNode(Component component, VisitorWrapper visitor) {
     Profiler profiler = Profiler.create(Loggers.get(visitor.getWrappedVisitor().getClass()))
       .startTrace("Visiting component {}", component.getKey());
+    visitByType(component, visitor);
+    long duration = profiler.stopTrace();
+    incrementDuration(visitor, duration);
+  }
+
+  /**
+   * Calls {@link VisitorWrapper#visitAny(Component)} and then the method of the {@link VisitorWrapper} specific to the
+   * type of the Component.
+   */
+  static void visitByType(Component component, VisitorWrapper visitor) {
     visitor.visitAny(component);
     switch (component.getType()) {
       case PROJECT:
@@ -140,8 +150,6 @@ public class VisitorsCrawler implements ComponentCrawler {
       default:
         throw new IllegalStateException(String.format("Unknown type %s", component.getType().name()));
     }
-    long duration = profiler.stopTrace();
-    incrementDuration(visitor, duration);
   }
 
   private void incrementDuration(VisitorWrapper visitorWrapper, long duration) {
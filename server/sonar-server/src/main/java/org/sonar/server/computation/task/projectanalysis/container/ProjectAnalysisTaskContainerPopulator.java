@@ -35,6 +35,7 @@ import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirect
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.DbIdsRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.component.DisabledComponentsHolderImpl;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolderImpl;
@@ -168,6 +169,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       SettingsRepositoryImpl.class,
       DbIdsRepositoryImpl.class,
       DisabledComponentsHolderImpl.class,
+      ReusableFiles.class,
       QualityGateServiceImpl.class,
       EvaluationResultTextConverterImpl.class,
       SourceLinesRepositoryImpl.class,
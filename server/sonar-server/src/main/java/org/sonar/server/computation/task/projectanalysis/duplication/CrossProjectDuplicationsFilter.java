@@ -0,0 +1,278 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.duplication;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.duplication.DuplicationHashDto;
+
+/**
+ * In-memory index of the hashes of the duplication blocks stored in table DUPLICATIONS_INDEX, shared by all the tasks
+ * of the Compute Engine. It is used to avoid querying the database for the blocks of a file which can't be duplicated
+ * in another project.
+ * <p>
+ * The index is partitioned by language, each partition being loaded from the database the first time it's requested.
+ * For each hash, a partition stores a 32 bits fingerprint and the project owning the hash (or a marker if several
+ * projects own it) in a single {@code long} of an open-addressing table. Collisions of fingerprints can only produce
+ * false positives, which are then discarded by the database query. A hash may never be filtered out while it
+ * exists in another project, so that the result of cross project duplications is not changed.
+ * </p>
+ * <p>
+ * The hashes of a project are added to the index after having been persisted (see {@link #addHashes(String, String, Collection)}).
+ * Hashes removed from the database are not removed from the index, so a partition is dropped, and loaded again
+ * when it's requested, once it has grown too much since its loading.
+ * </p>
+ * <p>
+ * A partition holds at most {@link #MAX_HASHES_PER_LANGUAGE} hashes by default. Beyond that, it is released and all
+ * the hashes of the language are candidates, so that they are looked up in the database as if there were no filter.
+ * </p>
+ */
+public class CrossProjectDuplicationsFilter {
+
+  private static final Logger LOGGER = Loggers.get(CrossProjectDuplicationsFilter.class);
+  // with a load factor of 3/4, a partition uses at most 2^23 slots of 8 bytes, i.e. 64 MB
+  private static final int MAX_HASHES_PER_LANGUAGE = 1 << 22;
+
+  private final DbClient dbClient;
+  private final int maxHashesPerLanguage;
+  private final ConcurrentMap<String, Partition> partitionsByLanguage = new ConcurrentHashMap<>();
+
+  public CrossProjectDuplicationsFilter(DbClient dbClient) {
+    this(dbClient, MAX_HASHES_PER_LANGUAGE);
+  }
+
+  @VisibleForTesting
+  CrossProjectDuplicationsFilter(DbClient dbClient, int maxHashesPerLanguage) {
+    this.dbClient = dbClient;
+    this.maxHashesPerLanguage = maxHashesPerLanguage;
+  }
+
+  /**
+   * Returns the hashes, among the specified ones, which may be duplicated in a project other than the specified one.
+   * The order of the hashes is kept, without duplicates.
+   */
+  public Set<String> selectCandidateHashes(String language, String projectUuid, Collection<String> hashes) {
+    Partition partition = partitionsByLanguage.computeIfAbsent(language, lang -> new Partition(lang, maxHashesPerLanguage));
+    partition.ensureLoaded(dbClient);
+    return partition.selectCandidates(projectUuid, hashes);
+  }
+
+  /**
+   * Adds to the index the hashes of a project which have just been persisted. Nothing is done if the partition of the
+   * language is not loaded yet, the hashes being read from the database when it will be loaded.
+   */
+  public void addHashes(String language, String projectUuid, Collection<String> hashes) {
+    Partition partition = partitionsByLanguage.get(language);
+    if (partition == null) {
+      return;
+    }
+    if (partition.add(projectUuid, hashes)) {
+      LOGGER.debug("Hashes of duplication blocks of language {} will be reloaded", language);
+      partitionsByLanguage.remove(language, partition);
+    }
+  }
+
+  @VisibleForTesting
+  static int fingerprint(String hash) {
+    // FNV-1a, folded on 32 bits
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < hash.length(); i++) {
+      h ^= hash.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    int fingerprint = (int) (h ^ (h >>> 32));
+    // 0 is reserved to empty slots
+    return fingerprint == 0 ? 1 : fingerprint;
+  }
+
+  private static final class Partition {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final int MULTIPLE_OWNERS = 0;
+    /**
+     * the partition is dropped when it contains more than this factor times the number of hashes loaded from database
+     */
+    private static final int RELOAD_FACTOR = 2;
+
+    private final String language;
+    private final int maxSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ownersByProjectUuid = new HashMap<>();
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size = 0;
+    private int loadedSize = -1;
+    // set when the partition has more than maxSize hashes. Slots are then released and all hashes are candidates.
+    private boolean overflowed = false;
+
+    private Partition(String language, int maxSize) {
+      this.language = language;
+      this.maxSize = maxSize;
+    }
+
+    private void ensureLoaded(DbClient dbClient) {
+      lock.readLock().lock();
+      try {
+        if (loadedSize >= 0) {
+          return;
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+
+      lock.writeLock().lock();
+      try {
+        if (loadedSize < 0) {
+          load(dbClient);
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    private void load(DbClient dbClient) {
+      Profiler profiler = Profiler.create(LOGGER).startDebug("Load hashes of duplication blocks of language " + language);
+      DbSession dbSession = dbClient.openSession(false);
+      try {
+        dbClient.duplicationDao().selectHashes(dbSession, language, context -> {
+          DuplicationHashDto dto = (DuplicationHashDto) context.getResultObject();
+          put(fingerprint(dto.getHash()), ownerOf(dto.getProjectUuid()));
+          if (size > maxSize) {
+            context.stop();
+          }
+        });
+      } finally {
+        dbClient.closeSession(dbSession);
+      }
+      loadedSize = size;
+      if (size > maxSize) {
+        profiler.stopDebug();
+        overflow();
+      } else {
+        profiler.stopInfo(String.format("Loaded %d hashes of duplication blocks of language %s (%d KB)", size, language, slots.length * 8L / 1024));
+      }
+    }
+
+    private void overflow() {
+      LOGGER.warn("More than {} hashes of duplication blocks of language {}. They are looked up in database without being filtered.", maxSize, language);
+      overflowed = true;
+      slots = new long[0];
+      ownersByProjectUuid.clear();
+    }
+
+    private Set<String> selectCandidates(String projectUuid, Collection<String> hashes) {
+      lock.readLock().lock();
+      try {
+        if (overflowed) {
+          return new LinkedHashSet<>(hashes);
+        }
+        Integer owner = ownersByProjectUuid.get(projectUuid);
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String hash : hashes) {
+          long slot = slots[find(fingerprint(hash))];
+          if (slot != 0L && (owner == null || (int) slot != owner)) {
+            candidates.add(hash);
+          }
+        }
+        return candidates;
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    /**
+     * @return {@code true} if the partition has grown too much and should be reloaded
+     */
+    private boolean add(String projectUuid, Collection<String> hashes) {
+      lock.writeLock().lock();
+      try {
+        if (overflowed) {
+          return false;
+        }
+        int owner = ownerOf(projectUuid);
+        for (String hash : hashes) {
+          put(fingerprint(hash), owner);
+        }
+        if (size > maxSize) {
+          overflow();
+          return false;
+        }
+        return loadedSize >= 0 && size > RELOAD_FACTOR * Math.max(loadedSize, INITIAL_CAPACITY);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+
+    private int ownerOf(String projectUuid) {
+      return ownersByProjectUuid.computeIfAbsent(projectUuid, uuid -> ownersByProjectUuid.size() + 1);
+    }
+
+    private void put(int fingerprint, int owner) {
+      int index = find(fingerprint);
+      long slot = slots[index];
+      if (slot == 0L) {
+        slots[index] = toSlot(fingerprint, owner);
+        size++;
+        if (size > slots.length / 4 * 3) {
+          resize();
+        }
+      } else if ((int) slot != owner) {
+        slots[index] = toSlot(fingerprint, MULTIPLE_OWNERS);
+      }
+    }
+
+    /**
+     * Index of the slot of the fingerprint, or of the empty slot where it should be inserted.
+     */
+    private int find(int fingerprint) {
+      int mask = slots.length - 1;
+      int index = fingerprint & mask;
+      while (slots[index] != 0L && (int) (slots[index] >>> 32) != fingerprint) {
+        index = (index + 1) & mask;
+      }
+      return index;
+    }
+
+    private void resize() {
+      long[] oldSlots = slots;
+      slots = new long[oldSlots.length * 2];
+      for (long slot : oldSlots) {
+        if (slot != 0L) {
+          slots[find((int) (slot >>> 32))] = slot;
+        }
+      }
+    }
+
+    private static long toSlot(int fingerprint, int owner) {
+      return ((long) fingerprint << 32) | (owner & 0xFFFFFFFFL);
+    }
+  }
+}
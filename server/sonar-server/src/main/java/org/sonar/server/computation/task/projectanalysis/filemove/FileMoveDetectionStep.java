@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.IntStream;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -199,31 +200,37 @@ public class FileMoveDetectionStep implements ComputationStep {
   }
 
   private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey) {
-    int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
-    int maxScore = 0;
-
+    List<File> dbFiles = new ArrayList<>(dbFileKeys.size());
     try (DbSession dbSession = dbClient.openSession(false)) {
-      int dbFileIndex = 0;
       for (String removedFileKey : dbFileKeys) {
-        File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
-        if (fileInDb == null) {
-          continue;
+        dbFiles.add(getFile(dbSession, dtosByKey.get(removedFileKey)));
+      }
+    }
+    List<File> reportFiles = new ArrayList<>(reportFileSourcesByKey.values());
+    int[][] candidates = MatchCandidates.compute(dbFiles, reportFiles);
+
+    // only candidate pairs are scored, any other pair can not reach MIN_REQUIRED_SCORE and keeps a score of 0
+    int[][] scoreMatrix = new int[dbFiles.size()][];
+    IntStream.range(0, dbFiles.size()).parallel().forEach(dbFileIndex -> {
+      int[] reportFileIndexes = candidates[dbFileIndex];
+      if (reportFileIndexes.length > 0) {
+        File fileInDb = dbFiles.get(dbFileIndex);
+        int[] scores = new int[reportFiles.size()];
+        for (int reportFileIndex : reportFileIndexes) {
+          scores[reportFileIndex] = fileSimilarity.score(fileInDb, reportFiles.get(reportFileIndex));
         }
+        scoreMatrix[dbFileIndex] = scores;
+      }
+    });
 
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
-          scoreMatrix[dbFileIndex][reportFileIndex] = score;
-          if (score > maxScore) {
-            maxScore = score;
-          }
-          reportFileIndex++;
+    int maxScore = 0;
+    for (int[] scores : scoreMatrix) {
+      if (scores != null) {
+        for (int score : scores) {
+          maxScore = Math.max(maxScore, score);
         }
-        dbFileIndex++;
       }
     }
-
     return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
   }
 
@@ -0,0 +1,217 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
+
+import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
+
+/**
+ * Selects, for each file of the DB, the files of the report whose score can reach {@link FileMoveDetectionStep#MIN_REQUIRED_SCORE}
+ * with {@link FileSimilarityImpl}, so that only these pairs of files have to be scored.
+ * <p>
+ * The score is based on the edit distance between the line hashes of the two files, which is at least the size of the
+ * bigger file minus the number of line hashes the two files have in common (counting duplicated lines as many times as
+ * they appear in both files). Pairs which don't share enough line hashes can't match and are not candidates.
+ * </p>
+ * <p>
+ * Line hashes are sorted from the rarest to the most common one, and a file can only match another one if they share
+ * at least one hash among their few rarest ones (prefix filtering). Only these prefixes are indexed, so that common lines
+ * (blank lines, closing braces...) don't make every file a candidate for every other one.
+ * </p>
+ */
+final class MatchCandidates {
+  private static final int[] NO_CANDIDATE = new int[0];
+
+  private MatchCandidates() {
+    // only static methods
+  }
+
+  /**
+   * @return for each DB file, the indexes in {@code reportFiles} of the candidate report files, in ascending order
+   */
+  static int[][] compute(List<File> dbFiles, List<File> reportFiles) {
+    Map<String, Integer> hashIds = new HashMap<>();
+    int[][] dbHashes = toHashIds(dbFiles, hashIds);
+    int[][] reportHashes = toHashIds(reportFiles, hashIds);
+    int[] ranks = rankByFrequency(hashIds.size(), dbHashes, reportHashes);
+    long[][] dbTokens = toSortedTokens(dbHashes, ranks);
+    long[][] reportTokens = toSortedTokens(reportHashes, ranks);
+
+    ListMultimap<Long, Integer> reportFilesByPrefixToken = ArrayListMultimap.create();
+    for (int reportIndex = 0; reportIndex < reportTokens.length; reportIndex++) {
+      long[] tokens = reportTokens[reportIndex];
+      for (int i = 0; i < prefixLength(tokens); i++) {
+        reportFilesByPrefixToken.put(tokens[i], reportIndex);
+      }
+    }
+
+    int[][] candidates = new int[dbTokens.length][];
+    // index of the last DB file for which a report file has been seen, avoids clearing a set for each DB file
+    int[] lastSeenBy = new int[reportTokens.length];
+    Arrays.fill(lastSeenBy, -1);
+    int[] buffer = new int[reportTokens.length];
+    for (int dbIndex = 0; dbIndex < dbTokens.length; dbIndex++) {
+      long[] tokens = dbTokens[dbIndex];
+      int count = 0;
+      for (int i = 0; i < prefixLength(tokens); i++) {
+        for (Integer reportIndex : reportFilesByPrefixToken.get(tokens[i])) {
+          if (lastSeenBy[reportIndex] != dbIndex) {
+            lastSeenBy[reportIndex] = dbIndex;
+            if (canMatch(tokens, reportTokens[reportIndex])) {
+              buffer[count] = reportIndex;
+              count++;
+            }
+          }
+        }
+      }
+      candidates[dbIndex] = count == 0 ? NO_CANDIDATE : sortedCopy(buffer, count);
+    }
+    return candidates;
+  }
+
+  private static int[][] toHashIds(List<File> files, Map<String, Integer> hashIds) {
+    int[][] res = new int[files.size()][];
+    for (int i = 0; i < files.size(); i++) {
+      res[i] = toHashIds(files.get(i), hashIds);
+    }
+    return res;
+  }
+
+  private static int[] toHashIds(@Nullable File file, Map<String, Integer> hashIds) {
+    List<String> lineHashes = file == null ? null : file.getLineHashes();
+    if (lineHashes == null) {
+      return NO_CANDIDATE;
+    }
+    int[] res = new int[lineHashes.size()];
+    for (int i = 0; i < res.length; i++) {
+      Integer id = hashIds.get(lineHashes.get(i));
+      if (id == null) {
+        id = hashIds.size();
+        hashIds.put(lineHashes.get(i), id);
+      }
+      res[i] = id;
+    }
+    return res;
+  }
+
+  /**
+   * Ranks hashes by the number of times they appear in all files, the rarest hash having the lowest rank.
+   */
+  private static int[] rankByFrequency(int hashCount, int[][]... filesHashes) {
+    long[] frequencyAndId = new long[hashCount];
+    for (int[][] files : filesHashes) {
+      for (int[] hashes : files) {
+        for (int hashId : hashes) {
+          frequencyAndId[hashId] += 1L << 32;
+        }
+      }
+    }
+    for (int hashId = 0; hashId < hashCount; hashId++) {
+      frequencyAndId[hashId] |= hashId;
+    }
+    Arrays.sort(frequencyAndId);
+    int[] ranks = new int[hashCount];
+    for (int rank = 0; rank < hashCount; rank++) {
+      ranks[(int) frequencyAndId[rank]] = rank;
+    }
+    return ranks;
+  }
+
+  /**
+   * A token is a hash and its number of occurrences so far in the file, so that the tokens of a file are all distinct
+   * and the intersection of the tokens of two files is the number of line hashes they have in common. Tokens are
+   * sorted from the rarest to the most common one, an n-th occurrence being rarer than the previous ones.
+   */
+  private static long[][] toSortedTokens(int[][] filesHashes, int[] ranks) {
+    long[][] res = new long[filesHashes.length][];
+    Map<Integer, Integer> occurrences = new HashMap<>();
+    for (int i = 0; i < filesHashes.length; i++) {
+      int[] hashes = filesHashes[i];
+      occurrences.clear();
+      long[] tokens = new long[hashes.length];
+      for (int j = 0; j < hashes.length; j++) {
+        int occurrence = occurrences.merge(hashes[j], 1, Integer::sum);
+        tokens[j] = ((long) ranks[hashes[j]] << 32) | (Integer.MAX_VALUE - occurrence);
+      }
+      Arrays.sort(tokens);
+      res[i] = tokens;
+    }
+    return res;
+  }
+
+  /**
+   * Two files of sizes n and m with c line hashes in common can match only if max(n, m) - c is an acceptable distance.
+   * Then at most {@link #maxDistance(int)} tokens of the smaller file are not in the bigger one, and the
+   * {@code maxDistance + 1} rarest tokens of the two files have at least one token in common.
+   */
+  private static int prefixLength(long[] tokens) {
+    return Math.min(tokens.length, maxDistance(tokens.length) + 1);
+  }
+
+  private static boolean canMatch(long[] tokens1, long[] tokens2) {
+    int maxSize = Math.max(tokens1.length, tokens2.length);
+    int maxDistance = maxDistance(maxSize);
+    if (maxSize - Math.min(tokens1.length, tokens2.length) > maxDistance) {
+      return false;
+    }
+    int common = 0;
+    int i = 0;
+    int j = 0;
+    while (i < tokens1.length && j < tokens2.length) {
+      if (tokens1[i] == tokens2[j]) {
+        common++;
+        i++;
+        j++;
+      } else if (tokens1[i] < tokens2[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return maxSize - common <= maxDistance;
+  }
+
+  /**
+   * Greatest edit distance between two files, the bigger one having {@code maxSize} lines, for which the score is at
+   * least {@link FileMoveDetectionStep#MIN_REQUIRED_SCORE}.
+   */
+  static int maxDistance(int maxSize) {
+    // start from an upper bound of the result, then step down to absorb the rounding of the score
+    int distance = Math.min(maxSize, maxSize * (100 - MIN_REQUIRED_SCORE) / 100 + 1);
+    while (distance >= 0 && SourceSimilarityImpl.score(distance, maxSize) < MIN_REQUIRED_SCORE) {
+      distance--;
+    }
+    return distance;
+  }
+
+  private static int[] sortedCopy(int[] buffer, int count) {
+    int[] res = Arrays.copyOf(buffer, count);
+    Arrays.sort(res);
+    return res;
+  }
+}
@@ -29,6 +29,10 @@ final class ScoreMatrix {
   private final int[][] scores;
   private final int maxScore;
 
+  /**
+   * @param scores scores of each DB file (row) against each report file (column), a {@code null} row meaning a score of 0
+   *               against all the report files
+   */
   public ScoreMatrix(Set<String> dbFileKeys, Map<String, FileSimilarity.File> reportFileSourcesByKey, int[][] scores, int maxScore) {
     this.dbFileKeys = dbFileKeys;
     this.reportFileSourcesByKey = reportFileSourcesByKey;
@@ -39,9 +43,10 @@ final class ScoreMatrix {
   public void accept(ScoreMatrixVisitor visitor) {
     int dbFileIndex = 0;
     for (String dbFileKey : dbFileKeys) {
+      int[] dbFileScores = scores[dbFileIndex];
       int reportFileIndex = 0;
       for (Map.Entry<String, FileSimilarity.File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-        int score = scores[dbFileIndex][reportFileIndex];
+        int score = dbFileScores == null ? 0 : dbFileScores[reportFileIndex];
         visitor.visit(dbFileKey, reportFileSourceAndKey.getKey(), score);
         reportFileIndex++;
       }
@@ -19,60 +19,111 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.Math.max;
-import static java.lang.Math.min;
 
 public class SourceSimilarityImpl implements SourceSimilarity {
 
+  private static final int WORD_SIZE = 64;
+  private static final long HIGH_BIT = 1L << (WORD_SIZE - 1);
+
   @Override
   public <T extends Object> int score(List<T> left, List<T> right) {
     int distance = levenshteinDistance(left, right);
-    return (int) (100 * (1.0 - ((double) distance) / (max(left.size(), right.size()))));
+    return score(distance, max(left.size(), right.size()));
   }
 
-  <T extends Object> int levenshteinDistance(List<T> left, List<T> right) {
-    int len0 = left.size() + 1;
-    int len1 = right.size() + 1;
+  static int score(int distance, int maxSize) {
+    return (int) (100 * (1.0 - ((double) distance) / maxSize));
+  }
 
-    // the array of distances
-    int[] cost = new int[len0];
-    int[] newcost = new int[len0];
+  /**
+   * Levenshtein distance computed with the bit-parallel algorithm of Myers, in its multi-word form described by Hyyro.
+   * Each column of the dynamic programming matrix is encoded as vertical deltas in words of 64 bits, so that the
+   * distance is computed in O(ceil(n / 64) * m) word operations instead of O(n * m) element comparisons.
+   */
+  <T extends Object> int levenshteinDistance(List<T> left, List<T> right) {
+    // the shorter list is the "pattern" encoded in bits, the distance is symmetric
+    List<T> pattern = left.size() <= right.size() ? left : right;
+    List<T> text = pattern == left ? right : left;
+    int patternSize = pattern.size();
+    if (patternSize == 0) {
+      return text.size();
+    }
 
-    // initial cost of skipping prefix in String s0
-    for (int i = 0; i < len0; i++) {
-      cost[i] = i;
+    int words = (patternSize + WORD_SIZE - 1) / WORD_SIZE;
+    Map<T, Integer> symbols = new HashMap<>();
+    int[] patternSymbols = new int[patternSize];
+    for (int i = 0; i < patternSize; i++) {
+      Integer symbol = symbols.get(pattern.get(i));
+      if (symbol == null) {
+        symbol = symbols.size();
+        symbols.put(pattern.get(i), symbol);
+      }
+      patternSymbols[i] = symbol;
+    }
+    // equality bit vectors: bit i of word w of a symbol is set if element (w * 64 + i) of the pattern is this symbol
+    long[] peq = new long[symbols.size() * words];
+    for (int i = 0; i < patternSize; i++) {
+      peq[patternSymbols[i] * words + i / WORD_SIZE] |= 1L << (i % WORD_SIZE);
     }
 
-    // dynamically computing the array of distances
+    // vertical deltas of the first column are all +1
+    long[] pv = new long[words];
+    long[] mv = new long[words];
+    Arrays.fill(pv, -1L);
+    // distance in the last row of the last word, padding included
+    int bottomScore = words * WORD_SIZE;
 
-    // transformation cost for each letter in s1
-    for (int j = 1; j < len1; j++) {
-      // initial cost of skipping prefix in String s1
-      newcost[0] = j;
+    for (T element : text) {
+      Integer symbol = symbols.get(element);
+      int peqOffset = symbol == null ? -1 : symbol * words;
+      // the first row of the matrix is 0, 1, 2... so the horizontal delta entering the first word is +1
+      int hin = 1;
+      for (int w = 0; w < words; w++) {
+        long eq = peqOffset < 0 ? 0L : peq[peqOffset + w];
+        long pvIn = pv[w];
+        long mvIn = mv[w];
+        long hinIsNegative = hin < 0 ? 1L : 0L;
 
-      // transformation cost for each letter in s0
-      for (int i = 1; i < len0; i++) {
-        // matching current letters in both strings
-        int match = left.get(i - 1).equals(right.get(j - 1)) ? 0 : 1;
+        long xv = eq | mvIn;
+        eq |= hinIsNegative;
+        long xh = (((eq & pvIn) + pvIn) ^ pvIn) | eq;
+        long ph = mvIn | ~(xh | pvIn);
+        long mh = pvIn & xh;
 
-        // computing cost for each transformation
-        int costReplace = cost[i - 1] + match;
-        int costInsert = cost[i] + 1;
-        int costDelete = newcost[i - 1] + 1;
+        int hout = 0;
+        if ((ph & HIGH_BIT) != 0) {
+          hout = 1;
+        } else if ((mh & HIGH_BIT) != 0) {
+          hout = -1;
+        }
 
-        // keep minimum cost
-        newcost[i] = min(min(costInsert, costDelete), costReplace);
+        ph <<= 1;
+        mh <<= 1;
+        if (hin < 0) {
+          mh |= 1L;
+        } else if (hin > 0) {
+          ph |= 1L;
+        }
+        pv[w] = mh | ~(xv | ph);
+        mv[w] = ph & xv;
+        hin = hout;
       }
-
-      // swap cost/newcost arrays
-      int[] swap = cost;
-      cost = newcost;
-      newcost = swap;
+      bottomScore += hin;
     }
 
-    // the distance is the cost for transforming all letters in both strings
-    return cost[len0 - 1];
+    // remove the vertical deltas of the padding rows of the last word to get the distance in the last row of the pattern
+    int paddingStart = patternSize - (words - 1) * WORD_SIZE;
+    if (paddingStart < WORD_SIZE) {
+      long paddingMask = -1L << paddingStart;
+      bottomScore -= Long.bitCount(pv[words - 1] & paddingMask);
+      bottomScore += Long.bitCount(mv[words - 1] & paddingMask);
+    }
+    return bottomScore;
   }
 }
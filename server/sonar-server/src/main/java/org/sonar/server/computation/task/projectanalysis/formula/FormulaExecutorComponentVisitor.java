@@ -25,10 +25,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.component.SubtreeSafePathAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
@@ -38,7 +40,8 @@ import org.sonar.server.computation.task.projectanalysis.period.PeriodsHolder;
 
 import static java.util.Objects.requireNonNull;
 
-public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<FormulaExecutorComponentVisitor.Counters> {
+public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<FormulaExecutorComponentVisitor.Counters>
+  implements SubtreeSafePathAwareVisitor<FormulaExecutorComponentVisitor.Counters> {
   private static final SimpleStackElementFactory<Counters> COUNTERS_FACTORY = new SimpleStackElementFactory<Counters>() {
 
     @Override
@@ -137,6 +140,19 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     process(projectView, path);
   }
 
+  @Override
+  @CheckForNull
+  public Counters fork(Component component, @Nullable Counters counters) {
+    return counters == null ? null : new Counters();
+  }
+
+  @Override
+  public void merge(Component component, @Nullable Counters counters, @Nullable Counters forkedCounters) {
+    if (counters != null && forkedCounters != null) {
+      forkedCounters.countersByFormula.forEach(counters::aggregate);
+    }
+  }
+
   private void process(Component component, Path<FormulaExecutorComponentVisitor.Counters> path) {
     if (component.getChildren().isEmpty()) {
       processLeaf(component, path);
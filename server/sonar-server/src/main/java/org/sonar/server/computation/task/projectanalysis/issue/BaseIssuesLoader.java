@@ -20,7 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
@@ -58,20 +61,11 @@ public class BaseIssuesLoader {
     DbSession session = dbClient.openSession(false);
     final List<DefaultIssue> result = new ArrayList<>();
     try {
+      long selectedAt = System.currentTimeMillis();
       session.getMapper(IssueMapper.class).selectNonClosedByComponentUuid(componentUuid, new ResultHandler() {
         @Override
         public void handleResult(ResultContext resultContext) {
-          DefaultIssue issue = ((IssueDto) resultContext.getResultObject()).toDefaultIssue();
-
-          // TODO this field should be set outside this class
-          if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
-            issue.setOnDisabledRule(true);
-            // TODO to be improved, why setOnDisabledRule(true) is not enough ?
-            issue.setBeingClosed(true);
-          }
-          // FIXME
-          issue.setSelectedAt(System.currentTimeMillis());
-          result.add(issue);
+          result.add(toDefaultIssue((IssueDto) resultContext.getResultObject(), selectedAt));
         }
       });
       return result;
@@ -80,6 +74,38 @@ public class BaseIssuesLoader {
     }
   }
 
+  /**
+   * Open issues of the specified components, loaded with as few queries as possible. Components without open issues
+   * are not present in the returned map.
+   */
+  public Map<String, List<DefaultIssue>> loadForComponentUuids(Collection<String> componentUuids) {
+    DbSession session = dbClient.openSession(false);
+    try {
+      long selectedAt = System.currentTimeMillis();
+      Map<String, List<DefaultIssue>> result = new HashMap<>();
+      for (IssueDto dto : dbClient.issueDao().selectNonClosedByComponentUuids(session, componentUuids)) {
+        result.computeIfAbsent(dto.getComponentUuid(), uuid -> new ArrayList<>()).add(toDefaultIssue(dto, selectedAt));
+      }
+      return result;
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  private DefaultIssue toDefaultIssue(IssueDto dto, long selectedAt) {
+    DefaultIssue issue = dto.toDefaultIssue();
+
+    // TODO this field should be set outside this class
+    if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
+      issue.setOnDisabledRule(true);
+      // TODO to be improved, why setOnDisabledRule(true) is not enough ?
+      issue.setBeingClosed(true);
+    }
+    // FIXME
+    issue.setSelectedAt(selectedAt);
+    return issue;
+  }
+
   private boolean isActive(RuleKey ruleKey) {
     return activeRulesHolder.get(ruleKey).isPresent();
   }
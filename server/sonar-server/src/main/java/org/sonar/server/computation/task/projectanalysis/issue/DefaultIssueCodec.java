@@ -0,0 +1,475 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCacheCodec;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary encoding of {@link DefaultIssue}, including its changes and comments, for {@link IssueCache}.
+ * <p>
+ * Nullable values are prefixed by a presence flag, strings are length-prefixed UTF-8 and locations are stored as
+ * {@link DbIssues.Locations} protobuf bytes. The identity of {@link DefaultIssue#currentChange()} among
+ * {@link DefaultIssue#changes()} is preserved.
+ * </p>
+ */
+public class DefaultIssueCodec implements DiskCacheCodec<DefaultIssue> {
+
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_INTEGER = 3;
+  private static final byte VALUE_DOUBLE = 4;
+  private static final byte VALUE_RULE_TYPE = 5;
+  private static final byte VALUE_SERIALIZABLE = 6;
+
+  private static final int NO_CURRENT_CHANGE = -1;
+
+  @Override
+  public void write(DefaultIssue issue, DataOutput output) throws IOException {
+    writeString(output, issue.key());
+    writeString(output, issue.type() == null ? null : issue.type().name());
+    writeString(output, issue.componentUuid());
+    writeString(output, issue.componentKey());
+    writeString(output, issue.moduleUuid());
+    writeString(output, issue.moduleUuidPath());
+    writeString(output, issue.projectUuid());
+    writeString(output, issue.projectKey());
+    RuleKey ruleKey = issue.ruleKey();
+    output.writeBoolean(ruleKey != null);
+    if (ruleKey != null) {
+      writeString(output, ruleKey.repository());
+      writeString(output, ruleKey.rule());
+    }
+    writeString(output, issue.language());
+    writeString(output, issue.severity());
+    output.writeBoolean(issue.manualSeverity());
+    writeString(output, issue.message());
+    writeInteger(output, issue.line());
+    writeDouble(output, issue.gap());
+    writeLong(output, issue.effortInMinutes());
+    writeString(output, issue.status());
+    writeString(output, issue.resolution());
+    writeString(output, issue.assignee());
+    writeString(output, issue.checksum());
+    writeAttributes(output, issue);
+    writeString(output, issue.authorLogin());
+    writeComments(output, issue.comments());
+    writeTags(output, issue);
+    writeLocations(output, issue.getLocations());
+    writeDate(output, issue.creationDate());
+    writeDate(output, issue.updateDate());
+    writeDate(output, issue.closeDate());
+    writeChanges(output, issue);
+    output.writeBoolean(issue.isNew());
+    output.writeBoolean(issue.isBeingClosed());
+    output.writeBoolean(issue.isOnDisabledRule());
+    output.writeBoolean(issue.isChanged());
+    output.writeBoolean(issue.mustSendNotifications());
+    writeLong(output, issue.selectedAt());
+  }
+
+  @Override
+  public DefaultIssue read(DataInput input) throws IOException {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(readString(input));
+    String type = readString(input);
+    issue.setType(type == null ? null : RuleType.valueOf(type));
+    issue.setComponentUuid(readString(input));
+    issue.setComponentKey(readString(input));
+    issue.setModuleUuid(readString(input));
+    issue.setModuleUuidPath(readString(input));
+    issue.setProjectUuid(readString(input));
+    issue.setProjectKey(readString(input));
+    if (input.readBoolean()) {
+      issue.setRuleKey(RuleKey.of(readString(input), readString(input)));
+    }
+    issue.setLanguage(readString(input));
+    issue.setSeverity(readString(input));
+    issue.setManualSeverity(input.readBoolean());
+    issue.setMessage(readString(input));
+    issue.setLine(readInteger(input));
+    issue.setGap(readDouble(input));
+    Long effort = readLong(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = readString(input);
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(readString(input));
+    issue.setAssignee(readString(input));
+    issue.setChecksum(readString(input));
+    readAttributes(input, issue);
+    issue.setAuthorLogin(readString(input));
+    readComments(input, issue);
+    readTags(input, issue);
+    issue.setLocations(readLocations(input));
+    issue.setCreationDate(readDate(input));
+    issue.setUpdateDate(readDate(input));
+    issue.setCloseDate(readDate(input));
+    readChanges(input, issue);
+    issue.setNew(input.readBoolean());
+    issue.setBeingClosed(input.readBoolean());
+    issue.setOnDisabledRule(input.readBoolean());
+    issue.setChanged(input.readBoolean());
+    issue.setSendNotifications(input.readBoolean());
+    issue.setSelectedAt(readLong(input));
+    return issue;
+  }
+
+  private static void writeAttributes(DataOutput output, DefaultIssue issue) throws IOException {
+    Map<String, String> attributes = issue.attributes();
+    output.writeInt(attributes.size());
+    for (Map.Entry<String, String> entry : attributes.entrySet()) {
+      writeString(output, entry.getKey());
+      writeString(output, entry.getValue());
+    }
+  }
+
+  private static void readAttributes(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    if (size > 0) {
+      Map<String, String> attributes = new HashMap<>(size);
+      for (int i = 0; i < size; i++) {
+        attributes.put(readString(input), readString(input));
+      }
+      issue.setAttributes(attributes);
+    }
+  }
+
+  private static void writeTags(DataOutput output, DefaultIssue issue) throws IOException {
+    Set<String> tags = issue.tags();
+    output.writeInt(tags.size());
+    for (String tag : tags) {
+      writeString(output, tag);
+    }
+  }
+
+  private static void readTags(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    if (size > 0) {
+      Set<String> tags = new LinkedHashSet<>(size);
+      for (int i = 0; i < size; i++) {
+        tags.add(readString(input));
+      }
+      issue.setTags(tags);
+    }
+  }
+
+  private static void writeComments(DataOutput output, List<IssueComment> comments) throws IOException {
+    output.writeInt(comments.size());
+    for (IssueComment comment : comments) {
+      DefaultIssueComment defaultComment = (DefaultIssueComment) comment;
+      writeString(output, defaultComment.key());
+      writeString(output, defaultComment.issueKey());
+      writeString(output, defaultComment.userLogin());
+      writeString(output, defaultComment.markdownText());
+      writeDate(output, defaultComment.createdAt());
+      writeDate(output, defaultComment.updatedAt());
+      output.writeBoolean(defaultComment.isNew());
+    }
+  }
+
+  private static void readComments(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      issue.addComment(new DefaultIssueComment()
+        .setKey(readString(input))
+        .setIssueKey(readString(input))
+        .setUserLogin(readString(input))
+        .setMarkdownText(readString(input))
+        .setCreatedAt(readDate(input))
+        .setUpdatedAt(readDate(input))
+        .setNew(input.readBoolean()));
+    }
+  }
+
+  /**
+   * {@link DefaultIssue#changes()} may contain the same {@link FieldDiffs} several times, and
+   * {@link DefaultIssue#currentChange()} is one of them: distinct diffs are written once and referenced by index.
+   */
+  private static void writeChanges(DataOutput output, DefaultIssue issue) throws IOException {
+    Map<FieldDiffs, Integer> indexes = new IdentityHashMap<>();
+    List<FieldDiffs> distinctDiffs = new ArrayList<>();
+    List<FieldDiffs> changes = issue.changes();
+    FieldDiffs currentChange = issue.currentChange();
+    for (FieldDiffs diffs : changes) {
+      addDistinct(diffs, indexes, distinctDiffs);
+    }
+    if (currentChange != null) {
+      addDistinct(currentChange, indexes, distinctDiffs);
+    }
+
+    output.writeInt(distinctDiffs.size());
+    for (FieldDiffs diffs : distinctDiffs) {
+      writeFieldDiffs(output, diffs);
+    }
+    output.writeInt(changes.size());
+    for (FieldDiffs diffs : changes) {
+      output.writeInt(indexes.get(diffs));
+    }
+    output.writeInt(currentChange == null ? NO_CURRENT_CHANGE : indexes.get(currentChange));
+  }
+
+  private static void addDistinct(FieldDiffs diffs, Map<FieldDiffs, Integer> indexes, List<FieldDiffs> distinctDiffs) {
+    if (!indexes.containsKey(diffs)) {
+      indexes.put(diffs, distinctDiffs.size());
+      distinctDiffs.add(diffs);
+    }
+  }
+
+  private static void readChanges(DataInput input, DefaultIssue issue) throws IOException {
+    int distinctSize = input.readInt();
+    List<FieldDiffs> distinctDiffs = new ArrayList<>(distinctSize);
+    for (int i = 0; i < distinctSize; i++) {
+      distinctDiffs.add(readFieldDiffs(input));
+    }
+    int changesSize = input.readInt();
+    List<FieldDiffs> changes = new ArrayList<>(changesSize);
+    for (int i = 0; i < changesSize; i++) {
+      changes.add(distinctDiffs.get(input.readInt()));
+    }
+    int currentChangeIndex = input.readInt();
+    if (currentChangeIndex != NO_CURRENT_CHANGE) {
+      // setCurrentChange also appends to changes, which are replaced right after
+      issue.setCurrentChange(distinctDiffs.get(currentChangeIndex));
+    }
+    if (changesSize > 0 || currentChangeIndex != NO_CURRENT_CHANGE) {
+      issue.setChanges(changes);
+    }
+  }
+
+  private static void writeFieldDiffs(DataOutput output, FieldDiffs diffs) throws IOException {
+    writeString(output, diffs.issueKey());
+    writeString(output, diffs.userLogin());
+    writeDate(output, diffs.creationDate());
+    Map<String, FieldDiffs.Diff> entries = diffs.diffs();
+    output.writeInt(entries.size());
+    for (Map.Entry<String, FieldDiffs.Diff> entry : entries.entrySet()) {
+      writeString(output, entry.getKey());
+      writeValue(output, entry.getValue().oldValue());
+      writeValue(output, entry.getValue().newValue());
+    }
+  }
+
+  private static FieldDiffs readFieldDiffs(DataInput input) throws IOException {
+    FieldDiffs diffs = new FieldDiffs()
+      .setIssueKey(readString(input))
+      .setUserLogin(readString(input))
+      .setCreationDate(readDate(input));
+    int size = input.readInt();
+    Map<String, FieldDiffs.Diff> entries = new LinkedHashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      entries.put(readString(input), new FieldDiffs.Diff(readValue(input), readValue(input)));
+    }
+    diffs.diffs().putAll(entries);
+    return diffs;
+  }
+
+  private static void writeValue(DataOutput output, @Nullable Serializable value) throws IOException {
+    if (value == null) {
+      output.writeByte(VALUE_NULL);
+    } else if (value instanceof String) {
+      output.writeByte(VALUE_STRING);
+      writeNonNullString(output, (String) value);
+    } else if (value instanceof Long) {
+      output.writeByte(VALUE_LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(VALUE_INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeByte(VALUE_DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof RuleType) {
+      output.writeByte(VALUE_RULE_TYPE);
+      writeNonNullString(output, ((RuleType) value).name());
+    } else {
+      // unexpected type of value, rely on Java serialization
+      output.writeByte(VALUE_SERIALIZABLE);
+      writeBytes(output, serialize(value));
+    }
+  }
+
+  @CheckForNull
+  private static Serializable readValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+        return readNonNullString(input);
+      case VALUE_LONG:
+        return input.readLong();
+      case VALUE_INTEGER:
+        return input.readInt();
+      case VALUE_DOUBLE:
+        return input.readDouble();
+      case VALUE_RULE_TYPE:
+        return RuleType.valueOf(readNonNullString(input));
+      case VALUE_SERIALIZABLE:
+        return deserialize(readBytes(input));
+      default:
+        throw new IllegalStateException("Unsupported type of value " + type);
+    }
+  }
+
+  private static byte[] serialize(Serializable value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+      objectOutput.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Serializable deserialize(byte[] bytes) throws IOException {
+    try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (Serializable) objectInput.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to deserialize value", e);
+    }
+  }
+
+  private static void writeLocations(DataOutput output, @Nullable Object locations) throws IOException {
+    output.writeBoolean(locations != null);
+    if (locations != null) {
+      if (!(locations instanceof DbIssues.Locations)) {
+        throw new IllegalStateException("Unsupported type of locations " + locations.getClass());
+      }
+      writeBytes(output, ((DbIssues.Locations) locations).toByteArray());
+    }
+  }
+
+  @CheckForNull
+  private static DbIssues.Locations readLocations(DataInput input) throws IOException {
+    if (input.readBoolean()) {
+      return DbIssues.Locations.parseFrom(readBytes(input));
+    }
+    return null;
+  }
+
+  private static void writeDate(DataOutput output, @Nullable Date date) throws IOException {
+    writeLong(output, date == null ? null : date.getTime());
+  }
+
+  @CheckForNull
+  private static Date readDate(DataInput input) throws IOException {
+    Long time = readLong(input);
+    return time == null ? null : new Date(time);
+  }
+
+  private static void writeLong(DataOutput output, @Nullable Long value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeLong(value);
+    }
+  }
+
+  @CheckForNull
+  private static Long readLong(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readLong() : null;
+  }
+
+  private static void writeInteger(DataOutput output, @Nullable Integer value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeInt(value);
+    }
+  }
+
+  @CheckForNull
+  private static Integer readInteger(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readInt() : null;
+  }
+
+  private static void writeDouble(DataOutput output, @Nullable Double value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeDouble(value);
+    }
+  }
+
+  @CheckForNull
+  private static Double readDouble(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readDouble() : null;
+  }
+
+  private static void writeString(DataOutput output, @Nullable String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      writeNonNullString(output, value);
+    }
+  }
+
+  @CheckForNull
+  private static String readString(DataInput input) throws IOException {
+    return input.readBoolean() ? readNonNullString(input) : null;
+  }
+
+  /**
+   * Unlike {@link DataOutput#writeUTF(String)}, strings are not limited to 64KB.
+   */
+  private static void writeNonNullString(DataOutput output, String value) throws IOException {
+    writeBytes(output, value.getBytes(UTF_8));
+  }
+
+  private static String readNonNullString(DataInput input) throws IOException {
+    return new String(readBytes(input), UTF_8);
+  }
+
+  private static void writeBytes(DataOutput output, byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+}
@@ -21,12 +21,14 @@ package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Tracking;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 import org.sonar.server.util.cache.DiskCache;
@@ -36,6 +38,8 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
 
   private final TrackerExecution tracker;
+  private final TrackerBaseInputFactory baseInputFactory;
+  private final ReusableFiles reusableFiles;
   private final IssueCache issueCache;
   private final IssueLifecycle issueLifecycle;
   private final IssueVisitors issueVisitors;
@@ -45,10 +49,13 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
 
   private final List<DefaultIssue> componentIssues = new ArrayList<>();
 
-  public IntegrateIssuesVisitor(TrackerExecution tracker, IssueCache issueCache, IssueLifecycle issueLifecycle, IssueVisitors issueVisitors,
-    ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues, MutableComponentIssuesRepository componentIssuesRepository, MovedFilesRepository movedFilesRepository) {
+  public IntegrateIssuesVisitor(TrackerExecution tracker, TrackerBaseInputFactory baseInputFactory, ReusableFiles reusableFiles, IssueCache issueCache,
+    IssueLifecycle issueLifecycle, IssueVisitors issueVisitors, ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues,
+    MutableComponentIssuesRepository componentIssuesRepository, MovedFilesRepository movedFilesRepository) {
     super(CrawlerDepthLimit.FILE, POST_ORDER);
     this.tracker = tracker;
+    this.baseInputFactory = baseInputFactory;
+    this.reusableFiles = reusableFiles;
     this.issueCache = issueCache;
     this.issueLifecycle = issueLifecycle;
     this.issueVisitors = issueVisitors;
@@ -73,12 +80,23 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
   private void processIssues(Component component) {
     DiskCache<DefaultIssue>.DiskAppender cacheAppender = issueCache.newAppender();
     try {
-      Tracking<DefaultIssue, DefaultIssue> tracking = tracker.track(component);
-      issueVisitors.beforeComponent(component);
-      fillNewOpenIssues(component, tracking, cacheAppender);
-      fillExistingOpenIssues(component, tracking, cacheAppender);
-      closeUnmatchedBaseIssues(component, tracking, cacheAppender);
-      issueVisitors.afterComponent(component);
+      if (reusableFiles.isReusable(component)) {
+        Collection<DefaultIssue> baseIssues = baseInputFactory.create(component).getIssues();
+        Tracking<DefaultIssue, DefaultIssue> commonRuleTracking = tracker.trackCommonRuleIssues(component, baseIssues);
+        issueVisitors.beforeComponent(component);
+        fillReusedOpenIssues(component, baseIssues, cacheAppender);
+        fillNewOpenIssues(component, commonRuleTracking, cacheAppender);
+        fillExistingOpenIssues(component, commonRuleTracking, cacheAppender);
+        closeUnmatchedBaseIssues(component, commonRuleTracking, cacheAppender);
+        issueVisitors.afterComponent(component);
+      } else {
+        Tracking<DefaultIssue, DefaultIssue> tracking = tracker.track(component);
+        issueVisitors.beforeComponent(component);
+        fillNewOpenIssues(component, tracking, cacheAppender);
+        fillExistingOpenIssues(component, tracking, cacheAppender);
+        closeUnmatchedBaseIssues(component, tracking, cacheAppender);
+        issueVisitors.afterComponent(component);
+      }
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to process issues of component '%s'", component.getKey()), e);
     } finally {
@@ -86,6 +104,18 @@ public class IntegrateIssuesVisitor extends TypeAwareVisitorAdapter {
     }
   }
 
+  /**
+   * The file is unchanged since the previous analysis: its open issues are kept as they are, without tracking the raw
+   * issues of the report. Issues of common rules are excluded, as they are tracked.
+   */
+  private void fillReusedOpenIssues(Component component, Collection<DefaultIssue> baseIssues, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
+    for (DefaultIssue issue : baseIssues) {
+      if (!TrackerExecution.isCommonRuleIssue(issue)) {
+        process(component, issue, cacheAppender);
+      }
+    }
+  }
+
   private void fillNewOpenIssues(Component component, Tracking<DefaultIssue, DefaultIssue> tracking, DiskCache<DefaultIssue>.DiskAppender cacheAppender) {
     for (DefaultIssue issue : tracking.getUnmatchedRaws()) {
       issueLifecycle.initNewOpenIssue(issue);
@@ -19,8 +19,11 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.core.issue.DefaultIssue;
@@ -31,29 +34,73 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileDataPrefetcher;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository.OriginalFile;
 
 /**
  * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded.
+ * <p>
+ * Base issues and line hashes of files are prefetched by batches of {@link #PREFETCH_SIZE} files, in the order in which
+ * the files are visited (see {@link FileDataPrefetcher}). Line hashes of {@link ReusableFiles reusable files} are not
+ * prefetched as their issues are not tracked.
+ * </p>
  */
 public class TrackerBaseInputFactory {
   private static final LineHashSequence EMPTY_LINE_HASH_SEQUENCE = new LineHashSequence(Collections.<String>emptyList());
+  private static final int PREFETCH_SIZE = 500;
 
+  private final TreeRootHolder treeRootHolder;
   private final BaseIssuesLoader baseIssuesLoader;
   private final DbClient dbClient;
   private final MovedFilesRepository movedFilesRepository;
+  private final ReusableFiles reusableFiles;
+  private final FileDataPrefetcher<List<DefaultIssue>> issuesPrefetcher;
+  private final FileDataPrefetcher<List<String>> lineHashesPrefetcher;
 
-  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository) {
+  public TrackerBaseInputFactory(TreeRootHolder treeRootHolder, BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository,
+    ReusableFiles reusableFiles) {
+    this.treeRootHolder = treeRootHolder;
     this.baseIssuesLoader = baseIssuesLoader;
     this.dbClient = dbClient;
     this.movedFilesRepository = movedFilesRepository;
+    this.reusableFiles = reusableFiles;
+    this.issuesPrefetcher = new FileDataPrefetcher<>(this::effectiveUuidsOfFiles, PREFETCH_SIZE, baseIssuesLoader::loadForComponentUuids);
+    this.lineHashesPrefetcher = new FileDataPrefetcher<>(this::effectiveUuidsOfTrackedFiles, PREFETCH_SIZE, this::loadLineHashes);
   }
 
   public Input<DefaultIssue> create(Component component) {
     return new BaseLazyInput(component, movedFilesRepository.getOriginalFile(component).orNull());
   }
 
+  private List<String> effectiveUuidsOfFiles() {
+    return FileDataPrefetcher.filesInVisitOrder(treeRootHolder.getRoot()).stream()
+      .map(file -> effectiveUuid(file, movedFilesRepository.getOriginalFile(file).orNull()))
+      .collect(Collectors.toList());
+  }
+
+  private List<String> effectiveUuidsOfTrackedFiles() {
+    return FileDataPrefetcher.filesInVisitOrder(treeRootHolder.getRoot()).stream()
+      .filter(file -> !reusableFiles.isReusable(file))
+      .map(file -> effectiveUuid(file, movedFilesRepository.getOriginalFile(file).orNull()))
+      .collect(Collectors.toList());
+  }
+
+  private static String effectiveUuid(Component component, @Nullable OriginalFile originalFile) {
+    return originalFile == null ? component.getUuid() : originalFile.getUuid();
+  }
+
+  private Map<String, List<String>> loadLineHashes(List<String> fileUuids) {
+    DbSession session = dbClient.openSession(false);
+    try {
+      return dbClient.fileSourceDao().selectLineHashesByFileUuids(session, fileUuids);
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
   private class BaseLazyInput extends LazyInput<DefaultIssue> {
     private final Component component;
     @CheckForNull
@@ -61,7 +108,7 @@ public class TrackerBaseInputFactory {
 
     private BaseLazyInput(Component component, @Nullable OriginalFile originalFile) {
       this.component = component;
-      this.effectiveUuid = originalFile == null ? component.getUuid() : originalFile.getUuid();
+      this.effectiveUuid = effectiveUuid(component, originalFile);
     }
 
     @Override
@@ -69,22 +116,21 @@ public class TrackerBaseInputFactory {
       if (component.getType() != Component.Type.FILE) {
         return EMPTY_LINE_HASH_SEQUENCE;
       }
-      
-      DbSession session = dbClient.openSession(false);
-      try {
-        List<String> hashes = dbClient.fileSourceDao().selectLineHashes(session, effectiveUuid);
-        if (hashes == null || hashes.isEmpty()) {
-          return EMPTY_LINE_HASH_SEQUENCE;
-        }
-        return new LineHashSequence(hashes);
-      } finally {
-        MyBatis.closeQuietly(session);
+
+      List<String> hashes = lineHashesPrefetcher.get(effectiveUuid);
+      if (hashes == null || hashes.isEmpty()) {
+        return EMPTY_LINE_HASH_SEQUENCE;
       }
+      return new LineHashSequence(hashes);
     }
 
     @Override
     protected List<DefaultIssue> loadIssues() {
-      return baseIssuesLoader.loadForComponentUuid(effectiveUuid);
+      if (component.getType() != Component.Type.FILE) {
+        return baseIssuesLoader.loadForComponentUuid(effectiveUuid);
+      }
+      List<DefaultIssue> issues = issuesPrefetcher.get(effectiveUuid);
+      return issues == null ? new ArrayList<>() : issues;
     }
   }
 }
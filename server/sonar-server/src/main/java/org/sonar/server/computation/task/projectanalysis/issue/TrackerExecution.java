@@ -19,10 +19,18 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.tracking.LazyInput;
+import org.sonar.core.issue.tracking.LineHashSequence;
 import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.core.issue.tracking.Tracking;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
+import org.sonar.server.rule.CommonRuleKeys;
 
 public class TrackerExecution {
 
@@ -40,4 +48,37 @@ public class TrackerExecution {
   public Tracking<DefaultIssue, DefaultIssue> track(Component component) {
     return tracker.track(rawInputFactory.create(component), baseInputFactory.create(component));
   }
+
+  /**
+   * Tracks the issues of common rules of a {@link ReusableFiles reusable file}, which depend on measures like coverage
+   * or duplications rather than on the source of the file. The other base issues are not tracked.
+   */
+  public Tracking<DefaultIssue, DefaultIssue> trackCommonRuleIssues(Component component, Collection<DefaultIssue> baseIssues) {
+    List<DefaultIssue> commonRuleBaseIssues = baseIssues.stream()
+      .filter(TrackerExecution::isCommonRuleIssue)
+      .collect(Collectors.toList());
+    return tracker.track(rawInputFactory.createForCommonRules(component), new CommonRuleBaseInput(commonRuleBaseIssues));
+  }
+
+  static boolean isCommonRuleIssue(DefaultIssue issue) {
+    return issue.ruleKey().repository().startsWith(CommonRuleKeys.REPOSITORY_PREFIX);
+  }
+
+  private static class CommonRuleBaseInput extends LazyInput<DefaultIssue> {
+    private final List<DefaultIssue> issues;
+
+    private CommonRuleBaseInput(List<DefaultIssue> issues) {
+      this.issues = issues;
+    }
+
+    @Override
+    protected LineHashSequence loadLineHashSequence() {
+      return LineHashSequence.createForLines(Collections.emptyList());
+    }
+
+    @Override
+    protected List<DefaultIssue> loadIssues() {
+      return issues;
+    }
+  }
 }
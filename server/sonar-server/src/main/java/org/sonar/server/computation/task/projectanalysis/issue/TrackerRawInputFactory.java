@@ -66,6 +66,52 @@ public class TrackerRawInputFactory {
     return new RawLazyInput(component);
   }
 
+  /**
+   * Same as {@link #create(Component)}, restricted to the issues raised by the {@link CommonRuleEngine}. These issues
+   * are not on lines, so the line hashes of the file are not loaded.
+   */
+  public Input<DefaultIssue> createForCommonRules(Component component) {
+    return new CommonRulesLazyInput(component);
+  }
+
+  private List<DefaultIssue> loadCommonRuleIssues(Component component) {
+    List<DefaultIssue> result = new ArrayList<>();
+    for (DefaultIssue commonRuleIssue : commonRuleEngine.process(component)) {
+      if (issueFilter.accept(commonRuleIssue, component)) {
+        result.add(init(component, commonRuleIssue));
+      }
+    }
+    return result;
+  }
+
+  private DefaultIssue init(Component component, DefaultIssue issue) {
+    issue.setResolution(null);
+    issue.setStatus(Issue.STATUS_OPEN);
+    issue.setComponentUuid(component.getUuid());
+    issue.setComponentKey(component.getKey());
+    issue.setProjectUuid(treeRootHolder.getRoot().getUuid());
+    issue.setProjectKey(treeRootHolder.getRoot().getKey());
+    return issue;
+  }
+
+  private class CommonRulesLazyInput extends LazyInput<DefaultIssue> {
+    private final Component component;
+
+    private CommonRulesLazyInput(Component component) {
+      this.component = component;
+    }
+
+    @Override
+    protected LineHashSequence loadLineHashSequence() {
+      return LineHashSequence.createForLines(Collections.emptyList());
+    }
+
+    @Override
+    protected List<DefaultIssue> loadIssues() {
+      return loadCommonRuleIssues(component);
+    }
+  }
+
   private class RawLazyInput extends LazyInput<DefaultIssue> {
     private final Component component;
 
@@ -86,13 +132,7 @@ public class TrackerRawInputFactory {
 
     @Override
     protected List<DefaultIssue> loadIssues() {
-      List<DefaultIssue> result = new ArrayList<>();
-
-      for (DefaultIssue commonRuleIssue : commonRuleEngine.process(component)) {
-        if (issueFilter.accept(commonRuleIssue, component)) {
-          result.add(init(commonRuleIssue));
-        }
-      }
+      List<DefaultIssue> result = loadCommonRuleIssues(component);
       try (CloseableIterator<ScannerReport.Issue> reportIssues = reportReader.readComponentIssues(component.getReportAttributes().getRef())) {
         // optimization - do not load line hashes if there are no issues -> getLineHashSequence() is executed
         // as late as possible
@@ -120,7 +160,7 @@ public class TrackerRawInputFactory {
 
     private DefaultIssue toIssue(LineHashSequence lineHashSeq, ScannerReport.Issue reportIssue) {
       DefaultIssue issue = new DefaultIssue();
-      init(issue);
+      init(component, issue);
       issue.setRuleKey(RuleKey.of(reportIssue.getRuleRepository(), reportIssue.getRuleKey()));
       if (reportIssue.hasTextRange()) {
         int startLine = reportIssue.getTextRange().getStartLine();
@@ -155,16 +195,6 @@ public class TrackerRawInputFactory {
       return issue;
     }
 
-    private DefaultIssue init(DefaultIssue issue) {
-      issue.setResolution(null);
-      issue.setStatus(Issue.STATUS_OPEN);
-      issue.setComponentUuid(component.getUuid());
-      issue.setComponentKey(component.getKey());
-      issue.setProjectUuid(treeRootHolder.getRoot().getUuid());
-      issue.setProjectKey(treeRootHolder.getRoot().getKey());
-      return issue;
-    }
-
     private DbIssues.Location convertLocation(ScannerReport.IssueLocation source) {
       DbIssues.Location.Builder target = DbIssues.Location.newBuilder();
       if (source.getComponentRef() != 0 && source.getComponentRef() != component.getReportAttributes().getRef()) {
@@ -0,0 +1,436 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures of components of the report, and stores them in
+ * columns: one column per metric, indexed by the report ref of the components.
+ * <p>
+ * Values are stored in arrays of primitives matching the value type of the metric, so that the many measures of big
+ * projects don't each cost a {@link Measure} object, a map entry and boxed values. {@link Measure} objects are created
+ * when measures are read. The few measures which don't fit in columns (measures of developers, measures with a
+ * description or a QualityGate status) are stored as they are.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ColumnarMeasureRepository implements MeasureRepository {
+  private final Map<String, Column> columnsByMetricKey = new LinkedHashMap<>();
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    return Optional.fromNullable(find(component, metric, null));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(component, metric, measure.getDeveloper()) != null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(component, metric, measure.getDeveloper()) == null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return Collections.emptySet();
+    }
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    column.getAll(refOf(component), builder);
+    return builder.build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int ref = refOf(component);
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    ImmutableSet.Builder<Measure> measures = ImmutableSet.builder();
+    for (Column column : columnsByMetricKey.values()) {
+      column.getAll(ref, measures);
+      builder.putAll(column.metricKey, measures.build());
+      measures = ImmutableSet.builder();
+    }
+    return builder.build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    int ref = refOf(component);
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      column = new Column(metric.getKey(), metric.getType().getValueType());
+      columnsByMetricKey.put(metric.getKey(), column);
+    }
+    if (overridePolicy == OverridePolicy.OVERRIDE || column.get(ref, measure.getDeveloper()) == null) {
+      column.set(ref, measure);
+    }
+  }
+
+  @CheckForNull
+  private Measure find(Component component, Metric metric, @Nullable Developer developer) {
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return null;
+    }
+    return column.get(refOf(component), developer);
+  }
+
+  private static int refOf(Component component) {
+    int ref = component.getReportAttributes().getRef();
+    checkArgument(ref >= 0, "Ref of component %s can not be negative", component.getKey());
+    return ref;
+  }
+
+  /**
+   * Measures of a metric, indexed by component ref.
+   */
+  private static final class Column {
+    private static final int MIN_CAPACITY = 64;
+    private static final int VARIATIONS = 5;
+    private static final Measure.Level[] LEVELS = Measure.Level.values();
+
+    private static final byte ABSENT = 0;
+    private static final byte VALUE = 1;
+    private static final byte NO_VALUE = 2;
+    // the measure is in "others"
+    private static final byte OTHER = 3;
+
+    private final String metricKey;
+    private final Measure.ValueType valueType;
+    private byte[] states = new byte[0];
+    // values, depending on the value type of the metric: BOOLEAN and INT
+    private int[] intValues;
+    // LONG
+    private long[] longValues;
+    // DOUBLE
+    private double[] doubleValues;
+    // STRING
+    private String[] stringValues;
+    // LEVEL, stored as ordinals
+    private byte[] levelValues;
+    // data of measures which are not of type STRING, rarely set
+    private final Map<Integer, String> data = new HashMap<>();
+    // variations, created only when a measure with variations is set
+    private double[][] variations;
+    // bit i is set if variation of period i + 1 is set
+    private byte[] variationMasks;
+    private final Map<Integer, Measure> others = new HashMap<>();
+    private final Map<Integer, List<Measure>> developerMeasures = new HashMap<>();
+
+    private Column(String metricKey, Measure.ValueType valueType) {
+      this.metricKey = metricKey;
+      this.valueType = valueType;
+    }
+
+    @CheckForNull
+    private Measure get(int ref, @Nullable Developer developer) {
+      if (developer != null) {
+        return findDeveloperMeasure(developerMeasures.get(ref), developer);
+      }
+      if (ref >= states.length) {
+        return null;
+      }
+      switch (states[ref]) {
+        case VALUE:
+          return toMeasure(ref, valueType);
+        case NO_VALUE:
+          return toMeasure(ref, Measure.ValueType.NO_VALUE);
+        case OTHER:
+          return others.get(ref);
+        default:
+          return null;
+      }
+    }
+
+    private void getAll(int ref, ImmutableSet.Builder<Measure> builder) {
+      Measure measure = get(ref, null);
+      if (measure != null) {
+        builder.add(measure);
+      }
+      List<Measure> measures = developerMeasures.get(ref);
+      if (measures != null) {
+        builder.addAll(measures);
+      }
+    }
+
+    private void set(int ref, Measure measure) {
+      Developer developer = measure.getDeveloper();
+      if (developer != null) {
+        setDeveloperMeasure(ref, measure, developer);
+        return;
+      }
+
+      ensureCapacity(ref);
+      if (measure.getDescription() != null || measure.hasQualityGateStatus()) {
+        states[ref] = OTHER;
+        others.put(ref, measure);
+        return;
+      }
+      others.remove(ref);
+
+      if (measure.getValueType() == Measure.ValueType.NO_VALUE) {
+        states[ref] = NO_VALUE;
+        clearValue(ref);
+      } else {
+        states[ref] = VALUE;
+        setValue(ref, measure);
+      }
+      if (valueType != Measure.ValueType.STRING || measure.getValueType() == Measure.ValueType.NO_VALUE) {
+        setData(ref, measure.getData());
+      }
+      setVariations(ref, measure.hasVariations() ? measure.getVariations() : null);
+    }
+
+    private void setValue(int ref, Measure measure) {
+      switch (valueType) {
+        case BOOLEAN:
+          intValues[ref] = measure.getBooleanValue() ? 1 : 0;
+          break;
+        case INT:
+          intValues[ref] = measure.getIntValue();
+          break;
+        case LONG:
+          longValues[ref] = measure.getLongValue();
+          break;
+        case DOUBLE:
+          doubleValues[ref] = measure.getDoubleValue();
+          break;
+        case STRING:
+          stringValues[ref] = measure.getStringValue();
+          break;
+        case LEVEL:
+          levelValues[ref] = (byte) measure.getLevelValue().ordinal();
+          break;
+        default:
+          throw new IllegalStateException("Unsupported value type " + valueType);
+      }
+    }
+
+    private void clearValue(int ref) {
+      if (stringValues != null) {
+        stringValues[ref] = null;
+      }
+    }
+
+    private void setData(int ref, @Nullable String value) {
+      if (value == null) {
+        data.remove(ref);
+      } else {
+        data.put(ref, value);
+      }
+    }
+
+    private void setVariations(int ref, @Nullable MeasureVariations measureVariations) {
+      if (measureVariations == null) {
+        if (variationMasks != null) {
+          variationMasks[ref] = 0;
+        }
+        return;
+      }
+      if (variations == null) {
+        variations = new double[VARIATIONS][states.length];
+        variationMasks = new byte[states.length];
+      }
+      byte mask = 0;
+      for (int i = 0; i < VARIATIONS; i++) {
+        if (measureVariations.hasVariation(i + 1)) {
+          variations[i][ref] = measureVariations.getVariation(i + 1);
+          mask |= 1 << i;
+        }
+      }
+      variationMasks[ref] = mask;
+    }
+
+    private Measure toMeasure(int ref, Measure.ValueType measureValueType) {
+      Double value = null;
+      String measureData = data.get(ref);
+      Measure.Level level = null;
+      if (measureValueType != Measure.ValueType.NO_VALUE) {
+        switch (valueType) {
+          case BOOLEAN:
+          case INT:
+            value = (double) intValues[ref];
+            break;
+          case LONG:
+            value = (double) longValues[ref];
+            break;
+          case DOUBLE:
+            value = doubleValues[ref];
+            break;
+          case STRING:
+            measureData = stringValues[ref];
+            break;
+          case LEVEL:
+            level = LEVELS[levelValues[ref]];
+            break;
+          default:
+            throw new IllegalStateException("Unsupported value type " + valueType);
+        }
+      }
+      return Measure.restore(measureValueType, value, measureData, level, toVariations(ref));
+    }
+
+    @CheckForNull
+    private MeasureVariations toVariations(int ref) {
+      if (variationMasks == null || variationMasks[ref] == 0) {
+        return null;
+      }
+      Double[] values = new Double[VARIATIONS];
+      for (int i = 0; i < VARIATIONS; i++) {
+        if ((variationMasks[ref] & (1 << i)) != 0) {
+          values[i] = variations[i][ref];
+        }
+      }
+      return new MeasureVariations(values);
+    }
+
+    private void ensureCapacity(int ref) {
+      if (ref < states.length) {
+        return;
+      }
+      int capacity = Math.max(ref + 1, Math.max(MIN_CAPACITY, states.length * 2));
+      states = Arrays.copyOf(states, capacity);
+      switch (valueType) {
+        case BOOLEAN:
+        case INT:
+          intValues = intValues == null ? new int[capacity] : Arrays.copyOf(intValues, capacity);
+          break;
+        case LONG:
+          longValues = longValues == null ? new long[capacity] : Arrays.copyOf(longValues, capacity);
+          break;
+        case DOUBLE:
+          doubleValues = doubleValues == null ? new double[capacity] : Arrays.copyOf(doubleValues, capacity);
+          break;
+        case STRING:
+          stringValues = stringValues == null ? new String[capacity] : Arrays.copyOf(stringValues, capacity);
+          break;
+        case LEVEL:
+          levelValues = levelValues == null ? new byte[capacity] : Arrays.copyOf(levelValues, capacity);
+          break;
+        default:
+          // NO_VALUE metrics have no value to store
+          break;
+      }
+      if (variations != null) {
+        for (int i = 0; i < VARIATIONS; i++) {
+          variations[i] = Arrays.copyOf(variations[i], capacity);
+        }
+        variationMasks = Arrays.copyOf(variationMasks, capacity);
+      }
+    }
+
+    private void setDeveloperMeasure(int ref, Measure measure, Developer developer) {
+      List<Measure> measures = developerMeasures.get(ref);
+      if (measures == null) {
+        measures = new ArrayList<>(1);
+        developerMeasures.put(ref, measures);
+      }
+      Measure existing = findDeveloperMeasure(measures, developer);
+      if (existing != null) {
+        measures.remove(existing);
+      }
+      measures.add(measure);
+    }
+
+    @CheckForNull
+    private static Measure findDeveloperMeasure(@Nullable List<Measure> measures, Developer developer) {
+      if (measures == null) {
+        return null;
+      }
+      for (Measure measure : measures) {
+        if (measure.getDeveloper() == developer) {
+          return measure;
+        }
+      }
+      return null;
+    }
+  }
+}
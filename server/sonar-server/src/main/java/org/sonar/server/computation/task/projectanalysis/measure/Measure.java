@@ -103,6 +103,15 @@ public final class Measure {
     return new UpdateMeasureBuilder(measure);
   }
 
+  /**
+   * Creates a Measure, with no developer, description nor QualityGate status, from values read from another Measure.
+   * Unlike {@link NewMeasureBuilder}, values are neither checked nor scaled again.
+   */
+  static Measure restore(ValueType valueType, @Nullable Double value, @Nullable String data, @Nullable Level dataLevel,
+    @Nullable MeasureVariations variations) {
+    return new Measure(valueType, null, value, data, dataLevel, null, null, variations);
+  }
+
   public static final class NewMeasureBuilder {
     private Developer developer;
     private String description;
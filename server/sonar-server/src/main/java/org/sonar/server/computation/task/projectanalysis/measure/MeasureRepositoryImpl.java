@@ -21,8 +21,13 @@ package org.sonar.server.computation.task.projectanalysis.measure;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.SetMultimap;
-import java.util.HashSet;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -37,10 +42,14 @@ import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository
 import org.sonar.server.computation.task.projectanalysis.metric.ReportMetricValidator;
 
 import static java.util.Objects.requireNonNull;
-import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
+/**
+ * Thread safe implementation of {@link MeasureRepository}, so that sibling subtrees of the component tree can be visited
+ * concurrently (see {@link org.sonar.server.computation.task.projectanalysis.component.ParallelPathAwareCrawler}).
+ * Raw measures are guarded by a read-write lock: they are read much more often than they are written.
+ */
 public class MeasureRepositoryImpl implements MeasureRepository {
-  private final MapBasedRawMeasureRepository<Integer> delegate = new MapBasedRawMeasureRepository<>(toReportRef());
+  private final ColumnarMeasureRepository delegate = new ColumnarMeasureRepository();
   private final DbClient dbClient;
   private final BatchReportReader reportReader;
   private final BatchMeasureToMeasure batchMeasureToMeasure;
@@ -48,7 +57,8 @@ public class MeasureRepositoryImpl implements MeasureRepository {
   private final ReportMetricValidator reportMetricValidator;
 
   private MeasureDtoToMeasure underTest = new MeasureDtoToMeasure();
-  private final Set<Integer> loadedComponents = new HashSet<>();
+  private final BitSet loadedComponents = new BitSet();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
   public MeasureRepositoryImpl(DbClient dbClient, BatchReportReader reportReader, MetricRepository metricRepository, ReportMetricValidator reportMetricValidator) {
     this.dbClient = dbClient;
@@ -76,54 +86,80 @@ public class MeasureRepositoryImpl implements MeasureRepository {
 
   @Override
   public Optional<Measure> getRawMeasure(Component component, Metric metric) {
-    Optional<Measure> local = delegate.getRawMeasure(component, metric);
+    Optional<Measure> local = read(() -> delegate.getRawMeasure(component, metric));
     if (local.isPresent()) {
       return local;
     }
 
     // look up in batch after loading (if not yet loaded) measures from batch
     loadBatchMeasuresForComponent(component);
-    return delegate.getRawMeasure(component, metric);
+    return read(() -> delegate.getRawMeasure(component, metric));
   }
 
   @Override
   public void add(Component component, Metric metric, Measure measure) {
-    delegate.add(component, metric, measure);
+    write(() -> delegate.add(component, metric, measure));
   }
 
   @Override
   public void update(Component component, Metric metric, Measure measure) {
-    delegate.update(component, metric, measure);
+    write(() -> delegate.update(component, metric, measure));
   }
 
   @Override
   public Set<Measure> getRawMeasures(Component component, Metric metric) {
     loadBatchMeasuresForComponent(component);
-    return delegate.getRawMeasures(component, metric);
+    return read(() -> delegate.getRawMeasures(component, metric));
   }
 
   @Override
   public SetMultimap<String, Measure> getRawMeasures(Component component) {
     loadBatchMeasuresForComponent(component);
-    return delegate.getRawMeasures(component);
+    return read(() -> delegate.getRawMeasures(component));
   }
 
   private void loadBatchMeasuresForComponent(Component component) {
-    if (loadedComponents.contains(component.getReportAttributes().getRef())) {
+    int ref = component.getReportAttributes().getRef();
+    if (read(() -> loadedComponents.get(ref))) {
       return;
     }
 
-    try (CloseableIterator<ScannerReport.Measure> readIt = reportReader.readComponentMeasures(component.getReportAttributes().getRef())) {
+    // report is read outside of the lock, measures of a component are loaded only once anyway
+    Map<Metric, Measure> batchMeasures = new LinkedHashMap<>();
+    try (CloseableIterator<ScannerReport.Measure> readIt = reportReader.readComponentMeasures(ref)) {
       while (readIt.hasNext()) {
         ScannerReport.Measure batchMeasure = readIt.next();
         String metricKey = batchMeasure.getMetricKey();
         if (reportMetricValidator.validate(metricKey)) {
           Metric metric = metricRepository.getByKey(metricKey);
-          delegate.add(component, metric, batchMeasureToMeasure.toMeasure(batchMeasure, metric).get(), OverridePolicy.DO_NOT_OVERRIDE);
+          batchMeasures.putIfAbsent(metric, batchMeasureToMeasure.toMeasure(batchMeasure, metric).get());
         }
       }
     }
-    loadedComponents.add(component.getReportAttributes().getRef());
+    write(() -> {
+      if (!loadedComponents.get(ref)) {
+        batchMeasures.forEach((metric, measure) -> delegate.add(component, metric, measure, OverridePolicy.DO_NOT_OVERRIDE));
+        loadedComponents.set(ref);
+      }
+    });
+  }
+
+  private <T> T read(Supplier<T> reader) {
+    lock.readLock().lock();
+    try {
+      return reader.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void write(Runnable writer) {
+    lock.writeLock().lock();
+    try {
+      writer.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
   }
 
 }
@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Values of the past measures of an analysis, indexed by component and metric id.
+ * <p>
+ * Components are identified by a positive index, assigned by the caller (eg. the order in which they are visited),
+ * because not all components have a report ref. Values are stored in an open-addressing hash table made of primitive
+ * arrays, so that the past measures of all the components of a big project can be held in memory without creating
+ * one object per measure.
+ * </p>
+ * This class is not thread safe.
+ */
+public final class PastMeasuresIndex {
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final long FREE_KEY = 0L;
+
+  private long[] keys;
+  private double[] values;
+  private int size = 0;
+
+  public PastMeasuresIndex() {
+    this.keys = new long[DEFAULT_CAPACITY];
+    this.values = new double[DEFAULT_CAPACITY];
+  }
+
+  /**
+   * Sets the value of the measure of the specified component and metric, replacing any previous value.
+   */
+  public void add(int componentIndex, int metricId, double value) {
+    checkArgument(componentIndex >= 0, "Component index must be positive or zero");
+    if ((size + 1) * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+    long key = toKey(componentIndex, metricId);
+    int slot = slotOf(keys, key);
+    if (keys[slot] == FREE_KEY) {
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+  }
+
+  /**
+   * @return the value of the measure of the specified component and metric, or {@code defaultValue} if there is none
+   */
+  public double getValue(int componentIndex, int metricId, double defaultValue) {
+    if (componentIndex < 0) {
+      return defaultValue;
+    }
+    int slot = slotOf(keys, toKey(componentIndex, metricId));
+    return keys[slot] == FREE_KEY ? defaultValue : values[slot];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private void rehash(int newCapacity) {
+    long[] oldKeys = keys;
+    double[] oldValues = values;
+    keys = new long[newCapacity];
+    values = new double[newCapacity];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE_KEY) {
+        int slot = slotOf(keys, oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Linear probing. Capacity is always a power of two and the table is never more than half full, so there is always
+   * a free slot.
+   */
+  private static int slotOf(long[] keys, long key) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != FREE_KEY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Component index is shifted by one so that no key is equal to {@link #FREE_KEY}.
+   */
+  private static long toKey(int componentIndex, int metricId) {
+    return ((componentIndex + 1L) << 32) | (metricId & 0xFFFFFFFFL);
+  }
+
+  private static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -20,8 +20,13 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Optional;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
@@ -31,26 +36,44 @@ import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileDataPrefetcher;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Sources of previous analysis, from which SCM info is read when the report asks to copy them, are prefetched by
+ * batches of {@link #PREFETCH_SIZE} files in the order in which files are visited (see {@link FileDataPrefetcher}).
+ * Changesets of the files visited next are read from the report only when a batch is built, and those which ask for
+ * copy are not read again.
+ */
 public class ScmInfoRepositoryImpl implements ScmInfoRepository {
 
   private static final Logger LOGGER = Loggers.get(ScmInfoRepositoryImpl.class);
+  // sources are big, keep a small number of them in memory
+  private static final int PREFETCH_SIZE = 50;
 
   private final BatchReportReader batchReportReader;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final DbClient dbClient;
   private final SourceHashRepository sourceHashRepository;
+  private final TreeRootHolder treeRootHolder;
+  private final FileDataPrefetcher<FileSourceDto> sourcesPrefetcher;
 
   private final Map<Component, ScmInfo> scmInfoCache = new HashMap<>();
+  private final Map<String, Integer> refsByUuid = new HashMap<>();
+  // files of which changesets were read when building a batch of sources to prefetch, and ask for copy
+  private final Set<String> uuidsOfFilesCopiedFromPrevious = new HashSet<>();
 
-  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository) {
+  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient,
+    SourceHashRepository sourceHashRepository, TreeRootHolder treeRootHolder) {
     this.batchReportReader = batchReportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.dbClient = dbClient;
     this.sourceHashRepository = sourceHashRepository;
+    this.treeRootHolder = treeRootHolder;
+    this.sourcesPrefetcher = new FileDataPrefetcher<>(this::uuidsOfFiles, this::isScmInfoCopiedFromPrevious, PREFETCH_SIZE, this::loadSources);
   }
 
   @Override
@@ -81,6 +104,9 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
   }
 
   private ScmInfo getScmInfoForComponent(Component component) {
+    if (uuidsOfFilesCopiedFromPrevious.remove(component.getUuid())) {
+      return getScmInfoFromDb(component);
+    }
     ScannerReport.Changesets changesets = batchReportReader.readChangesets(component.getReportAttributes().getRef());
     if (changesets == null) {
       LOGGER.trace("No SCM info for file '{}'", component.getKey());
@@ -98,13 +124,36 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     }
 
     LOGGER.trace("Reading SCM info from db for file '{}'", file.getKey());
+    FileSourceDto dto = sourcesPrefetcher.get(file.getUuid());
+    if (dto == null || !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash())) {
+      return NoScmInfo.INSTANCE;
+    }
+    return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
+  }
+
+  private List<String> uuidsOfFiles() {
+    List<String> uuids = new ArrayList<>();
+    for (Component file : FileDataPrefetcher.filesInVisitOrder(treeRootHolder.getRoot())) {
+      refsByUuid.put(file.getUuid(), file.getReportAttributes().getRef());
+      uuids.add(file.getUuid());
+    }
+    return uuids;
+  }
+
+  private boolean isScmInfoCopiedFromPrevious(String fileUuid) {
+    ScannerReport.Changesets changesets = batchReportReader.readChangesets(refsByUuid.get(fileUuid));
+    if (changesets != null && changesets.getCopyFromPrevious()) {
+      uuidsOfFilesCopiedFromPrevious.add(fileUuid);
+      return true;
+    }
+    return false;
+  }
+
+  private Map<String, FileSourceDto> loadSources(List<String> fileUuids) {
     DbSession dbSession = dbClient.openSession(false);
     try {
-      FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
-      if (dto == null || !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash())) {
-        return NoScmInfo.INSTANCE;
-      }
-      return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
+      return dbClient.fileSourceDao().selectSourcesByFileUuids(dbSession, fileUuids).stream()
+        .collect(Collectors.toMap(FileSourceDto::getFileUuid, dto -> dto));
     } finally {
       dbClient.closeSession(dbSession);
     }
@@ -21,8 +21,9 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.ParallelPathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.Counter;
 import org.sonar.server.computation.task.projectanalysis.formula.CounterInitializationContext;
@@ -36,6 +37,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureReposito
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
 import static org.sonar.api.measures.CoreMetrics.COMMENTED_OUT_CODE_LINES_KEY;
 import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_DENSITY_KEY;
@@ -49,14 +51,19 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes comments measures on files and then aggregates them on higher components.
  */
+@StepDependencies(
+  reads = {TreeRootHolder.class, MetricRepository.class},
+  writes = MeasureRepository.class)
 public class CommentMeasuresStep implements ComputationStep {
 
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
+  private final CeConfiguration ceConfiguration;
   private final ImmutableList<Formula> formulas;
 
-  public CommentMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository) {
+  public CommentMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
+    CeConfiguration ceConfiguration) {
     this.treeRootHolder = treeRootHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
@@ -64,12 +71,14 @@ public class CommentMeasuresStep implements ComputationStep {
       createIntSumFormula(COMMENTED_OUT_CODE_LINES_KEY),
       new DocumentationFormula(),
       new CommentDensityFormula());
+    this.ceConfiguration = ceConfiguration;
   }
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(formulas))
+    ParallelPathAwareCrawler.of(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(formulas),
+      ceConfiguration.getVisitorsThreadCount())
         .visit(treeRootHolder.getRoot());
   }
 
@@ -20,7 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.task.projectanalysis.component.ParallelPathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.AverageFormula;
 import org.sonar.server.computation.task.projectanalysis.formula.DistributionFormula;
@@ -29,6 +30,7 @@ import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutor
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
 import static org.sonar.api.measures.CoreMetrics.CLASSES_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
@@ -47,6 +49,9 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes complexity measures on files and then aggregates them on higher components.
  */
+@StepDependencies(
+  reads = {TreeRootHolder.class, MetricRepository.class},
+  writes = MeasureRepository.class)
 public class ComplexityMeasuresStep implements ComputationStep {
 
   private static final ImmutableList<Formula> FORMULAS = ImmutableList.<Formula>of(
@@ -72,17 +77,21 @@ public class ComplexityMeasuresStep implements ComputationStep {
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
+  private final CeConfiguration ceConfiguration;
 
-  public ComplexityMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository) {
+  public ComplexityMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
+    CeConfiguration ceConfiguration) {
     this.treeRootHolder = treeRootHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
+    this.ceConfiguration = ceConfiguration;
   }
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(FORMULAS))
+    ParallelPathAwareCrawler.of(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(FORMULAS),
+      ceConfiguration.getVisitorsThreadCount())
       .visit(treeRootHolder.getRoot());
   }
 
@@ -32,6 +32,8 @@ import java.util.stream.StreamSupport;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.measure.PastMeasureDto;
@@ -44,6 +46,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureVariations;
+import org.sonar.server.computation.task.projectanalysis.measure.PastMeasuresIndex;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.projectanalysis.period.Period;
@@ -52,8 +55,6 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -65,6 +66,8 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Note that measures on developer are not handle yet.
  */
 public class ComputeMeasureVariationsStep implements ComputationStep {
+  // measures on files are currently purged, so past measures are not available on files
+  private static final CrawlerDepthLimit VISITED_DEPTH = CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW);
 
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
@@ -83,28 +86,85 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(NumericMetric.INSTANCE::apply).collect(Collectors.toList());
+    Map<String, Integer> componentIndexes = indexComponents();
+    Map<Integer, PastMeasuresIndex> pastMeasuresByPeriod = loadPastMeasures(componentIndexes, metrics);
+    new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(metrics, componentIndexes, pastMeasuresByPeriod))
+      .visit(treeRootHolder.getRoot());
+  }
+
+  /**
+   * Components are identified by their order of visit rather than by their report ref, as components of views don't
+   * have one.
+   */
+  private Map<String, Integer> indexComponents() {
+    Map<String, Integer> componentIndexes = new HashMap<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(VISITED_DEPTH, PRE_ORDER) {
+      @Override
+      public void visitAny(Component component) {
+        componentIndexes.put(component.getUuid(), componentIndexes.size());
+      }
+    }).visit(treeRootHolder.getRoot());
+    return componentIndexes;
+  }
+
+  /**
+   * Loads the past measures of all the components with a single scan of the measures of each period's analysis.
+   * Periods sharing the same analysis share the same index.
+   */
+  private Map<Integer, PastMeasuresIndex> loadPastMeasures(Map<String, Integer> componentIndexes, List<Metric> metrics) {
+    Set<Integer> metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
+    Map<String, PastMeasuresIndex> indexesByAnalysisUuid = new HashMap<>();
+    Map<Integer, PastMeasuresIndex> indexesByPeriod = new HashMap<>();
     DbSession dbSession = dbClient.openSession(false);
     try {
-      List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(NumericMetric.INSTANCE::apply).collect(Collectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
-        .visit(treeRootHolder.getRoot());
+      for (Period period : periodsHolder.getPeriods()) {
+        PastMeasuresIndex index = indexesByAnalysisUuid.get(period.getAnalysisUuid());
+        if (index == null) {
+          index = new PastMeasuresIndex();
+          dbClient.measureDao().selectPastMeasures(dbSession, period.getAnalysisUuid(), new PastMeasuresIndexer(index, componentIndexes, metricIds));
+          indexesByAnalysisUuid.put(period.getAnalysisUuid(), index);
+        }
+        indexesByPeriod.put(period.getIndex(), index);
+      }
     } finally {
       dbClient.closeSession(dbSession);
     }
+    return indexesByPeriod;
+  }
+
+  private static final class PastMeasuresIndexer implements ResultHandler {
+    private final PastMeasuresIndex index;
+    private final Map<String, Integer> componentIndexes;
+    private final Set<Integer> metricIds;
+
+    private PastMeasuresIndexer(PastMeasuresIndex index, Map<String, Integer> componentIndexes, Set<Integer> metricIds) {
+      this.index = index;
+      this.componentIndexes = componentIndexes;
+      this.metricIds = metricIds;
+    }
+
+    @Override
+    public void handleResult(ResultContext context) {
+      PastMeasureDto dto = (PastMeasureDto) context.getResultObject();
+      Integer componentIndex = componentIndexes.get(dto.getComponentUuid());
+      if (componentIndex != null && dto.hasValue() && metricIds.contains(dto.getMetricId())) {
+        index.add(componentIndex, dto.getMetricId(), dto.getValue());
+      }
+    }
   }
 
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
     private final List<Metric> metrics;
+    private final Map<String, Integer> componentIndexes;
+    private final Map<Integer, PastMeasuresIndex> pastMeasuresByPeriod;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
-      // measures on files are currently purged, so past measures are not available on files
-      super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
+    VariationMeasuresVisitor(List<Metric> metrics, Map<String, Integer> componentIndexes, Map<Integer, PastMeasuresIndex> pastMeasuresByPeriod) {
+      super(VISITED_DEPTH, PRE_ORDER);
       this.metrics = metrics;
+      this.componentIndexes = componentIndexes;
+      this.pastMeasuresByPeriod = pastMeasuresByPeriod;
     }
 
     @Override
@@ -115,23 +175,19 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
-      for (Period period : periodsHolder.getPeriods()) {
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, period.getIndex(), measuresWithVariationRepository);
+      int componentIndex = componentIndexes.get(component.getUuid());
+      for (Map.Entry<Integer, PastMeasuresIndex> entry : pastMeasuresByPeriod.entrySet()) {
+        setVariationMeasures(component, componentIndex, entry.getValue(), entry.getKey(), measuresWithVariationRepository);
       }
       return measuresWithVariationRepository;
     }
 
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, int period, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
+    private void setVariationMeasures(Component component, int componentIndex, PastMeasuresIndex pastMeasures, int period,
+      MeasuresWithVariationRepository measuresWithVariationRepository) {
       for (Metric metric : metrics) {
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariations()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
+          double pastValue = pastMeasures.getValue(componentIndex, metric.getId(), 0d);
           measuresWithVariationRepository.add(metric, measure.get(), period, computeVariation(measure.get(), pastValue));
         }
       }
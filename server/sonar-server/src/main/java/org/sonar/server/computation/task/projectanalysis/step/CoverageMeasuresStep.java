@@ -20,7 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.task.projectanalysis.component.ParallelPathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
 import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
@@ -57,17 +58,21 @@ public class CoverageMeasuresStep implements ComputationStep {
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
+  private final CeConfiguration ceConfiguration;
 
-  public CoverageMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository) {
+  public CoverageMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
+    CeConfiguration ceConfiguration) {
     this.treeRootHolder = treeRootHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
+    this.ceConfiguration = ceConfiguration;
   }
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(COVERAGE_FORMULAS))
+    ParallelPathAwareCrawler.of(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(COVERAGE_FORMULAS),
+      ceConfiguration.getVisitorsThreadCount())
         .visit(treeRootHolder.getRoot());
   }
 
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.sonar.api.utils.log.Logger;
@@ -28,12 +30,13 @@ import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolde
 import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.step.ComputationStep;
 
-public class ExecuteVisitorsStep implements ComputationStep {
+public class ExecuteVisitorsStep implements ComputationStep.WithSubSteps {
 
   private static final Logger LOGGER = Loggers.get(ExecuteVisitorsStep.class);
 
   private final TreeRootHolder treeRootHolder;
   private final List<ComponentVisitor> visitors;
+  private Map<String, Long> visitorDurations = Collections.emptyMap();
 
   public ExecuteVisitorsStep(TreeRootHolder treeRootHolder, List<ComponentVisitor> visitors) {
     this.treeRootHolder = treeRootHolder;
@@ -47,15 +50,25 @@ public class ExecuteVisitorsStep implements ComputationStep {
 
   @Override
   public void execute() {
-    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, LOGGER.isDebugEnabled());
+    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, true);
     visitorsCrawler.visit(treeRootHolder.getRoot());
-    logVisitorExecutionDurations(visitors, visitorsCrawler);
+    recordVisitorDurations(visitorsCrawler.getCumulativeDurations());
   }
 
-  private static void logVisitorExecutionDurations(List<ComponentVisitor> visitors, VisitorsCrawler visitorsCrawler) {
+  @Override
+  public Map<String, Long> getSubStepDurations() {
+    return visitorDurations;
+  }
+
+  private void recordVisitorDurations(Map<ComponentVisitor, Long> cumulativeDurations) {
+    Map<String, Long> durations = new LinkedHashMap<>();
+    for (ComponentVisitor visitor : visitors) {
+      durations.merge(visitor.getClass().getSimpleName(), cumulativeDurations.get(visitor), Long::sum);
+    }
+    this.visitorDurations = Collections.unmodifiableMap(durations);
+
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("  Execution time for each component visitor:");
-      Map<ComponentVisitor, Long> cumulativeDurations = visitorsCrawler.getCumulativeDurations();
       for (ComponentVisitor visitor : visitors) {
         LOGGER.debug("  - {} | time={}ms", visitor.getClass().getSimpleName(), cumulativeDurations.get(visitor));
       }
@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import org.apache.commons.io.FileUtils;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
@@ -31,12 +32,14 @@ import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.scanner.protocol.output.ReportContainer;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
- * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
- * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * Copies the report of the {@link CeTask} to a temp file when it is a {@link ReportContainer}, which is then read
+ * in place, or extracts it to a temp directory when it is a zip file (format of reports submitted by older
+ * scanners). The temp file or directory is added to the {@link MutableBatchReportDirectoryHolder}.
  */
 public class ExtractReportStep implements ComputationStep {
 
@@ -58,20 +61,30 @@ public class ExtractReportStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
       if (opt.isPresent()) {
-        File unzippedDir = tempFolder.newDir();
         try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
+          InputStream input = new BufferedInputStream(reportStream.getInputStream())) {
+          reportDirectoryHolder.setDirectory(ReportContainer.isReportContainer(input) ? copyContainer(input) : unzip(input));
         } catch (IOException e) {
           throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
         }
-        reportDirectoryHolder.setDirectory(unzippedDir);
       } else {
         throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
       }
     }
   }
 
+  private File copyContainer(InputStream input) throws IOException {
+    File containerFile = tempFolder.newFile("report", ".bin");
+    FileUtils.copyInputStreamToFile(input, containerFile);
+    return containerFile;
+  }
+
+  private File unzip(InputStream input) throws IOException {
+    File unzippedDir = tempFolder.newDir();
+    ZipUtils.unzip(input, unzippedDir);
+    return unzippedDir;
+  }
+
   @Override
   public String getDescription() {
     return "Extract report";
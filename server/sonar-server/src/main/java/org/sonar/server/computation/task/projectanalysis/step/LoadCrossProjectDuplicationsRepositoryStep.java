@@ -20,8 +20,15 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -31,6 +38,7 @@ import org.sonar.db.duplication.DuplicationUnitDto;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 import org.sonar.scanner.protocol.output.ScannerReport.CpdTextBlock;
+import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -39,6 +47,7 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationsFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
 import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.step.ComputationStep;
@@ -53,10 +62,18 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Blocks can be empty if :
  * - The file is excluded from the analysis using {@link org.sonar.api.CoreProperties#CPD_EXCLUSIONS}
  * - On Java, if the number of statements of the file is too small, nothing will be sent.
+ *
+ * When {@link CeConfiguration#isCrossProjectDuplicationsFilterEnabled()} is true, the hashes of the blocks of each file
+ * are first checked against the {@link CrossProjectDuplicationsFilter}. Files without any candidate hash are skipped and
+ * the others are grouped by language, so that the duplicated blocks of many files are selected by the same query.
  */
 public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(LoadCrossProjectDuplicationsRepositoryStep.class);
+  /**
+   * Number of candidate hashes above which the pending files of a language are flushed
+   */
+  private static final int HASHES_BATCH_SIZE = 1_000;
 
   private final TreeRootHolder treeRootHolder;
   private final BatchReportReader reportReader;
@@ -64,21 +81,33 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   private final IntegrateCrossProjectDuplications integrateCrossProjectDuplications;
   private final CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder;
   private final DbClient dbClient;
+  private final CeConfiguration ceConfiguration;
+  private final CrossProjectDuplicationsFilter crossProjectDuplicationsFilter;
 
   public LoadCrossProjectDuplicationsRepositoryStep(TreeRootHolder treeRootHolder, BatchReportReader reportReader,
     AnalysisMetadataHolder analysisMetadataHolder, CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder,
-    IntegrateCrossProjectDuplications integrateCrossProjectDuplications, DbClient dbClient) {
+    IntegrateCrossProjectDuplications integrateCrossProjectDuplications, DbClient dbClient,
+    CeConfiguration ceConfiguration, CrossProjectDuplicationsFilter crossProjectDuplicationsFilter) {
     this.treeRootHolder = treeRootHolder;
     this.reportReader = reportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.integrateCrossProjectDuplications = integrateCrossProjectDuplications;
     this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
     this.dbClient = dbClient;
+    this.ceConfiguration = ceConfiguration;
+    this.crossProjectDuplicationsFilter = crossProjectDuplicationsFilter;
   }
 
   @Override
   public void execute() {
-    if (crossProjectDuplicationStatusHolder.isEnabled()) {
+    if (!crossProjectDuplicationStatusHolder.isEnabled()) {
+      return;
+    }
+    if (ceConfiguration.isCrossProjectDuplicationsFilterEnabled()) {
+      FilteredCrossProjectDuplicationVisitor visitor = new FilteredCrossProjectDuplicationVisitor();
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.flushAll();
+    } else {
       new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
     }
   }
@@ -103,7 +132,7 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
       }
 
       Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
-      List<DuplicationUnitDto> dtos = selectDuplicates(file, hashes);
+      List<DuplicationUnitDto> dtos = selectDuplicates(file.getFileAttributes().getLanguageKey(), hashes);
       if (dtos.isEmpty()) {
         return;
       }
@@ -114,16 +143,116 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
 
       integrateCrossProjectDuplications.computeCpd(file, originBlocks, duplicatedBlocks);
     }
+  }
+
+  private class FilteredCrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final Map<String, PendingFiles> pendingFilesByLanguage = new HashMap<>();
+
+    private FilteredCrossProjectDuplicationVisitor() {
+      super(CrawlerDepthLimit.FILE, PRE_ORDER);
+    }
+
+    @Override
+    public void visitFile(Component file) {
+      List<CpdTextBlock> cpdTextBlocks = newArrayList(reportReader.readCpdTextBlocks(file.getReportAttributes().getRef()));
+      LOGGER.trace("Found {} cpd blocks on file {}", cpdTextBlocks.size(), file.getKey());
+      if (cpdTextBlocks.isEmpty()) {
+        return;
+      }
 
-    private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
-      DbSession dbSession = dbClient.openSession(false);
-      try {
-        Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
-        String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
-      } finally {
-        dbClient.closeSession(dbSession);
+      String language = file.getFileAttributes().getLanguageKey();
+      if (language == null) {
+        // blocks of files without language can't be duplicated in the database
+        return;
       }
+      Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
+      Set<String> candidateHashes = crossProjectDuplicationsFilter.selectCandidateHashes(language, treeRootHolder.getRoot().getUuid(), hashes);
+      if (candidateHashes.isEmpty()) {
+        LOGGER.trace("No cpd block of file {} can be duplicated in another project", file.getKey());
+        return;
+      }
+
+      PendingFiles pendingFiles = pendingFilesByLanguage.computeIfAbsent(language, PendingFiles::new);
+      pendingFiles.add(file, cpdTextBlocks, candidateHashes);
+      if (pendingFiles.hashes.size() >= HASHES_BATCH_SIZE) {
+        pendingFiles.flush();
+      }
+    }
+
+    private void flushAll() {
+      pendingFilesByLanguage.values().forEach(PendingFiles::flush);
+    }
+  }
+
+  /**
+   * Files of a same language waiting for their duplicated blocks to be selected
+   */
+  private class PendingFiles {
+    private final String language;
+    private final List<PendingFile> files = new ArrayList<>();
+    private final Set<String> hashes = new HashSet<>();
+
+    private PendingFiles(String language) {
+      this.language = language;
+    }
+
+    private void add(Component file, List<CpdTextBlock> cpdTextBlocks, Set<String> candidateHashes) {
+      files.add(new PendingFile(file, cpdTextBlocks, candidateHashes));
+      hashes.addAll(candidateHashes);
+    }
+
+    private void flush() {
+      if (files.isEmpty()) {
+        return;
+      }
+      ListMultimap<String, DuplicationUnitDto> dtosByHash = ArrayListMultimap.create();
+      for (DuplicationUnitDto dto : selectDuplicates(language, hashes)) {
+        dtosByHash.put(dto.getHash(), dto);
+      }
+      for (PendingFile pendingFile : files) {
+        computeCpd(pendingFile, dtosByHash);
+      }
+      files.clear();
+      hashes.clear();
+    }
+
+    private void computeCpd(PendingFile pendingFile, ListMultimap<String, DuplicationUnitDto> dtosByHash) {
+      List<Block> duplicatedBlocks = new ArrayList<>();
+      for (String hash : pendingFile.candidateHashes) {
+        from(dtosByHash.get(hash)).transform(DtoToBlock.INSTANCE).copyInto(duplicatedBlocks);
+      }
+      if (duplicatedBlocks.isEmpty()) {
+        return;
+      }
+
+      Component file = pendingFile.file;
+      Collection<Block> originBlocks = from(pendingFile.cpdTextBlocks).transform(new CpdTextBlockToBlock(file.getKey())).toList();
+      LOGGER.trace("Found {} duplicated cpd blocks on file {}", duplicatedBlocks.size(), file.getKey());
+
+      integrateCrossProjectDuplications.computeCpd(file, originBlocks, duplicatedBlocks);
+    }
+  }
+
+  private static final class PendingFile {
+    private final Component file;
+    private final List<CpdTextBlock> cpdTextBlocks;
+    private final Set<String> candidateHashes;
+
+    private PendingFile(Component file, List<CpdTextBlock> cpdTextBlocks, Set<String> candidateHashes) {
+      this.file = file;
+      this.cpdTextBlocks = cpdTextBlocks;
+      this.candidateHashes = candidateHashes;
+    }
+  }
+
+  private List<DuplicationUnitDto> selectDuplicates(String language, Collection<String> hashes) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
+      String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
+      return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, language, hashes);
+    } finally {
+      dbClient.closeSession(dbSession);
     }
   }
 
@@ -19,11 +19,16 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.duplication.DuplicationUnitDto;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -32,13 +37,21 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationsFilter;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 /**
- * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table
+ * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table.
+ *
+ * When {@link CeConfiguration#isCrossProjectDuplicationsFilterEnabled()} is true, the hashes of the blocks are
+ * also added to the {@link CrossProjectDuplicationsFilter} once committed.
  */
+@StepDependencies(
+  reads = {CrossProjectDuplicationStatusHolder.class, TreeRootHolder.class, AnalysisMetadataHolder.class, BatchReportReader.class},
+  writes = {DuplicationUnitDto.class, CrossProjectDuplicationsFilter.class})
 public class PersistCrossProjectDuplicationIndexStep implements ComputationStep {
 
   private final DbClient dbClient;
@@ -46,15 +59,19 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final BatchReportReader reportReader;
   private final CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder;
+  private final CeConfiguration ceConfiguration;
+  private final CrossProjectDuplicationsFilter crossProjectDuplicationsFilter;
 
   public PersistCrossProjectDuplicationIndexStep(CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder, DbClient dbClient,
     TreeRootHolder treeRootHolder, AnalysisMetadataHolder analysisMetadataHolder,
-    BatchReportReader reportReader) {
+    BatchReportReader reportReader, CeConfiguration ceConfiguration, CrossProjectDuplicationsFilter crossProjectDuplicationsFilter) {
     this.dbClient = dbClient;
     this.treeRootHolder = treeRootHolder;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.reportReader = reportReader;
     this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
+    this.ceConfiguration = ceConfiguration;
+    this.crossProjectDuplicationsFilter = crossProjectDuplicationsFilter;
   }
 
   @Override
@@ -66,8 +83,14 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
     DbSession session = dbClient.openSession(true);
     try {
       Component project = treeRootHolder.getRoot();
-      new DepthTraversalTypeAwareCrawler(new DuplicationVisitor(session, analysisMetadataHolder.getUuid())).visit(project);
+      ListMultimap<String, String> hashesByLanguage = ceConfiguration.isCrossProjectDuplicationsFilterEnabled() ? ArrayListMultimap.create() : null;
+      new DepthTraversalTypeAwareCrawler(new DuplicationVisitor(session, analysisMetadataHolder.getUuid(), hashesByLanguage)).visit(project);
       session.commit();
+      if (hashesByLanguage != null) {
+        for (String language : hashesByLanguage.keySet()) {
+          crossProjectDuplicationsFilter.addHashes(language, project.getUuid(), hashesByLanguage.get(language));
+        }
+      }
     } finally {
       dbClient.closeSession(session);
     }
@@ -77,11 +100,14 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
 
     private final DbSession session;
     private final String analysisUuid;
+    @CheckForNull
+    private final ListMultimap<String, String> hashesByLanguage;
 
-    private DuplicationVisitor(DbSession session, String analysisUuid) {
+    private DuplicationVisitor(DbSession session, String analysisUuid, @Nullable ListMultimap<String, String> hashesByLanguage) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
       this.analysisUuid = analysisUuid;
+      this.hashesByLanguage = hashesByLanguage;
     }
 
     @Override
@@ -90,6 +116,7 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
     }
 
     private void visitComponent(Component component) {
+      String language = hashesByLanguage == null ? null : component.getFileAttributes().getLanguageKey();
       int indexInFile = 0;
       CloseableIterator<ScannerReport.CpdTextBlock> blocks = reportReader.readCpdTextBlocks(component.getReportAttributes().getRef());
       try {
@@ -104,6 +131,9 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
               .setIndexInFile(indexInFile)
               .setAnalysisUuid(analysisUuid)
               .setComponentUuid(component.getUuid()));
+          if (hashesByLanguage != null && language != null) {
+            hashesByLanguage.put(language, block.getHash());
+          }
           indexInFile++;
         }
       } finally {
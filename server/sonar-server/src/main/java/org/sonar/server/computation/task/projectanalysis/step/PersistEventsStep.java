@@ -38,7 +38,11 @@ import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisi
 import org.sonar.server.computation.task.projectanalysis.event.Event;
 import org.sonar.server.computation.task.projectanalysis.event.EventRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
+@StepDependencies(
+  reads = {TreeRootHolder.class, AnalysisMetadataHolder.class, EventRepository.class},
+  writes = EventDto.class)
 public class PersistEventsStep implements ComputationStep {
 
   private final DbClient dbClient;
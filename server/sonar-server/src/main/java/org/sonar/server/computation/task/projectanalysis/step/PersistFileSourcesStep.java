@@ -19,12 +19,22 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -38,6 +48,7 @@ import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -58,11 +69,28 @@ import org.sonar.server.computation.task.projectanalysis.source.ScmLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SymbolsLineReader;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
+/**
+ * Persists the sources of the files of the project. Building the sources of a file (reading the report,
+ * serializing and compressing them) is done by a pool of {@link CeConfiguration#getFileSourcesThreadCount()} threads
+ * while a single writer thread persists them with JDBC batches. The size of the sources built but not yet committed
+ * is bounded by {@link #MAX_PENDING_BYTES}, so that big files can not produce an OOM.
+ * <p>
+ * Sources of the files which are unchanged since the previous analysis are built too, as their coverage, duplications,
+ * highlighting or symbols may have changed. They are rewritten only if their data changed.
+ * </p>
+ */
+@StepDependencies(
+  reads = {TreeRootHolder.class, BatchReportReader.class, SourceLinesRepository.class, ScmInfoRepository.class, DuplicationRepository.class},
+  writes = FileSourceDto.class)
 public class PersistFileSourcesStep implements ComputationStep {
 
+  private static final int MAX_PENDING_BYTES = 32 * 1024 * 1024;
+  private static final String THREAD_NAME_PREFIX = "ce-file-sources-";
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -70,9 +98,17 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final int threadCount;
+  private final int maxPendingBytes;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, CeConfiguration ceConfiguration) {
+    this(dbClient, system2, treeRootHolder, reportReader, sourceLinesRepository, scmInfoRepository, duplicationRepository, ceConfiguration, MAX_PENDING_BYTES);
+  }
+
+  @VisibleForTesting
+  PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, CeConfiguration ceConfiguration, int maxPendingBytes) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -80,16 +116,37 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.threadCount = ceConfiguration.getFileSourcesThreadCount();
+    this.maxPendingBytes = maxPendingBytes;
   }
 
   @Override
   public void execute() {
-    // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount + 1,
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setDaemon(true)
+        .build());
     DbSession session = dbClient.openSession(false);
     try {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(session))
-        .visit(treeRootHolder.getRoot());
+      FileSourcesWriter writer = new FileSourcesWriter(dbClient, maxPendingBytes);
+      Future<Void> writing = executorService.submit(writer);
+      FileSourceVisitor visitor = new FileSourceVisitor(session, executorService, writer);
+      Throwable failure = null;
+      try {
+        new DepthTraversalTypeAwareCrawler(visitor)
+          .visit(treeRootHolder.getRoot());
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+      failure = firstNonNull(failure, visitor.awaitFiles());
+      writer.finish();
+      failure = firstNonNull(await(writing), failure);
+      if (failure != null) {
+        throwUnchecked(failure);
+      }
     } finally {
+      executorService.shutdownNow();
       MyBatis.closeQuietly(session);
     }
   }
@@ -97,13 +154,20 @@ public class PersistFileSourcesStep implements ComputationStep {
   private class FileSourceVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
+    private final ExecutorService executorService;
+    private final FileSourcesWriter writer;
+    // bounds the number of files being built, and therefore the number of report files opened at the same time
+    private final Semaphore buildingFiles = new Semaphore(threadCount * 2);
+    private final List<Future<Void>> builds = new ArrayList<>();
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
 
-    private FileSourceVisitor(DbSession session) {
+    private FileSourceVisitor(DbSession session, ExecutorService executorService, FileSourcesWriter writer) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
+      this.executorService = executorService;
+      this.writer = writer;
     }
 
     @Override
@@ -118,59 +182,98 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
-      CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
-      LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
+      FileSourceDto previousDto = previousFileSourcesByUuid.remove(file.getUuid());
+      acquire(buildingFiles, 1);
+      // repositories are not thread-safe: the readers of the file are created by the thread crawling the tree
+      CloseableIterator<String> linesIterator = null;
+      LineReaders lineReaders = null;
       try {
-        ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
-      } catch (Exception e) {
+        linesIterator = sourceLinesRepository.readLines(file);
+        lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
+      } catch (RuntimeException e) {
+        close(linesIterator, lineReaders);
+        buildingFiles.release();
         throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
-      } finally {
-        linesIterator.close();
-        lineReaders.close();
       }
+      builds.add(executorService.submit(new FileSourceBuilder(file, linesIterator, lineReaders, previousDto)));
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
-
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
-      FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
-
-      if (previousDto == null) {
-        FileSourceDto dto = new FileSourceDto()
-          .setProjectUuid(projectUuid)
-          .setFileUuid(componentUuid)
-          .setDataType(Type.SOURCE)
-          .setBinaryData(data)
-          .setSrcHash(srcHash)
-          .setDataHash(dataHash)
-          .setLineHashes(lineHashes)
-          .setCreatedAt(system2.now())
-          .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
-        dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
-      } else {
-        // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
-        boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
-        boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
-        boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
-        if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
-          previousDto
+    @CheckForNull
+    private Throwable awaitFiles() {
+      Throwable failure = null;
+      for (Future<Void> build : builds) {
+        failure = firstNonNull(failure, await(build));
+      }
+      builds.clear();
+      return failure;
+    }
+
+    private class FileSourceBuilder implements Callable<Void> {
+      private final Component file;
+      private final CloseableIterator<String> linesIterator;
+      private final LineReaders lineReaders;
+      @CheckForNull
+      private final FileSourceDto previousDto;
+
+      private FileSourceBuilder(Component file, CloseableIterator<String> linesIterator, LineReaders lineReaders, @Nullable FileSourceDto previousDto) {
+        this.file = file;
+        this.linesIterator = linesIterator;
+        this.lineReaders = lineReaders;
+        this.previousDto = previousDto;
+      }
+
+      @Override
+      public Void call() {
+        try {
+          ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
+          ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
+          persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+          return null;
+        } catch (Exception e) {
+          throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
+        } finally {
+          close(linesIterator, lineReaders);
+          buildingFiles.release();
+        }
+      }
+
+      private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
+        DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+
+        byte[] data = FileSourceDto.encodeSourceData(fileData);
+        String dataHash = DigestUtils.md5Hex(data);
+        String srcHash = fileSourceData.getSrcHash();
+        String lineHashes = fileSourceData.getLineHashes();
+
+        if (previousDto == null) {
+          FileSourceDto dto = new FileSourceDto()
+            .setProjectUuid(projectUuid)
+            .setFileUuid(componentUuid)
+            .setDataType(Type.SOURCE)
             .setBinaryData(data)
-            .setDataHash(dataHash)
             .setSrcHash(srcHash)
+            .setDataHash(dataHash)
             .setLineHashes(lineHashes)
-            .setRevision(revision)
-            .setUpdatedAt(system2.now());
-          dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
+            .setCreatedAt(system2.now())
+            .setUpdatedAt(system2.now())
+            .setRevision(computeRevision(latestChange));
+          writer.insert(dto);
+        } else {
+          // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
+          boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
+          boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
+          String revision = computeRevision(latestChange);
+          boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
+          if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
+            previousDto
+              .setBinaryData(data)
+              .setDataHash(dataHash)
+              .setSrcHash(srcHash)
+              .setLineHashes(lineHashes)
+              .setRevision(revision)
+              .setUpdatedAt(system2.now());
+            writer.update(previousDto);
+          }
         }
       }
     }
@@ -184,6 +287,155 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  /**
+   * Persists the file sources queued by the threads building them. Statements are sent with JDBC batches, which are
+   * committed when no file source is waiting to be written or when the threads building them are blocked because the
+   * size of the pending file sources reached the budget.
+   */
+  private static class FileSourcesWriter implements Callable<Void> {
+    private static final PendingFileSource END = new PendingFileSource(new FileSourceDto(), false, 0);
+
+    private final DbClient dbClient;
+    private final int maxPendingBytes;
+    private final Semaphore pendingBytes;
+    private final BlockingQueue<PendingFileSource> queue = new LinkedBlockingQueue<>();
+    private volatile boolean failed = false;
+
+    private FileSourcesWriter(DbClient dbClient, int maxPendingBytes) {
+      this.dbClient = dbClient;
+      this.maxPendingBytes = maxPendingBytes;
+      this.pendingBytes = new Semaphore(maxPendingBytes);
+    }
+
+    void insert(FileSourceDto dto) {
+      add(dto, true);
+    }
+
+    void update(FileSourceDto dto) {
+      add(dto, false);
+    }
+
+    private void add(FileSourceDto dto, boolean insert) {
+      int size = dto.getBinaryData().length + (dto.getLineHashes() == null ? 0 : dto.getLineHashes().length());
+      int weight = Math.min(size, maxPendingBytes);
+      acquire(pendingBytes, weight);
+      if (failed) {
+        pendingBytes.release(weight);
+        throw new IllegalStateException("File sources can not be written because writing of previous ones failed");
+      }
+      queue.add(new PendingFileSource(dto, insert, weight));
+    }
+
+    void finish() {
+      queue.add(END);
+    }
+
+    @Override
+    public Void call() throws InterruptedException {
+      DbSession session = dbClient.openSession(true);
+      List<PendingFileSource> batch = new ArrayList<>();
+      boolean written = false;
+      try {
+        while (true) {
+          PendingFileSource fileSource = queue.poll();
+          if (fileSource == null) {
+            commit(session, batch);
+            fileSource = queue.take();
+          }
+          if (fileSource == END) {
+            commit(session, batch);
+            written = true;
+            return null;
+          }
+          batch.add(fileSource);
+          if (fileSource.insert) {
+            dbClient.fileSourceDao().insert(session, fileSource.dto);
+          } else {
+            dbClient.fileSourceDao().update(session, fileSource.dto);
+          }
+        }
+      } finally {
+        if (!written) {
+          // whatever the failure, unblock the threads waiting for the pending file sources to be written
+          failed = true;
+          pendingBytes.release(maxPendingBytes);
+        }
+        MyBatis.closeQuietly(session);
+      }
+    }
+
+    private void commit(DbSession session, List<PendingFileSource> batch) {
+      if (batch.isEmpty()) {
+        return;
+      }
+      session.commit();
+      int weight = 0;
+      for (PendingFileSource fileSource : batch) {
+        weight += fileSource.weight;
+      }
+      batch.clear();
+      pendingBytes.release(weight);
+    }
+  }
+
+  private static final class PendingFileSource {
+    private final FileSourceDto dto;
+    private final boolean insert;
+    private final int weight;
+
+    private PendingFileSource(FileSourceDto dto, boolean insert, int weight) {
+      this.dto = dto;
+      this.insert = insert;
+      this.weight = weight;
+    }
+  }
+
+  private static void acquire(Semaphore semaphore, int permits) {
+    try {
+      semaphore.acquire(permits);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while persisting sources", e);
+    }
+  }
+
+  @CheckForNull
+  private static Throwable await(Future<Void> future) {
+    try {
+      future.get();
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while persisting sources", e);
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+
+  @CheckForNull
+  private static Throwable firstNonNull(@Nullable Throwable first, @Nullable Throwable second) {
+    return first != null ? first : second;
+  }
+
+  private static void throwUnchecked(Throwable failure) {
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
+  private static void close(@Nullable CloseableIterator<String> linesIterator, @Nullable LineReaders lineReaders) {
+    if (linesIterator != null) {
+      linesIterator.close();
+    }
+    if (lineReaders != null) {
+      lineReaders.close();
+    }
+  }
+
   private static class LineReaders {
     private final List<LineReader> readers = new ArrayList<>();
     private final List<CloseableIterator<?>> closeables = new ArrayList<>();
@@ -192,7 +444,9 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component) {
       int componentRef = component.getReportAttributes().getRef();
-      CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef);
+      // data of lines after the end of the file is ignored
+      int lineCount = component.getFileAttributes().getLines();
+      CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef, 1, lineCount);
       closeables.add(coverageIt);
       readers.add(new CoverageLineReader(coverageIt));
 
@@ -205,7 +459,7 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
 
       RangeOffsetConverter rangeOffsetConverter = new RangeOffsetConverter();
-      CloseableIterator<ScannerReport.SyntaxHighlightingRule> highlightingIt = reportReader.readComponentSyntaxHighlighting(componentRef);
+      CloseableIterator<ScannerReport.SyntaxHighlightingRule> highlightingIt = reportReader.readComponentSyntaxHighlighting(componentRef, 1, lineCount);
       closeables.add(highlightingIt);
       readers.add(new HighlightingLineReader(component, highlightingIt, rangeOffsetConverter));
 
@@ -19,15 +19,23 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.ibatis.executor.BatchResult;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.utils.System2;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.BatchSession;
 import org.sonar.db.issue.IssueChangeDto;
 import org.sonar.db.issue.IssueChangeMapper;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueMapper;
+import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
@@ -36,55 +44,52 @@ import org.sonar.server.computation.task.projectanalysis.issue.RuleRepository;
 import org.sonar.db.DbClient;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
+@StepDependencies(
+  reads = {IssueCache.class, RuleRepository.class},
+  writes = {IssueDto.class, IssueChangeDto.class})
 public class PersistIssuesStep implements ComputationStep {
 
+  /**
+   * Maximum number of rows of a multi-row insert, so that a statement never exceeds the 2100 parameters
+   * supported by MSSQL.
+   */
+  private static final int MAX_ROWS_PER_INSERT = 50;
+
+  /**
+   * {@link BatchSession} commits, and therefore discards the update counts, as soon as it holds
+   * {@link BatchSession#MAX_BATCH_SIZE} statements.
+   */
+  private static final int MAX_UPDATES_PER_FLUSH = BatchSession.MAX_BATCH_SIZE - 1;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final UpdateConflictResolver conflictResolver;
   private final RuleRepository ruleRepository;
   private final IssueCache issueCache;
+  private final int batchSize;
 
   public PersistIssuesStep(DbClient dbClient, System2 system2, UpdateConflictResolver conflictResolver,
-    RuleRepository ruleRepository, IssueCache issueCache) {
+    RuleRepository ruleRepository, IssueCache issueCache, CeConfiguration ceConfiguration) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.conflictResolver = conflictResolver;
     this.ruleRepository = ruleRepository;
     this.issueCache = issueCache;
+    this.batchSize = ceConfiguration.getIssuesBatchSize();
   }
 
   @Override
   public void execute() {
     DbSession session = dbClient.openSession(true);
-    IssueMapper mapper = session.getMapper(IssueMapper.class);
-    IssueChangeMapper changeMapper = session.getMapper(IssueChangeMapper.class);
-
     CloseableIterator<DefaultIssue> issues = issueCache.traverse();
     try {
+      IssueWriter writer = new IssueWriter(session);
       while (issues.hasNext()) {
-        DefaultIssue issue = issues.next();
-        boolean saved = false;
-        if (issue.isNew()) {
-          Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
-          IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-          mapper.insert(dto);
-          saved = true;
-        } else if (issue.isChanged()) {
-          IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-          int updateCount = mapper.updateIfBeforeSelectedDate(dto);
-          if (updateCount == 0) {
-            // End-user and scan changed the issue at the same time.
-            // See https://jira.sonarsource.com/browse/SONAR-4309
-            conflictResolver.resolve(issue, mapper);
-          }
-          saved = true;
-        }
-        if (saved) {
-          insertChanges(changeMapper, issue);
-        }
+        writer.add(issues.next());
       }
-      session.flushStatements();
+      writer.flush();
       session.commit();
     } finally {
       MyBatis.closeQuietly(session);
@@ -92,18 +97,86 @@ public class PersistIssuesStep implements ComputationStep {
     }
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
-    for (IssueComment comment : issue.comments()) {
-      DefaultIssueComment c = (DefaultIssueComment) comment;
-      if (c.isNew()) {
-        IssueChangeDto changeDto = IssueChangeDto.of(c);
-        mapper.insert(changeDto);
+  /**
+   * Buffers the issues to be persisted and writes them by batches: new issues and issue changes with multi-row
+   * inserts, updated issues with a JDBC batch whose update counts are checked to detect concurrent modifications.
+   */
+  private class IssueWriter {
+    private final DbSession session;
+    private final IssueMapper mapper;
+    private final IssueChangeMapper changeMapper;
+    private final List<IssueDto> inserts = new ArrayList<>();
+    private final Map<IssueDto, DefaultIssue> updates = new IdentityHashMap<>();
+    private final List<IssueChangeDto> changes = new ArrayList<>();
+
+    private IssueWriter(DbSession session) {
+      this.session = session;
+      this.mapper = session.getMapper(IssueMapper.class);
+      this.changeMapper = session.getMapper(IssueChangeMapper.class);
+    }
+
+    private void add(DefaultIssue issue) {
+      if (issue.isNew()) {
+        Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
+        inserts.add(IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now()));
+        addChanges(issue);
+      } else if (issue.isChanged()) {
+        updates.put(IssueDto.toDtoForUpdate(issue, system2.now()), issue);
+        addChanges(issue);
+      }
+      if (inserts.size() + updates.size() + changes.size() >= batchSize) {
+        flush();
       }
     }
-    FieldDiffs diffs = issue.currentChange();
-    if (!issue.isNew() && diffs != null) {
-      IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
+
+    private void addChanges(DefaultIssue issue) {
+      for (IssueComment comment : issue.comments()) {
+        DefaultIssueComment c = (DefaultIssueComment) comment;
+        if (c.isNew()) {
+          changes.add(IssueChangeDto.of(c));
+        }
+      }
+      FieldDiffs diffs = issue.currentChange();
+      if (!issue.isNew() && diffs != null) {
+        changes.add(IssueChangeDto.of(issue.key(), diffs));
+      }
+    }
+
+    private void flush() {
+      for (List<IssueDto> partition : Lists.partition(inserts, MAX_ROWS_PER_INSERT)) {
+        mapper.insertMany(partition);
+      }
+      inserts.clear();
+
+      for (List<IssueDto> partition : Lists.partition(new ArrayList<>(updates.keySet()), MAX_UPDATES_PER_FLUSH)) {
+        update(partition);
+      }
+      updates.clear();
+
+      for (List<IssueChangeDto> partition : Lists.partition(changes, MAX_ROWS_PER_INSERT)) {
+        changeMapper.insertMany(partition);
+      }
+      changes.clear();
+    }
+
+    private void update(List<IssueDto> dtos) {
+      // pending statements are sent first so that the batch results only hold the updates below
+      session.flushStatements();
+      for (IssueDto dto : dtos) {
+        mapper.updateIfBeforeSelectedDate(dto);
+      }
+      for (BatchResult batchResult : session.flushStatements()) {
+        List<Object> parameters = batchResult.getParameterObjects();
+        int[] updateCounts = batchResult.getUpdateCounts();
+        for (int i = 0; i < updateCounts.length; i++) {
+          DefaultIssue issue = updates.get(parameters.get(i));
+          if (issue != null && updateCounts[i] == 0) {
+            // End-user and scan changed the issue at the same time.
+            // See https://jira.sonarsource.com/browse/SONAR-4309
+            conflictResolver.resolve(issue, mapper);
+          }
+        }
+      }
     }
   }
 
@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.property.InternalProperties;
+
+/**
+ * Stores the fingerprint of the plugins used by the analysis, so that the next analysis can know whether
+ * the issues of its unchanged files can be reused.
+ *
+ * @see ReusableFiles
+ */
+public class PersistPluginsFingerprintStep implements ComputationStep {
+
+  private final TreeRootHolder treeRootHolder;
+  private final BatchReportReader reportReader;
+  private final InternalProperties internalProperties;
+
+  public PersistPluginsFingerprintStep(TreeRootHolder treeRootHolder, BatchReportReader reportReader, InternalProperties internalProperties) {
+    this.treeRootHolder = treeRootHolder;
+    this.reportReader = reportReader;
+    this.internalProperties = internalProperties;
+  }
+
+  @Override
+  public void execute() {
+    internalProperties.write(
+      ReusableFiles.pluginsPropertyKey(treeRootHolder.getRoot().getUuid()),
+      ReusableFiles.pluginsFingerprint(reportReader.readMetadata()));
+  }
+
+  @Override
+  public String getDescription() {
+    return "Persist plugins fingerprint";
+  }
+}
@@ -39,6 +39,7 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -46,6 +47,9 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 /**
  * Persist project and module links
  */
+@StepDependencies(
+  reads = {TreeRootHolder.class, BatchReportReader.class},
+  writes = ComponentLinkDto.class)
 public class PersistProjectLinksStep implements ComputationStep {
 
   private final DbClient dbClient;
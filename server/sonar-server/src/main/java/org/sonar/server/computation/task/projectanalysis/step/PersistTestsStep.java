@@ -53,7 +53,11 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
+@StepDependencies(
+  reads = {TreeRootHolder.class, BatchReportReader.class},
+  writes = FileSourceDto.class)
 public class PersistTestsStep implements ComputationStep {
 
   private static final Logger LOG = Loggers.get(PersistTestsStep.class);
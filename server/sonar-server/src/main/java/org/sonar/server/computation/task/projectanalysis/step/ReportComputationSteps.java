@@ -32,7 +32,11 @@ import org.sonar.server.computation.task.step.ComputationStep;
 import static com.google.common.collect.FluentIterable.from;
 
 /**
- * Ordered list of steps classes and instances to be executed for batch processing
+ * Ordered list of steps classes and instances to be executed for batch processing.
+ * <p>
+ * When steps are executed concurrently, the order of this list is still honored for any two steps which are not
+ * both annotated with non conflicting {@link org.sonar.server.computation.task.step.StepDependencies}.
+ * </p>
  */
 public class ReportComputationSteps extends AbstractComputationSteps {
 
@@ -98,6 +102,7 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     PersistTestsStep.class,
     PersistCrossProjectDuplicationIndexStep.class,
     EnableAnalysisStep.class,
+    PersistPluginsFingerprintStep.class,
 
     UpdateQualityProfilesLastUsedDateStep.class,
     PurgeDatastoresStep.class,
@@ -22,8 +22,10 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import java.util.List;
+import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.ParallelPathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
@@ -34,6 +36,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureReposito
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.StepDependencies;
 
 import static org.sonar.api.measures.CoreMetrics.ACCESSORS_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASSES_KEY;
@@ -52,6 +55,9 @@ import static org.sonar.server.computation.task.projectanalysis.measure.Measure.
 /**
  * Compute size measures
  */
+@StepDependencies(
+  reads = {TreeRootHolder.class, MetricRepository.class},
+  writes = MeasureRepository.class)
 public class SizeMeasuresStep implements ComputationStep {
   private static final CounterStackElementFactory COUNTER_STACK_ELEMENT_FACTORY = new CounterStackElementFactory();
   private static final List<Formula> AGGREGATED_SIZE_MEASURE_FORMULAS = ImmutableList.<Formula>of(
@@ -66,11 +72,14 @@ public class SizeMeasuresStep implements ComputationStep {
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
+  private final CeConfiguration ceConfiguration;
 
-  public SizeMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository) {
+  public SizeMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
+    CeConfiguration ceConfiguration) {
     this.treeRootHolder = treeRootHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
+    this.ceConfiguration = ceConfiguration;
   }
 
   @Override
@@ -80,8 +89,9 @@ public class SizeMeasuresStep implements ComputationStep {
       metricRepository.getByKey(FILES_KEY),
       metricRepository.getByKey(LINES_KEY)))
         .visit(treeRootHolder.getRoot());
-    new PathAwareCrawler<>(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
-      .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS))
+    ParallelPathAwareCrawler.of(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
+      .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS),
+      ceConfiguration.getVisitorsThreadCount())
         .visit(treeRootHolder.getRoot());
   }
 
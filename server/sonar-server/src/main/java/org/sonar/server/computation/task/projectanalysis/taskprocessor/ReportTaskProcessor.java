@@ -29,6 +29,7 @@ import org.sonar.ce.taskprocessor.CeTaskProcessor;
 import org.sonar.core.platform.ComponentContainer;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
+import org.sonar.server.computation.monitoring.CeStepMetrics;
 import org.sonar.server.computation.task.container.TaskContainer;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactory;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
@@ -41,24 +42,28 @@ public class ReportTaskProcessor implements CeTaskProcessor {
 
   private final ContainerFactory containerFactory;
   private final ComponentContainer serverContainer;
+  private final CeStepMetrics stepMetrics;
   @CheckForNull
   private final ReportAnalysisComponentProvider[] componentProviders;
 
   /**
    * Used when at least one Privileged plugin is installed
    */
-  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, ReportAnalysisComponentProvider[] componentProviders) {
+  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, CeStepMetrics stepMetrics,
+    ReportAnalysisComponentProvider[] componentProviders) {
     this.containerFactory = containerFactory;
     this.serverContainer = serverContainer;
+    this.stepMetrics = stepMetrics;
     this.componentProviders = componentProviders;
   }
 
   /**
    * Used when no privileged plugin is installed
    */
-  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer) {
+  public ReportTaskProcessor(ContainerFactory containerFactory, ComponentContainer serverContainer, CeStepMetrics stepMetrics) {
     this.containerFactory = containerFactory;
     this.serverContainer = serverContainer;
+    this.stepMetrics = stepMetrics;
     this.componentProviders = null;
   }
 
@@ -71,10 +76,12 @@ public class ReportTaskProcessor implements CeTaskProcessor {
   public CeTaskResult process(CeTask task) {
     TaskContainer ceContainer = containerFactory.create(serverContainer, task, componentProviders);
 
+    ComputationStepExecutor stepExecutor = ceContainer.getComponentByType(ComputationStepExecutor.class);
     try {
-      ceContainer.getComponentByType(ComputationStepExecutor.class).execute();
+      stepExecutor.execute();
       return ceContainer.getComponentByType(TaskResultHolder.class).getResult();
     } finally {
+      stepMetrics.addTask(task.getType(), task.getUuid(), stepExecutor.getStepMetrics());
       ensureThreadLocalIsClean(ceContainer);
 
       ceContainer.cleanup();
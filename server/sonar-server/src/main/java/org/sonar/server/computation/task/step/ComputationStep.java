@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.task.step;
 
+import java.util.Map;
 import org.sonar.server.computation.task.projectanalysis.step.ReportComputationSteps;
 
 /**
@@ -29,4 +30,14 @@ public interface ComputationStep {
   void execute();
 
   String getDescription();
+
+  /**
+   * A step made of sub-steps, the durations of which are reported in its {@link StepMetrics}.
+   */
+  interface WithSubSteps extends ComputationStep {
+    /**
+     * Durations in milliseconds of the sub-steps of the last execution of the step, by name, in execution order.
+     */
+    Map<String, Long> getSubStepDurations();
+  }
 }
@@ -19,37 +19,75 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.slf4j.MDC;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.server.computation.configuration.CeConfiguration;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
 
+  private static final String THREAD_NAME_PREFIX = "ce-step-";
+
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  private final int threadCount;
+  private final List<StepMetrics> stepMetrics = Collections.synchronizedList(new ArrayList<>());
 
   /**
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
    * container.
    */
   public ComputationStepExecutor(ComputationSteps steps) {
-    this(steps, null);
+    this(steps, (Listener) null);
   }
 
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, listener, 1);
+  }
+
+  /**
+   * Used when no {@link ComputationStepExecutor.Listener} is available in pico
+   * container.
+   */
+  public ComputationStepExecutor(ComputationSteps steps, CeConfiguration ceConfiguration) {
+    this(steps, null, ceConfiguration);
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, CeConfiguration ceConfiguration) {
+    this(steps, listener, ceConfiguration.getStepThreadCount());
+  }
+
+  private ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, int threadCount) {
     this.steps = steps;
     this.listener = listener;
+    this.threadCount = threadCount;
   }
 
   public void execute() {
-    Profiler stepProfiler = Profiler.create(LOGGER);
     boolean allStepsExecuted = false;
     try {
-      executeSteps(stepProfiler);
+      if (threadCount > 1) {
+        executeStepsConcurrently();
+      } else {
+        executeSteps();
+      }
       allStepsExecuted = true;
     } finally {
       if (listener != null) {
@@ -58,12 +96,131 @@ public final class ComputationStepExecutor {
     }
   }
 
-  private void executeSteps(Profiler stepProfiler) {
+  /**
+   * Metrics of the steps executed so far, in order of completion. The metrics of a step which failed are included.
+   */
+  public List<StepMetrics> getStepMetrics() {
+    synchronized (stepMetrics) {
+      return new ArrayList<>(stepMetrics);
+    }
+  }
+
+  private void executeSteps() {
     for (ComputationStep step : steps.instances()) {
-      stepProfiler.start();
+      executeStep(step);
+    }
+  }
+
+  private void executeStep(ComputationStep step) {
+    Profiler stepProfiler = Profiler.create(LOGGER).start();
+    StepMetrics.Meter meter = StepMetrics.start();
+    try {
       step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+    } catch (RuntimeException | Error e) {
+      stepMetrics.add(stop(meter, step));
+      throw e;
+    }
+    StepMetrics metrics = stop(meter, step);
+    stepMetrics.add(metrics);
+    stepProfiler.stopDebug(metrics.getDescription());
+  }
+
+  private static StepMetrics stop(StepMetrics.Meter meter, ComputationStep step) {
+    if (step instanceof ComputationStep.WithSubSteps) {
+      return meter.stop(step.getDescription(), ((ComputationStep.WithSubSteps) step).getSubStepDurations());
+    }
+    return meter.stop(step.getDescription());
+  }
+
+  /**
+   * Executes the steps on a pool of {@link #threadCount} threads, starting a step as soon as all the steps it depends
+   * on (see {@link ComputationStepGraph}) are executed.
+   * <p>
+   * When a step fails, no other step is started and the failure is propagated once the steps already running are done.
+   * </p>
+   */
+  private void executeStepsConcurrently() {
+    ComputationStepGraph graph = new ComputationStepGraph(steps.instances());
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount,
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setDaemon(true)
+        .build());
+    try {
+      executeSteps(graph, new ExecutorCompletionService<>(executorService));
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void executeSteps(ComputationStepGraph graph, CompletionService<Integer> completionService) {
+    int[] dependencyCounts = new int[graph.size()];
+    Queue<Integer> readySteps = new ArrayDeque<>();
+    for (int i = 0; i < graph.size(); i++) {
+      dependencyCounts[i] = graph.getDependencyCount(i);
+      if (dependencyCounts[i] == 0) {
+        readySteps.add(i);
+      }
+    }
+
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+    Throwable failure = null;
+    int runningSteps = 0;
+    while (true) {
+      while (failure == null && !readySteps.isEmpty()) {
+        int stepIndex = readySteps.poll();
+        completionService.submit(() -> executeStep(graph.getStep(stepIndex), mdcContext), stepIndex);
+        runningSteps++;
+      }
+      if (runningSteps == 0) {
+        break;
+      }
+      int completedIndex;
+      try {
+        completedIndex = completionService.take().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing computation steps", e);
+      } catch (ExecutionException e) {
+        runningSteps--;
+        if (failure == null) {
+          failure = e.getCause();
+        }
+        continue;
+      }
+      runningSteps--;
+      for (int dependent : graph.getDependents(completedIndex)) {
+        dependencyCounts[dependent]--;
+        if (dependencyCounts[dependent] == 0) {
+          readySteps.add(dependent);
+        }
+      }
+    }
+
+    if (failure != null) {
+      throwUnchecked(failure);
+    }
+  }
+
+  private void executeStep(ComputationStep step, @Nullable Map<String, String> mdcContext) {
+    if (mdcContext != null) {
+      MDC.setContextMap(mdcContext);
+    }
+    try {
+      executeStep(step);
+    } finally {
+      MDC.clear();
+    }
+  }
+
+  private static void throwUnchecked(Throwable failure) {
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
     }
+    throw new IllegalStateException(failure);
   }
 
   private void executeListener(boolean allStepsExecuted) {
@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Dependency graph of {@link ComputationStep}, built from the execution sequence of the steps and from their
+ * {@link StepDependencies} declaration.
+ * <p>
+ * A step depends on each step before it in the sequence it conflicts with, ie. when one of them writes a resource the
+ * other one reads or writes. Steps without {@link StepDependencies} conflict with any other step, which preserves the
+ * ordering of the sequence.
+ * </p>
+ */
+@Immutable
+final class ComputationStepGraph {
+  private final List<ComputationStep> steps;
+  private final List<List<Integer>> dependents;
+  private final int[] dependencyCounts;
+
+  ComputationStepGraph(Iterable<ComputationStep> orderedSteps) {
+    this.steps = new ArrayList<>();
+    orderedSteps.forEach(steps::add);
+    int size = steps.size();
+    this.dependents = new ArrayList<>(size);
+    this.dependencyCounts = new int[size];
+
+    List<StepDependencies> declarations = new ArrayList<>(size);
+    for (ComputationStep step : steps) {
+      declarations.add(step.getClass().getAnnotation(StepDependencies.class));
+      dependents.add(new ArrayList<>());
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < i; j++) {
+        if (conflict(declarations.get(j), declarations.get(i))) {
+          dependents.get(j).add(i);
+          dependencyCounts[i]++;
+        }
+      }
+    }
+  }
+
+  private static boolean conflict(@CheckForNull StepDependencies before, @CheckForNull StepDependencies after) {
+    if (before == null || after == null) {
+      return true;
+    }
+    Set<Class<?>> beforeWrites = toSet(before.writes());
+    Set<Class<?>> afterWrites = toSet(after.writes());
+    return intersects(beforeWrites, afterWrites)
+      || intersects(beforeWrites, toSet(after.reads()))
+      || intersects(afterWrites, toSet(before.reads()));
+  }
+
+  private static Set<Class<?>> toSet(Class<?>[] classes) {
+    return new HashSet<>(Arrays.asList(classes));
+  }
+
+  private static boolean intersects(Set<Class<?>> a, Set<Class<?>> b) {
+    return !Collections.disjoint(a, b);
+  }
+
+  int size() {
+    return steps.size();
+  }
+
+  ComputationStep getStep(int index) {
+    return steps.get(index);
+  }
+
+  /**
+   * Indexes of the steps which depend directly on the step with the specified index.
+   */
+  List<Integer> getDependents(int index) {
+    return Collections.unmodifiableList(dependents.get(index));
+  }
+
+  /**
+   * Number of steps the step with the specified index directly depends on.
+   */
+  int getDependencyCount(int index) {
+    return dependencyCounts[index];
+  }
+}
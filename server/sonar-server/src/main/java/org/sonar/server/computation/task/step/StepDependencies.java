@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the holders, repositories and DB tables (identified by their DTO class) a {@link ComputationStep} reads
+ * and writes.
+ * <p>
+ * This information is used by {@link ComputationStepExecutor} to run independent steps concurrently. Two steps are
+ * independent when none of them writes a resource the other one reads or writes. A step which is not annotated is
+ * considered to depend on every step before it and every step after it depends on it.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface StepDependencies {
+  /**
+   * Resources read by the step.
+   */
+  Class<?>[] reads() default {};
+
+  /**
+   * Resources written by the step. A resource written by the step does not need to be declared in {@link #reads()}.
+   */
+  Class<?>[] writes() default {};
+}
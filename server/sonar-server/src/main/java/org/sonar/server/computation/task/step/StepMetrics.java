@@ -0,0 +1,174 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.db.profiling.SqlStatistics;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Resources used by the execution of a {@link ComputationStep}, as measured on the thread which executed it.
+ * <p>
+ * CPU time and allocated bytes are {@code -1} when the JVM does not support measuring them. Resources used by the
+ * threads a step may start itself are not measured, only the durations of its sub-steps (see
+ * {@link ComputationStep.WithSubSteps}) cover them.
+ * </p>
+ */
+public final class StepMetrics {
+  public static final long UNSUPPORTED = -1L;
+
+  private final String description;
+  private final long durationMs;
+  private final long cpuTimeMs;
+  private final long allocatedBytes;
+  private final long sqlStatementCount;
+  private final long sqlRowsRead;
+  private final long sqlRowsWritten;
+  private final Map<String, Long> subStepDurations;
+
+  public StepMetrics(String description, long durationMs, long cpuTimeMs, long allocatedBytes, SqlStatistics sqlStatistics,
+    Map<String, Long> subStepDurations) {
+    this.description = requireNonNull(description, "description can't be null");
+    this.durationMs = durationMs;
+    this.cpuTimeMs = cpuTimeMs;
+    this.allocatedBytes = allocatedBytes;
+    this.sqlStatementCount = sqlStatistics.getStatementCount();
+    this.sqlRowsRead = sqlStatistics.getRowsRead();
+    this.sqlRowsWritten = sqlStatistics.getRowsWritten();
+    this.subStepDurations = Collections.unmodifiableMap(new LinkedHashMap<>(subStepDurations));
+  }
+
+  /**
+   * Starts measuring the resources used by the current thread.
+   */
+  public static Meter start() {
+    return new Meter();
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public long getDurationMs() {
+    return durationMs;
+  }
+
+  public long getCpuTimeMs() {
+    return cpuTimeMs;
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public long getSqlStatementCount() {
+    return sqlStatementCount;
+  }
+
+  public long getSqlRowsRead() {
+    return sqlRowsRead;
+  }
+
+  public long getSqlRowsWritten() {
+    return sqlRowsWritten;
+  }
+
+  /**
+   * Durations in milliseconds of the sub-steps of the step, by name, in execution order.
+   */
+  public Map<String, Long> getSubStepDurations() {
+    return subStepDurations;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder res = new StringBuilder(description)
+      .append(" | time=").append(durationMs).append("ms");
+    if (cpuTimeMs != UNSUPPORTED) {
+      res.append(" | cpu=").append(cpuTimeMs).append("ms");
+    }
+    if (allocatedBytes != UNSUPPORTED) {
+      res.append(" | allocated=").append(allocatedBytes).append("B");
+    }
+    res.append(" | statements=").append(sqlStatementCount)
+      .append(" | rowsRead=").append(sqlRowsRead)
+      .append(" | rowsWritten=").append(sqlRowsWritten);
+    for (Map.Entry<String, Long> subStep : subStepDurations.entrySet()) {
+      res.append("\n  - ").append(subStep.getKey()).append(" | time=").append(subStep.getValue()).append("ms");
+    }
+    return res.toString();
+  }
+
+  private static ThreadMXBean threadMXBean() {
+    return ManagementFactory.getThreadMXBean();
+  }
+
+  private static long cpuTime() {
+    ThreadMXBean threadMXBean = threadMXBean();
+    if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+      return threadMXBean.getCurrentThreadCpuTime();
+    }
+    return UNSUPPORTED;
+  }
+
+  private static long allocatedBytes() {
+    ThreadMXBean threadMXBean = threadMXBean();
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+        return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return UNSUPPORTED;
+  }
+
+  /**
+   * Measure of the resources used by the current thread since the call to {@link StepMetrics#start()}. A meter
+   * must be stopped by the thread which started it.
+   */
+  public static final class Meter {
+    private final long startTime;
+    private final long startCpuTime;
+    private final long startAllocatedBytes;
+
+    private Meter() {
+      this.startTime = System.currentTimeMillis();
+      this.startCpuTime = cpuTime();
+      this.startAllocatedBytes = allocatedBytes();
+      SqlStatistics.startRecording();
+    }
+
+    public StepMetrics stop(String description) {
+      return stop(description, Collections.emptyMap());
+    }
+
+    public StepMetrics stop(String description, Map<String, Long> subStepDurations) {
+      long durationMs = System.currentTimeMillis() - startTime;
+      long cpuTimeMs = startCpuTime == UNSUPPORTED ? UNSUPPORTED : ((cpuTime() - startCpuTime) / 1_000_000L);
+      long allocatedBytesDelta = startAllocatedBytes == UNSUPPORTED ? UNSUPPORTED : (allocatedBytes() - startAllocatedBytes);
+      return new StepMetrics(description, durationMs, cpuTimeMs, allocatedBytesDelta, SqlStatistics.stopRecording(), subStepDurations);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -40,15 +41,17 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
   private final CeProcessingSchedulerExecutorService executorService;
   private final CeWorkerCallable workerRunnable;
+  private final CeWorkerWakeUp workerWakeUp;
 
   private final long delayBetweenTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable, CeWorkerWakeUp workerWakeUp) {
     this.executorService = processingExecutorService;
     this.workerRunnable = workerRunnable;
+    this.workerWakeUp = workerWakeUp;
 
     this.delayBetweenTasks = ceConfiguration.getQueuePollingDelay();
     this.timeUnit = MILLISECONDS;
@@ -67,6 +70,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
   @Override
   public void startScheduling() {
+    workerWakeUp.addListener(this::wakeUpIdleWorkers);
     for (ChainingCallback chainingCallback : chainingCallbacks) {
       ListenableScheduledFuture<Boolean> future = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
       addCallback(future, chainingCallback, executorService);
@@ -80,10 +84,18 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     }
   }
 
+  private void wakeUpIdleWorkers() {
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      chainingCallback.wakeUp();
+    }
+  }
+
   private class ChainingCallback implements FutureCallback<Boolean> {
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
     @CheckForNull
-    private ListenableFuture<Boolean> workerFuture;
+    private volatile ListenableFuture<Boolean> workerFuture;
+    @CheckForNull
+    private volatile DelayedCall delayedCall;
 
     @Override
     public void onSuccess(@Nullable Boolean result) {
@@ -105,6 +117,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     private void chainWithoutDelay() {
       if (keepRunning()) {
+        delayedCall = null;
         workerFuture = executorService.submit(workerRunnable);
       }
       addCallback();
@@ -112,11 +125,25 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     private void chainWithDelay() {
       if (keepRunning()) {
-        workerFuture = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
+        DelayedCall call = new DelayedCall(workerRunnable);
+        workerFuture = executorService.schedule(call, delayBetweenTasks, timeUnit);
+        delayedCall = call;
       }
       addCallback();
     }
 
+    /**
+     * Cancels the delayed polling of the queue if it has not started yet. The cancellation is reported to
+     * {@link #onFailure(Throwable)}, which polls the queue again without delay.
+     */
+    private void wakeUp() {
+      DelayedCall call = delayedCall;
+      ListenableFuture<Boolean> future = workerFuture;
+      if (call != null && future != null && keepRunning() && call.preventCall()) {
+        future.cancel(false);
+      }
+    }
+
     private void addCallback() {
       if (workerFuture != null && keepRunning()) {
         Futures.addCallback(workerFuture, this, executorService);
@@ -134,4 +161,34 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       }
     }
   }
+
+  /**
+   * Delayed polling of the queue which can be prevented from running, even once its delay is elapsed, so that the
+   * future executing it can be cancelled without cancelling a running worker.
+   */
+  static final class DelayedCall implements Callable<Boolean> {
+    private final CeWorkerCallable delegate;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private DelayedCall(CeWorkerCallable delegate) {
+      this.delegate = delegate;
+    }
+
+    CeWorkerCallable getDelegate() {
+      return delegate;
+    }
+
+    private boolean preventCall() {
+      return started.compareAndSet(false, true);
+    }
+
+    @Override
+    public Boolean call() throws Exception {
+      if (!started.compareAndSet(false, true)) {
+        // woken up while being started, the queue must be polled again without delay
+        return true;
+      }
+      return delegate.call();
+    }
+  }
 }
@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeTaskSubmitListener;
+import org.sonar.process.DefaultProcessCommands;
+import org.sonar.process.ProcessCommands;
+
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+import static org.sonar.process.ProcessId.COMPUTE_ENGINE;
+
+/**
+ * Wakes up the idle workers of the Compute Engine when tasks are submitted, either from within the Compute Engine
+ * process (see {@link CeTaskSubmitListener}) or by the Web Server, which increments the sequence of the queue in the
+ * IPC shared directory (see {@link ProcessCommands#incrementQueueSequence()}).
+ * <p>
+ * Regular polling of the queue remains in place, this is only a shortcut to reduce the latency of task processing.
+ * </p>
+ */
+public class CeWorkerWakeUp implements CeTaskSubmitListener, Startable {
+  private static final Logger LOG = Loggers.get(CeWorkerWakeUp.class);
+  private static final long WATCH_PERIOD_IN_MS = 100L;
+
+  private final Settings settings;
+  private final long watchPeriodInMs;
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  @CheckForNull
+  private DefaultProcessCommands processCommands;
+  @CheckForNull
+  private ScheduledExecutorService watcher;
+  private long lastQueueSequence;
+
+  public CeWorkerWakeUp(Settings settings) {
+    this(settings, WATCH_PERIOD_IN_MS);
+  }
+
+  @VisibleForTesting
+  CeWorkerWakeUp(Settings settings, long watchPeriodInMs) {
+    this.settings = settings;
+    this.watchPeriodInMs = watchPeriodInMs;
+  }
+
+  public void addListener(Runnable listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void onSubmit() {
+    for (Runnable listener : listeners) {
+      listener.run();
+    }
+  }
+
+  @Override
+  public void start() {
+    String sharedPath = settings.getString(PROPERTY_SHARED_PATH);
+    if (sharedPath == null) {
+      return;
+    }
+    processCommands = DefaultProcessCommands.secondary(new File(sharedPath), COMPUTE_ENGINE.getIpcIndex());
+    lastQueueSequence = processCommands.getQueueSequence();
+    watcher = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat("ce-wake-up-%d")
+        .setDaemon(true)
+        .build());
+    watcher.scheduleWithFixedDelay(this::watchQueueSequence, watchPeriodInMs, watchPeriodInMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void watchQueueSequence() {
+    try {
+      long queueSequence = processCommands.getQueueSequence();
+      if (queueSequence != lastQueueSequence) {
+        lastQueueSequence = queueSequence;
+        onSubmit();
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to wake up Compute Engine workers", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (watcher != null) {
+      watcher.shutdownNow();
+      try {
+        watcher.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      watcher = null;
+    }
+    if (processCommands != null) {
+      processCommands.close();
+      processCommands = null;
+    }
+  }
+}
@@ -19,12 +19,18 @@
  */
 package org.sonar.server.util.cache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
@@ -33,22 +39,40 @@ import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * <p>
+ * Objects are written with Java serialization unless a {@link DiskCacheCodec} is provided.
+ * </p>
  */
 public class DiskCache<O extends Serializable> {
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int RECORD_MARKER = 1;
+
   private final File file;
   private final System2 system2;
+  @CheckForNull
+  private final DiskCacheCodec<O> codec;
 
   public DiskCache(File file, System2 system2) {
+    this(file, system2, null);
+  }
+
+  public DiskCache(File file, System2 system2, @Nullable DiskCacheCodec<O> codec) {
     this.system2 = system2;
     this.file = file;
+    this.codec = codec;
     OutputStream output = null;
     boolean threw = true;
     try {
-      // writes the serialization stream header required when calling "traverse()"
-      // on empty stream. Moreover it allows to call multiple times "newAppender()"
-      output = new ObjectOutputStream(new FileOutputStream(file));
-      output.flush();
+      if (codec == null) {
+        // writes the serialization stream header required when calling "traverse()"
+        // on empty stream. Moreover it allows to call multiple times "newAppender()"
+        output = new ObjectOutputStream(new FileOutputStream(file));
+        output.flush();
+      } else {
+        // codec-encoded files have no header, the file is only truncated
+        output = new FileOutputStream(file);
+      }
       threw = false;
     } catch (IOException e) {
       throw new IllegalStateException("Fail to write into file: " + file, e);
@@ -69,23 +93,33 @@ public class DiskCache<O extends Serializable> {
 
   public CloseableIterator<O> traverse() {
     try {
-      return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      if (codec == null) {
+        return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      }
+      return new CodecIterator(new DataInputStream(new BufferedInputStream(FileUtils.openInputStream(file), BUFFER_SIZE)));
     } catch (IOException e) {
       throw new IllegalStateException("Fail to traverse file: " + file, e);
     }
   }
 
   public class DiskAppender implements AutoCloseable {
-    private final ObjectOutputStream output;
+    private final ObjectOutputStream objectOutput;
+    private final DataOutputStream dataOutput;
 
     private DiskAppender() {
       try {
-        this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
-          @Override
-          protected void writeStreamHeader() throws IOException {
-            // do not write stream headers as it's already done in constructor of DiskCache
-          }
-        };
+        if (codec == null) {
+          this.objectOutput = new ObjectOutputStream(new FileOutputStream(file, true)) {
+            @Override
+            protected void writeStreamHeader() throws IOException {
+              // do not write stream headers as it's already done in constructor of DiskCache
+            }
+          };
+          this.dataOutput = null;
+        } else {
+          this.objectOutput = null;
+          this.dataOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE));
+        }
       } catch (IOException e) {
         throw new IllegalStateException("Fail to open file " + file, e);
       }
@@ -93,8 +127,13 @@ public class DiskCache<O extends Serializable> {
 
     public DiskAppender append(O object) {
       try {
-        output.writeObject(object);
-        output.reset();
+        if (codec == null) {
+          objectOutput.writeObject(object);
+          objectOutput.reset();
+        } else {
+          dataOutput.writeByte(RECORD_MARKER);
+          codec.write(object, dataOutput);
+        }
         return this;
       } catch (IOException e) {
         throw new IllegalStateException("Fail to write into file " + file, e);
@@ -103,7 +142,36 @@ public class DiskCache<O extends Serializable> {
 
     @Override
     public void close() {
-      system2.close(output);
+      system2.close(codec == null ? objectOutput : dataOutput);
+    }
+  }
+
+  private class CodecIterator extends CloseableIterator<O> {
+    private final DataInputStream input;
+
+    private CodecIterator(DataInputStream input) {
+      this.input = input;
+    }
+
+    @Override
+    protected O doNext() {
+      try {
+        int marker = input.read();
+        if (marker == -1) {
+          return null;
+        }
+        if (marker != RECORD_MARKER) {
+          throw new IllegalStateException("Unexpected record marker " + marker + " in file " + file);
+        }
+        return codec.read(input);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read file " + file, e);
+      }
+    }
+
+    @Override
+    protected void doClose() {
+      IOUtils.closeQuietly(input);
     }
   }
 }
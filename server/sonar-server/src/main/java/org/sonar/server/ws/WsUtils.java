@@ -21,6 +21,7 @@ package org.sonar.server.ws;
 
 import com.google.common.base.Optional;
 import com.google.protobuf.Message;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
@@ -34,6 +35,7 @@ import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.MessageFormatter;
+import org.sonarqube.ws.json.JsonWriters;
 
 import static java.lang.String.format;
 
@@ -51,9 +53,7 @@ public class WsUtils {
         msg.writeTo(output);
       } else {
         response.stream().setMediaType(MediaTypes.JSON);
-        try (OutputStreamWriter writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
-          ProtobufJsonFormat.write(msg, JsonWriter.of(writer));
-        }
+        writeJson(msg, output);
       }
     } catch (Exception e) {
       throw new IllegalStateException(format("Error while writing protobuf message %s", MessageFormatter.print(msg)), e);
@@ -62,6 +62,16 @@ public class WsUtils {
     }
   }
 
+  private static void writeJson(Message msg, OutputStream output) throws IOException {
+    if (JsonWriters.canWrite(msg)) {
+      JsonWriters.write(msg, output);
+    } else {
+      try (OutputStreamWriter writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+        ProtobufJsonFormat.write(msg, JsonWriter.of(writer));
+      }
+    }
+  }
+
   /**
    * @throws BadRequestException
    */
@@ -42,6 +42,8 @@ import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class CeQueueImplTest {
 
@@ -57,7 +59,9 @@ public class CeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
 
-  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider);
+  private CeTaskSubmitListener submitListener = mock(CeTaskSubmitListener.class);
+
+  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeTaskSubmitListener[] {submitListener});
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -68,6 +72,19 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit);
   }
 
+  @Test
+  public void submit_does_not_assign_lane() {
+    CeTaskSubmit taskSubmit = underTest.prepareSubmit()
+      .setType(CeTaskTypes.REPORT)
+      .setComponentUuid("PROJECT_1")
+      .build();
+
+    underTest.submit(taskSubmit);
+
+    Optional<CeQueueDto> queueDto = dbTester.getDbClient().ceQueueDao().selectByUuid(dbTester.getSession(), taskSubmit.getUuid());
+    assertThat(queueDto.get().getLane()).isNull();
+  }
+
   @Test
   public void submit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto = insertComponent(ComponentTesting.newProjectDto(dbTester.organizations().insert(), "PROJECT_1"));
@@ -87,6 +104,13 @@ public class CeQueueImplTest {
     verifyCeTask(taskSubmit, task, null);
   }
 
+  @Test
+  public void submit_notifies_submit_listeners() {
+    underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null));
+
+    verify(submitListener).onSubmit();
+  }
+
   @Test
   public void submit_fails_with_ISE_if_paused() {
     underTest.pauseSubmit();
@@ -111,6 +135,13 @@ public class CeQueueImplTest {
     verifyCeQueueDtoForTaskSubmit(taskSubmit2);
   }
 
+  @Test
+  public void massSubmit_notifies_submit_listeners_once() {
+    underTest.massSubmit(asList(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null), createTaskSubmit("some type")));
+
+    verify(submitListener).onSubmit();
+  }
+
   @Test
   public void massSubmit_populates_component_name_and_key_of_CeTask_if_component_exists() {
     ComponentDto componentDto1 = insertComponent(ComponentTesting.newProjectDto(dbTester.getDefaultOrganization(), "PROJECT_1"));
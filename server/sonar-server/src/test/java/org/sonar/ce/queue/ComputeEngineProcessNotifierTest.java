@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.process.DefaultProcessCommands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+import static org.sonar.process.ProcessId.COMPUTE_ENGINE;
+
+public class ComputeEngineProcessNotifierTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Settings settings = new MapSettings();
+  private ComputeEngineProcessNotifier underTest = new ComputeEngineProcessNotifier(settings);
+
+  @Test
+  public void onSubmit_increments_queue_sequence_of_Compute_Engine() throws Exception {
+    File sharedDir = temp.newFolder();
+    settings.setProperty(PROPERTY_SHARED_PATH, sharedDir.getAbsolutePath());
+
+    underTest.onSubmit();
+    underTest.onSubmit();
+
+    try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(sharedDir, COMPUTE_ENGINE.getIpcIndex())) {
+      assertThat(commands.getQueueSequence()).isEqualTo(2L);
+    }
+  }
+
+  @Test
+  public void onSubmit_does_nothing_if_shared_path_is_not_set() {
+    underTest.onSubmit();
+  }
+}
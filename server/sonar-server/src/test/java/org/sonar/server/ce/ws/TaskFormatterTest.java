@@ -71,6 +71,8 @@ public class TaskFormatterTest {
     assertThat(wsTask.hasExecutedAt()).isFalse();
     assertThat(wsTask.hasStartedAt()).isFalse();
     assertThat(wsTask.hasExecutionTimeMs()).isFalse();
+    assertThat(wsTask.hasLane()).isFalse();
+    assertThat(wsTask.hasPriority()).isFalse();
   }
 
   @Test
@@ -87,6 +89,7 @@ public class TaskFormatterTest {
     dto.setStartedAt(1_451_000_000_000L);
     dto.setComponentUuid(uuid);
     dto.setSubmitterLogin("rob");
+    dto.setLane("LARGE");
 
     WsCe.Task wsTask = underTest.formatQueue(db.getSession(), dto);
 
@@ -99,6 +102,8 @@ public class TaskFormatterTest {
     assertThat(wsTask.getStatus()).isEqualTo(WsCe.TaskStatus.IN_PROGRESS);
     assertThat(wsTask.getLogs()).isFalse();
     assertThat(wsTask.getSubmitterLogin()).isEqualTo("rob");
+    assertThat(wsTask.getLane()).isEqualTo("LARGE");
+    assertThat(wsTask.getPriority()).isEqualTo(1);
     assertThat(wsTask.hasExecutionTimeMs()).isTrue();
     assertThat(wsTask.hasExecutedAt()).isFalse();
     assertThat(wsTask.hasScannerContext()).isFalse();
@@ -167,6 +172,8 @@ public class TaskFormatterTest {
     assertThat(wsTask.getSubmittedAt()).isEqualTo(DateUtils.formatDateTime(new Date(1_450_000_000_000L)));
     assertThat(wsTask.getExecutionTimeMs()).isEqualTo(500L);
     assertThat(wsTask.getAnalysisId()).isEqualTo("U1");
+    assertThat(wsTask.getLane()).isEqualTo("SMALL");
+    assertThat(wsTask.getPriority()).isEqualTo(4);
     assertThat(wsTask.getLogs()).isFalse();
     assertThat(wsTask.hasScannerContext()).isFalse();
   }
@@ -232,6 +239,7 @@ public class TaskFormatterTest {
     queueDto.setTaskType(CeTaskTypes.REPORT);
     queueDto.setComponentUuid(componentUuid);
     queueDto.setUuid(taskUuid);
+    queueDto.setLane("SMALL");
     CeActivityDto activityDto = new CeActivityDto(queueDto);
     activityDto.setStatus(status);
     activityDto.setExecutionTimeMs(500L);
@@ -29,6 +29,13 @@ import org.sonar.api.utils.MessageException;
 
 import static java.lang.Math.abs;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_CROSS_PROJECT_DUPLICATIONS_FILTER_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_FILE_SOURCES_THREAD_COUNT_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_VISITORS_THREAD_COUNT_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_ISSUES_BATCH_SIZE_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_LARGE_TASK_THRESHOLD_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY;
+import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_STEP_THREAD_COUNT_PROPERTY;
 import static org.sonar.server.computation.configuration.CeConfigurationImpl.CE_WORKERS_COUNT_PROPERTY;
 
 public class CeConfigurationImplTest {
@@ -103,6 +110,129 @@ public class CeConfigurationImplTest {
     new CeConfigurationImpl(settings);
   }
 
+  @Test
+  public void getStepThreadCount_returns_1_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getStepThreadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getStepThreadCount_returns_value_when_property_is_integer_greater_than_1() {
+    settings.setProperty(CE_STEP_THREAD_COUNT_PROPERTY, 4);
+
+    assertThat(new CeConfigurationImpl(settings).getStepThreadCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_step_thread_count_property_is_0() {
+    settings.setProperty(CE_STEP_THREAD_COUNT_PROPERTY, "0");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value '0' of property " + CE_STEP_THREAD_COUNT_PROPERTY + " is invalid. " +
+      "It must an integer strictly greater than 0");
+
+    new CeConfigurationImpl(settings);
+  }
+
+  @Test
+  public void getIssuesBatchSize_returns_250_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getIssuesBatchSize()).isEqualTo(250);
+  }
+
+  @Test
+  public void getIssuesBatchSize_returns_value_when_property_is_integer_greater_than_1() {
+    settings.setProperty(CE_ISSUES_BATCH_SIZE_PROPERTY, 1000);
+
+    assertThat(new CeConfigurationImpl(settings).getIssuesBatchSize()).isEqualTo(1000);
+  }
+
+  @Test
+  public void getFileSourcesThreadCount_returns_1_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getFileSourcesThreadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getFileSourcesThreadCount_returns_value_when_property_is_integer_greater_than_1() {
+    settings.setProperty(CE_FILE_SOURCES_THREAD_COUNT_PROPERTY, 3);
+
+    assertThat(new CeConfigurationImpl(settings).getFileSourcesThreadCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void getVisitorsThreadCount_returns_1_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getVisitorsThreadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getVisitorsThreadCount_returns_value_when_property_is_integer_greater_than_1() {
+    settings.setProperty(CE_VISITORS_THREAD_COUNT_PROPERTY, 4);
+
+    assertThat(new CeConfigurationImpl(settings).getVisitorsThreadCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void isCrossProjectDuplicationsFilterEnabled_returns_false_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).isCrossProjectDuplicationsFilterEnabled()).isFalse();
+  }
+
+  @Test
+  public void isCrossProjectDuplicationsFilterEnabled_returns_true_when_property_is_true() {
+    settings.setProperty(CE_CROSS_PROJECT_DUPLICATIONS_FILTER_PROPERTY, true);
+
+    assertThat(new CeConfigurationImpl(settings).isCrossProjectDuplicationsFilterEnabled()).isTrue();
+  }
+
+  @Test
+  public void getLargeTaskThreshold_returns_10_minutes_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getLargeTaskThreshold()).isEqualTo(600_000L);
+  }
+
+  @Test
+  public void getLargeTaskThreshold_returns_value_of_property_in_milliseconds() {
+    settings.setProperty(CE_LARGE_TASK_THRESHOLD_PROPERTY, 30);
+
+    assertThat(new CeConfigurationImpl(settings).getLargeTaskThreshold()).isEqualTo(30_000L);
+  }
+
+  @Test
+  public void getSmallTasksReservedWorkerCount_returns_0_when_there_is_a_single_worker() {
+    settings.setProperty(CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY, 2);
+
+    assertThat(new CeConfigurationImpl(settings).getSmallTasksReservedWorkerCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void getSmallTasksReservedWorkerCount_returns_1_by_default_when_there_are_several_workers() {
+    settings.setProperty(CE_WORKERS_COUNT_PROPERTY, 3);
+
+    assertThat(new CeConfigurationImpl(settings).getSmallTasksReservedWorkerCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getSmallTasksReservedWorkerCount_is_capped_to_worker_count_minus_1() {
+    settings.setProperty(CE_WORKERS_COUNT_PROPERTY, 3);
+    settings.setProperty(CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY, 5);
+
+    assertThat(new CeConfigurationImpl(settings).getSmallTasksReservedWorkerCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void getSmallTasksReservedWorkerCount_accepts_0() {
+    settings.setProperty(CE_WORKERS_COUNT_PROPERTY, 3);
+    settings.setProperty(CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY, 0);
+
+    assertThat(new CeConfigurationImpl(settings).getSmallTasksReservedWorkerCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_small_tasks_reserved_workers_is_negative() {
+    settings.setProperty(CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY, -1);
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value '-1' of property " + CE_SMALL_TASKS_RESERVED_WORKERS_PROPERTY + " is invalid. It must a positive integer or 0.");
+
+    new CeConfigurationImpl(settings);
+  }
+
   private void expectMessageException(int value) {
     expectedException.expect(MessageException.class);
     expectedException.expectMessage("value '" + value + "' of property " + CE_WORKERS_COUNT_PROPERTY + " is invalid. " +
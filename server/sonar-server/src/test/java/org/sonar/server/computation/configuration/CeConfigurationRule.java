@@ -29,6 +29,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 public class CeConfigurationRule extends ExternalResource implements CeConfiguration {
   private int workerCount = CeConfigurationImpl.DEFAULT_WORKER_COUNT;
   private long queuePollingDelay = CeConfigurationImpl.DEFAULT_QUEUE_POLLING_DELAY;
+  private int stepThreadCount = CeConfigurationImpl.DEFAULT_STEP_THREAD_COUNT;
+  private int issuesBatchSize = CeConfigurationImpl.DEFAULT_ISSUES_BATCH_SIZE;
+  private int fileSourcesThreadCount = CeConfigurationImpl.DEFAULT_FILE_SOURCES_THREAD_COUNT;
+  private int visitorsThreadCount = CeConfigurationImpl.DEFAULT_VISITORS_THREAD_COUNT;
+  private boolean crossProjectDuplicationsFilterEnabled = CeConfigurationImpl.DEFAULT_CROSS_PROJECT_DUPLICATIONS_FILTER;
+  private long largeTaskThreshold = CeConfigurationImpl.DEFAULT_LARGE_TASK_THRESHOLD_SECONDS * 1000L;
+  private int smallTasksReservedWorkerCount = 0;
 
   @Override
   public int getWorkerCount() {
@@ -50,4 +57,80 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     checkArgument(queuePollingDelay > 0, "Queue polling delay must be >= 0");
     this.queuePollingDelay = queuePollingDelay;
   }
+
+  @Override
+  public int getStepThreadCount() {
+    return stepThreadCount;
+  }
+
+  public CeConfigurationRule setStepThreadCount(int stepThreadCount) {
+    checkArgument(stepThreadCount >= 1, "step thread count must be >= 1");
+    this.stepThreadCount = stepThreadCount;
+    return this;
+  }
+
+  @Override
+  public int getIssuesBatchSize() {
+    return issuesBatchSize;
+  }
+
+  public CeConfigurationRule setIssuesBatchSize(int issuesBatchSize) {
+    checkArgument(issuesBatchSize >= 1, "issues batch size must be >= 1");
+    this.issuesBatchSize = issuesBatchSize;
+    return this;
+  }
+
+  @Override
+  public int getFileSourcesThreadCount() {
+    return fileSourcesThreadCount;
+  }
+
+  public CeConfigurationRule setFileSourcesThreadCount(int fileSourcesThreadCount) {
+    checkArgument(fileSourcesThreadCount >= 1, "file sources thread count must be >= 1");
+    this.fileSourcesThreadCount = fileSourcesThreadCount;
+    return this;
+  }
+
+  @Override
+  public int getVisitorsThreadCount() {
+    return visitorsThreadCount;
+  }
+
+  public CeConfigurationRule setVisitorsThreadCount(int visitorsThreadCount) {
+    checkArgument(visitorsThreadCount >= 1, "visitors thread count must be >= 1");
+    this.visitorsThreadCount = visitorsThreadCount;
+    return this;
+  }
+
+  @Override
+  public boolean isCrossProjectDuplicationsFilterEnabled() {
+    return crossProjectDuplicationsFilterEnabled;
+  }
+
+  public CeConfigurationRule setCrossProjectDuplicationsFilterEnabled(boolean crossProjectDuplicationsFilterEnabled) {
+    this.crossProjectDuplicationsFilterEnabled = crossProjectDuplicationsFilterEnabled;
+    return this;
+  }
+
+  @Override
+  public long getLargeTaskThreshold() {
+    return largeTaskThreshold;
+  }
+
+  public CeConfigurationRule setLargeTaskThreshold(long largeTaskThreshold) {
+    checkArgument(largeTaskThreshold >= 1, "large task threshold must be >= 1");
+    this.largeTaskThreshold = largeTaskThreshold;
+    return this;
+  }
+
+  @Override
+  public int getSmallTasksReservedWorkerCount() {
+    return smallTasksReservedWorkerCount;
+  }
+
+  public CeConfigurationRule setSmallTasksReservedWorkerCount(int smallTasksReservedWorkerCount) {
+    checkArgument(smallTasksReservedWorkerCount >= 0, "small tasks reserved worker count must be >= 0");
+    this.smallTasksReservedWorkerCount = smallTasksReservedWorkerCount;
+    return this;
+  }
 }
@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.server.computation.task.step.StepMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeStepMetricsTest {
+
+  private CeStepMetrics underTest = new CeStepMetrics();
+
+  @Test
+  public void no_statistics_nor_summary_by_default() {
+    assertThat(underTest.getStatistics()).isEmpty();
+    assertThat(underTest.pollTaskSummary("TASK_1")).isEmpty();
+  }
+
+  @Test
+  public void cumulate_statistics_by_task_type_and_step() {
+    underTest.addTask("REPORT", "TASK_1", Arrays.asList(
+      new StepMetrics("step 1", 5, 4, 1_000, new SqlStatistics(2, 10, 0), Collections.emptyMap()),
+      new StepMetrics("step 2", 50, 40, 2_000, new SqlStatistics(3, 0, 7), Collections.emptyMap())));
+    underTest.addTask("REPORT", "TASK_2", Collections.singletonList(
+      new StepMetrics("step 1", 500, 400, 3_000, new SqlStatistics(4, 20, 1), Collections.emptyMap())));
+    underTest.addTask("VIEW", "TASK_3", Collections.singletonList(
+      new StepMetrics("step 1", 1, 1, 1, new SqlStatistics(1, 1, 1), Collections.emptyMap())));
+
+    List<CeStepMetrics.StepStatistics> statistics = underTest.getStatistics();
+    assertThat(statistics).extracting(CeStepMetrics.StepStatistics::getTaskType).containsExactly("REPORT", "REPORT", "VIEW");
+    assertThat(statistics).extracting(CeStepMetrics.StepStatistics::getStep).containsExactly("step 1", "step 2", "step 1");
+
+    CeStepMetrics.StepStatistics reportStep1 = statistics.get(0);
+    assertThat(reportStep1.getCount()).isEqualTo(2);
+    assertThat(reportStep1.getDurationMs()).isEqualTo(505);
+    assertThat(reportStep1.getCpuTimeMs()).isEqualTo(404);
+    assertThat(reportStep1.getAllocatedBytes()).isEqualTo(4_000);
+    assertThat(reportStep1.getSqlStatementCount()).isEqualTo(6);
+    assertThat(reportStep1.getSqlRowsRead()).isEqualTo(30);
+    assertThat(reportStep1.getSqlRowsWritten()).isEqualTo(1);
+    assertThat(reportStep1.toString())
+      .isEqualTo("REPORT | step 1 | count=2 | time=505ms | cpu=404ms | allocated=4000B | statements=6 | rowsRead=30 | rowsWritten=1");
+  }
+
+  @Test
+  public void count_durations_by_bucket() {
+    underTest.addTask("REPORT", "TASK_1", Arrays.asList(
+      new StepMetrics("step", 10, 0, 0, SqlStatistics.EMPTY, Collections.emptyMap()),
+      new StepMetrics("step", 11, 0, 0, SqlStatistics.EMPTY, Collections.emptyMap()),
+      new StepMetrics("step", 999, 0, 0, SqlStatistics.EMPTY, Collections.emptyMap()),
+      new StepMetrics("step", 1_000_000, 0, 0, SqlStatistics.EMPTY, Collections.emptyMap())));
+
+    CeStepMetrics.StepStatistics statistics = underTest.getStatistics().get(0);
+    assertThat(statistics.getDurationBucketCount(0)).isEqualTo(1);
+    assertThat(statistics.getDurationBucketCount(1)).isEqualTo(1);
+    assertThat(statistics.getDurationBucketCount(2)).isEqualTo(1);
+    assertThat(statistics.getDurationBucketCount(3)).isEqualTo(0);
+    assertThat(statistics.getDurationBucketCount(CeStepMetrics.DURATION_BUCKETS_MS.size())).isEqualTo(1);
+  }
+
+  @Test
+  public void unsupported_cpu_time_and_allocated_bytes_are_not_cumulated() {
+    underTest.addTask("REPORT", "TASK_1", Arrays.asList(
+      new StepMetrics("step", 10, StepMetrics.UNSUPPORTED, StepMetrics.UNSUPPORTED, SqlStatistics.EMPTY, Collections.emptyMap()),
+      new StepMetrics("step", 10, 3, 5, SqlStatistics.EMPTY, Collections.emptyMap())));
+
+    CeStepMetrics.StepStatistics statistics = underTest.getStatistics().get(0);
+    assertThat(statistics.getCpuTimeMs()).isEqualTo(3);
+    assertThat(statistics.getAllocatedBytes()).isEqualTo(5);
+  }
+
+  @Test
+  public void record_durations_of_sub_steps() {
+    underTest.addTask("REPORT", "TASK_1", Collections.singletonList(
+      new StepMetrics("visitors", 30, 20, 10, SqlStatistics.EMPTY, ImmutableMap.of("Visitor1", 12L, "Visitor2", 15L))));
+
+    List<CeStepMetrics.StepStatistics> statistics = underTest.getStatistics();
+    assertThat(statistics).extracting(CeStepMetrics.StepStatistics::getStep)
+      .containsExactly("visitors", "visitors / Visitor1", "visitors / Visitor2");
+    assertThat(statistics.get(2).getCount()).isEqualTo(1);
+    assertThat(statistics.get(2).getDurationMs()).isEqualTo(15);
+    assertThat(statistics.get(2).getCpuTimeMs()).isEqualTo(0);
+  }
+
+  @Test
+  public void pollTaskSummary_returns_summary_of_steps_only_once() {
+    underTest.addTask("REPORT", "TASK_1", Arrays.asList(
+      new StepMetrics("step 1", 5, StepMetrics.UNSUPPORTED, StepMetrics.UNSUPPORTED, new SqlStatistics(2, 10, 0), Collections.emptyMap()),
+      new StepMetrics("step 2", 50, 40, 2_000, new SqlStatistics(3, 0, 7), ImmutableMap.of("Visitor1", 12L))));
+
+    assertThat(underTest.pollTaskSummary("TASK_2")).isEmpty();
+    assertThat(underTest.pollTaskSummary("TASK_1")).contains(
+      "step 1 | time=5ms | statements=2 | rowsRead=10 | rowsWritten=0\n" +
+        "step 2 | time=50ms | cpu=40ms | allocated=2000B | statements=3 | rowsRead=0 | rowsWritten=7\n" +
+        "  - Visitor1 | time=12ms");
+    assertThat(underTest.pollTaskSummary("TASK_1")).isEmpty();
+  }
+
+  @Test
+  public void no_summary_if_task_has_no_step() {
+    underTest.addTask("REPORT", "TASK_1", Collections.emptyList());
+
+    assertThat(underTest.pollTaskSummary("TASK_1")).isEmpty();
+  }
+
+  @Test
+  public void getStatistics_returns_copies() {
+    underTest.addTask("REPORT", "TASK_1", Collections.singletonList(
+      new StepMetrics("step", 10, 0, 0, SqlStatistics.EMPTY, Collections.emptyMap())));
+    CeStepMetrics.StepStatistics statistics = underTest.getStatistics().get(0);
+
+    underTest.addTask("REPORT", "TASK_2", Collections.singletonList(
+      new StepMetrics("step", 10, 0, 0, SqlStatistics.EMPTY, Collections.emptyMap())));
+
+    assertThat(statistics.getCount()).isEqualTo(1);
+    assertThat(underTest.getStatistics().get(0).getCount()).isEqualTo(2);
+  }
+}
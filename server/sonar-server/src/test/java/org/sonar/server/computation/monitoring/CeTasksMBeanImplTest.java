@@ -20,14 +20,17 @@
 package org.sonar.server.computation.monitoring;
 
 import java.lang.management.ManagementFactory;
+import java.util.Collections;
 import javax.annotation.CheckForNull;
 import javax.management.InstanceNotFoundException;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.db.profiling.SqlStatistics;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.task.step.StepMetrics;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -39,7 +42,8 @@ public class CeTasksMBeanImplTest {
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_COUNT = 56;
 
-  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
+  private CeStepMetrics stepMetrics = new CeStepMetrics();
+  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration(), stepMetrics);
 
   @Test
   public void register_and_unregister() throws Exception {
@@ -66,6 +70,17 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getWorkerCount()).isEqualTo(WORKER_COUNT);
   }
 
+  @Test
+  public void getStepStatistics_delegates_to_the_CeStepMetrics_instance() {
+    assertThat(underTest.getStepStatistics()).isEmpty();
+
+    stepMetrics.addTask("REPORT", "TASK_1", Collections.singletonList(
+      new StepMetrics("step 1", 5, 4, 1_000, new SqlStatistics(2, 10, 0), Collections.emptyMap())));
+
+    assertThat(underTest.getStepStatistics())
+      .containsExactly("REPORT | step 1 | count=1 | time=5ms | cpu=4ms | allocated=1000B | statements=2 | rowsRead=10 | rowsWritten=0");
+  }
+
   @Test
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
@@ -134,6 +149,41 @@ public class CeTasksMBeanImplTest {
     public long getQueuePollingDelay() {
       throw new UnsupportedOperationException("getQueuePollingDelay is not implemented");
     }
+
+    @Override
+    public int getStepThreadCount() {
+      throw new UnsupportedOperationException("getStepThreadCount is not implemented");
+    }
+
+    @Override
+    public int getIssuesBatchSize() {
+      throw new UnsupportedOperationException("getIssuesBatchSize is not implemented");
+    }
+
+    @Override
+    public int getFileSourcesThreadCount() {
+      throw new UnsupportedOperationException("getFileSourcesThreadCount is not implemented");
+    }
+
+    @Override
+    public int getVisitorsThreadCount() {
+      throw new UnsupportedOperationException("getVisitorsThreadCount is not implemented");
+    }
+
+    @Override
+    public boolean isCrossProjectDuplicationsFilterEnabled() {
+      throw new UnsupportedOperationException("isCrossProjectDuplicationsFilterEnabled is not implemented");
+    }
+
+    @Override
+    public long getLargeTaskThreshold() {
+      throw new UnsupportedOperationException("getLargeTaskThreshold is not implemented");
+    }
+
+    @Override
+    public int getSmallTasksReservedWorkerCount() {
+      throw new UnsupportedOperationException("getSmallTasksReservedWorkerCount is not implemented");
+    }
   }
 
   @CheckForNull
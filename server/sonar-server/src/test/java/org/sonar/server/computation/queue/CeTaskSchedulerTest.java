@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.db.ce.CeTaskSchedulingDto;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeTaskSchedulerTest {
+
+  private static final long THRESHOLD = 600_000L;
+
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule()
+    .setWorkerCount(3)
+    .setLargeTaskThreshold(THRESHOLD)
+    .setSmallTasksReservedWorkerCount(1);
+
+  private CeTaskScheduler underTest = new CeTaskScheduler(ceConfiguration);
+
+  @Test
+  public void task_is_large_if_its_last_execution_lasted_at_least_the_threshold() {
+    assertThat(underTest.laneOf(newTask("T1", "P1", null))).isEqualTo(CeTaskLane.SMALL);
+    assertThat(underTest.laneOf(newTask("T1", "P1", THRESHOLD - 1))).isEqualTo(CeTaskLane.SMALL);
+    assertThat(underTest.laneOf(newTask("T1", "P1", THRESHOLD))).isEqualTo(CeTaskLane.LARGE);
+  }
+
+  @Test
+  public void schedule_returns_empty_list_if_no_eligible_task() {
+    assertThat(underTest.schedule(emptyList(), emptyList())).isEmpty();
+  }
+
+  @Test
+  public void schedule_keeps_only_oldest_task_of_each_component() {
+    CeTaskSchedulingDto task1 = newTask("T1", "P1", null);
+    CeTaskSchedulingDto task2 = newTask("T2", "P1", null);
+    CeTaskSchedulingDto task3 = newTask("T3", "P2", null);
+    CeTaskSchedulingDto task4 = newTask("T4", null, null);
+    CeTaskSchedulingDto task5 = newTask("T5", null, null);
+
+    assertThat(underTest.schedule(asList(task1, task2, task3, task4, task5), emptyList()))
+      .containsExactly(task1, task3, task4, task5);
+  }
+
+  @Test
+  public void schedule_orders_tasks_of_a_lane_by_date() {
+    CeTaskSchedulingDto task1 = newTask("T1", "P1", null).setCreatedAt(3L);
+    CeTaskSchedulingDto task2 = newTask("T2", "P2", null).setCreatedAt(1L);
+    CeTaskSchedulingDto task3 = newTask("T3", "P3", null).setCreatedAt(2L);
+
+    assertThat(underTest.schedule(asList(task1, task2, task3), emptyList()))
+      .containsExactly(task2, task3, task1);
+  }
+
+  @Test
+  public void schedule_favors_organizations_with_fewer_tasks_in_progress() {
+    CeTaskSchedulingDto task1 = newTask("T1", "P1", null).setOrganizationUuid("ORG_1").setCreatedAt(1L);
+    CeTaskSchedulingDto task2 = newTask("T2", "P2", null).setOrganizationUuid("ORG_2").setCreatedAt(2L);
+    CeTaskSchedulingDto inProgress = newTask("T3", "P3", null).setOrganizationUuid("ORG_1").setLane(CeTaskLane.SMALL.name());
+
+    assertThat(underTest.schedule(asList(task1, task2), Collections.singletonList(inProgress)))
+      .containsExactly(task2, task1);
+  }
+
+  @Test
+  public void small_tasks_are_started_more_often_than_large_ones() {
+    List<CeTaskLane> lanes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      CeTaskSchedulingDto small = newTask("S" + i, "SMALL_" + i, null);
+      CeTaskSchedulingDto large = newTask("L" + i, "LARGE_" + i, THRESHOLD);
+      List<CeTaskSchedulingDto> scheduled = underTest.schedule(asList(large, small), emptyList());
+      underTest.started(scheduled.get(0), scheduled);
+      lanes.add(underTest.laneOf(scheduled.get(0)));
+    }
+
+    assertThat(lanes).containsExactly(
+      CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.LARGE, CeTaskLane.SMALL, CeTaskLane.SMALL,
+      CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.LARGE, CeTaskLane.SMALL, CeTaskLane.SMALL);
+  }
+
+  @Test
+  public void lanes_are_not_charged_when_no_task_is_started() {
+    CeTaskSchedulingDto large = newTask("L1", "P1", THRESHOLD);
+    CeTaskSchedulingDto small = newTask("S1", "P2", null);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(underTest.schedule(asList(large, small), emptyList())).containsExactly(small, large);
+    }
+  }
+
+  @Test
+  public void lane_of_started_task_is_charged_even_if_it_was_not_tried_first() {
+    CeTaskSchedulingDto large = newTask("L1", "P1", THRESHOLD);
+    CeTaskSchedulingDto small = newTask("S1", "P2", null);
+    List<CeTaskSchedulingDto> scheduled = underTest.schedule(asList(large, small), emptyList());
+    assertThat(scheduled).containsExactly(small, large);
+    // small task was started by another worker in the meantime
+    underTest.started(large, scheduled);
+
+    List<CeTaskLane> lanes = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      scheduled = underTest.schedule(asList(large, small), emptyList());
+      underTest.started(scheduled.get(0), scheduled);
+      lanes.add(underTest.laneOf(scheduled.get(0)));
+    }
+
+    assertThat(lanes).containsExactly(
+      CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.SMALL, CeTaskLane.LARGE);
+  }
+
+  @Test
+  public void large_tasks_are_tried_after_small_ones_when_small_lane_is_chosen() {
+    CeTaskSchedulingDto large = newTask("L1", "P1", THRESHOLD);
+    CeTaskSchedulingDto small = newTask("S1", "P2", null);
+
+    assertThat(underTest.schedule(asList(large, small), emptyList())).containsExactly(small, large);
+  }
+
+  @Test
+  public void large_tasks_are_not_started_on_workers_reserved_for_small_tasks() {
+    CeTaskSchedulingDto large = newTask("L1", "P1", THRESHOLD);
+    CeTaskSchedulingDto small = newTask("S1", "P2", null);
+    List<CeTaskSchedulingDto> inProgress = asList(
+      newTask("L2", "P3", THRESHOLD).setLane(CeTaskLane.LARGE.name()),
+      newTask("L3", "P4", THRESHOLD).setLane(CeTaskLane.LARGE.name()));
+
+    assertThat(underTest.schedule(asList(large, small), inProgress)).containsExactly(small);
+    assertThat(underTest.schedule(Collections.singletonList(large), inProgress)).isEmpty();
+  }
+
+  @Test
+  public void large_task_can_be_started_if_no_worker_is_reserved() {
+    ceConfiguration.setSmallTasksReservedWorkerCount(0);
+    CeTaskSchedulingDto large = newTask("L1", "P1", THRESHOLD);
+    List<CeTaskSchedulingDto> inProgress = asList(
+      newTask("L2", "P3", THRESHOLD).setLane(CeTaskLane.LARGE.name()),
+      newTask("L3", "P4", THRESHOLD).setLane(CeTaskLane.LARGE.name()));
+
+    assertThat(underTest.schedule(Collections.singletonList(large), inProgress)).containsExactly(large);
+  }
+
+  private static CeTaskSchedulingDto newTask(String uuid, @Nullable String componentUuid, @Nullable Long lastExecutionTimeMs) {
+    return new CeTaskSchedulingDto()
+      .setUuid(uuid)
+      .setTaskType("REPORT")
+      .setComponentUuid(componentUuid)
+      .setLastExecutionTimeMs(lastExecutionTimeMs);
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.server.computation.queue;
 import com.google.common.base.Optional;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.Collections;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Rule;
@@ -42,7 +43,11 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.profiling.SqlStatistics;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.monitoring.CEQueueStatusImpl;
+import org.sonar.server.computation.monitoring.CeStepMetrics;
+import org.sonar.server.computation.task.step.StepMetrics;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 
@@ -64,12 +69,17 @@ public class InternalCeQueueImplTest {
   @Rule
   public DbTester dbTester = DbTester.create(system2);
 
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+
   private DbSession session = dbTester.getSession();
 
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
+  private CeStepMetrics stepMetrics = new CeStepMetrics();
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider);
+  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, stepMetrics,
+    new CeTaskScheduler(ceConfiguration), defaultOrganizationProvider);
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -152,6 +162,22 @@ public class InternalCeQueueImplTest {
     assertThat(history.get().getStatus()).isEqualTo(CeActivityDto.Status.SUCCESS);
     assertThat(history.get().getIsLast()).isTrue();
     assertThat(history.get().getAnalysisUuid()).isNull();
+    assertThat(history.get().getStepMetrics()).isNull();
+  }
+
+  @Test
+  public void remove_saves_summary_of_step_metrics_of_task() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek();
+    stepMetrics.addTask(CeTaskTypes.REPORT, task.getUuid(), Collections.singletonList(
+      new StepMetrics("step 1", 5, 4, 1_000, new SqlStatistics(2, 10, 0), Collections.emptyMap())));
+
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+
+    Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
+    assertThat(history.get().getStepMetrics())
+      .isEqualTo("step 1 | time=5ms | cpu=4ms | allocated=1000B | statements=2 | rowsRead=10 | rowsWritten=0");
+    assertThat(stepMetrics.pollTaskSummary(task.getUuid()).isPresent()).isFalse();
   }
 
   @Test
@@ -241,6 +267,26 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_sets_lane_of_task() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    underTest.peek();
+
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task.getUuid()).get().getLane()).isEqualTo(CeTaskLane.SMALL.name());
+  }
+
+  @Test
+  public void peek_does_not_start_a_task_of_a_project_which_has_a_task_in_progress() {
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task3.getUuid());
+    assertThat(underTest.peek().isPresent()).isFalse();
+  }
+
   @Test
   public void peek_nothing_if_paused() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -210,6 +210,44 @@ public class AnalysisMetadataHolderImplTest {
     underTest.setCrossProjectDuplicationEnabled(false);
   }
 
+  @Test
+  public void isIncrementalAnalysis_return_true() {
+    AnalysisMetadataHolderImpl underTest = new AnalysisMetadataHolderImpl();
+    underTest.setBaseAnalysis(baseProjectAnalysis);
+
+    underTest.setIncrementalAnalysis(true);
+
+    assertThat(underTest.isIncrementalAnalysis()).isTrue();
+  }
+
+  @Test
+  public void isIncrementalAnalysis_return_false_on_first_analysis() {
+    AnalysisMetadataHolderImpl underTest = new AnalysisMetadataHolderImpl();
+    underTest.setBaseAnalysis(null);
+
+    underTest.setIncrementalAnalysis(true);
+
+    assertThat(underTest.isIncrementalAnalysis()).isFalse();
+  }
+
+  @Test
+  public void isIncrementalAnalysis_throws_ISE_when_holder_is_not_initialized() {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Incremental analysis flag has not been set");
+
+    new AnalysisMetadataHolderImpl().isIncrementalAnalysis();
+  }
+
+  @Test
+  public void setIncrementalAnalysis_throws_ISE_when_called_twice() {
+    AnalysisMetadataHolderImpl underTest = new AnalysisMetadataHolderImpl();
+    underTest.setIncrementalAnalysis(true);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Incremental analysis flag has already been set");
+    underTest.setIncrementalAnalysis(false);
+  }
+
   @Test
   public void set_branch() {
     AnalysisMetadataHolderImpl underTest = new AnalysisMetadataHolderImpl();
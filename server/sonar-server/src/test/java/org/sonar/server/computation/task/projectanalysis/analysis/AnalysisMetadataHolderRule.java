@@ -44,6 +44,8 @@ public class AnalysisMetadataHolderRule extends ExternalResource implements Muta
 
   private final InitializedProperty<Boolean> crossProjectDuplicationEnabled = new InitializedProperty<>();
 
+  private boolean incrementalAnalysis = false;
+
   private final InitializedProperty<String> branch = new InitializedProperty<>();
 
   private final InitializedProperty<Integer> rootComponentRef = new InitializedProperty<>();
@@ -136,6 +138,17 @@ public class AnalysisMetadataHolderRule extends ExternalResource implements Muta
     return crossProjectDuplicationEnabled.getProperty();
   }
 
+  @Override
+  public AnalysisMetadataHolderRule setIncrementalAnalysis(boolean isIncrementalAnalysis) {
+    this.incrementalAnalysis = isIncrementalAnalysis;
+    return this;
+  }
+
+  @Override
+  public boolean isIncrementalAnalysis() {
+    return incrementalAnalysis;
+  }
+
   @Override
   public AnalysisMetadataHolderRule setBranch(@Nullable String branch) {
     this.branch.setProperty(branch);
@@ -20,13 +20,16 @@
 package org.sonar.server.computation.task.projectanalysis.batch;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.protocol.output.ReportContainerWriter;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 
@@ -273,6 +276,18 @@ public class BatchReportReaderImplTest {
     res.close();
   }
 
+  @Test
+  public void verify_readComponentCoverage_of_line_range() {
+    ScannerReport.LineCoverage line1 = ScannerReport.LineCoverage.newBuilder().setLine(1).build();
+    ScannerReport.LineCoverage line2 = ScannerReport.LineCoverage.newBuilder().setLine(2).build();
+    ScannerReport.LineCoverage line3 = ScannerReport.LineCoverage.newBuilder().setLine(3).build();
+    writer.writeComponentCoverage(COMPONENT_REF, of(line1, line2, line3));
+
+    CloseableIterator<ScannerReport.LineCoverage> res = underTest.readComponentCoverage(COMPONENT_REF, 2, 3);
+    assertThat(res).containsExactly(line2, line3);
+    res.close();
+  }
+
   @Test
   public void readFileSource_returns_absent_optional_when_file_does_not_exist() {
     assertThat(underTest.readFileSource(COMPONENT_REF)).isAbsent();
@@ -315,4 +330,27 @@ public class BatchReportReaderImplTest {
     assertThat(res).containsExactly(COVERAGE_DETAIL_1, COVERAGE_DETAIL_2);
     res.close();
   }
+
+  @Test
+  public void read_report_in_place_from_report_container() throws IOException {
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT").build());
+    writer.writeComponent(COMPONENT);
+    writer.writeTests(COMPONENT_REF, of(TEST_1, TEST_2));
+    FileUtils.write(writer.getSourceFile(COMPONENT_REF), "line1\nline2");
+    FileUtils.write(writer.getFileStructure().analysisLog(), "log1\nlog2");
+    File containerFile = tempFolder.newFile();
+    try (OutputStream output = new FileOutputStream(containerFile)) {
+      ReportContainerWriter.writeDirectory(writer.getFileStructure().root(), output);
+    }
+    BatchReportReaderImpl containerReader = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(containerFile));
+
+    assertThat(containerReader.readMetadata().getProjectKey()).isEqualTo("PROJECT");
+    assertThat(containerReader.readComponent(COMPONENT_REF)).isEqualTo(COMPONENT);
+    assertThat(containerReader.readTests(COMPONENT_REF)).containsExactly(TEST_1, TEST_2);
+    assertThat(containerReader.readFileSource(COMPONENT_REF).get()).containsExactly("line1", "line2");
+    assertThat(containerReader.readFileSource(COMPONENT_REF + 1)).isAbsent();
+    assertThat(containerReader.readScannerLogs()).containsExactly("log1", "log2");
+
+    containerReader.stop();
+  }
 }
@@ -222,6 +222,18 @@ public class BatchReportReaderRule implements TestRule, BatchReportReader {
     return CloseableIterator.from(res.iterator());
   }
 
+  @Override
+  public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef, int fromLine, int toLine) {
+    List<ScannerReport.SyntaxHighlightingRule> res = this.syntaxHighlightings.get(fileRef);
+    if (res == null) {
+      return CloseableIterator.emptyCloseableIterator();
+    }
+
+    return CloseableIterator.from(res.stream()
+      .filter(rule -> rule.getRange().getStartLine() <= toLine && rule.getRange().getEndLine() >= fromLine)
+      .iterator());
+  }
+
   public BatchReportReaderRule putSyntaxHighlighting(int fileRef, List<ScannerReport.SyntaxHighlightingRule> syntaxHighlightings) {
     this.syntaxHighlightings.put(fileRef, syntaxHighlightings);
     return this;
@@ -237,6 +249,18 @@ public class BatchReportReaderRule implements TestRule, BatchReportReader {
     return CloseableIterator.from(res.iterator());
   }
 
+  @Override
+  public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef, int fromLine, int toLine) {
+    List<ScannerReport.LineCoverage> res = this.coverages.get(fileRef);
+    if (res == null) {
+      return CloseableIterator.emptyCloseableIterator();
+    }
+
+    return CloseableIterator.from(res.stream()
+      .filter(coverage -> coverage.getLine() >= fromLine && coverage.getLine() <= toLine)
+      .iterator());
+  }
+
   public BatchReportReaderRule putCoverage(int fileRef, List<ScannerReport.LineCoverage> coverages) {
     this.coverages.put(fileRef, coverages);
     return this;
@@ -405,6 +405,14 @@ public class ComponentRootBuilderTest {
       .forEach((type) -> assertThat(ComponentRootBuilder.convertType(type)).isEqualTo(Component.Type.valueOf(type.name())));
   }
 
+  @Test
+  public void all_file_statuses_but_UNRECOGNIZED_are_converted() {
+    Arrays.stream(ScannerReport.Component.FileStatus.values())
+      .filter((status) -> status != ScannerReport.Component.FileStatus.UNRECOGNIZED)
+      .forEach((status) -> assertThat(ComponentRootBuilder.convertStatus(status)).isEqualTo(Component.Status.valueOf(status.name())));
+    assertThat(ComponentRootBuilder.convertStatus(ScannerReport.Component.FileStatus.UNRECOGNIZED)).isEqualTo(Component.Status.UNAVAILABLE);
+  }
+
   @Test
   public void createOtherReportAttributes_takes_ref_version_and_path_from_Scanner_Component() {
     int ref = 123;
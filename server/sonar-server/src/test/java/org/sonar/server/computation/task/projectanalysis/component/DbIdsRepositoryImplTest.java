@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 
 public class DbIdsRepositoryImplTest {
@@ -43,6 +44,25 @@ public class DbIdsRepositoryImplTest {
     assertThat(cache.getComponentId(SOME_COMPONENT)).isEqualTo(10L);
   }
 
+  @Test
+  public void add_and_get_ids_of_components_with_large_refs() {
+    DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
+    Component file = ReportComponent.builder(FILE, 100_000).setKey("FILE_KEY").build();
+    cache.setComponentId(SOME_COMPONENT, 10L);
+    cache.setComponentId(file, 20L);
+
+    assertThat(cache.getComponentId(SOME_COMPONENT)).isEqualTo(10L);
+    assertThat(cache.getComponentId(file)).isEqualTo(20L);
+  }
+
+  @Test
+  public void fail_to_get_component_id_on_ref_greater_than_known_refs() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("No component id registered in repository for Component 'FILE_KEY'");
+
+    new DbIdsRepositoryImpl().getComponentId(ReportComponent.builder(FILE, 100_000).setKey("FILE_KEY").build());
+  }
+
   @Test
   public void fail_to_get_component_id_on_unknown_ref() {
     thrown.expect(IllegalStateException.class);
@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileDataPrefetcherTest {
+
+  private List<List<String>> loadedBatches = new ArrayList<>();
+
+  @Test
+  public void load_data_of_files_visited_next_by_batches() {
+    FileDataPrefetcher<String> underTest = new FileDataPrefetcher<>(() -> asList("A", "B", "C", "D", "E"), 2, this::load);
+
+    assertThat(underTest.get("A")).isEqualTo("data of A");
+    assertThat(underTest.get("B")).isEqualTo("data of B");
+    assertThat(underTest.get("C")).isEqualTo("data of C");
+    assertThat(underTest.get("D")).isEqualTo("data of D");
+    assertThat(underTest.get("E")).isEqualTo("data of E");
+
+    assertThat(loadedBatches).containsExactly(asList("A", "B"), asList("C", "D"), asList("E"));
+  }
+
+  @Test
+  public void load_batch_starting_at_requested_key_when_files_are_not_requested_in_visit_order() {
+    FileDataPrefetcher<String> underTest = new FileDataPrefetcher<>(() -> asList("A", "B", "C", "D", "E"), 3, this::load);
+
+    assertThat(underTest.get("B")).isEqualTo("data of B");
+    assertThat(underTest.get("A")).isEqualTo("data of A");
+
+    assertThat(loadedBatches).containsExactly(asList("B", "C", "D"), asList("A", "B", "C"));
+  }
+
+  @Test
+  public void skip_keys_rejected_by_filter_and_test_them_lazily() {
+    List<String> testedKeys = new ArrayList<>();
+    FileDataPrefetcher<String> underTest = new FileDataPrefetcher<>(() -> asList("A", "B", "C", "D", "E", "F"), key -> {
+      testedKeys.add(key);
+      return !key.equals("D");
+    }, 3, this::load);
+
+    assertThat(underTest.get("B")).isEqualTo("data of B");
+    assertThat(testedKeys).containsExactly("C", "D", "E");
+    assertThat(underTest.get("C")).isEqualTo("data of C");
+    assertThat(underTest.get("E")).isEqualTo("data of E");
+    assertThat(underTest.get("F")).isEqualTo("data of F");
+
+    assertThat(loadedBatches).containsExactly(asList("B", "C", "E"), asList("F"));
+    assertThat(testedKeys).containsExactly("C", "D", "E");
+  }
+
+  @Test
+  public void data_is_released_once_returned() {
+    FileDataPrefetcher<String> underTest = new FileDataPrefetcher<>(() -> asList("A", "B"), 2, this::load);
+
+    underTest.get("A");
+    underTest.get("A");
+
+    assertThat(loadedBatches).containsExactly(asList("A", "B"), asList("A", "B"));
+  }
+
+  @Test
+  public void load_unknown_key_on_its_own() {
+    FileDataPrefetcher<String> underTest = new FileDataPrefetcher<>(() -> asList("A", "B"), 2, this::load);
+
+    assertThat(underTest.get("Z")).isEqualTo("data of Z");
+
+    assertThat(loadedBatches).containsExactly(asList("Z"));
+  }
+
+  @Test
+  public void return_null_and_do_not_reload_when_batch_loader_returns_no_data_for_a_key() {
+    FileDataPrefetcher<String> underTest = new FileDataPrefetcher<>(() -> asList("A", "B"), 2, keys -> {
+      loadedBatches.add(keys);
+      return new HashMap<>();
+    });
+
+    assertThat(underTest.get("A")).isNull();
+    assertThat(underTest.get("B")).isNull();
+
+    assertThat(loadedBatches).hasSize(1);
+  }
+
+  @Test
+  public void filesInVisitOrder_returns_files_in_pre_order() {
+    Component file1 = ReportComponent.builder(Component.Type.FILE, 3).build();
+    Component file2 = ReportComponent.builder(Component.Type.FILE, 5).build();
+    Component file3 = ReportComponent.builder(Component.Type.FILE, 6).build();
+    Component root = ReportComponent.builder(Component.Type.PROJECT, 1).addChildren(
+      ReportComponent.builder(Component.Type.MODULE, 2).addChildren(
+        file1,
+        ReportComponent.builder(Component.Type.DIRECTORY, 4).addChildren(file2, file3).build())
+        .build())
+      .build();
+
+    assertThat(FileDataPrefetcher.filesInVisitOrder(root)).containsExactly(file1, file2, file3);
+  }
+
+  private Map<String, String> load(List<String> keys) {
+    loadedBatches.add(keys);
+    Map<String, String> result = new HashMap<>();
+    keys.forEach(key -> result.put(key, "data of " + key));
+    return result;
+  }
+}
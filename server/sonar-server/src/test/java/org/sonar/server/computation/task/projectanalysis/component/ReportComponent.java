@@ -40,6 +40,7 @@ public class ReportComponent implements Component {
   public static final Component DUMB_PROJECT = builder(Type.PROJECT, 1).setKey("PROJECT_KEY").setUuid("PROJECT_UUID").setName("Project Name").setVersion("1.0-SNAPSHOT").build();
 
   private final Type type;
+  private final Status status;
   private final String name;
   @CheckForNull
   private final String description;
@@ -51,6 +52,7 @@ public class ReportComponent implements Component {
 
   private ReportComponent(Builder builder) {
     this.type = builder.type;
+    this.status = builder.status;
     this.key = builder.key;
     this.name = builder.name == null ? String.valueOf(builder.key) : builder.name;
     this.description = builder.description;
@@ -68,6 +70,11 @@ public class ReportComponent implements Component {
     return type;
   }
 
+  @Override
+  public Status getStatus() {
+    return status;
+  }
+
   @Override
   public String getUuid() {
     if (uuid == null) {
@@ -149,6 +156,7 @@ public class ReportComponent implements Component {
   public static final class Builder {
     private final Type type;
     private final int ref;
+    private Status status = Status.UNAVAILABLE;
     private String uuid;
     private String key;
     private String name;
@@ -164,6 +172,11 @@ public class ReportComponent implements Component {
       this.ref = ref;
     }
 
+    public Builder setStatus(Status s) {
+      this.status = Objects.requireNonNull(s);
+      return this;
+    }
+
     public Builder setUuid(String s) {
       this.uuid = Objects.requireNonNull(s);
       return this;
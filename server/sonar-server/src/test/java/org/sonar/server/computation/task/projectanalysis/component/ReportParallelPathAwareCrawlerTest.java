@@ -0,0 +1,201 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+
+public class ReportParallelPathAwareCrawlerTest {
+
+  private static final int MODULE_COUNT = 10;
+  private static final int DIRECTORY_COUNT = 5;
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private final Component componentTree = createTree();
+
+  @Test
+  public void computes_same_values_as_PathAwareCrawler() {
+    CountFilesVisitor sequentialVisitor = new CountFilesVisitor();
+    new PathAwareCrawler<>(sequentialVisitor).visit(componentTree);
+
+    CountFilesVisitor parallelVisitor = new CountFilesVisitor();
+    ParallelPathAwareCrawler.of(parallelVisitor, 4).visit(componentTree);
+
+    assertThat(parallelVisitor.fileCounts).isEqualTo(sequentialVisitor.fileCounts);
+    assertThat(parallelVisitor.fileCounts.get(componentTree.getReportAttributes().getRef())).isEqualTo(MODULE_COUNT * DIRECTORY_COUNT * 3);
+  }
+
+  @Test
+  public void visit_children_before_parent_in_post_order_and_parent_before_children_in_pre_order() {
+    VisitOrderVisitor preOrderVisitor = new VisitOrderVisitor(PRE_ORDER);
+    VisitOrderVisitor postOrderVisitor = new VisitOrderVisitor(POST_ORDER);
+
+    ParallelPathAwareCrawler.of(preOrderVisitor, 4).visit(componentTree);
+    ParallelPathAwareCrawler.of(postOrderVisitor, 4).visit(componentTree);
+
+    assertThat(preOrderVisitor.visited).hasSize(1 + MODULE_COUNT * (1 + DIRECTORY_COUNT * 4));
+    for (Component module : componentTree.getChildren()) {
+      assertThat(preOrderVisitor.visited.indexOf(module)).isGreaterThan(preOrderVisitor.visited.indexOf(componentTree));
+      assertThat(postOrderVisitor.visited.indexOf(module)).isLessThan(postOrderVisitor.visited.indexOf(componentTree));
+      for (Component directory : module.getChildren()) {
+        assertThat(preOrderVisitor.visited.indexOf(directory)).isGreaterThan(preOrderVisitor.visited.indexOf(module));
+        assertThat(postOrderVisitor.visited.indexOf(directory)).isLessThan(postOrderVisitor.visited.indexOf(module));
+      }
+    }
+  }
+
+  @Test
+  public void visit_components_with_threads_of_the_crawler() {
+    VisitOrderVisitor visitor = new VisitOrderVisitor(PRE_ORDER);
+
+    ParallelPathAwareCrawler.of(visitor, 4).visit(componentTree);
+
+    assertThat(visitor.threadNames).isNotEmpty();
+    for (String threadName : visitor.threadNames) {
+      assertThat(threadName).startsWith("ce-visitors-");
+    }
+  }
+
+  @Test
+  public void of_returns_a_PathAwareCrawler_when_there_is_a_single_thread() {
+    assertThat(ParallelPathAwareCrawler.of(new CountFilesVisitor(), 1)).isInstanceOf(PathAwareCrawler.class);
+    assertThat(ParallelPathAwareCrawler.of(new CountFilesVisitor(), 2)).isInstanceOf(ParallelPathAwareCrawler.class);
+  }
+
+  @Test
+  public void failure_in_a_subtree_is_rethrown_wrapped_in_VisitException() {
+    thrown.expect(VisitException.class);
+    thrown.expectMessage("Visit of Component {key=KEY_1101,type=FILE} failed");
+
+    ParallelPathAwareCrawler.of(new VisitOrderVisitor(PRE_ORDER) {
+      @Override
+      public void visitFile(Component file, Path<Void> path) {
+        if (file.getReportAttributes().getRef() == 1101) {
+          throw new IllegalStateException("failure");
+        }
+      }
+    }, 4).visit(componentTree);
+  }
+
+  /**
+   * Project with {@link #MODULE_COUNT} modules, each with {@link #DIRECTORY_COUNT} directories of 3 files.
+   */
+  private static Component createTree() {
+    List<Component> modules = new ArrayList<>();
+    for (int m = 1; m <= MODULE_COUNT; m++) {
+      List<Component> directories = new ArrayList<>();
+      for (int d = 1; d <= DIRECTORY_COUNT; d++) {
+        int directoryRef = m * 100 + d * 10;
+        directories.add(component(DIRECTORY, directoryRef, component(FILE, directoryRef * 10 + 1), component(FILE, directoryRef * 10 + 2),
+          component(FILE, directoryRef * 10 + 3)));
+      }
+      modules.add(component(MODULE, m, directories.toArray(new Component[0])));
+    }
+    return component(PROJECT, 0, modules.toArray(new Component[0]));
+  }
+
+  private static Component component(Component.Type type, int ref, Component... children) {
+    return ReportComponent.builder(type, ref).setKey("KEY_" + ref).addChildren(children).build();
+  }
+
+  private static final class FileCount {
+    private int value = 0;
+  }
+
+  private static class CountFilesVisitor extends PathAwareVisitorAdapter<FileCount> implements SubtreeSafePathAwareVisitor<FileCount> {
+    private final Map<Integer, Integer> fileCounts = new ConcurrentHashMap<>();
+
+    CountFilesVisitor() {
+      super(CrawlerDepthLimit.FILE, POST_ORDER, new SimpleStackElementFactory<FileCount>() {
+        @Override
+        public FileCount createForAny(Component component) {
+          return new FileCount();
+        }
+      });
+    }
+
+    @Override
+    public void visitAny(Component component, Path<FileCount> path) {
+      if (component.getType() != FILE) {
+        fileCounts.put(component.getReportAttributes().getRef(), path.current().value);
+      }
+      if (!path.isRoot()) {
+        path.parent().value += component.getType() == FILE ? 1 : path.current().value;
+      }
+    }
+
+    @Override
+    public FileCount fork(Component component, FileCount fileCount) {
+      return new FileCount();
+    }
+
+    @Override
+    public void merge(Component component, FileCount fileCount, FileCount forkedFileCount) {
+      fileCount.value += forkedFileCount.value;
+    }
+  }
+
+  private static class VisitOrderVisitor extends PathAwareVisitorAdapter<Void> implements SubtreeSafePathAwareVisitor<Void> {
+    private final List<Component> visited = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    VisitOrderVisitor(ComponentVisitor.Order order) {
+      super(CrawlerDepthLimit.FILE, order, new SimpleStackElementFactory<Void>() {
+        @Override
+        public Void createForAny(Component component) {
+          return null;
+        }
+      });
+    }
+
+    @Override
+    public void visitAny(Component component, Path<Void> path) {
+      visited.add(component);
+      threadNames.add(Thread.currentThread().getName());
+    }
+
+    @Override
+    public Void fork(Component component, Void element) {
+      return null;
+    }
+
+    @Override
+    public void merge(Component component, Void element, Void forkedElement) {
+      // nothing to merge
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
+import org.sonar.server.property.InternalProperties;
+import org.sonar.server.qualityprofile.QPMeasureData;
+import org.sonar.server.qualityprofile.QualityProfile;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReusableFilesTest {
+
+  private static final String PROJECT_UUID = "PROJECT";
+  private static final QualityProfile JAVA_PROFILE = new QualityProfile("qp1", "Sonar way", "java", new Date(1_000L));
+  private static final ScannerReport.Metadata METADATA = ScannerReport.Metadata.newBuilder()
+    .putPluginVersions("java", "4.5")
+    .putPluginVersions("xoo", "1.0")
+    .build();
+
+  @Rule
+  public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+  @Rule
+  public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+
+  private MetricRepository metricRepository = mock(MetricRepository.class);
+  private MeasureRepository measureRepository = mock(MeasureRepository.class);
+  private InternalProperties internalProperties = mock(InternalProperties.class);
+  private Metric qualityProfileMetric = mock(Metric.class);
+
+  private ReusableFiles underTest = new ReusableFiles(analysisMetadataHolder, treeRootHolder, reportReader, metricRepository, measureRepository,
+    internalProperties);
+
+  @Before
+  public void setUp() {
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).build());
+    when(metricRepository.getByKey(CoreMetrics.QUALITY_PROFILES_KEY)).thenReturn(qualityProfileMetric);
+    analysisMetadataHolder.setIncrementalAnalysis(true);
+    analysisMetadataHolder.setQProfilesByLanguage(ImmutableMap.of("java", JAVA_PROFILE));
+    reportReader.setMetadata(METADATA);
+    setBaseQualityProfiles(JAVA_PROFILE);
+    setBasePluginsFingerprint(ReusableFiles.pluginsFingerprint(METADATA));
+  }
+
+  @Test
+  public void unchanged_file_of_incremental_analysis_is_reusable() {
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isTrue();
+  }
+
+  @Test
+  public void changed_or_added_file_is_not_reusable() {
+    assertThat(underTest.isReusable(file(Component.Status.CHANGED))).isFalse();
+    assertThat(underTest.isReusable(file(Component.Status.ADDED))).isFalse();
+    assertThat(underTest.isReusable(file(Component.Status.UNAVAILABLE))).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_analysis_is_not_incremental() {
+    analysisMetadataHolder.setIncrementalAnalysis(false);
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void components_other_than_files_are_not_reusable() {
+    assertThat(underTest.isReusable(ReportComponent.builder(Component.Type.DIRECTORY, 1).setStatus(Component.Status.SAME).build())).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_quality_profile_changed() {
+    setBaseQualityProfiles(new QualityProfile("qp2", "Other", "java", new Date(1_000L)));
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_rules_of_quality_profile_changed() {
+    setBaseQualityProfiles(new QualityProfile("qp1", "Sonar way", "java", new Date(0L)));
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_quality_profile_of_a_language_is_added() {
+    setBaseQualityProfiles();
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_there_is_no_previous_quality_profiles() {
+    when(measureRepository.getBaseMeasure(treeRootHolder.getRoot(), qualityProfileMetric)).thenReturn(Optional.<Measure>absent());
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_plugins_changed() {
+    setBasePluginsFingerprint(ReusableFiles.pluginsFingerprint(ScannerReport.Metadata.newBuilder()
+      .putPluginVersions("java", "4.4")
+      .putPluginVersions("xoo", "1.0")
+      .build()));
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void unchanged_file_is_not_reusable_if_plugins_of_previous_analysis_are_unknown() {
+    when(internalProperties.read(ReusableFiles.pluginsPropertyKey(PROJECT_UUID))).thenReturn(java.util.Optional.empty());
+
+    assertThat(underTest.isReusable(file(Component.Status.SAME))).isFalse();
+  }
+
+  @Test
+  public void plugins_fingerprint_does_not_depend_on_order_of_plugins() {
+    ScannerReport.Metadata reversed = ScannerReport.Metadata.newBuilder()
+      .putPluginVersions("xoo", "1.0")
+      .putPluginVersions("java", "4.5")
+      .build();
+
+    assertThat(ReusableFiles.pluginsFingerprint(reversed)).isEqualTo(ReusableFiles.pluginsFingerprint(METADATA));
+  }
+
+  @Test
+  public void plugins_property_key_fits_in_internal_properties_table() {
+    assertThat(ReusableFiles.pluginsPropertyKey(String.join("", Collections.nCopies(50, "u"))).length()).isLessThanOrEqualTo(50);
+  }
+
+  private void setBaseQualityProfiles(QualityProfile... profiles) {
+    Measure measure = Measure.newMeasureBuilder().create(QPMeasureData.toJson(new QPMeasureData(asList(profiles))));
+    when(measureRepository.getBaseMeasure(treeRootHolder.getRoot(), qualityProfileMetric)).thenReturn(Optional.of(measure));
+  }
+
+  private void setBasePluginsFingerprint(String fingerprint) {
+    when(internalProperties.read(ReusableFiles.pluginsPropertyKey(PROJECT_UUID))).thenReturn(java.util.Optional.of(fingerprint));
+  }
+
+  private static Component file(Component.Status status) {
+    return ReportComponent.builder(Component.Type.FILE, 2).setStatus(status).build();
+  }
+}
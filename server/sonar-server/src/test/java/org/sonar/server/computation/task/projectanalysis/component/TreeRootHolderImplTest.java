@@ -109,6 +109,28 @@ public class TreeRootHolderImplTest {
     underTest.getComponentByRef(6);
   }
 
+  @Test
+  public void getComponentByRef_throws_IAE_if_ref_is_negative() {
+    underTest.setRoot(SOME_REPORT_COMPONENT_TREE);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Component with ref '-1' can't be found");
+
+    underTest.getComponentByRef(-1);
+  }
+
+  @Test
+  public void getComponentByRef_throws_ISE_if_ref_is_shared_by_components() {
+    underTest.setRoot(ReportComponent.builder(PROJECT, 1)
+      .addChildren(ReportComponent.builder(MODULE, 1).setKey("module").build())
+      .build());
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Ref '1' is shared by components");
+
+    underTest.getComponentByRef(1);
+  }
+
   @Test
   public void getComponentByRef_throws_IAE_if_holder_contains_View_tree() {
     underTest.setRoot(SOME_VIEWS_COMPONENT_TREE);
@@ -161,6 +161,11 @@ public class ViewsComponent implements Component {
     throw new IllegalStateException("A component of type " + type + " does not have report attributes");
   }
 
+  @Override
+  public Status getStatus() {
+    return Status.UNAVAILABLE;
+  }
+
   @Override
   public FileAttributes getFileAttributes() {
     throw new IllegalStateException("A component of type " + type + " does not have file attributes");
@@ -0,0 +1,169 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.duplication;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.duplication.DuplicationUnitDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CrossProjectDuplicationsFilterTest {
+
+  private static final String JAVA = "java";
+  private static final String PROJECT_UUID = "PROJECT_UUID";
+  private static final String OTHER_PROJECT_UUID = "OTHER_PROJECT_UUID";
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private DbClient dbClient = dbTester.getDbClient();
+  private DbSession dbSession = dbTester.getSession();
+
+  private CrossProjectDuplicationsFilter underTest = new CrossProjectDuplicationsFilter(dbClient);
+
+  @Test
+  public void select_hashes_existing_in_other_projects() {
+    insertBlocks(OTHER_PROJECT_UUID, JAVA, "aa", "bb");
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "cc", "bb", "aa"))).containsExactly("aa", "bb");
+  }
+
+  @Test
+  public void ignore_hashes_existing_only_in_current_project() {
+    insertBlocks(PROJECT_UUID, JAVA, "aa", "bb");
+    insertBlocks(OTHER_PROJECT_UUID, JAVA, "bb");
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "bb"))).containsExactly("bb");
+    assertThat(underTest.selectCandidateHashes(JAVA, OTHER_PROJECT_UUID, asList("aa", "bb"))).containsExactly("aa", "bb");
+  }
+
+  @Test
+  public void ignore_hashes_of_other_languages() {
+    insertBlocks(OTHER_PROJECT_UUID, "php", "aa");
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, singletonList("aa"))).isEmpty();
+    assertThat(underTest.selectCandidateHashes("php", PROJECT_UUID, singletonList("aa"))).containsExactly("aa");
+  }
+
+  @Test
+  public void partition_is_loaded_only_once() {
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, singletonList("aa"))).isEmpty();
+
+    insertBlocks(OTHER_PROJECT_UUID, JAVA, "aa");
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, singletonList("aa"))).isEmpty();
+  }
+
+  @Test
+  public void added_hashes_are_selected_for_other_projects() {
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, singletonList("aa"))).isEmpty();
+
+    underTest.addHashes(JAVA, OTHER_PROJECT_UUID, asList("aa", "bb"));
+    underTest.addHashes(JAVA, PROJECT_UUID, singletonList("cc"));
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "bb", "cc"))).containsExactly("aa", "bb");
+  }
+
+  @Test
+  public void added_hashes_are_ignored_if_partition_is_not_loaded() {
+    underTest.addHashes(JAVA, OTHER_PROJECT_UUID, singletonList("aa"));
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, singletonList("aa"))).isEmpty();
+  }
+
+  @Test
+  public void partition_is_reloaded_when_it_has_grown_too_much() {
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, singletonList("aa"))).isEmpty();
+    insertBlocks(OTHER_PROJECT_UUID, JAVA, "aa");
+
+    for (int i = 0; i < 3_000; i++) {
+      underTest.addHashes(JAVA, PROJECT_UUID, singletonList("hash" + i));
+    }
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "hash1"))).containsExactly("aa");
+  }
+
+  @Test
+  public void all_hashes_are_candidates_when_partition_has_too_many_hashes_in_db() {
+    underTest = new CrossProjectDuplicationsFilter(dbClient, 2);
+    insertBlocks(OTHER_PROJECT_UUID, JAVA, "aa", "bb", "cc");
+    insertBlocks(OTHER_PROJECT_UUID, "php", "aa");
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "dd", "aa"))).containsExactly("aa", "dd");
+    assertThat(underTest.selectCandidateHashes("php", PROJECT_UUID, asList("aa", "dd"))).containsExactly("aa");
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .containsOnly("More than 2 hashes of duplication blocks of language java. They are looked up in database without being filtered.");
+    assertThat(logTester.logs(LoggerLevel.INFO)).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.INFO).get(0)).startsWith("Loaded 1 hashes of duplication blocks of language php (8 KB)");
+  }
+
+  @Test
+  public void all_hashes_are_candidates_when_too_many_hashes_are_added_to_partition() {
+    underTest = new CrossProjectDuplicationsFilter(dbClient, 2);
+    insertBlocks(OTHER_PROJECT_UUID, JAVA, "aa");
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "dd"))).containsExactly("aa");
+
+    underTest.addHashes(JAVA, OTHER_PROJECT_UUID, asList("bb", "cc"));
+
+    assertThat(underTest.selectCandidateHashes(JAVA, PROJECT_UUID, asList("aa", "dd"))).containsExactly("aa", "dd");
+  }
+
+  @Test
+  public void fingerprint_is_never_zero() {
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(CrossProjectDuplicationsFilter.fingerprint("hash" + i)).isNotZero();
+    }
+  }
+
+  private void insertBlocks(String projectUuid, String language, String... hashes) {
+    ComponentDto project = dbClient.componentDao().selectByUuid(dbSession, projectUuid).orNull();
+    if (project == null) {
+      project = ComponentTesting.newProjectDto(dbTester.organizations().insert(), projectUuid);
+      dbClient.componentDao().insert(dbSession, project);
+    }
+    ComponentDto file = ComponentTesting.newFileDto(project, null).setLanguage(language);
+    dbClient.componentDao().insert(dbSession, file);
+    int indexInFile = 0;
+    for (String hash : hashes) {
+      dbClient.duplicationDao().insert(dbSession, new DuplicationUnitDto()
+        .setHash(hash)
+        .setStartLine(1)
+        .setEndLine(10)
+        .setIndexInFile(indexInFile)
+        .setAnalysisUuid("ANALYSIS_" + projectUuid)
+        .setComponentUuid(file.uuid()));
+      indexInFile++;
+    }
+    dbSession.commit();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
+
+public class MatchCandidatesTest {
+
+  private FileSimilarity fileSimilarity = new FileSimilarityImpl(new SourceSimilarityImpl());
+
+  @Test
+  public void identical_files_are_candidates() {
+    File file = fileOf("a", "b", "c", "d");
+
+    int[][] candidates = MatchCandidates.compute(singletonList(file), asList(fileOf("e", "f"), file));
+
+    assertThat(candidates[0]).containsExactly(1);
+  }
+
+  @Test
+  public void files_without_common_lines_are_not_candidates() {
+    int[][] candidates = MatchCandidates.compute(singletonList(fileOf("a", "b", "c")), singletonList(fileOf("d", "e", "f")));
+
+    assertThat(candidates[0]).isEmpty();
+  }
+
+  @Test
+  public void files_without_line_hashes_have_no_candidate() {
+    File fileWithoutLines = new File("path", null, null);
+
+    int[][] candidates = MatchCandidates.compute(asList(null, fileWithoutLines), singletonList(fileWithoutLines));
+
+    assertThat(candidates[0]).isEmpty();
+    assertThat(candidates[1]).isEmpty();
+  }
+
+  @Test
+  public void max_distance_is_consistent_with_score() {
+    for (int size = 1; size < 1000; size++) {
+      int maxDistance = MatchCandidates.maxDistance(size);
+      assertThat(SourceSimilarityImpl.score(maxDistance, size)).isGreaterThanOrEqualTo(MIN_REQUIRED_SCORE);
+      assertThat(SourceSimilarityImpl.score(maxDistance + 1, size)).isLessThan(MIN_REQUIRED_SCORE);
+    }
+  }
+
+  @Test
+  public void all_pairs_reaching_min_required_score_are_candidates() {
+    Random random = new Random(42);
+    List<File> dbFiles = new ArrayList<>();
+    List<File> reportFiles = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      List<String> lines = randomLines(random, random.nextInt(200));
+      dbFiles.add(new File("db" + i, null, lines));
+      reportFiles.add(new File("report" + i, null, edit(random, lines)));
+      reportFiles.add(new File("other" + i, null, edit(random, lines)));
+    }
+
+    int[][] candidates = MatchCandidates.compute(dbFiles, reportFiles);
+
+    for (int dbIndex = 0; dbIndex < dbFiles.size(); dbIndex++) {
+      for (int reportIndex = 0; reportIndex < reportFiles.size(); reportIndex++) {
+        if (fileSimilarity.score(dbFiles.get(dbIndex), reportFiles.get(reportIndex)) >= MIN_REQUIRED_SCORE) {
+          assertThat(candidates[dbIndex]).contains(reportIndex);
+        }
+      }
+    }
+  }
+
+  private static List<String> randomLines(Random random, int size) {
+    List<String> res = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      res.add(String.valueOf(random.nextInt(20)));
+    }
+    return res;
+  }
+
+  private static List<String> edit(Random random, List<String> lines) {
+    List<String> res = new ArrayList<>(lines);
+    int edits = random.nextInt(lines.size() / 5 + 1);
+    for (int i = 0; i < edits; i++) {
+      int position = random.nextInt(res.size() + 1);
+      if (random.nextBoolean() && position < res.size()) {
+        res.remove(position);
+      } else {
+        res.add(position, String.valueOf(random.nextInt(20)));
+      }
+    }
+    return res;
+  }
+
+  private static File fileOf(String... lineHashes) {
+    return new File("path", null, Arrays.asList(lineHashes));
+  }
+}
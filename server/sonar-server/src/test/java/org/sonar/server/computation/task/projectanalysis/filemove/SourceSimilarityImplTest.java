@@ -19,12 +19,16 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import static java.lang.Math.min;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class SourceSimilarityImplTest {
@@ -53,4 +57,47 @@ public class SourceSimilarityImplTest {
     assertThat(underTest.score(asList("a"), asList("a", "b", "c"))).isEqualTo(33);
     assertThat(underTest.score(asList("a", "b", "c"), asList("a"))).isEqualTo(33);
   }
+
+  @Test
+  public void levenshtein_distance_of_lists_longer_than_a_word() {
+    Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      List<Integer> left = randomList(random, random.nextInt(300));
+      List<Integer> right = randomList(random, random.nextInt(300));
+
+      assertThat(underTest.levenshteinDistance(left, right)).isEqualTo(naiveLevenshteinDistance(left, right));
+    }
+  }
+
+  @Test
+  public void levenshtein_distance_of_empty_lists() {
+    assertThat(underTest.levenshteinDistance(emptyList(), asList("a", "b"))).isEqualTo(2);
+    assertThat(underTest.levenshteinDistance(asList("a", "b"), emptyList())).isEqualTo(2);
+    assertThat(underTest.levenshteinDistance(emptyList(), emptyList())).isEqualTo(0);
+  }
+
+  private static List<Integer> randomList(Random random, int size) {
+    List<Integer> res = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      res.add(random.nextInt(10));
+    }
+    return res;
+  }
+
+  private static int naiveLevenshteinDistance(List<Integer> left, List<Integer> right) {
+    int[][] distances = new int[left.size() + 1][right.size() + 1];
+    for (int i = 0; i <= left.size(); i++) {
+      distances[i][0] = i;
+    }
+    for (int j = 0; j <= right.size(); j++) {
+      distances[0][j] = j;
+    }
+    for (int i = 1; i <= left.size(); i++) {
+      for (int j = 1; j <= right.size(); j++) {
+        int match = left.get(i - 1).equals(right.get(j - 1)) ? 0 : 1;
+        distances[i][j] = min(min(distances[i - 1][j] + 1, distances[i][j - 1] + 1), distances[i - 1][j - 1] + match);
+      }
+    }
+    return distances[left.size()][right.size()];
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.db.protobuf.DbIssues;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  private DefaultIssueCodec underTest = new DefaultIssueCodec();
+
+  @Test
+  public void encode_and_decode_all_fields() throws IOException {
+    Date date = new Date(1_500_000_000_000L);
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setType(RuleType.BUG)
+      .setComponentUuid("COMPONENT_UUID")
+      .setComponentKey("COMPONENT_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("xoo", "S001"))
+      .setLanguage("xoo")
+      .setSeverity(Severity.MAJOR)
+      .setManualSeverity(true)
+      .setMessage("the message")
+      .setLine(10)
+      .setGap(2.5)
+      .setEffort(Duration.create(15L))
+      .setStatus("OPEN")
+      .setResolution("FIXED")
+      .setAssignee("john")
+      .setChecksum("checksum")
+      .setAttribute("JIRA", "FOO-1234")
+      .setAuthorLogin("simon")
+      .setTags(asList("tag1", "tag2"))
+      .setLocations(DbIssues.Locations.newBuilder().setChecksum("locations").build())
+      .setCreationDate(date)
+      .setUpdateDate(date)
+      .setCloseDate(date)
+      .setNew(false)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L);
+    issue.addComment(DefaultIssueComment.create("ISSUE_KEY", "john", "some comment"));
+
+    DefaultIssue decoded = roundTrip(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isEqualTo(RuleType.BUG);
+    assertThat(decoded.componentUuid()).isEqualTo("COMPONENT_UUID");
+    assertThat(decoded.componentKey()).isEqualTo("COMPONENT_KEY");
+    assertThat(decoded.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(decoded.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(decoded.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(decoded.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(decoded.ruleKey()).isEqualTo(RuleKey.of("xoo", "S001"));
+    assertThat(decoded.language()).isEqualTo("xoo");
+    assertThat(decoded.severity()).isEqualTo(Severity.MAJOR);
+    assertThat(decoded.manualSeverity()).isTrue();
+    assertThat(decoded.message()).isEqualTo("the message");
+    assertThat(decoded.line()).isEqualTo(10);
+    assertThat(decoded.gap()).isEqualTo(2.5);
+    assertThat(decoded.effort()).isEqualTo(Duration.create(15L));
+    assertThat(decoded.status()).isEqualTo("OPEN");
+    assertThat(decoded.resolution()).isEqualTo("FIXED");
+    assertThat(decoded.assignee()).isEqualTo("john");
+    assertThat(decoded.checksum()).isEqualTo("checksum");
+    assertThat(decoded.attributes()).containsOnly(entry("JIRA", "FOO-1234"));
+    assertThat(decoded.authorLogin()).isEqualTo("simon");
+    assertThat(decoded.tags()).containsExactly("tag1", "tag2");
+    assertThat(decoded.<DbIssues.Locations>getLocations().getChecksum()).isEqualTo("locations");
+    assertThat(decoded.creationDate()).isEqualTo(date);
+    assertThat(decoded.updateDate()).isEqualTo(date);
+    assertThat(decoded.closeDate()).isEqualTo(date);
+    assertThat(decoded.isNew()).isFalse();
+    assertThat(decoded.isBeingClosed()).isTrue();
+    assertThat(decoded.isOnDisabledRule()).isTrue();
+    assertThat(decoded.isChanged()).isTrue();
+    assertThat(decoded.mustSendNotifications()).isTrue();
+    assertThat(decoded.selectedAt()).isEqualTo(1_000L);
+
+    assertThat(decoded.comments()).hasSize(1);
+    DefaultIssueComment comment = (DefaultIssueComment) decoded.comments().get(0);
+    DefaultIssueComment expectedComment = (DefaultIssueComment) issue.comments().get(0);
+    assertThat(comment.key()).isEqualTo(expectedComment.key());
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("some comment");
+    assertThat(comment.createdAt()).isEqualTo(expectedComment.createdAt());
+    assertThat(comment.isNew()).isTrue();
+  }
+
+  @Test
+  public void encode_and_decode_issue_with_null_fields() throws IOException {
+    DefaultIssue decoded = roundTrip(new DefaultIssue().setKey("ISSUE_KEY"));
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isNull();
+    assertThat(decoded.ruleKey()).isNull();
+    assertThat(decoded.line()).isNull();
+    assertThat(decoded.effort()).isNull();
+    assertThat(decoded.status()).isNull();
+    assertThat(decoded.getLocations()).isNull();
+    assertThat(decoded.creationDate()).isNull();
+    assertThat(decoded.currentChange()).isNull();
+    assertThat(decoded.changes()).isEmpty();
+    assertThat(decoded.comments()).isEmpty();
+    assertThat(decoded.attributes()).isEmpty();
+    assertThat(decoded.tags()).isEmpty();
+    assertThat(decoded.isNew()).isTrue();
+  }
+
+  @Test
+  public void preserve_current_change_among_changes() throws IOException {
+    Date date = new Date(1_500_000_000_000L);
+    IssueChangeContext context = IssueChangeContext.createScan(date);
+    DefaultIssue issue = new DefaultIssue().setKey("ISSUE_KEY");
+    issue.addChange(new FieldDiffs().setIssueKey("ISSUE_KEY").setCreationDate(date).setDiff("status", "OPEN", "CONFIRMED"));
+    issue.setFieldChange(context, "technicalDebt", 10L, 20L);
+    issue.setFieldChange(context, "type", RuleType.BUG, RuleType.VULNERABILITY);
+
+    DefaultIssue decoded = roundTrip(issue);
+
+    assertThat(decoded.changes()).hasSize(3);
+    assertThat(decoded.changes().get(0).toString()).isEqualTo("status=OPEN|CONFIRMED");
+    assertThat(decoded.changes().get(1)).isSameAs(decoded.currentChange());
+    assertThat(decoded.changes().get(2)).isSameAs(decoded.currentChange());
+    FieldDiffs currentChange = decoded.currentChange();
+    assertThat(currentChange.creationDate()).isEqualTo(date);
+    assertThat(currentChange.get("technicalDebt").oldValue()).isEqualTo(10L);
+    assertThat(currentChange.get("technicalDebt").newValue()).isEqualTo(20L);
+    assertThat(currentChange.get("type").newValue()).isEqualTo(RuleType.VULNERABILITY);
+  }
+
+  private DefaultIssue roundTrip(DefaultIssue issue) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      underTest.write(issue, output);
+    }
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      DefaultIssue decoded = underTest.read(input);
+      assertThat(input.read()).isEqualTo(-1);
+      return decoded;
+    }
+  }
+}
@@ -44,21 +44,26 @@ import org.sonar.scanner.protocol.Constants;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitor;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
-import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommonRuleEngineImpl;
+import org.sonar.server.computation.task.projectanalysis.issue.commonrule.CommonRuleEngine;
 import org.sonar.server.computation.task.projectanalysis.issue.filter.IssueFilter;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRule;
 import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
+import org.sonar.server.rule.CommonRuleKeys;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
@@ -102,12 +107,16 @@ public class IntegrateIssuesVisitorTest {
   ArgumentCaptor<DefaultIssue> defaultIssueCaptor = ArgumentCaptor.forClass(DefaultIssue.class);
 
   IssueFilter issueFilter = mock(IssueFilter.class);
+  CommonRuleEngine commonRuleEngine = mock(CommonRuleEngine.class);
 
+  ReusableFiles reusableFiles = mock(ReusableFiles.class);
   BaseIssuesLoader baseIssuesLoader = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepositoryRule, activeRulesHolderRule);
   MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
-  TrackerExecution tracker = new TrackerExecution(new TrackerBaseInputFactory(baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository),
+  TrackerBaseInputFactory baseInputFactory = new TrackerBaseInputFactory(treeRootHolder, baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository,
+    reusableFiles);
+  TrackerExecution tracker = new TrackerExecution(baseInputFactory,
     new TrackerRawInputFactory(treeRootHolder, reportReader,
-      fileSourceRepository, new CommonRuleEngineImpl(), issueFilter),
+      fileSourceRepository, commonRuleEngine, issueFilter),
     new Tracker<>());
   IssueCache issueCache;
 
@@ -124,7 +133,8 @@ public class IntegrateIssuesVisitorTest {
     issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
     when(issueFilter.accept(any(DefaultIssue.class), eq(FILE))).thenReturn(true);
     when(movedFilesRepository.getOriginalFile(any(Component.class))).thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
-    underTest = new IntegrateIssuesVisitor(tracker, issueCache, issueLifecycle, issueVisitors, componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository);
+    underTest = new IntegrateIssuesVisitor(tracker, baseInputFactory, reusableFiles, issueCache, issueLifecycle, issueVisitors,
+      componentsWithUnprocessedIssues, componentIssuesRepository, movedFilesRepository);
   }
 
   @Test
@@ -187,6 +197,36 @@ public class IntegrateIssuesVisitorTest {
     assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
   }
 
+  @Test
+  public void reuse_open_issues_of_unchanged_file_of_incremental_analysis() {
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    Component unchangedFile = builder(Component.Type.FILE, FILE_REF).setKey(FILE_KEY).setUuid(FILE_UUID).setStatus(Component.Status.SAME).build();
+    when(reusableFiles.isReusable(unchangedFile)).thenReturn(true);
+
+    RuleKey ruleKey = RuleTesting.XOO_X1;
+    addBaseIssue(ruleKey);
+    // report is ignored
+    ScannerReport.Issue reportIssue = ScannerReport.Issue.newBuilder()
+      .setMsg("the message")
+      .setRuleRepository("xoo")
+      .setRuleKey("S001")
+      .setSeverity(Constants.Severity.BLOCKER)
+      .build();
+    reportReader.putIssues(FILE_REF, asList(reportIssue));
+
+    underTest.visitAny(unchangedFile);
+
+    verify(issueLifecycle, never()).initNewOpenIssue(any(DefaultIssue.class));
+    verify(issueLifecycle, never()).mergeExistingOpenIssue(any(DefaultIssue.class), any(DefaultIssue.class));
+    verify(issueVisitor).onIssue(eq(unchangedFile), defaultIssueCaptor.capture());
+    assertThat(defaultIssueCaptor.getValue().key()).isEqualTo("ISSUE");
+    List<DefaultIssue> issues = newArrayList(issueCache.traverse());
+    assertThat(issues).hasSize(1);
+    assertThat(issues.get(0).severity()).isEqualTo(Severity.MAJOR);
+    assertThat(issues.get(0).isBeingClosed()).isFalse();
+    assertThat(componentsWithUnprocessedIssues.getUuids()).isEmpty();
+  }
+
   @Test
   public void execute_issue_visitors() throws Exception {
     componentsWithUnprocessedIssues.setUuids(Collections.<String>emptySet());
@@ -263,6 +303,29 @@ public class IntegrateIssuesVisitorTest {
     assertThat(componentIssuesRepository.getIssues(PROJECT)).isEmpty();
   }
 
+  @Test
+  public void track_common_rule_issues_of_unchanged_file_when_coverage_or_duplications_changed() {
+    componentsWithUnprocessedIssues.setUuids(newHashSet(FILE_UUID));
+    when(reusableFiles.isReusable(FILE)).thenReturn(true);
+    RuleKey duplicatedBlocks = RuleKey.of("common-xoo", CommonRuleKeys.DUPLICATED_BLOCKS);
+    RuleKey insufficientLineCoverage = RuleKey.of("common-xoo", CommonRuleKeys.INSUFFICIENT_LINE_COVERAGE);
+    for (RuleKey ruleKey : asList(RuleTesting.XOO_X1, duplicatedBlocks, insufficientLineCoverage)) {
+      activeRulesHolderRule.put(new ActiveRule(ruleKey, Severity.MAJOR, Collections.<String, String>emptyMap()));
+    }
+    // duplications were removed, but coverage decreased
+    addBaseIssues(RuleTesting.XOO_X1, duplicatedBlocks);
+    DefaultIssue coverageIssue = new DefaultIssue().setRuleKey(insufficientLineCoverage).setChecksum("");
+    when(commonRuleEngine.process(FILE)).thenReturn(singletonList(coverageIssue));
+
+    underTest.visitAny(FILE);
+
+    verify(issueLifecycle).initNewOpenIssue(coverageIssue);
+    verify(issueLifecycle, never()).mergeExistingOpenIssue(any(DefaultIssue.class), any(DefaultIssue.class));
+    List<DefaultIssue> issues = newArrayList(issueCache.traverse());
+    assertThat(issues).extracting(DefaultIssue::ruleKey).containsOnly(RuleTesting.XOO_X1, duplicatedBlocks, insufficientLineCoverage);
+    assertThat(issues).filteredOn(DefaultIssue::isBeingClosed).extracting(DefaultIssue::ruleKey).containsOnly(duplicatedBlocks);
+  }
+
   @Test
   public void remove_uuid_of_original_file_from_componentsWithUnprocessedIssues_if_component_has_one() {
     String originalFileUuid = "original file uuid";
@@ -276,19 +339,25 @@ public class IntegrateIssuesVisitorTest {
   }
 
   private void addBaseIssue(RuleKey ruleKey) {
+    addBaseIssues(ruleKey);
+  }
+
+  private void addBaseIssues(RuleKey... ruleKeys) {
     ComponentDto project = ComponentTesting.newProjectDto(dbTester.organizations().insert(), PROJECT_UUID).setKey(PROJECT_KEY);
     ComponentDto file = ComponentTesting.newFileDto(project, null, FILE_UUID).setKey(FILE_KEY);
     dbTester.getDbClient().componentDao().insert(dbTester.getSession(), project, file);
 
-    RuleDto ruleDto = RuleTesting.newDto(ruleKey);
-    dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), ruleDto);
-    ruleRepositoryRule.add(ruleKey);
-
-    IssueDto issue = IssueTesting.newDto(ruleDto, file, project)
-      .setKee("ISSUE")
-      .setStatus(Issue.STATUS_OPEN)
-      .setSeverity(Severity.MAJOR);
-    dbTester.getDbClient().issueDao().insert(dbTester.getSession(), issue);
+    for (RuleKey ruleKey : ruleKeys) {
+      RuleDto ruleDto = RuleTesting.newDto(ruleKey);
+      dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), ruleDto);
+      ruleRepositoryRule.add(ruleKey);
+
+      IssueDto issue = IssueTesting.newDto(ruleDto, file, project)
+        .setKee("ISSUE_" + ruleKey)
+        .setStatus(Issue.STATUS_OPEN)
+        .setSeverity(Severity.MAJOR);
+      dbTester.getDbClient().issueDao().insert(dbTester.getSession(), issue);
+    }
     dbTester.getSession().commit();
   }
 
@@ -20,24 +20,41 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.core.issue.DefaultIssue;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDao;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class TrackerBaseInputFactoryTest {
   private static final String FILE_UUID = "uuid";
+  private static final String FILE_2_UUID = "uuid 2";
   private static final ReportComponent FILE = ReportComponent.builder(Component.Type.FILE, 1).setUuid(FILE_UUID).build();
+  private static final ReportComponent FILE_2 = ReportComponent.builder(Component.Type.FILE, 2).setUuid(FILE_2_UUID).build();
+  private static final ReportComponent MODULE = ReportComponent.builder(Component.Type.MODULE, 3).setUuid("module uuid").addChildren(FILE, FILE_2).build();
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(ReportComponent.builder(Component.Type.PROJECT, 4).setUuid("project uuid").addChildren(MODULE).build());
 
   private BaseIssuesLoader baseIssuesLoader = mock(BaseIssuesLoader.class);
   private DbClient dbClient = mock(DbClient.class);
@@ -45,8 +62,9 @@ public class TrackerBaseInputFactoryTest {
   private FileSourceDao fileSourceDao = mock(FileSourceDao.class);
 
   private MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
+  private ReusableFiles reusableFiles = mock(ReusableFiles.class);
 
-  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository);
+  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(treeRootHolder, baseIssuesLoader, dbClient, movedFilesRepository, reusableFiles);
 
   @Before
   public void setUp() throws Exception {
@@ -60,7 +78,7 @@ public class TrackerBaseInputFactoryTest {
   public void create_returns_Input_which_retrieves_lines_hashes_of_specified_file_component_when_it_has_no_original_file() {
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, FILE_UUID);
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, asList(FILE_UUID, FILE_2_UUID));
   }
 
   @Test
@@ -73,15 +91,35 @@ public class TrackerBaseInputFactoryTest {
 
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, originalUuid);
-    verify(fileSourceDao, times(0)).selectLineHashes(dbSession, FILE_UUID);
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, asList(originalUuid, FILE_2_UUID));
+  }
+
+  @Test
+  public void line_hashes_of_files_visited_next_are_prefetched() {
+    when(fileSourceDao.selectLineHashesByFileUuids(dbSession, asList(FILE_UUID, FILE_2_UUID)))
+      .thenReturn(ImmutableMap.of(FILE_UUID, singletonList("hash1"), FILE_2_UUID, asList("hash2", "hash3")));
+
+    assertThat(underTest.create(FILE).getLineHashSequence().length()).isEqualTo(1);
+    assertThat(underTest.create(FILE_2).getLineHashSequence().length()).isEqualTo(2);
+
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, asList(FILE_UUID, FILE_2_UUID));
+    verifyNoMoreInteractions(fileSourceDao);
+  }
+
+  @Test
+  public void line_hashes_of_reusable_files_are_not_prefetched() {
+    when(reusableFiles.isReusable(FILE_2)).thenReturn(true);
+
+    underTest.create(FILE).getLineHashSequence();
+
+    verify(fileSourceDao).selectLineHashesByFileUuids(dbSession, singletonList(FILE_UUID));
   }
 
   @Test
   public void create_returns_Input_which_retrieves_issues_of_specified_file_component_when_it_has_no_original_file() {
     underTest.create(FILE).getIssues();
 
-    verify(baseIssuesLoader).loadForComponentUuid(FILE_UUID);
+    verify(baseIssuesLoader).loadForComponentUuids(asList(FILE_UUID, FILE_2_UUID));
   }
 
   @Test
@@ -94,7 +132,26 @@ public class TrackerBaseInputFactoryTest {
 
     underTest.create(FILE).getIssues();
 
-    verify(baseIssuesLoader).loadForComponentUuid(originalUuid);
-    verify(baseIssuesLoader, times(0)).loadForComponentUuid(FILE_UUID);
+    verify(baseIssuesLoader).loadForComponentUuids(asList(originalUuid, FILE_2_UUID));
+  }
+
+  @Test
+  public void issues_of_files_visited_next_are_prefetched() {
+    DefaultIssue issue = new DefaultIssue().setKey("ISSUE").setComponentUuid(FILE_2_UUID);
+    when(baseIssuesLoader.loadForComponentUuids(asList(FILE_UUID, FILE_2_UUID)))
+      .thenReturn(ImmutableMap.<String, List<DefaultIssue>>of(FILE_2_UUID, singletonList(issue)));
+
+    assertThat(underTest.create(FILE).getIssues()).isEmpty();
+    assertThat(underTest.create(FILE_2).getIssues()).containsExactly(issue);
+
+    verify(baseIssuesLoader, times(1)).loadForComponentUuids(any());
+    verifyNoMoreInteractions(baseIssuesLoader);
+  }
+
+  @Test
+  public void create_returns_Input_which_retrieves_issues_of_component_which_is_not_a_file() {
+    underTest.create(MODULE).getIssues();
+
+    verify(baseIssuesLoader).loadForComponentUuid("module uuid");
   }
 }
@@ -0,0 +1,157 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class ColumnarMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 2).setKey("other").build();
+  private static final ReportComponent FAR_COMPONENT = ReportComponent.builder(Component.Type.FILE, 100_000).setKey("far").build();
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private static final Metric INT_METRIC = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private static final Metric LONG_METRIC = new MetricImpl(2, "long", "long", Metric.MetricType.WORK_DUR);
+  private static final Metric DOUBLE_METRIC = new MetricImpl(3, "double", "double", Metric.MetricType.FLOAT);
+  private static final Metric BOOLEAN_METRIC = new MetricImpl(4, "bool", "bool", Metric.MetricType.BOOL);
+  private static final Metric STRING_METRIC = new MetricImpl(5, "string", "string", Metric.MetricType.DATA);
+  private static final Metric LEVEL_METRIC = new MetricImpl(6, "level", "level", Metric.MetricType.LEVEL);
+
+  private ColumnarMeasureRepository underTest = new ColumnarMeasureRepository();
+
+  @Test
+  public void stores_measures_of_each_value_type() {
+    verifyRoundTrip(INT_METRIC, newMeasureBuilder().create(12, "some data"));
+    verifyRoundTrip(LONG_METRIC, newMeasureBuilder().create(Long.MAX_VALUE / 3));
+    verifyRoundTrip(DOUBLE_METRIC, newMeasureBuilder().create(1.2345d, 2));
+    verifyRoundTrip(BOOLEAN_METRIC, newMeasureBuilder().create(true));
+    verifyRoundTrip(STRING_METRIC, newMeasureBuilder().create("some value"));
+    verifyRoundTrip(LEVEL_METRIC, newMeasureBuilder().create(Measure.Level.WARN));
+  }
+
+  @Test
+  public void stores_measures_with_no_value() {
+    verifyRoundTrip(INT_METRIC, newMeasureBuilder().createNoValue());
+    verifyRoundTrip(STRING_METRIC, newMeasureBuilder().createNoValue());
+  }
+
+  @Test
+  public void stores_variations() {
+    verifyRoundTrip(INT_METRIC, newMeasureBuilder().setVariations(new MeasureVariations(1d, null, 3d)).create(5));
+    verifyRoundTrip(DOUBLE_METRIC, newMeasureBuilder().setVariations(new MeasureVariations(null, null, null, null, -1.5d)).createNoValue());
+  }
+
+  @Test
+  public void stores_measures_with_description_or_quality_gate_status_as_they_are() {
+    Measure withDescription = newMeasureBuilder().setDescription("desc").create(3);
+    Measure withStatus = newMeasureBuilder().setQualityGateStatus(new QualityGateStatus(Measure.Level.ERROR, "text")).create(Measure.Level.ERROR);
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, withDescription);
+    underTest.add(FILE_COMPONENT, LEVEL_METRIC, withStatus);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(withDescription);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, LEVEL_METRIC).get()).isSameAs(withStatus);
+  }
+
+  @Test
+  public void update_replaces_stored_value() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().setDescription("desc").create(3, "data"));
+    Measure updated = newMeasureBuilder().setVariations(new MeasureVariations(2d)).create(4);
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, updated);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isEqualToComparingFieldByField(updated);
+  }
+
+  @Test
+  public void stores_measures_of_developers_apart_from_measure_of_component() {
+    Measure measure = newMeasureBuilder().create(1);
+    Measure devMeasure = newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(2);
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, measure);
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(1);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC)).hasSize(2).contains(devMeasure);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).get(INT_METRIC.getKey())).hasSize(2);
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_keeps_existing_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2), OverridePolicy.DO_NOT_OVERRIDE);
+    underTest.add(OTHER_COMPONENT, INT_METRIC, newMeasureBuilder().create(3), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(1);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(3);
+  }
+
+  @Test
+  public void columns_grow_with_refs_of_components() {
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().setVariations(new MeasureVariations(1d)).create(1d, 1));
+    underTest.add(FAR_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().create(2d, 1));
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, DOUBLE_METRIC).get().getVariations().getVariation1()).isEqualTo(1d);
+    assertThat(underTest.getRawMeasure(FAR_COMPONENT, DOUBLE_METRIC).get().getDoubleValue()).isEqualTo(2d);
+    assertThat(underTest.getRawMeasure(FAR_COMPONENT, DOUBLE_METRIC).get().hasVariations()).isFalse();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, DOUBLE_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void getRawMeasures_returns_measures_of_all_metrics() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, STRING_METRIC, newMeasureBuilder().create("a"));
+    underTest.add(OTHER_COMPONENT, LONG_METRIC, newMeasureBuilder().create(1L));
+
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).keySet()).containsOnly(INT_METRIC.getKey(), STRING_METRIC.getKey());
+  }
+
+  @Test
+  public void getBaseMeasure_is_not_supported() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.getBaseMeasure(FILE_COMPONENT, INT_METRIC);
+  }
+
+  private void verifyRoundTrip(Metric metric, Measure measure) {
+    underTest.add(FILE_COMPONENT, metric, measure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric).get()).isEqualToComparingFieldByField(measure);
+
+    underTest = new ColumnarMeasureRepository();
+  }
+}
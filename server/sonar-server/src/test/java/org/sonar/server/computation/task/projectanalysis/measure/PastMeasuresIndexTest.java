@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PastMeasuresIndexTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private PastMeasuresIndex underTest = new PastMeasuresIndex();
+
+  @Test
+  public void getValue_returns_default_value_when_no_measure() {
+    underTest.add(0, 10, 5d);
+
+    assertThat(underTest.getValue(0, 11, -1d)).isEqualTo(-1d);
+    assertThat(underTest.getValue(1, 10, -1d)).isEqualTo(-1d);
+    assertThat(underTest.getValue(-1, 10, -1d)).isEqualTo(-1d);
+  }
+
+  @Test
+  public void add_replaces_previous_value() {
+    underTest.add(3, 10, 5d);
+    underTest.add(3, 10, 7d);
+
+    assertThat(underTest.getValue(3, 10, 0d)).isEqualTo(7d);
+    assertThat(underTest.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void supports_zero_and_negative_metric_ids() {
+    underTest.add(0, 0, 1d);
+    underTest.add(0, -2, 2d);
+
+    assertThat(underTest.getValue(0, 0, 0d)).isEqualTo(1d);
+    assertThat(underTest.getValue(0, -2, 0d)).isEqualTo(2d);
+  }
+
+  @Test
+  public void keeps_all_values_when_growing() {
+    for (int component = 0; component < 500; component++) {
+      for (int metricId = 1; metricId <= 20; metricId++) {
+        underTest.add(component, metricId, component * 100d + metricId);
+      }
+    }
+
+    assertThat(underTest.size()).isEqualTo(10_000);
+    for (int component = 0; component < 500; component++) {
+      for (int metricId = 1; metricId <= 20; metricId++) {
+        assertThat(underTest.getValue(component, metricId, -1d)).isEqualTo(component * 100d + metricId);
+      }
+    }
+  }
+
+  @Test
+  public void fail_with_IAE_when_component_index_is_negative() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Component index must be positive or zero");
+
+    underTest.add(-1, 10, 5d);
+  }
+}
@@ -46,6 +46,8 @@ import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
@@ -53,8 +55,13 @@ import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepos
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.guava.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 import static org.sonar.api.utils.log.LoggerLevel.TRACE;
 import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
 
@@ -82,11 +89,14 @@ public class ScmInfoRepositoryImplTest {
   public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(builder(Component.Type.PROJECT, 2).setKey("PROJECT_KEY").setUuid("PROJECT_UUID").addChildren(FILE).build());
 
   DbClient dbClient = dbTester.getDbClient();
 
   ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(reportReader, analysisMetadataHolder, dbClient,
-    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)));
+    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)), treeRootHolder);
 
   @Test
   public void read_from_report() throws Exception {
@@ -210,11 +220,12 @@ public class ScmInfoRepositoryImplTest {
     AnalysisMetadataHolder analysisMetadataHolder = mock(AnalysisMetadataHolder.class);
     DbClient dbClient = mock(DbClient.class);
     SourceHashRepository sourceHashRepository = mock(SourceHashRepository.class);
-    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    TreeRootHolder treeRootHolder = mock(TreeRootHolder.class);
+    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
 
     assertThat(underTest.getScmInfo(component)).isAbsent();
 
-    verifyNoMoreInteractions(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    verifyNoMoreInteractions(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
   }
 
   @Test
@@ -242,7 +253,40 @@ public class ScmInfoRepositoryImplTest {
     assertThat(logTester.logs(TRACE)).isEmpty();
   }
 
+  @Test
+  public void read_changesets_of_files_copied_from_previous_analysis_once() {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    Component file1 = builder(Component.Type.FILE, 11).setKey("FILE_1_KEY").setUuid("FILE_1_UUID").build();
+    Component file2 = builder(Component.Type.FILE, 12).setKey("FILE_2_KEY").setUuid("FILE_2_UUID").build();
+    Component file3 = builder(Component.Type.FILE, 13).setKey("FILE_3_KEY").setUuid("FILE_3_UUID").build();
+    TreeRootHolder treeRootHolder = mock(TreeRootHolder.class);
+    when(treeRootHolder.getRoot()).thenReturn(builder(Component.Type.PROJECT, 10).setKey("PROJECT_KEY").setUuid("PROJECT_UUID")
+      .addChildren(file1, file2, file3).build());
+    SourceHashRepository sourceHashRepository = mock(SourceHashRepository.class);
+    when(sourceHashRepository.getRawSourceHash(any(Component.class))).thenReturn("HASH");
+    addCopyFromPreviousChangesetInReport(11);
+    addChangesetInReport(12, "john", DATE_2, "rev-2", false);
+    addCopyFromPreviousChangesetInReport(13);
+    addFileSourceInDb(file1, "henry", DATE_1, "rev-1", "HASH");
+    addFileSourceInDb(file3, "henry", DATE_1, "rev-1", "HASH");
+    BatchReportReader batchReportReader = spy(reportReader);
+    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, treeRootHolder);
+
+    assertThat(underTest.getScmInfo(file1).get().getChangesetForLine(1).getAuthor()).isEqualTo("henry");
+    assertThat(underTest.getScmInfo(file2).get().getChangesetForLine(1).getAuthor()).isEqualTo("john");
+    assertThat(underTest.getScmInfo(file3).get().getChangesetForLine(1).getAuthor()).isEqualTo("henry");
+
+    verify(batchReportReader).readChangesets(11);
+    verify(batchReportReader).readChangesets(13);
+    // read once when building the batch of sources to prefetch, once to get its SCM info
+    verify(batchReportReader, times(2)).readChangesets(12);
+  }
+
   private void addFileSourceInDb(@Nullable String author, @Nullable Long date, @Nullable String revision, String srcHash) {
+    addFileSourceInDb(FILE, author, date, revision, srcHash);
+  }
+
+  private void addFileSourceInDb(Component file, @Nullable String author, @Nullable Long date, @Nullable String revision, String srcHash) {
     DbFileSources.Data.Builder fileDataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder builder = fileDataBuilder.addLinesBuilder()
       .setLine(1);
@@ -256,15 +300,19 @@ public class ScmInfoRepositoryImplTest {
       builder.setScmRevision(revision);
     }
     dbTester.getDbClient().fileSourceDao().insert(new FileSourceDto()
-      .setFileUuid(FILE.getUuid())
+      .setFileUuid(file.getUuid())
       .setProjectUuid("PROJECT_UUID")
       .setSourceData(fileDataBuilder.build())
       .setSrcHash(srcHash));
   }
 
   private void addCopyFromPreviousChangesetInReport() {
+    addCopyFromPreviousChangesetInReport(FILE_REF);
+  }
+
+  private void addCopyFromPreviousChangesetInReport(int fileRef) {
     reportReader.putChangesets(ScannerReport.Changesets.newBuilder()
-      .setComponentRef(FILE_REF)
+      .setComponentRef(fileRef)
       .setCopyFromPrevious(true)
       .build());
   }
@@ -274,8 +322,12 @@ public class ScmInfoRepositoryImplTest {
   }
 
   private void addChangesetInReport(String author, Long date, String revision, boolean copyFromPrevious) {
+    addChangesetInReport(FILE_REF, author, date, revision, copyFromPrevious);
+  }
+
+  private void addChangesetInReport(int fileRef, String author, Long date, String revision, boolean copyFromPrevious) {
     reportReader.putChangesets(ScannerReport.Changesets.newBuilder()
-      .setComponentRef(FILE_REF)
+      .setComponentRef(fileRef)
       .setCopyFromPrevious(copyFromPrevious)
       .addChangeset(ScannerReport.Changesets.Changeset.newBuilder()
         .setAuthor(author)
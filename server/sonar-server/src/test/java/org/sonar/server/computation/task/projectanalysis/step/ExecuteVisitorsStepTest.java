@@ -143,6 +143,17 @@ public class ExecuteVisitorsStepTest {
     }
   }
 
+  @Test
+  public void execute_records_execution_duration_of_all_visitors_whatever_the_log_level() {
+    ExecuteVisitorsStep underStep = new ExecuteVisitorsStep(treeRootHolder, asList(new VisitorA(), new VisitorB(), new VisitorC()));
+    assertThat(underStep.getSubStepDurations()).isEmpty();
+
+    underStep.execute();
+
+    assertThat(underStep.getSubStepDurations().keySet()).containsExactly("VisitorA", "VisitorB", "VisitorC");
+    assertThat(underStep.getSubStepDurations().values()).doesNotContainNull();
+  }
+
   private static class VisitorA extends TypeAwareVisitorAdapter {
     public VisitorA() {
       super(CrawlerDepthLimit.PROJECT, Order.PRE_ORDER);
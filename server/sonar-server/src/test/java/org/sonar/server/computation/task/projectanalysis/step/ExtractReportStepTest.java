@@ -19,10 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -35,6 +39,8 @@ import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.scanner.protocol.output.ReportContainer;
+import org.sonar.scanner.protocol.output.ReportContainerWriter;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 
@@ -87,6 +93,27 @@ public class ExtractReportStepTest {
     assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
   }
 
+  @Test
+  public void copy_report_container_without_extracting_it() throws Exception {
+    File reportDir = tempFolder.newDir();
+    FileUtils.write(new File(reportDir, "metadata.pb"), "{metadata}");
+    try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+      ReportContainerWriter.writeDirectory(reportDir, output);
+      dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, new ByteArrayInputStream(output.toByteArray()));
+    }
+    dbTester.getSession().commit();
+    dbTester.getSession().close();
+
+    underTest.execute();
+
+    File containerFile = reportDirectoryHolder.getDirectory();
+    assertThat(containerFile).isFile();
+    try (ReportContainer container = ReportContainer.open(containerFile);
+      InputStream metadata = container.openEntry("metadata.pb")) {
+      assertThat(IOUtils.toString(metadata, StandardCharsets.UTF_8)).isEqualTo("{metadata}");
+    }
+  }
+
   private File generateReport() throws IOException {
     File zipDir = tempFolder.newDir();
     File metadataFile = new File(zipDir, "metadata.pb");
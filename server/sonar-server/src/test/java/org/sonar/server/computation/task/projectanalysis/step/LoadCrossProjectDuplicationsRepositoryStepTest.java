@@ -42,6 +42,7 @@ import org.sonar.db.duplication.DuplicationUnitDto;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
@@ -50,6 +51,7 @@ import org.sonar.server.computation.task.projectanalysis.component.FileAttribute
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationsFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
 import org.sonar.server.computation.task.step.ComputationStep;
 
@@ -90,6 +92,9 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
   @Rule
   public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
 
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+
   CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder = mock(CrossProjectDuplicationStatusHolder.class);
 
   @Rule
@@ -103,8 +108,10 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
 
   Analysis baseProjectAnalysis;
 
+  CrossProjectDuplicationsFilter crossProjectDuplicationsFilter = new CrossProjectDuplicationsFilter(dbClient);
+
   ComputationStep underTest = new LoadCrossProjectDuplicationsRepositoryStep(treeRootHolder, batchReportReader, analysisMetadataHolder, crossProjectDuplicationStatusHolder,
-    integrateCrossProjectDuplications, dbClient);
+    integrateCrossProjectDuplications, dbClient, ceConfiguration, crossProjectDuplicationsFilter);
 
   @Before
   public void setUp() throws Exception {
@@ -259,6 +266,104 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
         .build());
   }
 
+  @Test
+  public void call_compute_cpd_on_one_duplication_when_filter_is_enabled() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    ceConfiguration.setCrossProjectDuplicationsFilterEnabled(true);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+
+    ComponentDto otherProject = createProject("OTHER_PROJECT_KEY");
+    SnapshotDto otherProjectSnapshot = createProjectSnapshot(otherProject);
+
+    ComponentDto otherFile = createFile("OTHER_FILE_KEY", otherProject);
+
+    String hash = "a8998353e96320ec";
+    DuplicationUnitDto duplicate = new DuplicationUnitDto()
+      .setHash(hash)
+      .setStartLine(40)
+      .setEndLine(55)
+      .setIndexInFile(0)
+      .setAnalysisUuid(otherProjectSnapshot.getUuid())
+      .setComponentUuid(otherFile.uuid());
+    dbClient.duplicationDao().insert(dbSession, duplicate);
+    dbSession.commit();
+
+    ScannerReport.CpdTextBlock originBlock = ScannerReport.CpdTextBlock.newBuilder()
+      .setHash(hash)
+      .setStartLine(30)
+      .setEndLine(45)
+      .setStartTokenIndex(0)
+      .setEndTokenIndex(10)
+      .build();
+    ScannerReport.CpdTextBlock notDuplicatedBlock = ScannerReport.CpdTextBlock.newBuilder()
+      .setHash("b1234353e96320ff")
+      .setStartLine(50)
+      .setEndLine(65)
+      .setStartTokenIndex(11)
+      .setEndTokenIndex(20)
+      .build();
+    batchReportReader.putDuplicationBlocks(FILE_REF, asList(originBlock, notDuplicatedBlock));
+
+    underTest.execute();
+
+    verify(integrateCrossProjectDuplications).computeCpd(CURRENT_FILE,
+      Arrays.asList(
+        new Block.Builder()
+          .setResourceId(CURRENT_FILE_KEY)
+          .setBlockHash(new ByteArray(hash))
+          .setIndexInFile(0)
+          .setLines(originBlock.getStartLine(), originBlock.getEndLine())
+          .setUnit(originBlock.getStartTokenIndex(), originBlock.getEndTokenIndex())
+          .build(),
+        new Block.Builder()
+          .setResourceId(CURRENT_FILE_KEY)
+          .setBlockHash(new ByteArray(notDuplicatedBlock.getHash()))
+          .setIndexInFile(1)
+          .setLines(notDuplicatedBlock.getStartLine(), notDuplicatedBlock.getEndLine())
+          .setUnit(notDuplicatedBlock.getStartTokenIndex(), notDuplicatedBlock.getEndTokenIndex())
+          .build()),
+      Arrays.asList(
+        new Block.Builder()
+          .setResourceId(otherFile.getKey())
+          .setBlockHash(new ByteArray(hash))
+          .setIndexInFile(duplicate.getIndexInFile())
+          .setLines(duplicate.getStartLine(), duplicate.getEndLine())
+          .build()));
+  }
+
+  @Test
+  public void nothing_to_do_when_filter_is_enabled_and_blocks_are_only_in_current_project() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    ceConfiguration.setCrossProjectDuplicationsFilterEnabled(true);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+
+    ComponentDto currentProject = ComponentTesting.newProjectDto(dbTester.organizations().insert(), treeRootHolder.getRoot().getUuid());
+    dbClient.componentDao().insert(dbSession, currentProject);
+    ComponentDto previousFile = createFile(CURRENT_FILE_KEY, currentProject);
+
+    String hash = "a8998353e96320ec";
+    dbClient.duplicationDao().insert(dbSession, new DuplicationUnitDto()
+      .setHash(hash)
+      .setStartLine(30)
+      .setEndLine(45)
+      .setIndexInFile(0)
+      .setAnalysisUuid(baseProjectAnalysis.getUuid())
+      .setComponentUuid(previousFile.uuid()));
+    dbSession.commit();
+
+    batchReportReader.putDuplicationBlocks(FILE_REF, asList(ScannerReport.CpdTextBlock.newBuilder()
+      .setHash(hash)
+      .setStartLine(30)
+      .setEndLine(45)
+      .setStartTokenIndex(0)
+      .setEndTokenIndex(10)
+      .build()));
+
+    underTest.execute();
+
+    verifyZeroInteractions(integrateCrossProjectDuplications);
+  }
+
   @Test
   public void nothing_to_do_when_cross_project_duplication_is_disabled() throws Exception {
     when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(false);
@@ -30,6 +30,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.MutableAnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.analysis.Organization;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
@@ -151,6 +152,31 @@ public class LoadReportAnalysisMetadataHolderStepTest {
     assertThat(analysisMetadataHolder.isCrossProjectDuplicationEnabled()).isEqualTo(false);
   }
 
+  @Test
+  public void set_incremental_analysis_to_true() {
+    reportReader.setMetadata(
+      newBatchReportBuilder()
+        .setIncremental(true)
+        .build());
+
+    underTest.execute();
+    analysisMetadataHolder.setBaseAnalysis(new Analysis.Builder().setId(1).setUuid("U1").setCreatedAt(1L).build());
+
+    assertThat(analysisMetadataHolder.isIncrementalAnalysis()).isTrue();
+  }
+
+  @Test
+  public void set_incremental_analysis_to_false_when_nothing_in_the_report() {
+    reportReader.setMetadata(
+      newBatchReportBuilder()
+        .build());
+
+    underTest.execute();
+    analysisMetadataHolder.setBaseAnalysis(new Analysis.Builder().setId(1).setUuid("U1").setCreatedAt(1L).build());
+
+    assertThat(analysisMetadataHolder.isIncrementalAnalysis()).isFalse();
+  }
+
   @Test
   public void execute_fails_with_MessageException_if_projectKey_is_null_in_CE_task() {
     CeTask res = mock(CeTask.class);
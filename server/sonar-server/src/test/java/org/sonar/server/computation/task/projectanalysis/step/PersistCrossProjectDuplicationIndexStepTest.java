@@ -30,23 +30,30 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationsFilter;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class PersistCrossProjectDuplicationIndexStepTest {
 
   private static final int FILE_REF = 2;
-  private static final Component FILE = ReportComponent.builder(Component.Type.FILE, FILE_REF).build();
+  private static final Component FILE = ReportComponent.builder(Component.Type.FILE, FILE_REF)
+    .setFileAttributes(new FileAttributes(false, "java", 1))
+    .build();
 
   private static final Component PROJECT = ReportComponent.builder(Component.Type.PROJECT, 1)
     .addChildren(FILE)
@@ -67,12 +74,17 @@ public class PersistCrossProjectDuplicationIndexStepTest {
   public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(PROJECT);
   @Rule
   public AnalysisMetadataHolderRule analysisMetadataHolder = new AnalysisMetadataHolderRule();
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
   CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder = mock(CrossProjectDuplicationStatusHolder.class);
 
+  CrossProjectDuplicationsFilter crossProjectDuplicationsFilter = mock(CrossProjectDuplicationsFilter.class);
+
   DbClient dbClient = dbTester.getDbClient();
 
-  ComputationStep underTest = new PersistCrossProjectDuplicationIndexStep(crossProjectDuplicationStatusHolder, dbClient, treeRootHolder, analysisMetadataHolder, reportReader);
+  ComputationStep underTest = new PersistCrossProjectDuplicationIndexStep(crossProjectDuplicationStatusHolder, dbClient, treeRootHolder, analysisMetadataHolder, reportReader,
+    ceConfiguration, crossProjectDuplicationsFilter);
 
   @Before
   public void setUp() throws Exception {
@@ -117,6 +129,27 @@ public class PersistCrossProjectDuplicationIndexStepTest {
     assertThat(dtos).extracting("ANALYSIS_UUID").containsOnly(ANALYSIS_UUID);
   }
 
+  @Test
+  public void add_hashes_to_cross_project_duplications_filter_when_enabled() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    ceConfiguration.setCrossProjectDuplicationsFilterEnabled(true);
+    reportReader.putDuplicationBlocks(FILE_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+
+    verify(crossProjectDuplicationsFilter).addHashes("java", PROJECT.getUuid(), singletonList(CPD_TEXT_BLOCK.getHash()));
+  }
+
+  @Test
+  public void do_not_add_hashes_to_cross_project_duplications_filter_when_disabled() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    reportReader.putDuplicationBlocks(FILE_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+
+    verifyZeroInteractions(crossProjectDuplicationsFilter);
+  }
+
   @Test
   public void nothing_to_persist_when_no_cpd_text_blocks_in_report() throws Exception {
     when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,11 +30,13 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDao;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Component.ComponentType;
 import org.sonar.scanner.protocol.output.ScannerReport.SyntaxHighlightingRule.HighlightingType;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
@@ -51,7 +54,12 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 public class PersistFileSourcesStepTest extends BaseStepTest {
@@ -79,6 +87,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   public SourceLinesRepositoryRule fileSourceRepository = new SourceLinesRepositoryRule();
   @Rule
   public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession session = dbTester.getSession();
@@ -88,7 +98,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   @Before
   public void setup() {
     when(system2.now()).thenReturn(NOW);
-    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository, ceConfiguration);
   }
 
   @Override
@@ -120,6 +130,86 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(1).getSource()).isEqualTo("line2");
   }
 
+  @Test
+  public void persist_sources_of_files_concurrently() {
+    ceConfiguration.setFileSourcesThreadCount(3);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository, ceConfiguration);
+    int fileCount = 20;
+    initFiles(fileCount);
+
+    underTest.execute();
+
+    assertFilesArePersisted(fileCount);
+  }
+
+  @Test
+  public void wait_for_pending_sources_to_be_committed_when_their_size_exceeds_the_budget() {
+    ceConfiguration.setFileSourcesThreadCount(3);
+    AtomicInteger uncommittedFiles = new AtomicInteger();
+    AtomicInteger maxUncommittedFiles = new AtomicInteger();
+    DbClient dbClient = spy(this.dbClient);
+    FileSourceDao fileSourceDao = spy(this.dbClient.fileSourceDao());
+    doReturn(fileSourceDao).when(dbClient).fileSourceDao();
+    doAnswer(invocation -> {
+      maxUncommittedFiles.accumulateAndGet(uncommittedFiles.incrementAndGet(), Math::max);
+      return invocation.callRealMethod();
+    }).when(fileSourceDao).insert(any(DbSession.class), any(FileSourceDto.class));
+    doAnswer(invocation -> {
+      DbSession batchSession = spy((DbSession) invocation.callRealMethod());
+      doAnswer(commit -> {
+        uncommittedFiles.set(0);
+        return commit.callRealMethod();
+      }).when(batchSession).commit();
+      return batchSession;
+    }).when(dbClient).openSession(true);
+    // budget is smaller than the sources of a single file
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository, ceConfiguration, 1);
+    int fileCount = 10;
+    initFiles(fileCount);
+
+    underTest.execute();
+
+    assertFilesArePersisted(fileCount);
+    assertThat(maxUncommittedFiles.get()).isEqualTo(1);
+  }
+
+  @Test(timeout = 60_000L)
+  public void fail_without_blocking_threads_building_sources_when_writer_fails_with_an_error() {
+    ceConfiguration.setFileSourcesThreadCount(3);
+    DbClient dbClient = spy(this.dbClient);
+    FileSourceDao fileSourceDao = spy(this.dbClient.fileSourceDao());
+    doReturn(fileSourceDao).when(dbClient).fileSourceDao();
+    doThrow(new OutOfMemoryError("Boom")).when(fileSourceDao).insert(any(DbSession.class), any(FileSourceDto.class));
+    // threads building sources wait for the first file to be written before queueing the next ones
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository, ceConfiguration, 1);
+    initFiles(10);
+
+    thrown.expect(OutOfMemoryError.class);
+    thrown.expectMessage("Boom");
+
+    underTest.execute();
+  }
+
+  private void initFiles(int fileCount) {
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int ref = FILE_REF; ref < FILE_REF + fileCount; ref++) {
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid(FILE_UUID + ref).setKey("MODULE_KEY:src/Foo" + ref + ".java")
+        .setFileAttributes(new FileAttributes(false, null, 2)).build());
+      fileSourceRepository.addLine(ref, "line1 of " + ref);
+      fileSourceRepository.addLine(ref, "line2 of " + ref);
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+  }
+
+  private void assertFilesArePersisted(int fileCount) {
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(fileCount);
+    for (int ref = FILE_REF; ref < FILE_REF + fileCount; ref++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID + ref).getSourceData();
+      assertThat(data.getLinesCount()).isEqualTo(2);
+      assertThat(data.getLines(1).getSource()).isEqualTo("line2 of " + ref);
+    }
+  }
+
   @Test
   public void persist_source_hashes() {
     initBasicReport(2);
@@ -352,6 +442,26 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("rev-1");
   }
 
+  @Test
+  public void update_line_data_of_unchanged_file() {
+    long past = 150000L;
+    insertOldSource(past);
+    initBasicReport(1, Component.Status.SAME);
+    reportReader.putCoverage(FILE_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setConditions(10)
+      .setHits(true)
+      .setCoveredConditions(2)
+      .build()));
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("line1");
+    assertThat(fileSourceDto.getSourceData().getLines(0).getLineHits()).isEqualTo(1);
+  }
+
   @Test
   public void update_sources_when_src_hash_is_missing() {
     // Existing sources
@@ -456,10 +566,32 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  private void insertOldSource(long date) {
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setDataType(Type.SOURCE)
+      .setSrcHash("5b4bd9815cdb17b8ceae19eb1810c34c")
+      .setLineHashes("6438c669e0d0de98e6929c2cc0fac474\n")
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder()
+          .setLine(1)
+          .setSource("old line")
+          .build())
+        .build())
+      .setCreatedAt(date)
+      .setUpdatedAt(date));
+    dbTester.getSession().commit();
+  }
+
   private void initBasicReport(int numberOfLines) {
+    initBasicReport(numberOfLines, Component.Status.UNAVAILABLE);
+  }
+
+  private void initBasicReport(int numberOfLines, Component.Status fileStatus) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
-        ReportComponent.builder(Component.Type.FILE, FILE_REF).setUuid(FILE_UUID).setKey("MODULE_KEY:src/Foo.java")
+        ReportComponent.builder(Component.Type.FILE, FILE_REF).setUuid(FILE_UUID).setKey("MODULE_KEY:src/Foo.java").setStatus(fileStatus)
           .setFileAttributes(new FileAttributes(false, null, numberOfLines)).build())
         .build())
       .build());
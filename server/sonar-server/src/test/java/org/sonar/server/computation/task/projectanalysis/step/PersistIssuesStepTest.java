@@ -38,18 +38,25 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.issue.IssueDto;
+import org.sonar.db.issue.IssueMapper;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.issue.IssueCache;
 import org.sonar.server.computation.task.projectanalysis.issue.RuleRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictResolver;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.util.cache.DiskCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class PersistIssuesStepTest extends BaseStepTest {
@@ -65,6 +72,9 @@ public class PersistIssuesStepTest extends BaseStepTest {
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+
   DbSession session = dbTester.getSession();
 
   DbClient dbClient = dbTester.getDbClient();
@@ -73,6 +83,8 @@ public class PersistIssuesStepTest extends BaseStepTest {
 
   IssueCache issueCache;
 
+  UpdateConflictResolver conflictResolver = spy(new UpdateConflictResolver());
+
   ComputationStep step;
 
   @Override
@@ -87,7 +99,7 @@ public class PersistIssuesStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(NOW);
     reportReader.setMetadata(ScannerReport.Metadata.getDefaultInstance());
 
-    step = new PersistIssuesStep(dbClient, system2, new UpdateConflictResolver(), new RuleRepositoryImpl(dbClient), issueCache);
+    step = new PersistIssuesStep(dbClient, system2, conflictResolver, new RuleRepositoryImpl(dbClient), issueCache, ceConfiguration);
   }
 
   @After
@@ -130,6 +142,46 @@ public class PersistIssuesStepTest extends BaseStepTest {
     assertThat(result.getType()).isEqualTo(RuleType.BUG.getDbConstant());
   }
 
+  @Test
+  public void insert_new_issues_by_batches() {
+    ceConfiguration.setIssuesBatchSize(2);
+    RuleDto rule = RuleTesting.newDto(RuleKey.of("xoo", "S01"));
+    dbClient.ruleDao().insert(session, rule);
+    OrganizationDto organizationDto = dbTester.organizations().insert();
+    ComponentDto project = ComponentTesting.newProjectDto(organizationDto);
+    dbClient.componentDao().insert(session, project);
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    dbClient.componentDao().insert(session, file);
+    session.commit();
+
+    step = new PersistIssuesStep(dbClient, system2, conflictResolver, new RuleRepositoryImpl(dbClient), issueCache, ceConfiguration);
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < 5; i++) {
+      appender.append(new DefaultIssue()
+        .setKey("ISSUE_" + i)
+        .setType(RuleType.CODE_SMELL)
+        .setRuleKey(rule.getKey())
+        .setComponentUuid(file.uuid())
+        .setProjectUuid(project.uuid())
+        .setSeverity(Severity.BLOCKER)
+        .setStatus(Issue.STATUS_OPEN)
+        .setNew(true)
+        .addComment(new DefaultIssueComment()
+          .setKey("COMMENT_" + i)
+          .setIssueKey("ISSUE_" + i)
+          .setUserLogin("john")
+          .setMarkdownText("Some text")
+          .setNew(true)));
+    }
+    appender.close();
+
+    step.execute();
+
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(5);
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(5);
+    assertThat(dbClient.issueDao().selectOrFailByKey(session, "ISSUE_4").getComponentUuid()).isEqualTo(file.uuid());
+  }
+
   @Test
   public void close_issue() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -151,6 +203,35 @@ public class PersistIssuesStepTest extends BaseStepTest {
     step.execute();
 
     dbTester.assertDbUnit(getClass(), "close_issue-result.xml", "issues");
+    verify(conflictResolver, never()).resolve(any(DefaultIssue.class), any(IssueMapper.class));
+  }
+
+  @Test
+  public void resolve_conflict_when_issue_has_been_updated_after_being_selected() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    issueCache.newAppender().append(new DefaultIssue()
+      .setKey("ISSUE")
+      .setType(RuleType.CODE_SMELL)
+      .setRuleKey(RuleKey.of("xoo", "S01"))
+      .setComponentUuid("COMPONENT")
+      .setProjectUuid("PROJECT")
+      .setSeverity(Severity.BLOCKER)
+      .setStatus(Issue.STATUS_CLOSED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      // issue has been updated in db at 1300000000000
+      .setSelectedAt(1200000000000L)
+      .setNew(false)
+      .setChanged(true)
+      ).close();
+
+    step.execute();
+
+    verify(conflictResolver).resolve(any(DefaultIssue.class), any(IssueMapper.class));
+    IssueDto result = dbClient.issueDao().selectOrFailByKey(session, "ISSUE");
+    // status and resolution of db are kept
+    assertThat(result.getStatus()).isEqualTo(Issue.STATUS_OPEN);
+    assertThat(result.getResolution()).isNull();
   }
 
   @Test
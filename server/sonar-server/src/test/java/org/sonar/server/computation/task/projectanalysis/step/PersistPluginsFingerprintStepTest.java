@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.ReusableFiles;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.property.InternalProperties;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class PersistPluginsFingerprintStepTest {
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid("PROJECT").build());
+  @Rule
+  public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+
+  private InternalProperties internalProperties = mock(InternalProperties.class);
+
+  private PersistPluginsFingerprintStep underTest = new PersistPluginsFingerprintStep(treeRootHolder, reportReader, internalProperties);
+
+  @Test
+  public void persist_fingerprint_of_plugins_of_project() {
+    ScannerReport.Metadata metadata = ScannerReport.Metadata.newBuilder()
+      .putPluginVersions("java", "4.5")
+      .build();
+    reportReader.setMetadata(metadata);
+
+    underTest.execute();
+
+    verify(internalProperties).write(ReusableFiles.pluginsPropertyKey("PROJECT"), ReusableFiles.pluginsFingerprint(metadata));
+  }
+}
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.formula.coverage.LinesAndConditionsWithUncoveredMetricKeys;
@@ -63,8 +64,10 @@ public class ReportCoverageMeasuresStepTest {
     .add(CoreMetrics.LINE_COVERAGE);
   @Rule
   public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
-  CoverageMeasuresStep underTest = new CoverageMeasuresStep(treeRootHolder, metricRepository, measureRepository);
+  CoverageMeasuresStep underTest = new CoverageMeasuresStep(treeRootHolder, metricRepository, measureRepository, ceConfiguration);
 
   @Before
   public void setUp() throws Exception {
@@ -94,6 +97,15 @@ public class ReportCoverageMeasuresStepTest {
     verify_lines_and_conditions_aggregates_values(metricKeys);
   }
 
+  @Test
+  public void verify_aggregates_values_for_ut_lines_and_conditions_with_several_threads() {
+    ceConfiguration.setVisitorsThreadCount(2);
+    LinesAndConditionsWithUncoveredMetricKeys metricKeys = new LinesAndConditionsWithUncoveredMetricKeys(
+      CoreMetrics.LINES_TO_COVER_KEY, CoreMetrics.CONDITIONS_TO_COVER_KEY,
+      CoreMetrics.UNCOVERED_LINES_KEY, CoreMetrics.UNCOVERED_CONDITIONS_KEY);
+    verify_lines_and_conditions_aggregates_values(metricKeys);
+  }
+
   private void verify_lines_and_conditions_aggregates_values(LinesAndConditionsWithUncoveredMetricKeys metricKeys) {
     measureRepository
       .addRawMeasure(FILE_1_REF, metricKeys.getLines(), newMeasureBuilder().create(3000))
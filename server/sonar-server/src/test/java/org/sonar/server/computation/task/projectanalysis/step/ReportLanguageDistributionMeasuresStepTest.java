@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
@@ -65,8 +66,10 @@ public class ReportLanguageDistributionMeasuresStepTest {
 
   @Rule
   public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
-  ComputationStep underTest = new LanguageDistributionMeasuresStep(treeRootHolder, metricRepository, measureRepository);
+  ComputationStep underTest = new LanguageDistributionMeasuresStep(treeRootHolder, metricRepository, measureRepository, ceConfiguration);
 
   @Before
   public void setUp() throws Exception {
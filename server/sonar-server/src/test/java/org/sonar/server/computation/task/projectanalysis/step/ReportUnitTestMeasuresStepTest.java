@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import org.assertj.core.data.Offset;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
@@ -89,8 +90,10 @@ public class ReportUnitTestMeasuresStepTest {
     .add(TEST_SUCCESS_DENSITY);
   @Rule
   public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
-  ComputationStep underTest = new UnitTestMeasuresStep(treeRootHolder, metricRepository, measureRepository);
+  ComputationStep underTest = new UnitTestMeasuresStep(treeRootHolder, metricRepository, measureRepository, ceConfiguration);
 
   @Test
   public void aggregate_tests() {
@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
@@ -73,8 +74,10 @@ public class ViewsCommentMeasuresStepTest {
 
   @Rule
   public MeasureRepositoryRule measureRepository = MeasureRepositoryRule.create(treeRootHolder, metricRepository);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
-  ComputationStep underTest = new CommentMeasuresStep(treeRootHolder, metricRepository, measureRepository);
+  ComputationStep underTest = new CommentMeasuresStep(treeRootHolder, metricRepository, measureRepository, ceConfiguration);
 
   @Before
   public void setUp() throws Exception {
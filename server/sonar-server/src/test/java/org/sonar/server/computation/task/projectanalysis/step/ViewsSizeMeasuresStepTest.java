@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepoEntry;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryRule;
@@ -125,8 +126,10 @@ public class ViewsSizeMeasuresStepTest {
     // PROJECTVIEW_3_REF has no directory metric
     .addRawMeasure(PROJECTVIEW_4_REF, DIRECTORIES_KEY, newMeasureBuilder().create(4))
     .addRawMeasure(PROJECTVIEW_5_REF, DIRECTORIES_KEY, newMeasureBuilder().create(5));
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
-  private SizeMeasuresStep underTest = new SizeMeasuresStep(treeRootHolder, metricRepository, measureRepository);
+  private SizeMeasuresStep underTest = new SizeMeasuresStep(treeRootHolder, metricRepository, measureRepository, ceConfiguration);
 
   @Test
   public void verify_FILE_and_DIRECTORY_computation_and_aggregation() {
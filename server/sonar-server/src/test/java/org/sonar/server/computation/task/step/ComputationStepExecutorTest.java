@@ -19,22 +19,30 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.ChangeLogLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -44,6 +52,8 @@ public class ComputationStepExecutorTest {
   public LogTester logTester = new LogTester();
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
 
   private final ComputationStepExecutor.Listener listener = mock(ComputationStepExecutor.Listener.class);
   private final ComputationStep computationStep1 = mockComputationStep("step1");
@@ -115,6 +125,60 @@ public class ComputationStepExecutorTest {
     }
   }
 
+  @Test
+  public void execute_records_metrics_of_each_ComputationStep() {
+    ComputationStepExecutor underTest = new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2));
+    assertThat(underTest.getStepMetrics()).isEmpty();
+
+    underTest.execute();
+
+    List<StepMetrics> stepMetrics = underTest.getStepMetrics();
+    assertThat(stepMetrics).extracting(StepMetrics::getDescription).containsExactly("step1", "step2");
+    for (StepMetrics metrics : stepMetrics) {
+      assertThat(metrics.getDurationMs()).isGreaterThanOrEqualTo(0);
+      assertThat(metrics.getSqlStatementCount()).isEqualTo(0);
+      assertThat(metrics.getSubStepDurations()).isEmpty();
+    }
+  }
+
+  @Test
+  public void execute_records_metrics_of_ComputationStep_which_fails() {
+    doThrow(new RuntimeException("simulating failing execute Step method"))
+      .when(computationStep2)
+      .execute();
+    ComputationStepExecutor underTest = new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3));
+
+    try {
+      underTest.execute();
+      fail("exception should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(underTest.getStepMetrics()).extracting(StepMetrics::getDescription).containsExactly("step1", "step2");
+    }
+  }
+
+  @Test
+  public void execute_records_durations_of_sub_steps() {
+    ComputationStep.WithSubSteps step = mock(ComputationStep.WithSubSteps.class);
+    when(step.getDescription()).thenReturn("step with sub-steps");
+    when(step.getSubStepDurations()).thenReturn(ImmutableMap.of("sub1", 12L, "sub2", 3L));
+    ComputationStepExecutor underTest = new ComputationStepExecutor(mockComputationSteps(step));
+
+    underTest.execute();
+
+    assertThat(underTest.getStepMetrics()).hasSize(1);
+    assertThat(underTest.getStepMetrics().get(0).getSubStepDurations()).containsExactly(entry("sub1", 12L), entry("sub2", 3L));
+  }
+
+  @Test
+  public void execute_with_several_threads_records_metrics_of_each_ComputationStep() {
+    ceConfiguration.setStepThreadCount(2);
+    ComputationStepExecutor underTest = new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), ceConfiguration);
+
+    underTest.execute();
+
+    assertThat(underTest.getStepMetrics()).extracting(StepMetrics::getDescription).containsOnly("step1", "step2", "step3");
+  }
+
   @Test
   public void execute_calls_listener_finished_method_with_all_step_runs() {
     new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener)
@@ -152,6 +216,107 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_with_several_threads_executes_undeclared_steps_in_order() {
+    ceConfiguration.setStepThreadCount(4);
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), ceConfiguration)
+      .execute();
+
+    InOrder inOrder = inOrder(computationStep1, computationStep2, computationStep3);
+    inOrder.verify(computationStep1).execute();
+    inOrder.verify(computationStep2).execute();
+    inOrder.verify(computationStep3).execute();
+  }
+
+  @Test
+  public void execute_with_several_threads_executes_independent_steps_concurrently() {
+    ceConfiguration.setStepThreadCount(2);
+    CountDownLatch latch = new CountDownLatch(2);
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+    new ComputationStepExecutor(mockComputationSteps(
+      new ReadingStep("a", latch, executed), new ReadingStep("b", latch, executed), new WritingStep("c", executed)),
+      listener, ceConfiguration)
+        .execute();
+
+    // both reading steps wait for each other: they can't complete unless executed concurrently
+    assertThat(executed).hasSize(3);
+    assertThat(executed.subList(0, 2)).containsOnly("a", "b");
+    assertThat(executed.get(2)).isEqualTo("c");
+    verify(listener).finished(true);
+  }
+
+  @Test
+  public void execute_with_several_threads_let_exception_thrown_by_ComputationStep_go_up_as_is() {
+    ceConfiguration.setStepThreadCount(2);
+    RuntimeException toBeThrown = new RuntimeException("simulating failing execute Step method");
+    doThrow(toBeThrown)
+      .when(computationStep1)
+      .execute();
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener, ceConfiguration)
+        .execute();
+      fail("exception toBeThrown should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(toBeThrown);
+      verify(computationStep2, never()).execute();
+      verify(listener).finished(false);
+    }
+  }
+
+  @StepDependencies(reads = String.class)
+  private static final class ReadingStep implements ComputationStep {
+    private final String name;
+    private final CountDownLatch latch;
+    private final List<String> executed;
+
+    private ReadingStep(String name, CountDownLatch latch, List<String> executed) {
+      this.name = name;
+      this.latch = latch;
+      this.executed = executed;
+    }
+
+    @Override
+    public void execute() {
+      latch.countDown();
+      try {
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+      executed.add(name);
+    }
+
+    @Override
+    public String getDescription() {
+      return name;
+    }
+  }
+
+  @StepDependencies(writes = String.class)
+  private static final class WritingStep implements ComputationStep {
+    private final String name;
+    private final List<String> executed;
+
+    private WritingStep(String name, List<String> executed) {
+      this.name = name;
+      this.executed = executed;
+    }
+
+    @Override
+    public void execute() {
+      executed.add(name);
+    }
+
+    @Override
+    public String getDescription() {
+      return name;
+    }
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ComputationStepGraphTest {
+
+  @Test
+  public void steps_without_dependencies_declaration_depend_on_previous_step() {
+    ComputationStepGraph graph = new ComputationStepGraph(Arrays.asList(new UndeclaredStep(), new UndeclaredStep(), new UndeclaredStep()));
+
+    assertThat(graph.size()).isEqualTo(3);
+    assertThat(graph.getDependencyCount(0)).isEqualTo(0);
+    assertThat(graph.getDependencyCount(1)).isEqualTo(1);
+    assertThat(graph.getDependencyCount(2)).isEqualTo(2);
+    assertThat(graph.getDependents(0)).containsExactly(1, 2);
+  }
+
+  @Test
+  public void steps_reading_the_same_resource_are_independent() {
+    ComputationStepGraph graph = new ComputationStepGraph(Arrays.asList(new ReadAStep(), new ReadAStep()));
+
+    assertThat(graph.getDependencyCount(0)).isEqualTo(0);
+    assertThat(graph.getDependencyCount(1)).isEqualTo(0);
+    assertThat(graph.getDependents(0)).isEmpty();
+  }
+
+  @Test
+  public void step_reading_a_resource_depends_on_previous_step_writing_it() {
+    ComputationStepGraph graph = new ComputationStepGraph(Arrays.asList(new WriteAStep(), new ReadAStep(), new WriteBStep()));
+
+    assertThat(graph.getDependents(0)).containsExactly(1);
+    assertThat(graph.getDependencyCount(1)).isEqualTo(1);
+    assertThat(graph.getDependencyCount(2)).isEqualTo(0);
+  }
+
+  @Test
+  public void step_writing_a_resource_depends_on_previous_step_reading_or_writing_it() {
+    ComputationStepGraph graph = new ComputationStepGraph(Arrays.asList(new ReadAStep(), new WriteAStep(), new WriteAStep()));
+
+    assertThat(graph.getDependents(0)).containsExactly(1, 2);
+    assertThat(graph.getDependents(1)).containsExactly(2);
+    assertThat(graph.getDependencyCount(2)).isEqualTo(2);
+  }
+
+  @Test
+  public void step_without_dependencies_declaration_is_a_barrier() {
+    ComputationStepGraph graph = new ComputationStepGraph(Arrays.asList(new ReadAStep(), new UndeclaredStep(), new WriteBStep()));
+
+    assertThat(graph.getDependents(0)).containsExactly(1);
+    assertThat(graph.getDependents(1)).containsExactly(2);
+  }
+
+  private static final class ResourceA {
+  }
+
+  private static final class ResourceB {
+  }
+
+  private static class UndeclaredStep implements ComputationStep {
+    @Override
+    public void execute() {
+      // nothing to do
+    }
+
+    @Override
+    public String getDescription() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  @StepDependencies(reads = ResourceA.class)
+  private static final class ReadAStep extends UndeclaredStep {
+  }
+
+  @StepDependencies(writes = ResourceA.class)
+  private static final class WriteAStep extends UndeclaredStep {
+  }
+
+  @StepDependencies(writes = ResourceB.class)
+  private static final class WriteBStep extends UndeclaredStep {
+  }
+}
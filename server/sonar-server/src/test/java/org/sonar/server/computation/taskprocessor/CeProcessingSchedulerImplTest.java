@@ -43,6 +43,7 @@ import javax.annotation.concurrent.Immutable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
+import org.sonar.api.config.MapSettings;
 import org.sonar.server.computation.configuration.CeConfigurationRule;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -67,8 +68,9 @@ public class CeProcessingSchedulerImplTest {
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
   private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorkerRunnable, 2000L, TimeUnit.MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorkerRunnable);
+  private CeWorkerWakeUp workerWakeUp = new CeWorkerWakeUp(new MapSettings());
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, workerWakeUp);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_true() throws Exception {
@@ -181,6 +183,43 @@ public class CeProcessingSchedulerImplTest {
       );
   }
 
+  @Test
+  public void wake_up_cancels_delayed_polling_and_polls_without_delay() throws Exception {
+    when(ceWorkerRunnable.call())
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    // first polling finds no task, next one is delayed
+    processingExecutorService.futures.poll().get();
+
+    workerWakeUp.onSubmit();
+    processingExecutorService.runFutures();
+
+    verify(ceWorkerRunnable, times(2)).call();
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      regularDelayedPoll,
+      notDelayedPoll
+      );
+  }
+
+  @Test
+  public void wake_up_has_no_effect_on_worker_which_is_not_waiting_for_delayed_polling() throws Exception {
+    when(ceWorkerRunnable.call())
+      .thenReturn(true)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    workerWakeUp.onSubmit();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll
+      );
+  }
+
   @Test
   public void when_workerCount_is_more_than_1_as_many_CeWorkerCallable_are_scheduled() throws InterruptedException {
     int workerCount = Math.abs(new Random().nextInt(10)) + 1;
@@ -189,7 +228,7 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, workerWakeUp);
     when(processingExecutorService.schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
         .thenReturn(listenableScheduledFuture);
 
@@ -234,7 +273,9 @@ public class CeProcessingSchedulerImplTest {
 
     @Override
     public <V> ListenableScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-      this.schedulerCalls.add(new SchedulerCall(callable, delay, unit));
+      // delayed pollings are wrapped so that they can be woken up, log the wrapped CeWorkerCallable
+      Callable<?> loggedCallable = callable instanceof CeProcessingSchedulerImpl.DelayedCall ? ((CeProcessingSchedulerImpl.DelayedCall) callable).getDelegate() : callable;
+      this.schedulerCalls.add(new SchedulerCall(loggedCallable, delay, unit));
       return delegate.schedule(callable, delay, unit);
     }
 
@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.process.DefaultProcessCommands;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+import static org.sonar.process.ProcessId.COMPUTE_ENGINE;
+
+public class CeWorkerWakeUpTest {
+
+  @Rule
+  public Timeout timeout = Timeout.seconds(60);
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Settings settings = new MapSettings();
+  private CeWorkerWakeUp underTest = new CeWorkerWakeUp(settings, 10L);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void onSubmit_runs_listeners() {
+    AtomicInteger calls = new AtomicInteger();
+    underTest.addListener(calls::incrementAndGet);
+    underTest.addListener(calls::incrementAndGet);
+
+    underTest.onSubmit();
+
+    assertThat(calls.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void start_and_stop_do_nothing_if_shared_path_is_not_set() {
+    underTest.start();
+    underTest.stop();
+  }
+
+  @Test
+  public void runs_listeners_when_queue_sequence_is_incremented_by_another_process() throws Exception {
+    File sharedDir = temp.newFolder();
+    settings.setProperty(PROPERTY_SHARED_PATH, sharedDir.getAbsolutePath());
+    CountDownLatch wokenUp = new CountDownLatch(1);
+    underTest.addListener(wokenUp::countDown);
+    underTest.start();
+
+    try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(sharedDir, COMPUTE_ENGINE.getIpcIndex())) {
+      commands.incrementQueueSequence();
+    }
+
+    assertThat(wokenUp.await(30, TimeUnit.SECONDS)).isTrue();
+  }
+}
@@ -25,6 +25,9 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
@@ -77,4 +80,49 @@ public class DiskCacheTest {
       assertThat(e).hasMessage("expected error");
     }
   }
+
+  @Test
+  public void write_and_read_with_codec() throws Exception {
+    DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec());
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    cache.newAppender()
+      .append("foo")
+      .append("bar")
+      .close();
+    cache.newAppender()
+      .append("baz")
+      .close();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "baz");
+    }
+    // traversal can be done several times
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "baz");
+    }
+  }
+
+  @Test
+  public void fail_if_file_is_not_writable_with_codec() throws Exception {
+    try {
+      new DiskCache<>(temp.newFolder(), System2.INSTANCE, new StringCodec());
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageContaining("Fail to write into file");
+    }
+  }
+
+  private static class StringCodec implements DiskCacheCodec<String> {
+    @Override
+    public void write(String object, DataOutput output) throws IOException {
+      output.writeUTF(object);
+    }
+
+    @Override
+    public String read(DataInput input) throws IOException {
+      return input.readUTF();
+    }
+  }
 }
@@ -19,15 +19,23 @@
  */
 package org.sonar.server.ws;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Message;
 import java.io.IOException;
+import java.io.StringWriter;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonarqube.ws.Common;
 import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.Licenses;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsPermissions;
+import org.sonarqube.ws.json.JsonWriters;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.test.ExceptionCauseMatcher.hasType;
@@ -55,6 +63,48 @@ public class WsUtilsTest {
       .endsWith("}");
   }
 
+  @Test
+  public void write_json_with_generated_writer_as_reflective_format() throws Exception {
+    Issues.SearchWsResponse msg = Issues.SearchWsResponse.newBuilder()
+      .setTotal(2L)
+      .setP(1)
+      .setPs(100)
+      .setPaging(Common.Paging.newBuilder().setPageIndex(1).setPageSize(100).setTotal(2))
+      .addIssues(Issues.Issue.newBuilder()
+        .setKey("I1")
+        .setSeverity(Common.Severity.BLOCKER)
+        .setLine(0)
+        .setMessage("\"quoted\" \\ \t\u0001 \u00e9 \u2028 \ud83d\ude00")
+        .addTags("security")
+        .addTags("")
+        .setTransitions(Issues.Transitions.newBuilder().addTransitions("resolve"))
+        .addFlows(Issues.Flow.newBuilder()
+          .addLocations(Issues.Location.newBuilder().setMsg("flow").setTextRange(Common.TextRange.newBuilder().setStartLine(1).setEndLine(-2)))))
+      .addIssues(Issues.Issue.newBuilder().setKey("I2").setComponentId(Long.MAX_VALUE))
+      .setFacets(Common.Facets.newBuilder()
+        .addFacets(Common.Facet.newBuilder().setProperty("tags").addValues(Common.FacetValue.newBuilder().setVal("security").setCount(Long.MIN_VALUE))))
+      .build();
+    DumbResponse response = new DumbResponse();
+
+    WsUtils.writeProtobuf(msg, new TestRequest(), response);
+
+    assertThat(JsonWriters.canWrite(msg)).isTrue();
+    assertThat(response.outputAsString()).isEqualTo(writeReflectiveJson(msg));
+  }
+
+  @Test
+  public void write_json_without_generated_writer() throws Exception {
+    Licenses.AdditionalProperties msg = Licenses.AdditionalProperties.newBuilder()
+      .putAllAdditionalProperties(ImmutableMap.of("foo", "bar"))
+      .build();
+    DumbResponse response = new DumbResponse();
+
+    WsUtils.writeProtobuf(msg, new TestRequest(), response);
+
+    assertThat(JsonWriters.canWrite(msg)).isFalse();
+    assertThat(response.outputAsString()).isEqualTo("{\"additionalProperties\":{\"foo\":\"bar\"}}");
+  }
+
   @Test
   public void write_protobuf() throws Exception {
     TestRequest request = new TestRequest();
@@ -96,4 +146,10 @@ public class WsUtilsTest {
     WsUtils.checkRequest(false, "Missing param: %s", "foo");
   }
 
+  private static String writeReflectiveJson(Message msg) {
+    StringWriter json = new StringWriter();
+    ProtobufJsonFormat.write(msg, JsonWriter.of(json));
+    return json.toString();
+  }
+
 }
@@ -50,6 +50,7 @@ public class CeActivityDto {
   private long createdAt;
   private long updatedAt;
   private Long executionTimeMs;
+  private String lane;
   /**
    * The error message of the activity. Shall be non null only when status is FAILED. When status is FAILED, can be null
    * (eg. for activity created before the column has been introduced).
@@ -68,6 +69,15 @@ public class CeActivityDto {
    * @see CeActivityDao#selectByUuid(DbSession, String)
    */
   private String errorStacktrace;
+  /**
+   * Summary of the metrics recorded during the execution of each step of the task (if any), one line per step.
+   * <p>
+   * This property can be populated when inserting but <strong>is populated only when reading by a specific UUID.</strong>
+   * </p>
+   *
+   * @see CeActivityDao#selectByUuid(DbSession, String)
+   */
+  private String stepMetrics;
   /**
    * Flag indicating whether the analysis of the current activity has a scanner context or not.
    * <p>
@@ -88,6 +98,7 @@ public class CeActivityDto {
     this.submitterLogin = queueDto.getSubmitterLogin();
     this.submittedAt = queueDto.getCreatedAt();
     this.startedAt = queueDto.getStartedAt();
+    this.lane = queueDto.getLane();
   }
 
   public String getUuid() {
@@ -205,6 +216,20 @@ public class CeActivityDto {
     return this;
   }
 
+  /**
+   * Lane in which the task has been scheduled, {@code null} if it has never been started
+   */
+  @CheckForNull
+  public String getLane() {
+    return lane;
+  }
+
+  public CeActivityDto setLane(@Nullable String s) {
+    checkArgument(s == null || s.length() <= 20, "Value is too long for column CE_ACTIVITY.LANE: %s", s);
+    this.lane = s;
+    return this;
+  }
+
   @CheckForNull
   public String getAnalysisUuid() {
     return analysisUuid;
@@ -247,6 +272,16 @@ public class CeActivityDto {
     return this;
   }
 
+  @CheckForNull
+  public String getStepMetrics() {
+    return stepMetrics;
+  }
+
+  public CeActivityDto setStepMetrics(@Nullable String stepMetrics) {
+    this.stepMetrics = stepMetrics;
+    return this;
+  }
+
   public boolean isHasScannerContext() {
     return hasScannerContext;
   }
@@ -272,8 +307,10 @@ public class CeActivityDto {
       .add("createdAt", createdAt)
       .add("updatedAt", updatedAt)
       .add("executionTimeMs", executionTimeMs)
+      .add("lane", lane)
       .add("errorMessage", errorMessage)
       .add("errorStacktrace", errorStacktrace)
+      .add("stepMetrics", stepMetrics)
       .add("hasScannerContext", hasScannerContext)
       .toString();
   }
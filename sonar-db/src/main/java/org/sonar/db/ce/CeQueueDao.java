@@ -115,11 +115,32 @@ public class CeQueueDao implements Dao {
     }
 
     String taskUuid = taskUuids.get(0);
-    return tryToPeek(session, taskUuid);
+    return tryToPeek(session, taskUuid, null);
   }
 
-  private Optional<CeQueueDto> tryToPeek(DbSession session, String taskUuid) {
-    int touchedRows = mapper(session).updateIfStatus(taskUuid, IN_PROGRESS, system2.now(), system2.now(), PENDING);
+  /**
+   * Pending tasks which can be started, ie. the pending tasks of the components which don't have a task in progress.
+   * Ordered by ascending date of submission: oldest to newest.
+   */
+  public List<CeTaskSchedulingDto> selectEligibleForScheduling(DbSession session, int limit) {
+    return mapper(session).selectEligibleForScheduling(new RowBounds(0, limit));
+  }
+
+  public List<CeTaskSchedulingDto> selectInProgressForScheduling(DbSession session) {
+    return mapper(session).selectInProgressForScheduling();
+  }
+
+  /**
+   * Starts the specified task, in the specified lane, if it is still pending.
+   *
+   * @return the started task, or {@link Optional#absent()} if it is not pending anymore (eg. started by another worker)
+   */
+  public Optional<CeQueueDto> peek(DbSession session, String taskUuid, String lane) {
+    return tryToPeek(session, taskUuid, lane);
+  }
+
+  private Optional<CeQueueDto> tryToPeek(DbSession session, String taskUuid, @Nullable String lane) {
+    int touchedRows = mapper(session).updateIfStatus(taskUuid, IN_PROGRESS, system2.now(), lane, system2.now(), PENDING);
     if (touchedRows != 1) {
       return Optional.absent();
     }
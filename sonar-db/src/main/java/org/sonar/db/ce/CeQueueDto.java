@@ -39,6 +39,7 @@ public class CeQueueDto {
   private Long startedAt;
   private long createdAt;
   private long updatedAt;
+  private String lane;
 
   public String getUuid() {
     return uuid;
@@ -119,6 +120,20 @@ public class CeQueueDto {
     return this;
   }
 
+  /**
+   * Lane in which the task has been scheduled, {@code null} as long as the task is pending
+   */
+  @CheckForNull
+  public String getLane() {
+    return lane;
+  }
+
+  public CeQueueDto setLane(@Nullable String s) {
+    checkArgument(s == null || s.length() <= 20, "Value of lane is too long: %s", s);
+    this.lane = s;
+    return this;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -130,6 +145,7 @@ public class CeQueueDto {
       .add("startedAt", startedAt)
       .add("createdAt", createdAt)
       .add("updatedAt", updatedAt)
+      .add("lane", lane)
       .toString();
   }
 
@@ -37,6 +37,10 @@ public interface CeQueueMapper {
 
   List<String> selectEligibleForPeek(RowBounds rowBounds);
 
+  List<CeTaskSchedulingDto> selectEligibleForScheduling(RowBounds rowBounds);
+
+  List<CeTaskSchedulingDto> selectInProgressForScheduling();
+
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
 
@@ -49,6 +53,7 @@ public interface CeQueueMapper {
   int updateIfStatus(@Param("uuid") String uuid,
     @Param("newStatus") CeQueueDto.Status newStatus,
     @Nullable @Param("startedAt") Long startedAt,
+    @Nullable @Param("lane") String lane,
     @Param("updatedAt") long updatedAt,
     @Param("oldStatus") CeQueueDto.Status oldStatus);
 
@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * View of a row of table CE_QUEUE with the information required to schedule the task: the organization
+ * of its component and the execution time of the last task of the same type on the same component.
+ *
+ * @see CeQueueDao#selectEligibleForScheduling(org.sonar.db.DbSession, int)
+ * @see CeQueueDao#selectInProgressForScheduling(org.sonar.db.DbSession)
+ */
+public class CeTaskSchedulingDto {
+
+  private String uuid;
+  private String taskType;
+  private String componentUuid;
+  private String organizationUuid;
+  private String lane;
+  private long createdAt;
+  private Long lastExecutionTimeMs;
+
+  public String getUuid() {
+    return uuid;
+  }
+
+  public CeTaskSchedulingDto setUuid(String uuid) {
+    this.uuid = uuid;
+    return this;
+  }
+
+  public String getTaskType() {
+    return taskType;
+  }
+
+  public CeTaskSchedulingDto setTaskType(String taskType) {
+    this.taskType = taskType;
+    return this;
+  }
+
+  @CheckForNull
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public CeTaskSchedulingDto setComponentUuid(@Nullable String componentUuid) {
+    this.componentUuid = componentUuid;
+    return this;
+  }
+
+  @CheckForNull
+  public String getOrganizationUuid() {
+    return organizationUuid;
+  }
+
+  public CeTaskSchedulingDto setOrganizationUuid(@Nullable String organizationUuid) {
+    this.organizationUuid = organizationUuid;
+    return this;
+  }
+
+  @CheckForNull
+  public String getLane() {
+    return lane;
+  }
+
+  public CeTaskSchedulingDto setLane(@Nullable String lane) {
+    this.lane = lane;
+    return this;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public CeTaskSchedulingDto setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
+  /**
+   * Execution time of the last task of the same type on the same component, {@code null} if there is none.
+   */
+  @CheckForNull
+  public Long getLastExecutionTimeMs() {
+    return lastExecutionTimeMs;
+  }
+
+  public CeTaskSchedulingDto setLastExecutionTimeMs(@Nullable Long lastExecutionTimeMs) {
+    this.lastExecutionTimeMs = lastExecutionTimeMs;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "CeTaskSchedulingDto{" +
+      "uuid='" + uuid + '\'' +
+      ", taskType='" + taskType + '\'' +
+      ", componentUuid='" + componentUuid + '\'' +
+      ", organizationUuid='" + organizationUuid + '\'' +
+      ", lane='" + lane + '\'' +
+      ", createdAt=" + createdAt +
+      ", lastExecutionTimeMs=" + lastExecutionTimeMs +
+      '}';
+  }
+}
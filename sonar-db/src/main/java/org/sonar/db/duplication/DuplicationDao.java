@@ -22,9 +22,11 @@ package org.sonar.db.duplication;
 import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
+import static java.util.Objects.requireNonNull;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 public class DuplicationDao implements Dao {
@@ -38,6 +40,17 @@ public class DuplicationDao implements Dao {
       partition -> session.getMapper(DuplicationMapper.class).selectCandidates(analysisUuid, language, partition));
   }
 
+  /**
+   * Selects the hashes of all the blocks of the enabled files of the given language, whatever the analysis they belong to,
+   * so the result is a superset of the hashes returned by {@link #selectCandidates(DbSession, String, String, Collection)}.
+   * The result is not returned (since it is usually too big), but each {@link DuplicationHashDto} is handed over
+   * to the <code>handler</code>. The same hash may be returned several times.
+   */
+  public void selectHashes(DbSession session, String language, ResultHandler handler) {
+    requireNonNull(handler);
+    session.getMapper(DuplicationMapper.class).selectHashes(language, handler);
+  }
+
   /**
    * Insert rows in the table DUPLICATIONS_INDEX.
    * Note that generated ids are not returned.
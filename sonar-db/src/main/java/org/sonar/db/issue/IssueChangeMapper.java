@@ -27,6 +27,12 @@ public interface IssueChangeMapper {
 
   void insert(IssueChangeDto dto);
 
+  /**
+   * Inserts the changes with a single multi-row statement. The number of changes must be kept low enough
+   * for the statement not to exceed the maximum number of parameters supported by the database.
+   */
+  void insertMany(@Param("changes") List<IssueChangeDto> changes);
+
   int delete(String key);
 
   int update(IssueChangeDto change);
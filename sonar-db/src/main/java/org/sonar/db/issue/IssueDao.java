@@ -86,6 +86,13 @@ public class IssueDao implements Dao {
     }
   }
 
+  /**
+   * Non-closed issues of the specified components, in no specific order.
+   */
+  public List<IssueDto> selectNonClosedByComponentUuids(DbSession session, Collection<String> componentUuids) {
+    return executeLargeInputs(componentUuids, mapper(session)::selectNonClosedByComponentUuids);
+  }
+
   public Set<String> selectComponentUuidsOfOpenIssuesForProjectUuid(DbSession session, String projectUuid) {
     return mapper(session).selectComponentUuidsOfOpenIssuesForProjectUuid(projectUuid);
   }
@@ -30,12 +30,20 @@ public interface IssueMapper {
 
   void selectNonClosedByComponentUuid(@Param("componentUuid") String componentUuid, ResultHandler resultHandler);
 
+  List<IssueDto> selectNonClosedByComponentUuids(@Param("componentUuids") List<String> componentUuids);
+
   Set<String> selectComponentUuidsOfOpenIssuesForProjectUuid(String projectUuid);
 
   List<IssueDto> selectByKeys(List<String> keys);
 
   void insert(IssueDto issue);
 
+  /**
+   * Inserts the issues with a single multi-row statement. The number of issues must be kept low enough
+   * for the statement not to exceed the maximum number of parameters supported by the database.
+   */
+  void insertMany(@Param("issues") List<IssueDto> issues);
+
   int update(IssueDto issue);
 
   int updateIfBeforeSelectedDate(IssueDto issue);
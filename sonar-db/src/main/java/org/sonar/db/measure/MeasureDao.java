@@ -120,6 +120,14 @@ public class MeasureDao implements Dao {
       ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(componentUuid, analysisUuid, ids));
   }
 
+  /**
+   * Streams the measures of all the components of an analysis, excluding measures of developers. Each result is a
+   * {@link PastMeasureDto}.
+   */
+  public void selectPastMeasures(DbSession dbSession, String analysisUuid, ResultHandler resultHandler) {
+    mapper(dbSession).selectPastMeasuresOnAnalysis(analysisUuid, resultHandler);
+  }
+
   /**
    * Select measures of:
    * - one component
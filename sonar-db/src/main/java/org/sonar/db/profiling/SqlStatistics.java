@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Count of SQL statements executed and of rows read and written by a thread between calls to
+ * {@link #startRecording()} and {@link #stopRecording()}.
+ * <p>
+ * Counting is done by {@link SqlStatisticsInterceptor} and only for the statements executed through MyBatis. It costs
+ * a single {@link ThreadLocal} lookup per statement when the current thread is not recording.
+ * </p>
+ * <p>
+ * Rows written by statements executed in batch mode are not known until the batch is flushed and are therefore not
+ * counted.
+ * </p>
+ */
+public final class SqlStatistics {
+  public static final SqlStatistics EMPTY = new SqlStatistics(0, 0, 0);
+
+  private static final ThreadLocal<Counters> COUNTERS = new ThreadLocal<>();
+
+  private final long statementCount;
+  private final long rowsRead;
+  private final long rowsWritten;
+
+  public SqlStatistics(long statementCount, long rowsRead, long rowsWritten) {
+    this.statementCount = statementCount;
+    this.rowsRead = rowsRead;
+    this.rowsWritten = rowsWritten;
+  }
+
+  /**
+   * Starts counting the statements executed by the current thread. Counters of any previous recording which has not
+   * been stopped are reset.
+   */
+  public static void startRecording() {
+    COUNTERS.set(new Counters());
+  }
+
+  /**
+   * Stops counting the statements executed by the current thread.
+   *
+   * @return the statistics recorded since the last call to {@link #startRecording()}, {@link #EMPTY} if the current
+   *         thread is not recording
+   */
+  public static SqlStatistics stopRecording() {
+    Counters counters = COUNTERS.get();
+    if (counters == null) {
+      return EMPTY;
+    }
+    COUNTERS.remove();
+    return new SqlStatistics(counters.statementCount, counters.rowsRead, counters.rowsWritten);
+  }
+
+  @CheckForNull
+  static Counters currentCounters() {
+    return COUNTERS.get();
+  }
+
+  public long getStatementCount() {
+    return statementCount;
+  }
+
+  public long getRowsRead() {
+    return rowsRead;
+  }
+
+  public long getRowsWritten() {
+    return rowsWritten;
+  }
+
+  @Override
+  public String toString() {
+    return "SqlStatistics{" +
+      "statementCount=" + statementCount +
+      ", rowsRead=" + rowsRead +
+      ", rowsWritten=" + rowsWritten +
+      '}';
+  }
+
+  static final class Counters {
+    private long statementCount;
+    private long rowsRead;
+    private long rowsWritten;
+
+    void addStatement() {
+      statementCount++;
+    }
+
+    void addRowsRead(long count) {
+      rowsRead += count;
+    }
+
+    void addRowsWritten(long count) {
+      rowsWritten += count;
+    }
+  }
+}
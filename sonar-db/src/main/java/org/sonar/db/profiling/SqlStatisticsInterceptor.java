@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.List;
+import java.util.Properties;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * MyBatis plugin feeding {@link SqlStatistics} of the current thread, if it is recording.
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class SqlStatisticsInterceptor implements Interceptor {
+  private static final int RESULT_HANDLER_ARG_INDEX = 3;
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    SqlStatistics.Counters counters = SqlStatistics.currentCounters();
+    if (counters == null) {
+      return invocation.proceed();
+    }
+
+    counters.addStatement();
+    if ("update".equals(invocation.getMethod().getName())) {
+      Object updateCount = invocation.proceed();
+      // executors in batch mode return a negative constant instead of the number of updated rows
+      if (updateCount instanceof Integer && (Integer) updateCount > 0) {
+        counters.addRowsWritten((Integer) updateCount);
+      }
+      return updateCount;
+    }
+
+    Object[] args = invocation.getArgs();
+    ResultHandler resultHandler = (ResultHandler) args[RESULT_HANDLER_ARG_INDEX];
+    if (resultHandler != null) {
+      args[RESULT_HANDLER_ARG_INDEX] = new CountingResultHandler(resultHandler, counters);
+    }
+    Object result = invocation.proceed();
+    if (result instanceof List) {
+      counters.addRowsRead(((List) result).size());
+    }
+    return result;
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no configuration
+  }
+
+  private static final class CountingResultHandler implements ResultHandler {
+    private final ResultHandler delegate;
+    private final SqlStatistics.Counters counters;
+
+    private CountingResultHandler(ResultHandler delegate, SqlStatistics.Counters counters) {
+      this.delegate = delegate;
+      this.counters = counters;
+    }
+
+    @Override
+    public void handleResult(ResultContext resultContext) {
+      counters.addRowsRead(1);
+      delegate.handleResult(resultContext);
+    }
+  }
+}
@@ -25,8 +25,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
@@ -36,6 +39,8 @@ import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
 public class FileSourceDao implements Dao {
 
   private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
@@ -85,6 +90,30 @@ public class FileSourceDao implements Dao {
     }
   }
 
+  /**
+   * Sources of the specified files, in no specific order. Files without sources are ignored.
+   */
+  public List<FileSourceDto> selectSourcesByFileUuids(DbSession dbSession, Collection<String> fileUuids) {
+    FileSourceMapper mapper = mapper(dbSession);
+    return executeLargeInputs(fileUuids, partition -> mapper.selectByFileUuids(partition, Type.SOURCE));
+  }
+
+  /**
+   * Line hashes of the sources of the specified files, by file uuid. Files without sources are ignored.
+   *
+   * @see #selectLineHashes(DbSession, String)
+   */
+  public Map<String, List<String>> selectLineHashesByFileUuids(DbSession dbSession, Collection<String> fileUuids) {
+    FileSourceMapper mapper = mapper(dbSession);
+    List<FileSourceDto> dtos = executeLargeInputs(fileUuids, partition -> mapper.selectLineHashesByFileUuids(partition, Type.SOURCE));
+    Map<String, List<String>> lineHashesByFileUuid = new HashMap<>(dtos.size());
+    for (FileSourceDto dto : dtos) {
+      String lineHashes = dto.getLineHashes();
+      lineHashesByFileUuid.put(dto.getFileUuid(), lineHashes == null ? Collections.emptyList() : END_OF_LINE_SPLITTER.splitToList(lineHashes));
+    }
+    return lineHashesByFileUuid;
+  }
+
   public <T> void readLineHashesStream(DbSession dbSession, String fileUuid, Function<Reader, T> function) {
     Connection connection = dbSession.getConnection();
     PreparedStatement pstmt = null;
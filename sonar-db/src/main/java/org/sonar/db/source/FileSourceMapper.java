@@ -30,6 +30,10 @@ public interface FileSourceMapper {
   @CheckForNull
   FileSourceDto select(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
 
+  List<FileSourceDto> selectByFileUuids(@Param("fileUuids") List<String> fileUuids, @Param("dataType") String dataType);
+
+  List<FileSourceDto> selectLineHashesByFileUuids(@Param("fileUuids") List<String> fileUuids, @Param("dataType") String dataType);
+
   void insert(FileSourceDto dto);
 
   void update(FileSourceDto dto);
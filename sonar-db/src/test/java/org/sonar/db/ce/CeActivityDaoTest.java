@@ -69,10 +69,12 @@ public class CeActivityDaoTest {
     assertThat(dto.getStartedAt()).isEqualTo(1_500_000_000_000L);
     assertThat(dto.getExecutedAt()).isEqualTo(1_500_000_000_500L);
     assertThat(dto.getExecutionTimeMs()).isEqualTo(500L);
+    assertThat(dto.getLane()).isEqualTo("SMALL");
     assertThat(dto.getAnalysisUuid()).isEqualTo(inserted.getAnalysisUuid());
     assertThat(dto.toString()).isNotEmpty();
     assertThat(dto.getErrorMessage()).isNull();
     assertThat(dto.getErrorStacktrace()).isNull();
+    assertThat(dto.getStepMetrics()).isNull();
     assertThat(dto.isHasScannerContext()).isFalse();
   }
 
@@ -120,6 +122,16 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isNull();
   }
 
+  @Test
+  public void test_insert_step_metrics() {
+    CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", CeActivityDto.Status.SUCCESS)
+      .setStepMetrics("step 1 metrics\nstep 2 metrics");
+    underTest.insert(db.getSession(), dto);
+
+    Optional<CeActivityDto> saved = underTest.selectByUuid(db.getSession(), "TASK_1");
+    assertThat(saved.get().getStepMetrics()).isEqualTo("step 1 metrics\nstep 2 metrics");
+  }
+
   @Test
   public void insert_must_set_relevant_is_last_field() {
     // only a single task on PROJECT_1 -> is_last=true
@@ -192,6 +204,17 @@ public class CeActivityDaoTest {
       .extracting("errorStacktrace").containsOnly((String) null);
   }
 
+  @Test
+  public void selectByQuery_does_not_populate_stepMetrics_field() {
+    underTest.insert(db.getSession(), createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS).setStepMetrics("some metrics"));
+
+    List<CeActivityDto> dtos = underTest.selectByQuery(db.getSession(), new CeTaskQuery().setComponentUuid("PROJECT_1"), 0, 100);
+
+    assertThat(dtos)
+      .hasSize(1)
+      .extracting("stepMetrics").containsOnly((String) null);
+  }
+
   @Test
   public void selectByQuery_populates_hasScannerContext_flag() {
     insert("TASK_1", REPORT, "PROJECT_1", SUCCESS);
@@ -346,6 +369,7 @@ public class CeActivityDaoTest {
     queueDto.setComponentUuid(componentUuid);
     queueDto.setSubmitterLogin("henri");
     queueDto.setCreatedAt(1_300_000_000_000L);
+    queueDto.setLane("SMALL");
 
     CeActivityDto dto = new CeActivityDto(queueDto);
     dto.setStatus(status);
@@ -31,11 +31,15 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.organization.OrganizationDto;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
 import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 import static org.sonar.db.ce.CeQueueTesting.newCeQueueDto;
@@ -182,6 +186,92 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
   }
 
+  @Test
+  public void peek_task_in_lane() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), TASK_UUID_2, "LARGE");
+
+    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
+    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(peek.get().getLane()).isEqualTo("LARGE");
+    verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, IN_PROGRESS);
+
+    // already in progress
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_2, "LARGE").isPresent()).isFalse();
+  }
+
+  @Test
+  public void resetAllToPendingStatus_resets_lane() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    underTest.peek(db.getSession(), TASK_UUID_1, "SMALL");
+
+    underTest.resetAllToPendingStatus(db.getSession());
+    db.commit();
+
+    assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_1).get().getLane()).isNull();
+  }
+
+  @Test
+  public void select_eligible_for_scheduling() throws Exception {
+    OrganizationDto organization = db.organizations().insert();
+    ComponentDto project = ComponentTesting.newProjectDto(organization, COMPONENT_UUID_1);
+    db.getDbClient().componentDao().insert(db.getSession(), project);
+    db.getDbClient().ceActivityDao().insert(db.getSession(), new CeActivityDto(new CeQueueDto()
+      .setUuid("OLD_TASK")
+      .setTaskType(CeTaskTypes.REPORT)
+      .setComponentUuid(COMPONENT_UUID_1))
+        .setStatus(CeActivityDto.Status.SUCCESS)
+        .setExecutionTimeMs(12_000L));
+    db.commit();
+    insert(newCeQueueDto(TASK_UUID_1)
+      .setComponentUuid(COMPONENT_UUID_1)
+      .setStatus(PENDING)
+      .setTaskType(CeTaskTypes.REPORT)
+      .setCreatedAt(INIT_TIME)
+      .setUpdatedAt(INIT_TIME));
+    insert(newCeQueueDto(TASK_UUID_2)
+      .setComponentUuid(COMPONENT_UUID_2)
+      .setStatus(PENDING)
+      .setTaskType(CeTaskTypes.REPORT)
+      .setCreatedAt(INIT_TIME + 1)
+      .setUpdatedAt(INIT_TIME + 1));
+    // task of a component which already has a task in progress
+    insert(TASK_UUID_3, COMPONENT_UUID_2, IN_PROGRESS);
+
+    List<CeTaskSchedulingDto> eligible = underTest.selectEligibleForScheduling(db.getSession(), 10);
+
+    assertThat(eligible)
+      .extracting(CeTaskSchedulingDto::getUuid, CeTaskSchedulingDto::getOrganizationUuid, CeTaskSchedulingDto::getLastExecutionTimeMs)
+      .containsExactly(tuple(TASK_UUID_1, organization.getUuid(), 12_000L));
+  }
+
+  @Test
+  public void select_eligible_for_scheduling_is_limited_and_ordered_by_date() throws Exception {
+    insert(newCeQueueDto(TASK_UUID_1).setComponentUuid(COMPONENT_UUID_1).setStatus(PENDING).setTaskType(CeTaskTypes.REPORT)
+      .setCreatedAt(INIT_TIME + 2).setUpdatedAt(INIT_TIME + 2));
+    insert(newCeQueueDto(TASK_UUID_2).setComponentUuid(COMPONENT_UUID_2).setStatus(PENDING).setTaskType(CeTaskTypes.REPORT)
+      .setCreatedAt(INIT_TIME + 1).setUpdatedAt(INIT_TIME + 1));
+    insert(newCeQueueDto(TASK_UUID_3).setComponentUuid("PROJECT_3").setStatus(PENDING).setTaskType(CeTaskTypes.REPORT)
+      .setCreatedAt(INIT_TIME + 3).setUpdatedAt(INIT_TIME + 3));
+
+    assertThat(underTest.selectEligibleForScheduling(db.getSession(), 2))
+      .extracting(CeTaskSchedulingDto::getUuid, CeTaskSchedulingDto::getOrganizationUuid, CeTaskSchedulingDto::getLastExecutionTimeMs)
+      .containsExactly(tuple(TASK_UUID_2, null, null), tuple(TASK_UUID_1, null, null));
+  }
+
+  @Test
+  public void select_in_progress_for_scheduling() throws Exception {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    underTest.peek(db.getSession(), TASK_UUID_2, "LARGE");
+
+    assertThat(underTest.selectInProgressForScheduling(db.getSession()))
+      .extracting(CeTaskSchedulingDto::getUuid, CeTaskSchedulingDto::getLane)
+      .containsExactly(tuple(TASK_UUID_2, "LARGE"));
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
@@ -25,10 +25,12 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 
 public class DuplicationDaoTest {
@@ -61,6 +63,30 @@ public class DuplicationDaoTest {
     assertThat(blocks).hasSize(2);
   }
 
+  @Test
+  public void select_hashes() {
+    db.prepareDbUnit(getClass(), "select_hashes.xml");
+    dbSession.commit();
+
+    List<DuplicationHashDto> hashes = new ArrayList<>();
+    dao.selectHashes(dbSession, "java", context -> hashes.add((DuplicationHashDto) context.getResultObject()));
+
+    assertThat(hashes)
+      .extracting(DuplicationHashDto::getHash, DuplicationHashDto::getProjectUuid)
+      .containsOnly(tuple("aa", "project_1"), tuple("bb", "project_1"), tuple("aa", "project_2"));
+  }
+
+  @Test
+  public void select_hashes_of_language_without_blocks() {
+    db.prepareDbUnit(getClass(), "select_hashes.xml");
+    dbSession.commit();
+
+    List<DuplicationHashDto> hashes = new ArrayList<>();
+    dao.selectHashes(dbSession, "php", context -> hashes.add((DuplicationHashDto) context.getResultObject()));
+
+    assertThat(hashes).isEmpty();
+  }
+
   @Test
   public void insert() {
     db.prepareDbUnit(getClass(), "insert.xml");
@@ -24,6 +24,8 @@ import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
 
 public class IssueChangeMapperTest {
 
@@ -62,4 +64,30 @@ public class IssueChangeMapperTest {
 
     dbTester.assertDbUnit(getClass(), "insert_comment-result.xml", new String[]{"id"}, "issue_changes");
   }
+
+  @Test
+  public void insertMany() {
+    IssueChangeDto diff = new IssueChangeDto();
+    diff.setUserLogin("emmerik");
+    diff.setIssueKey("ABCDE");
+    diff.setChangeType(IssueChangeDto.TYPE_FIELD_CHANGE);
+    diff.setChangeData("severity=INFO|BLOCKER");
+    diff.setCreatedAt(1_500_000_000_000L);
+    diff.setUpdatedAt(1_500_000_000_000L);
+    diff.setIssueChangeCreationDate(1_500_000_000_000L);
+    IssueChangeDto comment = new IssueChangeDto();
+    comment.setKey("COMMENT-1234");
+    comment.setUserLogin("emmerik");
+    comment.setIssueKey("ABCDE");
+    comment.setChangeType(IssueChangeDto.TYPE_COMMENT);
+    comment.setChangeData("the comment");
+    comment.setCreatedAt(1_500_000_000_000L);
+    comment.setUpdatedAt(1_500_000_000_000L);
+    dbTester.getSession().getMapper(IssueChangeMapper.class).insertMany(asList(diff, comment));
+    dbTester.getSession().commit();
+
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(2);
+    assertThat(dbTester.getSession().getMapper(IssueChangeMapper.class).selectByKeyAndType("COMMENT-1234", IssueChangeDto.TYPE_COMMENT).getChangeData())
+      .isEqualTo("the comment");
+  }
 }
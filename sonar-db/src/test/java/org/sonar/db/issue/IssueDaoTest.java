@@ -122,6 +122,22 @@ public class IssueDaoTest {
     assertThat(issues).extracting("key").containsExactly("I2", "I1");
   }
 
+  @Test
+  public void selectNonClosedByComponentUuids() {
+    // contains I1 and I2
+    prepareTables();
+    underTest.insert(dbTester.getSession(), newIssueDto("I3")
+      .setStatus("CLOSED")
+      .setRuleId(RULE.getId())
+      .setComponentUuid(FILE_UUID)
+      .setProjectUuid(PROJECT_UUID));
+    dbTester.getSession().commit();
+
+    List<IssueDto> issues = underTest.selectNonClosedByComponentUuids(dbTester.getSession(), asList(FILE_UUID, "unknown"));
+    assertThat(issues).extracting("key").containsOnly("I1", "I2");
+    assertThat(underTest.selectNonClosedByComponentUuids(dbTester.getSession(), asList("unknown"))).isEmpty();
+  }
+
   private static IssueDto newIssueDto(String key) {
     IssueDto dto = new IssueDto();
     dto.setComponent(new ComponentDto().setKey("struts:Action").setId(123L).setUuid("component-uuid"));
@@ -31,6 +31,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class IssueMapperTest {
@@ -90,6 +91,21 @@ public class IssueMapperTest {
     assertThat(result.getUpdatedAt()).isEqualTo(1_500_000_000_000L);
   }
 
+  @Test
+  public void insertMany() {
+    underTest.insertMany(asList(newIssue(), newIssue().setKee("FGHIJ").setComponentUuid(file2.uuid()).setLine(null)));
+    dbTester.getSession().commit();
+
+    IssueDto first = underTest.selectByKey("ABCDE");
+    assertThat(first.getComponentUuid()).isEqualTo(file.uuid());
+    assertThat(first.getLine()).isEqualTo(500);
+    assertThat(first.getMessage()).isEqualTo("the message");
+    IssueDto second = underTest.selectByKey("FGHIJ");
+    assertThat(second.getComponentUuid()).isEqualTo(file2.uuid());
+    assertThat(second.getLine()).isNull();
+    assertThat(second.getRuleId()).isEqualTo(rule.getId());
+  }
+
   @Test
   public void update() {
     underTest.insert(newIssue());
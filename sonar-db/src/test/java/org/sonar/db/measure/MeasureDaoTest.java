@@ -42,6 +42,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.resources.Qualifiers.FILE;
 import static org.sonar.api.resources.Qualifiers.PROJECT;
 import static org.sonar.api.resources.Qualifiers.UNIT_TEST_FILE;
@@ -478,6 +479,31 @@ public class MeasureDaoTest {
     assertThat(result).hasSize(2).extracting(MeasureDto::getData).containsOnly("PROJECT_M1", "PROJECT_M2");
   }
 
+  @Test
+  public void select_past_measures_of_all_components_of_an_analysis() {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setUuid(LAST_ANALYSIS_UUID));
+    dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setUuid(OTHER_ANALYSIS_UUID).setLast(false));
+    db.commit();
+    insertMeasure("PROJECT_M1", LAST_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("PROJECT_M2", LAST_ANALYSIS_UUID, project.uuid(), COVERAGE_METRIC_ID);
+    insertMeasure("MODULE_M1", LAST_ANALYSIS_UUID, module.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("OTHER_ANALYSIS_M1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("DEVELOPER_M1", LAST_ANALYSIS_UUID, project.uuid(), A_PERSON_ID, NCLOC_METRIC_ID);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.selectPastMeasures(dbSession, LAST_ANALYSIS_UUID, context -> result.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(result)
+      .extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId)
+      .containsOnly(
+        tuple(project.uuid(), NCLOC_METRIC_ID),
+        tuple(project.uuid(), COVERAGE_METRIC_ID),
+        tuple(module.uuid(), NCLOC_METRIC_ID));
+  }
+
   private Optional<MeasureDto> selectSingle(MeasureQuery.Builder query) {
     return underTest.selectSingle(db.getSession(), query.build());
   }
@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.property.InternalPropertiesDao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatisticsTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = dbTester.getSession();
+  private InternalPropertiesDao dao = new InternalPropertiesDao(System2.INSTANCE);
+
+  @After
+  public void tearDown() {
+    SqlStatistics.stopRecording();
+  }
+
+  @Test
+  public void stopRecording_returns_EMPTY_if_thread_is_not_recording() {
+    dao.save(dbSession, "foo", "bar");
+
+    assertThat(SqlStatistics.stopRecording()).isSameAs(SqlStatistics.EMPTY);
+  }
+
+  @Test
+  public void count_statements_and_rows_written() {
+    SqlStatistics.startRecording();
+    // a delete by key, then an insert
+    dao.save(dbSession, "foo", "bar");
+    dao.save(dbSession, "foo", "baz");
+
+    SqlStatistics statistics = SqlStatistics.stopRecording();
+    assertThat(statistics.getStatementCount()).isEqualTo(4);
+    // deletion of the first value + two inserts
+    assertThat(statistics.getRowsWritten()).isEqualTo(3);
+    assertThat(statistics.getRowsRead()).isEqualTo(0);
+  }
+
+  @Test
+  public void count_rows_read() {
+    dao.save(dbSession, "foo", "bar");
+
+    SqlStatistics.startRecording();
+    dao.selectByKey(dbSession, "foo");
+    dao.selectByKey(dbSession, "missing");
+
+    SqlStatistics statistics = SqlStatistics.stopRecording();
+    assertThat(statistics.getStatementCount()).isEqualTo(2);
+    assertThat(statistics.getRowsRead()).isEqualTo(1);
+    assertThat(statistics.getRowsWritten()).isEqualTo(0);
+  }
+
+  @Test
+  public void startRecording_resets_counters() {
+    SqlStatistics.startRecording();
+    dao.save(dbSession, "foo", "bar");
+
+    SqlStatistics.startRecording();
+    dao.selectByKey(dbSession, "foo");
+
+    SqlStatistics statistics = SqlStatistics.stopRecording();
+    assertThat(statistics.getStatementCount()).isEqualTo(1);
+    assertThat(SqlStatistics.stopRecording()).isSameAs(SqlStatistics.EMPTY);
+  }
+}
@@ -21,6 +21,8 @@ package org.sonar.db.source;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -31,6 +33,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
@@ -89,6 +92,38 @@ public class FileSourceDaoTest {
     assertThat(fn.result).isNull();
   }
 
+  @Test
+  public void selectSourcesByFileUuids() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    List<FileSourceDto> dtos = underTest.selectSourcesByFileUuids(session, asList("FILE1_UUID", "unknown"));
+
+    assertThat(dtos).extracting(FileSourceDto::getFileUuid).containsExactly("FILE1_UUID");
+    assertThat(dtos.get(0).getBinaryData()).isNotEmpty();
+    assertThat(dtos.get(0).getSrcHash()).isEqualTo("FILE_HASH");
+  }
+
+  @Test
+  public void selectLineHashesByFileUuids() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    underTest.insert(new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE2_UUID")
+      .setBinaryData("FILE2_BINARY_DATA".getBytes())
+      .setDataHash("FILE2_DATA_HASH")
+      .setSrcHash("FILE2_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+
+    Map<String, List<String>> lineHashes = underTest.selectLineHashesByFileUuids(session, asList("FILE1_UUID", "FILE2_UUID", "unknown"));
+
+    assertThat(lineHashes).hasSize(2);
+    // line_hashes of the dataset contains no end of line
+    assertThat(lineHashes.get("FILE1_UUID")).containsExactly("ABC\\nDEF\\nGHI");
+    assertThat(lineHashes.get("FILE2_UUID")).isEmpty();
+  }
+
   @Test
   public void insert() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -117,7 +117,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     return result;
   }
 
-  private Block createBlock(int index, String resourceId, @Nullable ByteArray byteHash) {
+  private Block createBlock(Block.Builder builder, int index, String resourceId, @Nullable ByteArray byteHash) {
     int offset = index * blockInts;
     ByteArray blockHash;
 
@@ -138,7 +138,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     int startUnit = blockData[offset++];
     int endUnit = blockData[offset];
 
-    return blockBuilder
+    return builder
       .setResourceId(resourceId)
       .setBlockHash(blockHash)
       .setIndexInFile(indexInFile)
@@ -148,10 +148,11 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
   }
 
   private Block getBlock(int index, String resourceId) {
-    return createBlock(index, resourceId, null);
+    return createBlock(blockBuilder, index, resourceId, null);
   }
 
   private class ResourceIterator implements Iterator<ResourceBlocks> {
+    private final Block.Builder resourceBlockBuilder = Block.builder();
     private int index = 0;
 
     @Override
@@ -170,7 +171,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
 
       // while we are at the same resource, keep going
       do {
-        blocks.add(getBlock(resourceIdsIndex[index], resourceId));
+        blocks.add(createBlock(resourceBlockBuilder, resourceIdsIndex[index], resourceId, null));
         index++;
       } while (hasNext() && FastStringComparator.INSTANCE.compare(resourceIds[resourceIdsIndex[index]], resourceId) == 0);
 
@@ -233,7 +234,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     while (index < size && !isLessByHash(size, index)) {
       // extract block (note that there is no need to extract hash)
       String resourceId = resourceIds[index];
-      result.add(createBlock(index, resourceId, sequenceHash));
+      result.add(createBlock(blockBuilder, index, resourceId, sequenceHash));
       index++;
     }
     return result;
@@ -371,6 +372,97 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     }
   };
 
+  /**
+   * Returns a view of this index which can be queried concurrently by several threads.
+   * <p>
+   * Queries on this index write the searched value in the arrays and share a {@link Block.Builder}, so they must not
+   * be executed concurrently. Queries on the view don't. Blocks must not be inserted in this index once the view is
+   * created.
+   * </p>
+   */
+  public CloneIndex readOnlyView() {
+    ensureSorted();
+    return new ReadOnlyView();
+  }
+
+  private class ReadOnlyView extends AbstractCloneIndex {
+
+    @Override
+    public Collection<Block> getByResourceId(String resourceId) {
+      int lower = 0;
+      int upper = size;
+      while (lower < upper) {
+        int mid = (lower + upper) >>> 1;
+        if (FastStringComparator.INSTANCE.compare(resourceIds[resourceIdsIndex[mid]], resourceId) < 0) {
+          lower = mid + 1;
+        } else {
+          upper = mid;
+        }
+      }
+
+      Block.Builder builder = Block.builder();
+      List<Block> result = new ArrayList<>();
+      for (int index = lower; index < size && FastStringComparator.INSTANCE.compare(resourceIds[resourceIdsIndex[index]], resourceId) == 0; index++) {
+        result.add(createBlock(builder, resourceIdsIndex[index], resourceId, null));
+      }
+      return result;
+    }
+
+    @Override
+    public Collection<Block> getBySequenceHash(ByteArray sequenceHash) {
+      int[] hash = sequenceHash.toIntArray();
+      if (hash.length != hashInts) {
+        throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
+      }
+      int lower = 0;
+      int upper = size;
+      while (lower < upper) {
+        int mid = (lower + upper) >>> 1;
+        if (compareHash(mid, hash) < 0) {
+          lower = mid + 1;
+        } else {
+          upper = mid;
+        }
+      }
+
+      Block.Builder builder = Block.builder();
+      List<Block> result = new ArrayList<>();
+      for (int index = lower; index < size && compareHash(index, hash) == 0; index++) {
+        result.add(createBlock(builder, index, resourceIds[index], sequenceHash));
+      }
+      return result;
+    }
+
+    /**
+     * Same ordering as {@link PackedMemoryCloneIndex#isLessByHash(int, int)}, without writing the searched hash in
+     * {@link PackedMemoryCloneIndex#blockData}.
+     */
+    private int compareHash(int index, int[] hash) {
+      int offset = index * blockInts;
+      for (int k = 0; k < hashInts; k++, offset++) {
+        if (blockData[offset] != hash[k]) {
+          return blockData[offset] < hash[k] ? -1 : 1;
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public void insert(Block block) {
+      throw new UnsupportedOperationException("Index is read-only");
+    }
+
+    @Override
+    public Iterator<ResourceBlocks> iterator() {
+      return new ResourceIterator();
+    }
+
+    @Override
+    public int noResources() {
+      return PackedMemoryCloneIndex.this.noResources();
+    }
+  }
+
   @Override
   /**
    * Computation is O(N)
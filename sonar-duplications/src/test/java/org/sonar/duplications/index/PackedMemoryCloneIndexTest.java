@@ -142,6 +142,30 @@ public class PackedMemoryCloneIndexTest {
     index.getBySequenceHash(new ByteArray(1L));
   }
 
+  @Test
+  public void read_only_view_returns_same_blocks() {
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("a", 2));
+    index.insert(newBlock("b", 1));
+    index.insert(newBlock("c", 2));
+    index.insert(newBlock("e", 3));
+
+    CloneIndex view = index.readOnlyView();
+
+    assertThat(view.noResources()).isEqualTo(4);
+    assertThat(view.getBySequenceHash(new ByteArray(1L))).containsOnly(newBlock("a", 1), newBlock("b", 1));
+    assertThat(view.getBySequenceHash(new ByteArray(2L))).containsOnly(newBlock("a", 2), newBlock("c", 2));
+    assertThat(view.getBySequenceHash(new ByteArray(4L))).isEmpty();
+    assertThat(view.getByResourceId("a")).containsOnly(newBlock("a", 1), newBlock("a", 2));
+    assertThat(view.getByResourceId("d")).isEmpty();
+    assertThat(view.getByResourceId("f")).isEmpty();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void read_only_view_does_not_support_insert() {
+    index.readOnlyView().insert(newBlock("a", 1));
+  }
+
   private static Block newBlock(String resourceId, long hash) {
     return Block.builder()
         .setResourceId(resourceId)
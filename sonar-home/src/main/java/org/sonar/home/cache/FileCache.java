@@ -22,6 +22,7 @@ package org.sonar.home.cache;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import javax.annotation.CheckForNull;
 
 /**
@@ -91,6 +92,24 @@ public class FileCache {
     return targetFile;
   }
 
+  /**
+   * Store data in the cache with the given filename and key. Unlike {@link #get(String, String, Downloader)},
+   * the key is not checked against the md5 checksum of the data, so it can identify data computed from other files.
+   * Data previously stored with the same filename and key is replaced.
+   */
+  public File put(String filename, String key, byte[] data) {
+    File targetFile = new File(hashDir(key), filename);
+    File tempFile = newTempFile();
+    try {
+      Files.write(tempFile.toPath(), data);
+      mkdirQuietly(hashDir(key));
+      Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to store " + filename + " in cache directory " + hashDir(key), e);
+    }
+    return targetFile;
+  }
+
   private static void download(Downloader downloader, String filename, File tempFile) {
     try {
       downloader.download(filename, tempFile);
@@ -114,4 +114,24 @@ public class FileCacheTest {
     assertThat(cachedFile.getParentFile().getParentFile()).isEqualTo(cache.getDir());
     assertThat(FileUtils.readFileToString(cachedFile)).contains("downloaded by");
   }
+
+  @Test
+  public void put_in_cache() throws IOException {
+    FileCache cache = FileCache.create(tempFolder.newFolder(), mock(Logger.class));
+
+    File cachedFile = cache.put("blame.pb", "ABCDE", "body".getBytes("UTF-8"));
+
+    assertThat(cache.get("blame.pb", "ABCDE")).isEqualTo(cachedFile);
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("body");
+  }
+
+  @Test
+  public void replace_data_put_in_cache() throws IOException {
+    FileCache cache = FileCache.create(tempFolder.newFolder(), mock(Logger.class));
+    cache.put("blame.pb", "ABCDE", "old body".getBytes("UTF-8"));
+
+    File cachedFile = cache.put("blame.pb", "ABCDE", "new body".getBytes("UTF-8"));
+
+    assertThat(FileUtils.readFileToString(cachedFile)).isEqualTo("new body");
+  }
 }
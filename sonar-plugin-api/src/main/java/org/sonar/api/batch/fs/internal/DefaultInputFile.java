@@ -40,7 +40,7 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
   private final Consumer<DefaultInputFile> metadataGenerator;
   private Status status;
   private Charset charset;
-  private Metadata metadata;
+  private volatile Metadata metadata;
   private boolean publish;
 
   public DefaultInputFile(DefaultIndexedFile indexedFile, Consumer<DefaultInputFile> metadataGenerator) {
@@ -51,9 +51,16 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
     this.publish = false;
   }
 
+  /**
+   * Metadata is lazily generated at most once, even when the file is used by sensors executed concurrently.
+   */
   public void checkMetadata() {
     if (metadata == null) {
-      metadataGenerator.accept(this);
+      synchronized (this) {
+        if (metadata == null) {
+          metadataGenerator.accept(this);
+        }
+      }
     }
   }
 
@@ -179,6 +186,33 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
     return metadata.originalLineOffsets();
   }
 
+  /**
+   * Whether the content of the file only has line feeds as line endings and no invalid character.
+   */
+  public boolean isNormalized() {
+    checkMetadata();
+    return metadata.normalized();
+  }
+
+  /**
+   * Hashes of lines used to track issues, when they were computed with the other metadata of the file.
+   */
+  @CheckForNull
+  byte[][] lineHashes() {
+    checkMetadata();
+    return metadata.lineHashes();
+  }
+
+  /**
+   * Releases the hashes of lines kept with the metadata of the file, once its issues are tracked.
+   */
+  public void releaseLineHashes() {
+    Metadata current = metadata;
+    if (current != null && current.lineHashes() != null) {
+      this.metadata = current.withoutLineHashes();
+    }
+  }
+
   @Override
   public TextPointer newPointer(int line, int lineOffset) {
     checkMetadata();
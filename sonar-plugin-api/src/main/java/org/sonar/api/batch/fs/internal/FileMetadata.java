@@ -19,7 +19,6 @@
  */
 package org.sonar.api.batch.fs.internal;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -33,6 +32,7 @@ import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.Arrays;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
@@ -56,6 +56,8 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final int BUFFER_SIZE = 16 * 1024;
+  private static final int INITIAL_LINE_CAPACITY = 256;
 
   public abstract static class CharHandler {
 
@@ -72,198 +74,203 @@ public class FileMetadata {
     }
   }
 
-  private static class LineCounter extends CharHandler {
+  /**
+   * Computes in a single pass the number of lines, the number of non-blank lines, the offsets of lines, the hash of
+   * the file and, when a {@link LineHashConsumer} is provided, the hash of each line.
+   * <p>
+   * Characters are decoded block by block into a reusable buffer. Characters of the current line, except end of line
+   * characters, are accumulated to be hashed once the line is complete. Lines made of ASCII characters only, which
+   * is the most common case, are hashed without going through a {@link CharsetEncoder}.
+   * </p>
+   */
+  private static class MetadataComputer {
+    private final File file;
+    private final Charset encoding;
+    private final boolean computeFileMetadata;
+    @CheckForNull
+    private final LineHashConsumer lineHashConsumer;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final MessageDigest fileMd5Digest = DigestUtils.getMd5Digest();
+    private final MessageDigest lineMd5Digest = DigestUtils.getMd5Digest();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final IntArrayList originalLineOffsets = new IntArrayList();
+    // characters of the current line, end of line excluded
+    private char[] lineChars = new char[INITIAL_LINE_CAPACITY];
+    private int lineLength = 0;
+    // non-whitespace characters of the current line
+    private char[] significantChars = new char[INITIAL_LINE_CAPACITY];
+    private int significantLength = 0;
+    private byte[] encoded = new byte[INITIAL_LINE_CAPACITY];
     private int lines = 1;
     private int nonBlankLines = 0;
     private boolean blankLine = true;
-    boolean alreadyLoggedInvalidCharacter = false;
-    private final File file;
-    private final Charset encoding;
+    private long currentOriginalOffset = 0;
+    private boolean afterCR = false;
+    private boolean normalized = true;
+    private boolean alreadyLoggedInvalidCharacter = false;
 
-    LineCounter(File file, Charset encoding) {
+    MetadataComputer(File file, Charset encoding, boolean computeFileMetadata, @Nullable LineHashConsumer lineHashConsumer) {
       this.file = file;
       this.encoding = encoding;
+      this.computeFileMetadata = computeFileMetadata;
+      this.lineHashConsumer = lineHashConsumer;
+      originalLineOffsets.add(0);
     }
 
-    @Override
-    protected void handleAll(char c) {
-      if (!alreadyLoggedInvalidCharacter && c == '\ufffd') {
-        LOG.warn("Invalid character encountered in file {} at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.", file,
-          lines, encoding, CoreProperties.ENCODING_PROPERTY);
-        alreadyLoggedInvalidCharacter = true;
+    void read(Reader reader) throws IOException {
+      int length = reader.read(buffer, 0, buffer.length);
+      while (length != -1) {
+        for (int i = 0; i < length; i++) {
+          handle(buffer[i]);
+        }
+        length = reader.read(buffer, 0, buffer.length);
+      }
+      if (afterCR) {
+        newLine();
       }
+      eof();
     }
 
-    @Override
-    protected void newLine() {
-      lines++;
-      if (!blankLine) {
-        nonBlankLines++;
+    private void handle(char c) {
+      if (afterCR) {
+        afterCR = false;
+        if (c == LINE_FEED) {
+          currentOriginalOffset++;
+          newLine();
+          return;
+        }
+        newLine();
+      }
+      currentOriginalOffset++;
+      if (c == LINE_FEED) {
+        newLine();
+      } else if (c == CARRIAGE_RETURN) {
+        afterCR = true;
+        normalized = false;
+      } else {
+        handleIgnoreEoL(c);
       }
-      blankLine = true;
     }
 
-    @Override
-    protected void handleIgnoreEoL(char c) {
+    private void handleIgnoreEoL(char c) {
+      if (computeFileMetadata) {
+        if (c == '\ufffd') {
+          logInvalidCharacter();
+          normalized = false;
+        }
+        if (lineLength == lineChars.length) {
+          lineChars = Arrays.copyOf(lineChars, lineLength * 2);
+        }
+        lineChars[lineLength] = c;
+        lineLength++;
+      }
       if (!Character.isWhitespace(c)) {
         blankLine = false;
+        if (lineHashConsumer != null) {
+          if (significantLength == significantChars.length) {
+            significantChars = Arrays.copyOf(significantChars, significantLength * 2);
+          }
+          significantChars[significantLength] = c;
+          significantLength++;
+        }
       }
     }
 
-    @Override
-    protected void eof() {
-      if (!blankLine) {
-        nonBlankLines++;
-      }
-    }
-
-    public int lines() {
-      return lines;
-    }
-
-    public int nonBlankLines() {
-      return nonBlankLines;
-    }
-
-  }
-
-  private static class FileHashComputer extends CharHandler {
-    private MessageDigest globalMd5Digest = DigestUtils.getMd5Digest();
-    private StringBuilder sb = new StringBuilder();
-    private final CharsetEncoder encoder;
-    private final File file;
-
-    public FileHashComputer(File f) {
-      encoder = StandardCharsets.UTF_8.newEncoder()
-        .onMalformedInput(CodingErrorAction.REPLACE)
-        .onUnmappableCharacter(CodingErrorAction.REPLACE);
-      file = f;
-    }
-
-    @Override
-    protected void handleIgnoreEoL(char c) {
-      sb.append(c);
-    }
-
-    @Override
-    protected void newLine() {
-      sb.append(LINE_FEED);
-      processBuffer();
-      sb.setLength(0);
-    }
-
-    @Override
-    protected void eof() {
-      if (sb.length() > 0) {
-        processBuffer();
+    private void logInvalidCharacter() {
+      if (!alreadyLoggedInvalidCharacter) {
+        LOG.warn("Invalid character encountered in file {} at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.", file,
+          lines, encoding, CoreProperties.ENCODING_PROPERTY);
+        alreadyLoggedInvalidCharacter = true;
       }
     }
 
-    private void processBuffer() {
-      try {
-        if (sb.length() > 0) {
-          ByteBuffer encoded = encoder.encode(CharBuffer.wrap(sb));
-          globalMd5Digest.update(encoded.array(), 0, encoded.limit());
+    private void newLine() {
+      endOfLine();
+      if (computeFileMetadata) {
+        fileMd5Digest.update((byte) LINE_FEED);
+        if (currentOriginalOffset > Integer.MAX_VALUE) {
+          throw new IllegalStateException("File is too big: " + currentOriginalOffset);
         }
-      } catch (CharacterCodingException e) {
-        throw new IllegalStateException("Error encoding line hash in file: " + file.getAbsolutePath(), e);
+        originalLineOffsets.add((int) currentOriginalOffset);
       }
+      lines++;
     }
 
-    @CheckForNull
-    public String getHash() {
-      return Hex.encodeHexString(globalMd5Digest.digest());
+    private void eof() {
+      endOfLine();
     }
-  }
 
-  private static class LineHashComputer extends CharHandler {
-    private final MessageDigest lineMd5Digest = DigestUtils.getMd5Digest();
-    private final CharsetEncoder encoder;
-    private final StringBuilder sb = new StringBuilder();
-    private final LineHashConsumer consumer;
-    private final File file;
-    private int line = 1;
-
-    public LineHashComputer(LineHashConsumer consumer, File f) {
-      this.consumer = consumer;
-      this.file = f;
-      this.encoder = StandardCharsets.UTF_8.newEncoder()
-        .onMalformedInput(CodingErrorAction.REPLACE)
-        .onUnmappableCharacter(CodingErrorAction.REPLACE);
-    }
-
-    @Override
-    protected void handleIgnoreEoL(char c) {
-      if (!Character.isWhitespace(c)) {
-        sb.append(c);
+    private void endOfLine() {
+      if (!blankLine) {
+        nonBlankLines++;
+      }
+      blankLine = true;
+      if (lineLength > 0) {
+        update(fileMd5Digest, lineChars, lineLength);
+        lineLength = 0;
+      }
+      if (significantLength > 0) {
+        update(lineMd5Digest, significantChars, significantLength);
+        significantLength = 0;
+        lineHashConsumer.consume(lines, lineMd5Digest.digest());
       }
     }
 
-    @Override
-    protected void newLine() {
-      processBuffer();
-      sb.setLength(0);
-      line++;
-    }
-
-    @Override
-    protected void eof() {
-      if (this.line > 0) {
-        processBuffer();
+    /**
+     * Updates the digest with the UTF-8 encoding of the characters
+     */
+    private void update(MessageDigest digest, char[] chars, int length) {
+      if (encoded.length < length) {
+        encoded = new byte[Math.max(length, encoded.length * 2)];
+      }
+      for (int i = 0; i < length; i++) {
+        char c = chars[i];
+        if (c >= 0x80) {
+          updateWithEncoder(digest, chars, length);
+          return;
+        }
+        encoded[i] = (byte) c;
       }
+      digest.update(encoded, 0, length);
     }
 
-    private void processBuffer() {
+    private void updateWithEncoder(MessageDigest digest, char[] chars, int length) {
       try {
-        if (sb.length() > 0) {
-          ByteBuffer encoded = encoder.encode(CharBuffer.wrap(sb));
-          lineMd5Digest.update(encoded.array(), 0, encoded.limit());
-          consumer.consume(line, lineMd5Digest.digest());
-        }
+        ByteBuffer bytes = encoder.encode(CharBuffer.wrap(chars, 0, length));
+        digest.update(bytes.array(), 0, bytes.limit());
       } catch (CharacterCodingException e) {
         throw new IllegalStateException("Error encoding line hash in file: " + file.getAbsolutePath(), e);
       }
     }
-  }
-
-  private static class LineOffsetCounter extends CharHandler {
-    private long currentOriginalOffset = 0;
-    private IntArrayList originalLineOffsets = new IntArrayList();
-    private long lastValidOffset = 0;
-
-    public LineOffsetCounter() {
-      originalLineOffsets.add(0);
-    }
-
-    @Override
-    protected void handleAll(char c) {
-      currentOriginalOffset++;
-    }
 
-    @Override
-    protected void newLine() {
+    Metadata toMetadata(@Nullable byte[][] lineHashes) {
       if (currentOriginalOffset > Integer.MAX_VALUE) {
         throw new IllegalStateException("File is too big: " + currentOriginalOffset);
       }
-      originalLineOffsets.add((int) currentOriginalOffset);
-    }
-
-    @Override
-    protected void eof() {
-      lastValidOffset = currentOriginalOffset;
+      return new Metadata(lines, nonBlankLines, Hex.encodeHexString(fileMd5Digest.digest()), originalLineOffsets.trimAndGet(),
+        (int) currentOriginalOffset, lineHashes, normalized);
     }
+  }
 
-    public int[] getOriginalLineOffsets() {
-      return originalLineOffsets.trimAndGet();
-    }
+  /**
+   * Keeps the hashes of lines in memory, indexed by line
+   */
+  private static class LineHashesCollector implements LineHashConsumer {
+    private byte[][] hashes = new byte[INITIAL_LINE_CAPACITY][];
 
-    public int getLastValidOffset() {
-      if (lastValidOffset > Integer.MAX_VALUE) {
-        throw new IllegalStateException("File is too big: " + lastValidOffset);
+    @Override
+    public void consume(int lineIdx, @Nullable byte[] hash) {
+      if (lineIdx > hashes.length) {
+        hashes = Arrays.copyOf(hashes, Math.max(lineIdx, hashes.length * 2));
       }
-      return (int) lastValidOffset;
+      hashes[lineIdx - 1] = hash;
     }
 
+    byte[][] get(int lines) {
+      return Arrays.copyOf(hashes, lines);
+    }
   }
 
   /**
@@ -271,78 +278,93 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(File file, Charset encoding) {
-    LineCounter lineCounter = new LineCounter(file, encoding);
-    FileHashComputer fileHashComputer = new FileHashComputer(file);
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
-    return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
-      lineOffsetCounter.getLastValidOffset());
+    return readMetadata(file, encoding, false);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)}. When {@code computeLineHashes} is true, the hashes of lines used
+   * to track issues are computed during the same read of the file and kept in the returned {@link Metadata}, so that
+   * {@link #computeLineHashesForIssueTracking(InputFile, LineHashConsumer)} does not read the file again.
+   */
+  public Metadata readMetadata(File file, Charset encoding, boolean computeLineHashes) {
+    LineHashesCollector lineHashes = computeLineHashes ? new LineHashesCollector() : null;
+    MetadataComputer computer = new MetadataComputer(file, encoding, true, lineHashes);
+    try (Reader reader = newReader(file, encoding)) {
+      computer.read(reader);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), encoding), e);
+    }
+    return computer.toMetadata(lineHashes == null ? null : lineHashes.get(computer.lines));
   }
 
   /**
    * For testing purpose
    */
   public Metadata readMetadata(Reader reader) {
-    LineCounter lineCounter = new LineCounter(new File("fromString"), StandardCharsets.UTF_16);
-    FileHashComputer fileHashComputer = new FileHashComputer(new File("fromString"));
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
+    MetadataComputer computer = new MetadataComputer(new File("fromString"), StandardCharsets.UTF_16, true, null);
     try {
-      read(reader, lineCounter, fileHashComputer, lineOffsetCounter);
+      computer.read(reader);
     } catch (IOException e) {
       throw new IllegalStateException("Should never occurs", e);
     }
-    return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
-      lineOffsetCounter.getLastValidOffset());
+    return computer.toMetadata(null);
   }
 
   public static void readFile(File file, Charset encoding, CharHandler... handlers) {
-    try (BOMInputStream bomIn = new BOMInputStream(new FileInputStream(file),
-      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-      Reader reader = new BufferedReader(new InputStreamReader(bomIn, encoding))) {
+    try (Reader reader = newReader(file, encoding)) {
       read(reader, handlers);
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), encoding), e);
     }
   }
 
+  private static Reader newReader(File file, Charset encoding) throws IOException {
+    BOMInputStream bomIn = new BOMInputStream(new FileInputStream(file),
+      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
+    // characters are read by blocks, no need for a BufferedReader
+    return new InputStreamReader(bomIn, encoding);
+  }
+
   private static void read(Reader reader, CharHandler... handlers) throws IOException {
-    char c;
-    int i = reader.read();
+    char[] buffer = new char[BUFFER_SIZE];
     boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
-      if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
+    int length = reader.read(buffer, 0, buffer.length);
+    while (length != -1) {
+      for (int i = 0; i < length; i++) {
+        char c = buffer[i];
+        if (afterCR) {
+          for (CharHandler handler : handlers) {
+            if (c == CARRIAGE_RETURN) {
+              handler.newLine();
+              handler.handleAll(c);
+            } else if (c == LINE_FEED) {
+              handler.handleAll(c);
+              handler.newLine();
+            } else {
+              handler.newLine();
+              handler.handleIgnoreEoL(c);
+              handler.handleAll(c);
+            }
+          }
+          afterCR = c == CARRIAGE_RETURN;
+        } else if (c == LINE_FEED) {
+          for (CharHandler handler : handlers) {
             handler.handleAll(c);
             handler.newLine();
-          } else {
-            handler.newLine();
+          }
+        } else if (c == CARRIAGE_RETURN) {
+          afterCR = true;
+          for (CharHandler handler : handlers) {
+            handler.handleAll(c);
+          }
+        } else {
+          for (CharHandler handler : handlers) {
             handler.handleIgnoreEoL(c);
             handler.handleAll(c);
           }
         }
-        afterCR = c == CARRIAGE_RETURN;
-      } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-          handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
-        afterCR = true;
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-        }
-      } else {
-        for (CharHandler handler : handlers) {
-          handler.handleIgnoreEoL(c);
-          handler.handleAll(c);
-        }
       }
-      i = reader.read();
+      length = reader.read(buffer, 0, buffer.length);
     }
     for (CharHandler handler : handlers) {
       if (afterCR) {
@@ -360,9 +382,28 @@ public class FileMetadata {
   }
 
   /**
-   * Compute a MD5 hash of each line of the file after removing of all blank chars
+   * Compute a MD5 hash of each line of the file after removing of all blank chars. Hashes are not computed again
+   * if they have been kept in the metadata of the file, see {@link #readMetadata(File, Charset, boolean)}. They are
+   * then released from the metadata, so next calls read the file.
    */
   public static void computeLineHashesForIssueTracking(InputFile f, LineHashConsumer consumer) {
-    readFile(f.file(), f.charset(), new LineHashComputer(consumer, f.file()));
+    if (f instanceof DefaultInputFile) {
+      byte[][] lineHashes = ((DefaultInputFile) f).lineHashes();
+      if (lineHashes != null) {
+        for (int i = 0; i < lineHashes.length; i++) {
+          if (lineHashes[i] != null) {
+            consumer.consume(i + 1, lineHashes[i]);
+          }
+        }
+        ((DefaultInputFile) f).releaseLineHashes();
+        return;
+      }
+    }
+    MetadataComputer computer = new MetadataComputer(f.file(), f.charset(), false, consumer);
+    try (Reader reader = newReader(f.file(), f.charset())) {
+      computer.read(reader);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", f.file().getAbsolutePath(), f.charset()), e);
+    }
   }
 }
@@ -19,19 +19,36 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 public class Metadata {
   private final int lines;
   private final int nonBlankLines;
   private final String hash;
   private final int[] originalLineOffsets;
   private final int lastValidOffset;
+  @CheckForNull
+  private final byte[][] lineHashes;
+  private final boolean normalized;
 
   public Metadata(int lines, int nonBlankLines, String hash, int[] originalLineOffsets, int lastValidOffset) {
+    this(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset, null);
+  }
+
+  public Metadata(int lines, int nonBlankLines, String hash, int[] originalLineOffsets, int lastValidOffset, @Nullable byte[][] lineHashes) {
+    this(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset, lineHashes, false);
+  }
+
+  public Metadata(int lines, int nonBlankLines, String hash, int[] originalLineOffsets, int lastValidOffset, @Nullable byte[][] lineHashes,
+    boolean normalized) {
     this.lines = lines;
     this.nonBlankLines = nonBlankLines;
     this.hash = hash;
     this.originalLineOffsets = originalLineOffsets;
     this.lastValidOffset = lastValidOffset;
+    this.lineHashes = lineHashes;
+    this.normalized = normalized;
   }
 
   public int lines() {
@@ -54,4 +71,28 @@ public class Metadata {
     return lastValidOffset;
   }
 
+  /**
+   * Hashes of lines used to track issues, indexed by line minus one. Blank lines have no hash.
+   * @return null if line hashes were not computed when reading the file
+   */
+  @CheckForNull
+  public byte[][] lineHashes() {
+    return lineHashes;
+  }
+
+  /**
+   * Same metadata, without the hashes of lines.
+   */
+  public Metadata withoutLineHashes() {
+    return new Metadata(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset, null, normalized);
+  }
+
+  /**
+   * Whether line feeds are the only line endings of the file and all its characters are valid for its encoding,
+   * so that its content is left unchanged when lines are normalized.
+   */
+  public boolean normalized() {
+    return normalized;
+  }
+
 }
@@ -49,6 +49,8 @@ public class TestInputFileBuilder {
   private String hash;
   private int nonBlankLines;
   private int[] originalLineOffsets;
+  private byte[][] lineHashes;
+  private boolean normalized;
   private boolean publish = true;
 
   public TestInputFileBuilder(String moduleKey, String relativePath) {
@@ -127,6 +129,8 @@ public class TestInputFileBuilder {
     this.setNonBlankLines(metadata.nonBlankLines());
     this.setHash(metadata.hash());
     this.setOriginalLineOffsets(metadata.originalLineOffsets());
+    this.lineHashes = metadata.lineHashes();
+    this.normalized = metadata.normalized();
     return this;
   }
 
@@ -137,7 +141,7 @@ public class TestInputFileBuilder {
   public DefaultInputFile build() {
     DefaultIndexedFile indexedFile = new DefaultIndexedFile(moduleKey, moduleBaseDir, relativePath, type, id);
     indexedFile.setLanguage(language);
-    DefaultInputFile inputFile = new DefaultInputFile(indexedFile, f -> f.setMetadata(new Metadata(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset)));
+    DefaultInputFile inputFile = new DefaultInputFile(indexedFile, f -> f.setMetadata(new Metadata(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset, lineHashes, normalized)));
     inputFile.setStatus(status);
     inputFile.setCharset(charset);
     inputFile.setPublish(publish);
@@ -79,4 +79,13 @@ public interface SensorDescriptor {
    */
   SensorDescriptor requireProperties(String... propertyKeys);
 
+  /**
+   * Declare that this {@link Sensor} can be executed concurrently with other thread-safe sensors, when the platform
+   * is configured to do so. Such a {@link Sensor} must not share mutable state with other sensors and must not depend
+   * on data saved by other sensors of the same module.
+   * Default is to execute sensor sequentially.
+   * @since 6.3
+   */
+  SensorDescriptor threadSafe();
+
 }
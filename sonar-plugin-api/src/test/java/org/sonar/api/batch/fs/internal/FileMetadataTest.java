@@ -22,6 +22,8 @@ package org.sonar.api.batch.fs.internal;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
@@ -72,6 +74,7 @@ public class FileMetadataTest {
     assertThat(metadata.hash()).isEqualTo(md5Hex("foo\nbar\nbaz"));
     assertThat(metadata.originalLineOffsets()).containsOnly(0, 5, 10);
     assertThat(metadata.lastValidOffset()).isEqualTo(13);
+    assertThat(metadata.normalized()).isFalse();
   }
 
   @Test
@@ -83,6 +86,7 @@ public class FileMetadataTest {
     assertThat(metadata.lines()).isEqualTo(2);
     assertThat(metadata.hash()).isEqualTo(md5Hex("marker\ufffds\n"));
     assertThat(metadata.originalLineOffsets()).containsOnly(0, 9);
+    assertThat(metadata.normalized()).isFalse();
   }
 
   @Test
@@ -119,6 +123,7 @@ public class FileMetadataTest {
     assertThat(metadata.hash()).isEqualTo(md5Hex("foo\nbar\nbaz"));
     assertThat(metadata.originalLineOffsets()).containsOnly(0, 4, 8);
     assertThat(metadata.lastValidOffset()).isEqualTo(11);
+    assertThat(metadata.normalized()).isTrue();
   }
 
   @Test
@@ -318,4 +323,63 @@ public class FileMetadataTest {
       "glyphicons-halflings-regular.woff at line 1 for encoding UTF-8. Please fix file content or configure the encoding to be used using property 'sonar.sourceEncoding'.");
   }
 
+  @Test
+  public void keep_line_hashes_in_metadata_when_requested() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, " foo\n\nb ar\r\nbaz \t", StandardCharsets.UTF_8, true);
+
+    assertThat(new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8).lineHashes()).isNull();
+
+    Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8, true);
+    assertThat(metadata.lines()).isEqualTo(4);
+    byte[][] lineHashes = metadata.lineHashes();
+    assertThat(lineHashes).hasSize(4);
+    assertThat(Hex.encodeHexString(lineHashes[0])).isEqualTo(md5Hex("foo"));
+    assertThat(lineHashes[1]).isNull();
+    assertThat(Hex.encodeHexString(lineHashes[2])).isEqualTo(md5Hex("bar"));
+    assertThat(Hex.encodeHexString(lineHashes[3])).isEqualTo(md5Hex("baz"));
+  }
+
+  @Test
+  public void reuse_line_hashes_of_metadata_for_issue_tracking() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "foo\nbar", StandardCharsets.UTF_8, true);
+    DefaultInputFile f = new TestInputFileBuilder("foo", tempFile.getName())
+      .setModuleBaseDir(tempFile.getParentFile().toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .setMetadata(new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8, true))
+      .build();
+    // file is not read again
+    FileUtils.forceDelete(tempFile);
+
+    Map<Integer, String> hashes = new HashMap<>();
+    FileMetadata.computeLineHashesForIssueTracking(f, (lineIdx, hash) -> hashes.put(lineIdx, Hex.encodeHexString(hash)));
+    assertThat(hashes).hasSize(2).containsEntry(1, md5Hex("foo")).containsEntry(2, md5Hex("bar"));
+    // released once consumed
+    assertThat(f.lineHashes()).isNull();
+    assertThat(f.lines()).isEqualTo(2);
+  }
+
+  @Test
+  public void read_lines_spanning_several_buffers() throws Exception {
+    StringBuilder content = new StringBuilder();
+    int lines = 0;
+    while (content.length() < 100_000) {
+      // line ends of various lengths, so that some of them are split between two buffers
+      content.append("line ").append(lines).append(lines % 3 == 0 ? "\r\n" : "\n");
+      lines++;
+    }
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, content, StandardCharsets.UTF_8, true);
+
+    Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8, true);
+    assertThat(metadata.lines()).isEqualTo(lines + 1);
+    assertThat(metadata.nonBlankLines()).isEqualTo(lines);
+    assertThat(metadata.lastValidOffset()).isEqualTo(content.length());
+    assertThat(metadata.hash()).isEqualTo(md5Hex(content.toString().replaceAll("\r\n", "\n")));
+    assertThat(metadata.originalLineOffsets()[lines]).isEqualTo(content.length());
+    assertThat(Hex.encodeHexString(metadata.lineHashes()[lines - 1])).isEqualTo(md5Hex("line" + (lines - 1)));
+    assertThat(metadata.lineHashes()[lines]).isNull();
+  }
+
 }
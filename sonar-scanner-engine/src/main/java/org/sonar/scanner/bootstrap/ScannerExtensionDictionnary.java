@@ -40,7 +40,6 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.postjob.PostJob;
 import org.sonar.api.batch.postjob.PostJobContext;
 import org.sonar.api.batch.sensor.Sensor;
-import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.resources.Project;
 import org.sonar.api.utils.AnnotationUtils;
 import org.sonar.api.utils.dag.DirectAcyclicGraph;
@@ -57,7 +56,7 @@ import org.sonar.scanner.sensor.SensorWrapper;
 public class ScannerExtensionDictionnary {
 
   private final ComponentContainer componentContainer;
-  private final SensorContext sensorContext;
+  private final DefaultSensorContext sensorContext;
   private final SensorOptimizer sensorOptimizer;
   private final PostJobContext postJobContext;
   private final PostJobOptimizer postJobOptimizer;
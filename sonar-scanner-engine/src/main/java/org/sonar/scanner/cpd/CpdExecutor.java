@@ -22,7 +22,10 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -30,7 +33,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
@@ -40,6 +43,7 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
 import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
 import org.sonar.duplications.index.ClonePart;
 import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
@@ -63,6 +67,9 @@ public class CpdExecutor {
   private static final int TIMEOUT = 5 * 60 * 1000;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
   static final int MAX_CLONE_PART_PER_GROUP = 100;
+  static final String THREADS_PROPERTY = "sonar.cpd.threads";
+  // number of files which can be queued for detection per thread, bounds the memory held by results not yet saved
+  private static final int PENDING_ANALYSES_PER_THREAD = 4;
 
   private final SonarCpdBlockIndex index;
   private final ReportPublisher publisher;
@@ -87,45 +94,85 @@ public class CpdExecutor {
   @VisibleForTesting
   void execute(long timeout) {
     total = index.noResources();
+    int threads = getThreads();
     progressReport.start(String.format("Calculating CPD for %d files", total));
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("cpd-%d")
+      .setDaemon(true)
+      .build());
     try {
+      CloneIndex view = index.readOnlyView();
+      int maxPending = threads * PENDING_ANALYSES_PER_THREAD;
+      Deque<PendingAnalysis> pending = new ArrayDeque<>(maxPending);
       Iterator<ResourceBlocks> it = index.iterator();
 
       while (it.hasNext()) {
         ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
-        count++;
+        PendingAnalysis analysis = submit(executorService, view, resourceBlocks.resourceId(), resourceBlocks.blocks());
+        if (analysis != null) {
+          pending.add(analysis);
+        }
+        if (pending.size() >= maxPending) {
+          complete(pending.poll(), timeout);
+        }
+      }
+      while (!pending.isEmpty()) {
+        complete(pending.poll(), timeout);
       }
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
       progressReport.stop("");
       throw e;
     } finally {
-      executorService.shutdown();
+      executorService.shutdownNow();
     }
   }
 
   @VisibleForTesting
   void runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
+    PendingAnalysis analysis = submit(executorService, index, componentKey, fileBlocks);
+    if (analysis != null) {
+      complete(analysis, timeout);
+    }
+  }
+
+  @VisibleForTesting
+  int getThreads() {
+    return Math.max(1, settings.getInt(THREADS_PROPERTY));
+  }
+
+  /**
+   * Submits the detection of duplications of a file. Detection only reads the index, so several of them can run
+   * concurrently, while results are saved by the caller in submission order to keep the report deterministic.
+   */
+  @CheckForNull
+  private PendingAnalysis submit(ExecutorService executorService, CloneIndex cloneIndex, String componentKey, Collection<Block> fileBlocks) {
     DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
     if (component == null) {
       LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
-      return;
+      count++;
+      return null;
     }
+    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(cloneIndex, fileBlocks));
+    return new PendingAnalysis(component, futureResult);
+  }
 
-    InputFile inputFile = (InputFile) component;
+  private void complete(PendingAnalysis analysis, long timeout) {
+    InputFile inputFile = (InputFile) analysis.component;
     LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    count++;
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
     try {
-      duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
+      duplications = analysis.result.get(timeout, TimeUnit.MILLISECONDS);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      futureResult.cancel(true);
+      analysis.result.cancel(true);
       return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during detection of duplication for " + inputFile.absolutePath(), e);
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     }
@@ -138,7 +185,17 @@ public class CpdExecutor {
       filtered = duplications;
     }
 
-    saveDuplications(component, filtered);
+    saveDuplications(analysis.component, filtered);
+  }
+
+  private static class PendingAnalysis {
+    private final DefaultInputComponent component;
+    private final Future<List<CloneGroup>> result;
+
+    PendingAnalysis(DefaultInputComponent component, Future<List<CloneGroup>> result) {
+      this.component = component;
+      this.result = result;
+    }
   }
 
   @VisibleForTesting
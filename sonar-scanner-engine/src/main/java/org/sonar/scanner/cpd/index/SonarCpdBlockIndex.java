@@ -41,7 +41,7 @@ import org.sonar.scanner.report.ReportPublisher;
 
 public class SonarCpdBlockIndex extends AbstractCloneIndex {
 
-  private final CloneIndex mem = new PackedMemoryCloneIndex();
+  private final PackedMemoryCloneIndex mem = new PackedMemoryCloneIndex();
   private final ReportPublisher publisher;
   private final Settings settings;
   // Files already tokenized
@@ -89,6 +89,15 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     return mem.getByResourceId(resourceKey);
   }
 
+  /**
+   * View of the index which can be queried concurrently, once all files are indexed.
+   *
+   * @see PackedMemoryCloneIndex#readOnlyView()
+   */
+  public CloneIndex readOnlyView() {
+    return mem.readOnlyView();
+  }
+
   @Override
   public Collection<Block> getBySequenceHash(ByteArray hash) {
     return mem.getBySequenceHash(hash);
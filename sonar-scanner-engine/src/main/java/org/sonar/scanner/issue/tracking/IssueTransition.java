@@ -22,6 +22,7 @@ package org.sonar.scanner.issue.tracking;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.ProjectAnalysisInfo;
 import org.sonar.scanner.issue.IssueCache;
@@ -102,6 +103,10 @@ public class IssueTransition {
     List<TrackedIssue> trackedIssues;
     if (localIssueTracking != null) {
       trackedIssues = localIssueTracking.trackIssues(component, rawIssues, analysisDate);
+      if (component.isFile()) {
+        // line hashes kept when indexing the file are not needed anymore, even if the file has no issue to track
+        ((DefaultInputFile) component).releaseLineHashes();
+      }
     } else {
       trackedIssues = doTransition(rawIssues, component);
     }
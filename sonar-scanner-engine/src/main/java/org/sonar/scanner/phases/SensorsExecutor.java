@@ -20,33 +20,66 @@
 package org.sonar.scanner.phases;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
-import java.util.Collection;
+import org.sonar.scanner.sensor.SensorStorageBuffer;
+import org.sonar.scanner.sensor.SensorWrapper;
+import org.sonar.scanner.util.ScannerUtils;
 
 @ScannerSide
 public class SensorsExecutor {
+
+  /**
+   * Number of threads used to execute consecutive sensors declared as thread-safe. Sensors are executed
+   * sequentially when not greater than 1, which is the default.
+   */
+  public static final String SENSOR_THREADS_PROPERTY = "sonar.scanner.sensorThreads";
+
+  private static final Logger LOG = Loggers.get(SensorsExecutor.class);
+
   private final EventBus eventBus;
   private final DefaultInputModule module;
   private final ScannerExtensionDictionnary selector;
+  private final SensorStorage sensorStorage;
+  private final Settings settings;
 
-  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, EventBus eventBus) {
+  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, EventBus eventBus, SensorStorage sensorStorage, Settings settings) {
     this.selector = selector;
     this.eventBus = eventBus;
     this.module = module;
+    this.sensorStorage = sensorStorage;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, null);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    int threads = settings.getInt(SENSOR_THREADS_PROPERTY);
+    if (threads > 1) {
+      executeConcurrently(context, sensors, threads);
+    } else {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
@@ -57,4 +90,77 @@ public class SensorsExecutor {
     sensor.analyse(new Project(module.definition()), context);
     eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
   }
+
+  /**
+   * Consecutive thread-safe sensors are executed concurrently, other sensors are executed sequentially
+   * in between, so that the order of execution defined by dependencies is kept.
+   */
+  private void executeConcurrently(SensorContext context, Collection<Sensor> sensors, int threads) {
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Sensor-%d").build());
+    try {
+      List<SensorWrapper> batch = new ArrayList<>();
+      for (Sensor sensor : sensors) {
+        if (sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isThreadSafe()) {
+          batch.add((SensorWrapper) sensor);
+        } else {
+          executeBatch(context, executorService, batch);
+          batch.clear();
+          executeSensor(context, sensor);
+        }
+      }
+      executeBatch(context, executorService, batch);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * The first sensor of the batch saves its data in the storage of the module. Data saved by each of the other
+   * sensors is buffered until all the sensors before it are done, then saved in the storage of the module, so that
+   * the report is the same as if the sensors had been executed sequentially.
+   */
+  private void executeBatch(SensorContext context, ExecutorService executorService, List<SensorWrapper> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    if (batch.size() == 1) {
+      executeSensor(context, batch.get(0));
+      return;
+    }
+    List<SensorStorageBuffer> buffers = new ArrayList<>(batch.size());
+    List<Future<?>> tasks = new ArrayList<>(batch.size());
+    SensorWrapper first = batch.get(0);
+    tasks.add(executorService.submit(() -> executeSensor(first, sensorStorage)));
+    for (SensorWrapper sensor : batch.subList(1, batch.size())) {
+      SensorStorageBuffer buffer = new SensorStorageBuffer();
+      buffers.add(buffer);
+      tasks.add(executorService.submit(() -> executeSensor(sensor, buffer)));
+    }
+    for (int i = 0; i < buffers.size(); i++) {
+      waitForCompletion(tasks.get(i));
+      buffers.get(i).flushTo(sensorStorage);
+    }
+    waitForCompletion(tasks.get(tasks.size() - 1));
+  }
+
+  /**
+   * Execution events are not fired from the threads of the pool, as handlers are not thread-safe.
+   */
+  private static void executeSensor(SensorWrapper sensor, SensorStorage storage) {
+    Profiler profiler = Profiler.create(LOG).startInfo("Sensor " + ScannerUtils.describe(sensor));
+    sensor.analyse(storage);
+    profiler.stopInfo();
+  }
+
+  private static void waitForCompletion(Future<?> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
 }
@@ -109,6 +109,7 @@ public class ComponentsPublisher implements ReportPublisherStep {
       DefaultInputFile file = (DefaultInputFile) component;
       builder.setIsTest(file.type() == InputFile.Type.TEST);
       builder.setLines(file.lines());
+      writeStatus(file, builder);
 
       String lang = getLanguageKey(file);
       if (lang != null) {
@@ -203,6 +204,13 @@ public class ComponentsPublisher implements ReportPublisherStep {
     }
   }
 
+  private static void writeStatus(DefaultInputFile file, ScannerReport.Component.Builder builder) {
+    InputFile.Status status = file.status();
+    if (status != null) {
+      builder.setStatus(ScannerReport.Component.FileStatus.valueOf(status.name()));
+    }
+  }
+
   @CheckForNull
   private static String getLanguageKey(InputFile file) {
     return file.language();
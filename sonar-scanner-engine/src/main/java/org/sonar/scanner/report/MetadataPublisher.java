@@ -24,6 +24,8 @@ import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.config.Settings;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.core.platform.PluginRepository;
 import org.sonar.scanner.ProjectAnalysisInfo;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -33,16 +35,25 @@ import org.sonar.scanner.rule.QProfile;
 
 public class MetadataPublisher implements ReportPublisherStep {
 
+  /**
+   * When enabled, the Compute Engine copies the data of the files which are unchanged since the previous analysis
+   * (see {@link org.sonar.api.batch.fs.InputFile.Status#SAME}) instead of processing them again.
+   */
+  public static final String INCREMENTAL_PROPERTY = "sonar.incremental";
+
   private final Settings settings;
   private final ModuleQProfiles qProfiles;
   private final ProjectAnalysisInfo projectAnalysisInfo;
   private final InputModuleHierarchy moduleHierarchy;
+  private final PluginRepository pluginRepository;
 
-  public MetadataPublisher(ProjectAnalysisInfo projectAnalysisInfo, InputModuleHierarchy moduleHierarchy, Settings settings, ModuleQProfiles qProfiles) {
+  public MetadataPublisher(ProjectAnalysisInfo projectAnalysisInfo, InputModuleHierarchy moduleHierarchy, Settings settings, ModuleQProfiles qProfiles,
+    PluginRepository pluginRepository) {
     this.projectAnalysisInfo = projectAnalysisInfo;
     this.moduleHierarchy = moduleHierarchy;
     this.settings = settings;
     this.qProfiles = qProfiles;
+    this.pluginRepository = pluginRepository;
   }
 
   @Override
@@ -54,6 +65,7 @@ public class MetadataPublisher implements ReportPublisherStep {
       // Here we want key without branch
       .setProjectKey(rootDef.getKey())
       .setCrossProjectDuplicationActivated(SonarCpdBlockIndex.isCrossProjectDuplicationEnabled(settings))
+      .setIncremental(settings.getBoolean(INCREMENTAL_PROPERTY))
       .setRootComponentRef(rootProject.batchId());
 
     String organization = settings.getString(CoreProperties.PROJECT_ORGANIZATION_PROPERTY);
@@ -72,6 +84,9 @@ public class MetadataPublisher implements ReportPublisherStep {
         .setName(qp.getName())
         .setRulesUpdatedAt(qp.getRulesUpdatedAt().getTime()).build());
     }
+    for (PluginInfo plugin : pluginRepository.getPluginInfos()) {
+      builder.getMutablePluginVersions().put(plugin.getKey(), plugin.getVersion() == null ? "" : plugin.getVersion().getName());
+    }
     writer.writeMetadata(builder.build());
   }
 }
@@ -40,12 +40,11 @@ import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.api.utils.MessageException;
-import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.protocol.output.ReportContainerWriter;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
 import org.sonarqube.ws.MediaTypes;
@@ -69,7 +68,6 @@ public class ReportPublisher implements Startable {
   private final AnalysisContextReportPublisher contextPublisher;
   private final ImmutableProjectReactor projectReactor;
   private final DefaultAnalysisMode analysisMode;
-  private final TempFolder temp;
   private final ReportPublisherStep[] publishers;
   private final Server server;
 
@@ -77,14 +75,13 @@ public class ReportPublisher implements Startable {
   private ScannerReportWriter writer;
 
   public ReportPublisher(Settings settings, ScannerWsClient wsClient, Server server, AnalysisContextReportPublisher contextPublisher,
-    ImmutableProjectReactor projectReactor, DefaultAnalysisMode analysisMode, TempFolder temp, ReportPublisherStep[] publishers) {
+    ImmutableProjectReactor projectReactor, DefaultAnalysisMode analysisMode, ReportPublisherStep[] publishers) {
     this.settings = settings;
     this.wsClient = wsClient;
     this.server = server;
     this.contextPublisher = contextPublisher;
     this.projectReactor = projectReactor;
     this.analysisMode = analysisMode;
-    this.temp = temp;
     this.publishers = publishers;
   }
 
@@ -121,12 +118,12 @@ public class ReportPublisher implements Startable {
     // If this is a issues mode analysis then we should not upload reports
     String taskId = null;
     if (!analysisMode.isIssues()) {
-      File report = generateReportFile();
+      generateReport();
       if (shouldKeepReport()) {
         LOG.info("Analysis report generated in " + reportDir);
       }
       if (!analysisMode.isMediumTest()) {
-        taskId = upload(report);
+        taskId = upload();
       }
     }
     logSuccess(taskId);
@@ -136,35 +133,26 @@ public class ReportPublisher implements Startable {
     return settings.getBoolean(KEEP_REPORT_PROP_KEY) || settings.getBoolean(VERBOSE_KEY);
   }
 
-  private File generateReportFile() {
-    try {
-      long startTime = System.currentTimeMillis();
-      for (ReportPublisherStep publisher : publishers) {
-        publisher.publish(writer);
-      }
-      long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
-
-      startTime = System.currentTimeMillis();
-      File reportZip = temp.newFile("batch-report", ".zip");
-      ZipUtils.zipDir(reportDir, reportZip);
-      stopTime = System.currentTimeMillis();
-      LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
-      return reportZip;
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to prepare analysis report", e);
+  private void generateReport() {
+    long startTime = System.currentTimeMillis();
+    for (ReportPublisherStep publisher : publishers) {
+      publisher.publish(writer);
     }
+    long stopTime = System.currentTimeMillis();
+    LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
   }
 
   /**
-   * Uploads the report file to server and returns the generated task id
+   * Uploads the report to server and returns the generated task id. The report directory is packaged in a
+   * {@link ReportContainerWriter report container} which is streamed to server while being written, so that
+   * no archive is created on disk.
    */
   @VisibleForTesting
-  String upload(File report) {
+  String upload() {
     LOG.debug("Upload report");
     long startTime = System.currentTimeMillis();
     ProjectDefinition projectDefinition = projectReactor.getRoot();
-    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, report);
+    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.DEFAULT, output -> ReportContainerWriter.writeDirectory(reportDir, output));
     PostRequest post = new PostRequest("api/ce/submit")
       .setMediaType(MediaTypes.PROTOBUF)
       .setParam("organization", settings.getString(CoreProperties.PROJECT_ORGANIZATION_PROPERTY))
@@ -19,21 +19,12 @@
  */
 package org.sonar.scanner.report;
 
-import org.apache.commons.io.ByteOrderMark;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.BOMInputStream;
+import java.io.File;
+import java.io.IOException;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-
 public class SourcePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentCache;
@@ -44,30 +35,15 @@ public class SourcePublisher implements ReportPublisherStep {
 
   @Override
   public void publish(ScannerReportWriter writer) {
+    SourceTranscoder transcoder = new SourceTranscoder();
     for (final DefaultInputFile inputFile : componentCache.allFilesToPublish()) {
       File iofile = writer.getSourceFile(inputFile.batchId());
 
-      try (FileOutputStream output = new FileOutputStream(iofile);
-        BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile.file()),
-          ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(bomIn, inputFile.charset()))) {
-        writeSource(reader, output, inputFile.lines());
+      try {
+        transcoder.transcode(inputFile.file(), inputFile.charset(), inputFile.isNormalized(), iofile);
       } catch (IOException e) {
         throw new IllegalStateException("Unable to store file source in the report", e);
       }
     }
   }
-
-  private static void writeSource(BufferedReader reader, FileOutputStream output, int lines) throws IOException {
-    int line = 0;
-    String lineStr = reader.readLine();
-    while (lineStr != null) {
-      IOUtils.write(lineStr, output, StandardCharsets.UTF_8);
-      line++;
-      if (line < lines) {
-        IOUtils.write("\n", output, StandardCharsets.UTF_8);
-      }
-      lineStr = reader.readLine();
-    }
-  }
 }
@@ -0,0 +1,199 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.ByteOrderMark;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Copies source files to UTF-8 with line feeds as line endings, without the byte order mark. Buffers and encoder
+ * are reused from one file to another, so an instance must not be shared between threads.
+ */
+class SourceTranscoder {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  // longest marks first, as the one of UTF-16LE is a prefix of the one of UTF-32LE
+  private static final ByteOrderMark[] BOMS = {ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE, ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE};
+  private static final int MAX_BOM_LENGTH = 4;
+  private static final char LINE_FEED = '\n';
+  private static final char CARRIAGE_RETURN = '\r';
+
+  private final ByteBuffer input = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final CharBuffer decoded = CharBuffer.allocate(BUFFER_SIZE);
+  // one more char for a high surrogate left by the encoder until the next block
+  private final CharBuffer normalized = CharBuffer.allocate(BUFFER_SIZE + 1);
+  // at most 3 bytes per char in UTF-8
+  private final ByteBuffer output = ByteBuffer.allocateDirect(3 * (BUFFER_SIZE + 1));
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private CharsetDecoder decoder;
+  private boolean afterCR;
+
+  /**
+   * @param normalized whether the content only has line feeds as line endings and no invalid character, see
+   * {@link org.sonar.api.batch.fs.internal.DefaultInputFile#isNormalized()}. Such a file is copied without being
+   * decoded when its encoding is compatible with UTF-8.
+   */
+  void transcode(File source, Charset charset, boolean normalized, File target) throws IOException {
+    try (FileChannel in = FileChannel.open(source.toPath(), READ);
+      FileChannel out = FileChannel.open(target.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)) {
+      long bomLength = bomLength(in);
+      if (normalized && isUtf8Compatible(charset)) {
+        copy(in, bomLength, out);
+      } else {
+        transcode(in, bomLength, charset, out);
+      }
+    }
+  }
+
+  private static boolean isUtf8Compatible(Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+  }
+
+  private long bomLength(FileChannel in) throws IOException {
+    input.clear();
+    input.limit(MAX_BOM_LENGTH);
+    int read = 0;
+    while (input.hasRemaining() && read != -1) {
+      read = in.read(input, input.position());
+    }
+    input.flip();
+    for (ByteOrderMark bom : BOMS) {
+      if (startsWith(input, bom)) {
+        return bom.length();
+      }
+    }
+    return 0;
+  }
+
+  private static boolean startsWith(ByteBuffer bytes, ByteOrderMark bom) {
+    if (bytes.remaining() < bom.length()) {
+      return false;
+    }
+    for (int i = 0; i < bom.length(); i++) {
+      if ((bytes.get(i) & 0xFF) != bom.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void copy(FileChannel in, long from, FileChannel out) throws IOException {
+    long size = in.size();
+    long position = from;
+    while (position < size) {
+      position += in.transferTo(position, size - position, out);
+    }
+  }
+
+  private void transcode(FileChannel in, long from, Charset charset, FileChannel out) throws IOException {
+    CharsetDecoder charsetDecoder = decoder(charset);
+    encoder.reset();
+    afterCR = false;
+    input.clear();
+    decoded.clear();
+    normalized.clear();
+    output.clear();
+    in.position(from);
+
+    boolean endOfInput = false;
+    while (!endOfInput) {
+      endOfInput = in.read(input) == -1;
+      input.flip();
+      CoderResult result;
+      do {
+        result = charsetDecoder.decode(input, decoded, endOfInput);
+        encode(out, false);
+      } while (result.isOverflow());
+      input.compact();
+    }
+    while (charsetDecoder.flush(decoded).isOverflow()) {
+      encode(out, false);
+    }
+    encode(out, true);
+    while (encoder.flush(output).isOverflow()) {
+      write(out);
+    }
+    write(out);
+  }
+
+  private CharsetDecoder decoder(Charset charset) {
+    if (decoder == null || !decoder.charset().equals(charset)) {
+      decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    } else {
+      decoder.reset();
+    }
+    return decoder;
+  }
+
+  /**
+   * Normalizes line endings of the decoded characters, then encodes them to the output.
+   */
+  private void encode(FileChannel out, boolean endOfInput) throws IOException {
+    decoded.flip();
+    while (decoded.hasRemaining()) {
+      char c = decoded.get();
+      if (c == CARRIAGE_RETURN) {
+        normalized.put(LINE_FEED);
+        afterCR = true;
+      } else {
+        if (!afterCR || c != LINE_FEED) {
+          normalized.put(c);
+        }
+        afterCR = false;
+      }
+    }
+    decoded.clear();
+
+    normalized.flip();
+    while (encoder.encode(normalized, output, endOfInput).isOverflow()) {
+      write(out);
+    }
+    normalized.compact();
+    write(out);
+  }
+
+  private void write(FileChannel out) throws IOException {
+    output.flip();
+    while (output.hasRemaining()) {
+      out.write(output);
+    }
+    output.clear();
+  }
+
+}
@@ -30,6 +30,7 @@ import java.nio.file.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.AnalysisMode;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
@@ -47,24 +48,28 @@ class MetadataGenerator {
   private final StatusDetection statusDetection;
   private final FileMetadata fileMetadata;
   private final DefaultInputModule inputModule;
+  private final AnalysisMode analysisMode;
 
-  MetadataGenerator(DefaultInputModule inputModule, StatusDetection statusDetection, FileMetadata fileMetadata) {
+  MetadataGenerator(DefaultInputModule inputModule, StatusDetection statusDetection, FileMetadata fileMetadata, AnalysisMode analysisMode) {
     this.inputModule = inputModule;
     this.statusDetection = statusDetection;
     this.fileMetadata = fileMetadata;
+    this.analysisMode = analysisMode;
   }
 
   /**
    * Sets all metadata in the file, including charset and status.
-   * It is an expensive computation, reading the entire file.
+   * It is an expensive computation, reading the entire file. In issues mode, hashes of lines are computed at the
+   * same time so that local issue tracking does not read the file again.
    */
   public void setMetadata(final DefaultInputFile inputFile, Charset defaultEncoding) {
     try {
       Charset charset = detectCharset(inputFile.path(), defaultEncoding);
       inputFile.setCharset(charset);
-      Metadata metadata = fileMetadata.readMetadata(inputFile.file(), charset);
-      inputFile.setMetadata(metadata);
+      Metadata metadata = fileMetadata.readMetadata(inputFile.file(), charset, analysisMode.isIssues());
       inputFile.setStatus(statusDetection.status(inputModule.definition().getKeyWithBranch(), inputFile.relativePath(), metadata.hash()));
+      // metadata is set last, as other threads consider the file as initialized once it is available
+      inputFile.setMetadata(metadata);
       LOG.debug("'{}' generated metadata {} with charset '{}'",
         inputFile.relativePath(), inputFile.type() == Type.TEST ? "as test " : "", charset);
     } catch (Exception e) {
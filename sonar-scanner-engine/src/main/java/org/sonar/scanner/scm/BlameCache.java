@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.protocol.output.ScannerReport;
+
+/**
+ * Blame of files stored in the user cache. Blame is identified by the SCM provider, the module and the path of
+ * the file, and the hash of its content, so that it is not reused once the file is modified.
+ * Entries are never evicted, so the user cache grows with every blamed content of files.
+ */
+class BlameCache {
+
+  private static final Logger LOG = Loggers.get(BlameCache.class);
+  private static final String FILENAME = "scm-blame.pb";
+
+  private final FileCache cache;
+  private final String providerKey;
+  private final String moduleKey;
+
+  BlameCache(FileCache cache, String providerKey, String moduleKey) {
+    this.cache = cache;
+    this.providerKey = providerKey;
+    this.moduleKey = moduleKey;
+  }
+
+  /**
+   * @return the changesets of the file, without component reference, or null if the file was not blamed with the same content
+   */
+  @CheckForNull
+  ScannerReport.Changesets get(DefaultInputFile file) {
+    File cachedFile = cache.get(FILENAME, key(file));
+    if (cachedFile == null) {
+      return null;
+    }
+    try (InputStream input = new BufferedInputStream(new FileInputStream(cachedFile))) {
+      return ScannerReport.Changesets.parseFrom(input);
+    } catch (IOException e) {
+      LOG.debug("Ignoring blame of file {} stored in the user cache: {}", file.relativePath(), e.getMessage());
+      return null;
+    }
+  }
+
+  void put(DefaultInputFile file, ScannerReport.Changesets changesets) {
+    cache.put(FILENAME, key(file), changesets.toBuilder().clearComponentRef().build().toByteArray());
+  }
+
+  private String key(DefaultInputFile file) {
+    return DigestUtils.md5Hex(providerKey + ":" + moduleKey + ":" + file.relativePath() + ":" + file.hash());
+  }
+
+}
@@ -49,13 +49,23 @@ class DefaultBlameOutput implements BlameOutput {
   private static final Pattern ACCENT_CODES = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
 
   private final ScannerReportWriter writer;
+  @Nullable
+  private final BlameCache cache;
   private final Set<InputFile> allFilesToBlame = new HashSet<>();
   private ProgressReport progressReport;
   private int count;
   private int total;
 
   DefaultBlameOutput(ScannerReportWriter writer, List<InputFile> filesToBlame) {
+    this(writer, filesToBlame, null);
+  }
+
+  /**
+   * @param cache where blame of files is stored once received, or null if blame is not cached
+   */
+  DefaultBlameOutput(ScannerReportWriter writer, List<InputFile> filesToBlame, @Nullable BlameCache cache) {
     this.writer = writer;
+    this.cache = cache;
     this.allFilesToBlame.addAll(filesToBlame);
     count = 0;
     total = filesToBlame.size();
@@ -91,7 +101,11 @@ class DefaultBlameOutput implements BlameOutput {
       scmBuilder.addChangesetIndexByLine(changesetId);
       lineId++;
     }
-    writer.writeComponentChangesets(scmBuilder.build());
+    ScannerReport.Changesets changesets = scmBuilder.build();
+    writer.writeComponentChangesets(changesets);
+    if (cache != null) {
+      cache.put(inputFile, changesets);
+    }
     allFilesToBlame.remove(file);
     count++;
     progressReport.message(count + "/" + total + " files analyzed");
@@ -47,6 +47,29 @@ import org.sonar.scanner.scan.ImmutableProjectReactor;
     project = false,
     module = false,
     global = false,
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.BLAME_THREADS_KEY,
+    defaultValue = "1",
+    name = "Number of concurrent blame commands",
+    description = "Files to blame are split in as many batches as this number, which are blamed concurrently. "
+      + "Only increase it when the SCM provider supports concurrent blame commands.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER),
+  @Property(
+    key = ScmConfiguration.BLAME_CACHE_KEY,
+    defaultValue = "false",
+    name = "Reuse blame of files from the user cache",
+    description = "Blame of files is stored in the user cache, and reused by next analyses on the same machine as long as the content of files is unchanged. "
+      + "Lines restored to a previous content, for example by a revert, then keep the blame of the original commit. "
+      + "Entries are never evicted: each blamed content of a file adds an entry, until the user cache is deleted.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
     type = PropertyType.BOOLEAN)
 })
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
@@ -55,6 +78,8 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String BLAME_THREADS_KEY = "sonar.scm.blameThreads";
+  public static final String BLAME_CACHE_KEY = "sonar.scm.blameCache";
 
   private final ImmutableProjectReactor projectReactor;
   private final Settings settings;
@@ -147,6 +172,14 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY);
   }
 
+  public int blameThreads() {
+    return Math.max(1, settings.getInt(BLAME_THREADS_KEY));
+  }
+
+  public boolean useBlameCache() {
+    return settings.getBoolean(BLAME_CACHE_KEY);
+  }
+
   @Override
   public void stop() {
     // Nothing to do
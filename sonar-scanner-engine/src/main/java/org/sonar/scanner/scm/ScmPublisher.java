@@ -19,8 +19,14 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.InstantiationStrategy;
@@ -29,8 +35,10 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.scm.BlameCommand;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.home.cache.FileCache;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.report.ReportPublisher;
@@ -52,15 +60,17 @@ public final class ScmPublisher {
   private final ModuleInputComponentStore componentStore;
   private final DefaultModuleFileSystem fs;
   private final ScannerReportWriter writer;
+  private final FileCache fileCache;
 
   public ScmPublisher(DefaultInputModule inputModule, ScmConfiguration configuration, ProjectRepositories projectRepositories,
-    ModuleInputComponentStore componentStore, DefaultModuleFileSystem fs, ReportPublisher reportPublisher) {
+    ModuleInputComponentStore componentStore, DefaultModuleFileSystem fs, ReportPublisher reportPublisher, FileCache fileCache) {
     this.inputModule = inputModule;
     this.configuration = configuration;
     this.projectRepositories = projectRepositories;
     this.componentStore = componentStore;
     this.fs = fs;
     this.writer = reportPublisher.getWriter();
+    this.fileCache = fileCache;
   }
 
   public void publish() {
@@ -73,13 +83,14 @@ public final class ScmPublisher {
       return;
     }
 
-    List<InputFile> filesToBlame = collectFilesToBlame(writer);
+    String key = configuration.provider().key();
+    BlameCache cache = configuration.useBlameCache() ? new BlameCache(fileCache, key, inputModule.definition().getKeyWithBranch()) : null;
+    List<InputFile> filesToBlame = collectFilesToBlame(writer, cache);
     if (!filesToBlame.isEmpty()) {
-      String key = configuration.provider().key();
       LOG.info("SCM provider for this project is: " + key);
-      DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame);
+      DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame, cache);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        blame(configuration.provider().blameCommand(), filesToBlame, output);
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -88,31 +99,95 @@ public final class ScmPublisher {
     }
   }
 
-  private List<InputFile> collectFilesToBlame(ScannerReportWriter writer) {
+  /**
+   * Files are split in as many batches as configured threads, which are blamed concurrently.
+   */
+  private void blame(BlameCommand blameCommand, List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    int threads = Math.min(configuration.blameThreads(), filesToBlame.size());
+    if (threads == 1) {
+      blameCommand.blame(new DefaultBlameInput(fs, filesToBlame), output);
+      return;
+    }
+    List<List<InputFile>> batches = new ArrayList<>(threads);
+    for (int i = 0; i < threads; i++) {
+      batches.add(new ArrayList<>());
+    }
+    int i = 0;
+    for (InputFile f : filesToBlame) {
+      batches.get(i % threads).add(f);
+      i++;
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ScmBlame-%d").build());
+    try {
+      List<Future<?>> tasks = new ArrayList<>(threads);
+      for (List<InputFile> batch : batches) {
+        tasks.add(executorService.submit(() -> blameCommand.blame(new DefaultBlameInput(fs, batch), output)));
+      }
+      for (Future<?> task : tasks) {
+        waitForCompletion(task);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void waitForCompletion(Future<?> task) {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      // Unwrap ExecutionException
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private List<InputFile> collectFilesToBlame(ScannerReportWriter writer, @Nullable BlameCache cache) {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
+    int reusedFromCache = 0;
     for (InputFile f : componentStore.inputFiles()) {
       DefaultInputFile inputFile = (DefaultInputFile) f;
       if (!inputFile.publish()) {
         continue;
       }
       if (configuration.forceReloadAll() || f.status() != Status.SAME) {
-        addIfNotEmpty(filesToBlame, f);
+        reusedFromCache += addIfNotCached(filesToBlame, inputFile, cache, writer);
       } else {
         // File status is SAME so that mean fileData exists
         FileData fileData = projectRepositories.fileData(inputModule.definition().getKeyWithBranch(), f.relativePath());
         if (StringUtils.isEmpty(fileData.revision())) {
-          addIfNotEmpty(filesToBlame, f);
+          reusedFromCache += addIfNotCached(filesToBlame, inputFile, cache, writer);
         } else {
           askToCopyDataFromPreviousAnalysis((DefaultInputFile) f, writer);
         }
       }
     }
+    if (cache != null) {
+      LOG.info("Blame of {}/{} files reused from the user cache", reusedFromCache, reusedFromCache + filesToBlame.size());
+    }
     return filesToBlame;
   }
 
+  /**
+   * Blame cached for the same content is not reused when reloading of SCM data is forced.
+   * @return 1 if blame of the file was copied from the cache, 0 otherwise
+   */
+  private int addIfNotCached(List<InputFile> filesToBlame, DefaultInputFile f, @Nullable BlameCache cache, ScannerReportWriter writer) {
+    if (cache != null && !configuration.forceReloadAll() && !f.isEmpty()) {
+      ScannerReport.Changesets changesets = cache.get(f);
+      if (changesets != null) {
+        writer.writeComponentChangesets(changesets.toBuilder().setComponentRef(f.batchId()).build());
+        return 1;
+      }
+    }
+    addIfNotEmpty(filesToBlame, f);
+    return 0;
+  }
+
   private static void askToCopyDataFromPreviousAnalysis(DefaultInputFile f, ScannerReportWriter writer) {
     Builder scmBuilder = ScannerReport.Changesets.newBuilder();
     scmBuilder.setComponentRef(f.batchId());
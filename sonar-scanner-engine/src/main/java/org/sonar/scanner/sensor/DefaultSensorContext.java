@@ -75,6 +75,13 @@ public class DefaultSensorContext implements SensorContext {
     this.sonarRuntime = sonarRuntime;
   }
 
+  /**
+   * Copy of this context which saves data in the given storage instead of the storage of the module.
+   */
+  public DefaultSensorContext withStorage(SensorStorage storage) {
+    return new DefaultSensorContext(module, settings, fs, activeRules, analysisMode, storage, sonarRuntime);
+  }
+
   @Override
   public Settings settings() {
     return settings;
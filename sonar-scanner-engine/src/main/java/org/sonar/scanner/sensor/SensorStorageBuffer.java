@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.sensor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
+import org.sonar.api.batch.sensor.cpd.internal.DefaultCpdTokens;
+import org.sonar.api.batch.sensor.error.AnalysisError;
+import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.measure.Measure;
+import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
+
+/**
+ * Keeps the data saved by a sensor executed concurrently with other sensors, so that it can be saved afterwards in
+ * the storage of the module, in the same order as if sensors had been executed sequentially. Once flushed, data is
+ * saved directly in the storage of the module.
+ */
+public class SensorStorageBuffer implements SensorStorage {
+
+  private final List<Consumer<SensorStorage>> operations = new ArrayList<>();
+  @CheckForNull
+  private SensorStorage target;
+
+  @Override
+  public void store(Measure measure) {
+    save(storage -> storage.store(measure));
+  }
+
+  @Override
+  public void store(Issue issue) {
+    save(storage -> storage.store(issue));
+  }
+
+  @Override
+  public void store(DefaultHighlighting highlighting) {
+    save(storage -> storage.store(highlighting));
+  }
+
+  @Override
+  public void store(DefaultCoverage defaultCoverage) {
+    save(storage -> storage.store(defaultCoverage));
+  }
+
+  @Override
+  public void store(DefaultCpdTokens defaultCpdTokens) {
+    save(storage -> storage.store(defaultCpdTokens));
+  }
+
+  @Override
+  public void store(DefaultSymbolTable symbolTable) {
+    save(storage -> storage.store(symbolTable));
+  }
+
+  @Override
+  public void store(AnalysisError analysisError) {
+    save(storage -> storage.store(analysisError));
+  }
+
+  @Override
+  public void storeProperty(String key, String value) {
+    save(storage -> storage.storeProperty(key, value));
+  }
+
+  private synchronized void save(Consumer<SensorStorage> operation) {
+    if (target == null) {
+      operations.add(operation);
+    } else {
+      operation.accept(target);
+    }
+  }
+
+  /**
+   * Save the buffered data in the given storage, in the order it was saved by the sensor, then clear the buffer.
+   * Data saved afterwards is saved directly in the given storage.
+   */
+  public synchronized void flushTo(SensorStorage storage) {
+    operations.forEach(operation -> operation.accept(storage));
+    operations.clear();
+    target = storage;
+  }
+
+}
@@ -20,18 +20,18 @@
 package org.sonar.scanner.sensor;
 
 import org.sonar.api.batch.sensor.Sensor;
-import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.resources.Project;
 
 public class SensorWrapper implements org.sonar.api.batch.Sensor {
 
   private Sensor wrappedSensor;
-  private SensorContext adaptor;
+  private DefaultSensorContext adaptor;
   private DefaultSensorDescriptor descriptor;
   private SensorOptimizer optimizer;
 
-  public SensorWrapper(Sensor newSensor, SensorContext adaptor, SensorOptimizer optimizer) {
+  public SensorWrapper(Sensor newSensor, DefaultSensorContext adaptor, SensorOptimizer optimizer) {
     this.wrappedSensor = newSensor;
     this.optimizer = optimizer;
     descriptor = new DefaultSensorDescriptor();
@@ -43,6 +43,10 @@ public class SensorWrapper implements org.sonar.api.batch.Sensor {
     return wrappedSensor;
   }
 
+  public boolean isThreadSafe() {
+    return descriptor.isThreadSafe();
+  }
+
   @Override
   public boolean shouldExecuteOnProject(Project project) {
     return optimizer.shouldExecute(descriptor);
@@ -53,6 +57,13 @@ public class SensorWrapper implements org.sonar.api.batch.Sensor {
     wrappedSensor.execute(adaptor);
   }
 
+  /**
+   * Execute the sensor with a context saving data in the given storage, see {@link DefaultSensorContext#withStorage(SensorStorage)}.
+   */
+  public void analyse(SensorStorage storage) {
+    wrappedSensor.execute(adaptor.withStorage(storage));
+  }
+
   @Override
   public String toString() {
     if (descriptor.name() != null) {
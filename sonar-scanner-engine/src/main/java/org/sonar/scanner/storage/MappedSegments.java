@@ -0,0 +1,105 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static org.sonar.core.util.FileUtils.deleteQuietly;
+
+/**
+ * Append-only sequence of length-prefixed records stored in memory-mapped segment files.
+ * <p>
+ * A record is located by a {@code long} made of the index of its segment (high 32 bits) and of its offset in the
+ * segment (low 32 bits). Appends are serialized, reads can be done concurrently from any thread.
+ * </p>
+ */
+@ThreadSafe
+class MappedSegments implements AutoCloseable {
+  static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final int LENGTH_SIZE = 4;
+
+  private final File dir;
+  private final int segmentSize;
+  private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+  private MappedByteBuffer current;
+
+  MappedSegments(File dir, int segmentSize) {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IllegalStateException("Fail to create directory " + dir);
+    }
+  }
+
+  /**
+   * Appends {@code length} bytes of {@code bytes} and returns the location of the record.
+   */
+  synchronized long append(byte[] bytes, int length) {
+    int recordSize = LENGTH_SIZE + length;
+    if (current == null || current.remaining() < recordSize) {
+      current = newSegment(Math.max(segmentSize, recordSize));
+    }
+    int offset = current.position();
+    current.putInt(length);
+    current.put(bytes, 0, length);
+    return ((long) (segments.size() - 1) << 32) | offset;
+  }
+
+  /**
+   * Returns a buffer positioned on the content of the record at the specified location. Its limit is set to the end
+   * of the record.
+   */
+  ByteBuffer read(long location) {
+    ByteBuffer buffer = segments.get((int) (location >>> 32)).duplicate();
+    int offset = (int) location;
+    buffer.position(offset);
+    int length = buffer.getInt();
+    buffer.limit(offset + LENGTH_SIZE + length);
+    return buffer;
+  }
+
+  private MappedByteBuffer newSegment(int size) {
+    File file = new File(dir, "segment-" + segments.size());
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+      FileChannel channel = randomAccessFile.getChannel()) {
+      // the mapping remains valid after the channel is closed
+      MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      segments.add(segment);
+      return segment;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create segment " + file, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    segments.clear();
+    current = null;
+    deleteQuietly(dir);
+  }
+}
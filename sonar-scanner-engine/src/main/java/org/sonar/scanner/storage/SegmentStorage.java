@@ -0,0 +1,231 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.google.common.collect.Iterators;
+import com.persistit.Key;
+import com.persistit.Persistit;
+import com.persistit.Value;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link Storage} which appends values to {@link MappedSegments} and keeps a sorted in-memory index of their location.
+ * <p>
+ * Keys and values are encoded with Persistit {@link Key} and {@link Value}, so that the ordering of keys and the
+ * {@link com.persistit.encoding.ValueCoder} registered in {@link Storages} are the same as with {@link PersistitStorage}.
+ * Space of removed or replaced values is not reclaimed.
+ * </p>
+ * <p>
+ * This storage is thread-safe: writes are serialized by {@link MappedSegments} while reads and iterations are
+ * concurrent. Iterations are lazy and weakly consistent: they may or may not reflect concurrent writes.
+ * </p>
+ */
+@ThreadSafe
+class SegmentStorage<V> extends Storage<V> {
+
+  private final MappedSegments segments;
+  private final NavigableMap<byte[], Long> index = new ConcurrentSkipListMap<>(SegmentStorage::compareUnsigned);
+  private final ThreadLocal<Key> keys;
+  private final ThreadLocal<Value> values;
+
+  SegmentStorage(String name, Persistit persistit, MappedSegments segments) {
+    super(name);
+    this.segments = segments;
+    this.keys = ThreadLocal.withInitial(() -> new Key(persistit));
+    this.values = ThreadLocal.withInitial(() -> {
+      Value value = new Value(persistit);
+      value.setMaximumSize(Value.MAXIMUM_SIZE);
+      return value;
+    });
+  }
+
+  @Override
+  void doPut(Object[] key, V value) {
+    byte[] keyBytes = encodeKey(key);
+    try {
+      Value encodedValue = values.get();
+      encodedValue.clear();
+      encodedValue.put(value);
+      index.put(keyBytes, segments.append(encodedValue.getEncodedBytes(), encodedValue.getEncodedSize()));
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to put element in the storage '" + name + "'", e);
+    }
+  }
+
+  @CheckForNull
+  @Override
+  V doGet(Object[] key) {
+    Long location = index.get(encodeKey(key));
+    return location == null ? null : decodeValue(location);
+  }
+
+  @Override
+  boolean doContainsKey(Object[] key) {
+    return index.containsKey(encodeKey(key));
+  }
+
+  @Override
+  boolean doRemove(Object[] key) {
+    return index.remove(encodeKey(key)) != null;
+  }
+
+  @Override
+  void doClear(Object[] key) {
+    range(key).clear();
+  }
+
+  @Override
+  public void clear() {
+    index.clear();
+  }
+
+  @Override
+  Set<Object> doKeySet(Object[] key) {
+    NavigableMap<byte[], Long> range = range(key);
+    Set<Object> result = new LinkedHashSet<>();
+    Key decodingKey = keys.get();
+    Map.Entry<byte[], Long> first = range.firstEntry();
+    byte[] current = first == null ? null : first.getKey();
+    while (current != null) {
+      setEncodedBytes(decodingKey, current);
+      if (decodingKey.getDepth() > key.length) {
+        decodingKey.indexTo(key.length);
+        result.add(decodingKey.decode());
+        // skip all the other keys sharing the same part
+        byte[] childUpperBound = upperBound(Arrays.copyOf(current, decodingKey.getIndex()));
+        current = childUpperBound == null ? null : range.ceilingKey(childUpperBound);
+      } else {
+        current = range.higherKey(current);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  Iterable<V> doValues(Object[] key) {
+    return () -> Iterators.transform(range(key).values().iterator(), this::decodeValue);
+  }
+
+  @Override
+  Iterable<Entry<V>> doEntries(Object[] key) {
+    return () -> {
+      Iterator<Map.Entry<byte[], Long>> iterator = range(key).entrySet().iterator();
+      return Iterators.transform(iterator, entry -> new Entry<>(decodeKey(entry.getKey()), decodeValue(entry.getValue())));
+    };
+  }
+
+  @Override
+  void close() {
+    index.clear();
+    segments.close();
+  }
+
+  /**
+   * Keys equal to the specified key or starting with it, ie. the key and all its sub-keys.
+   */
+  private NavigableMap<byte[], Long> range(Object[] key) {
+    if (key.length == 0) {
+      return index;
+    }
+    byte[] lowerBound = encodeKey(key);
+    byte[] upperBound = upperBound(lowerBound);
+    if (upperBound == null) {
+      return index.tailMap(lowerBound, true);
+    }
+    return index.subMap(lowerBound, true, upperBound, false);
+  }
+
+  private byte[] encodeKey(Object[] key) {
+    Key encodingKey = keys.get();
+    encodingKey.clear();
+    for (Object o : key) {
+      encodingKey.append(o);
+    }
+    return Arrays.copyOf(encodingKey.getEncodedBytes(), encodingKey.getEncodedSize());
+  }
+
+  private Object[] decodeKey(byte[] bytes) {
+    Key decodingKey = keys.get();
+    setEncodedBytes(decodingKey, bytes);
+    int depth = decodingKey.getDepth();
+    Object[] result = new Object[depth];
+    for (int i = 0; i < depth; i++) {
+      result[i] = decodingKey.indexTo(i).decode();
+    }
+    return result;
+  }
+
+  private static void setEncodedBytes(Key key, byte[] bytes) {
+    System.arraycopy(bytes, 0, key.getEncodedBytes(), 0, bytes.length);
+    key.setEncodedSize(bytes.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V decodeValue(long location) {
+    try {
+      ByteBuffer buffer = segments.read(location);
+      int length = buffer.remaining();
+      Value decodingValue = values.get();
+      decodingValue.clear();
+      decodingValue.ensureFit(length);
+      buffer.get(decodingValue.getEncodedBytes(), 0, length);
+      decodingValue.setEncodedSize(length);
+      return (V) decodingValue.get();
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to get element from cache " + name, e);
+    }
+  }
+
+  /**
+   * Smallest byte sequence greater than all the sequences starting with {@code prefix}, or {@code null} if there is
+   * none (all bytes of the prefix are 0xFF).
+   */
+  @CheckForNull
+  private static byte[] upperBound(byte[] prefix) {
+    for (int i = prefix.length - 1; i >= 0; i--) {
+      if (prefix[i] != (byte) 0xFF) {
+        byte[] result = Arrays.copyOf(prefix, i + 1);
+        result[i]++;
+        return result;
+      }
+    }
+    return null;
+  }
+
+  private static int compareUnsigned(byte[] a, byte[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return a.length - b.length;
+  }
+}
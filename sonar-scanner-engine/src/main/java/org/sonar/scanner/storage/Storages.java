@@ -28,22 +28,59 @@ import com.persistit.Volume;
 import com.persistit.encoding.CoderManager;
 import com.persistit.encoding.ValueCoder;
 import com.persistit.exception.PersistitException;
+import java.io.File;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.MessageException;
+import org.sonar.scanner.bootstrap.GlobalProperties;
 
+/**
+ * Factory of {@link Storage}.
+ * <p>
+ * By default, storages are backed by a Persistit temporary volume and are not thread-safe. When property
+ * {@link #STORAGE_BACKEND_PROPERTY} is set to {@link #SEGMENTS_BACKEND}, storages are thread-safe and backed by
+ * memory-mapped segment files (see {@link SegmentStorage}).
+ * </p>
+ */
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = Maps.newHashMap();
+  public static final String STORAGE_BACKEND_PROPERTY = "sonar.scanner.storageBackend";
+  public static final String PERSISTIT_BACKEND = "persistit";
+  public static final String SEGMENTS_BACKEND = "segments";
+
+  private final Map<String, Storage<?>> cacheMap = Maps.newHashMap();
+  private final boolean segmentsBackend;
+  private final File segmentsDir;
   private Persistit persistit;
   private Volume volume;
 
   public Storages(StoragesManager storagesManager) {
+    this(storagesManager, PERSISTIT_BACKEND);
+  }
+
+  public Storages(StoragesManager storagesManager, GlobalProperties properties) {
+    this(storagesManager, properties.property(STORAGE_BACKEND_PROPERTY));
+  }
+
+  Storages(StoragesManager storagesManager, String backend) {
     persistit = storagesManager.persistit();
+    segmentsDir = new File(storagesManager.tempDir(), "segments");
+    segmentsBackend = isSegmentsBackend(backend);
     doStart();
   }
 
+  private static boolean isSegmentsBackend(String backend) {
+    if (backend == null || backend.isEmpty() || PERSISTIT_BACKEND.equals(backend)) {
+      return false;
+    }
+    if (SEGMENTS_BACKEND.equals(backend)) {
+      return true;
+    }
+    throw MessageException.of(String.format("Value '%s' of property %s is invalid. Supported values are '%s' and '%s'.",
+      backend, STORAGE_BACKEND_PROPERTY, PERSISTIT_BACKEND, SEGMENTS_BACKEND));
+  }
+
   @Override
   public void start() {
     // done in constructor
@@ -67,10 +104,16 @@ public class Storages implements Startable {
     Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
     try {
-      Exchange exchange = persistit.getExchange(volume, cacheName, true);
-      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
+      Storage<V> cache;
+      if (segmentsBackend) {
+        cache = new SegmentStorage<>(cacheName, persistit,
+          new MappedSegments(new File(segmentsDir, cacheName), MappedSegments.DEFAULT_SEGMENT_SIZE));
+      } else {
+        Exchange exchange = persistit.getExchange(volume, cacheName, true);
+        exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
+        cache = new PersistitStorage<>(cacheName, exchange, persistit);
+      }
+      cacheMap.put(cacheName, cache);
       return cache;
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create cache: " + cacheName, e);
@@ -79,8 +122,8 @@ public class Storages implements Startable {
 
   @Override
   public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+    for (Storage<?> storage : cacheMap.values()) {
+      storage.close();
     }
 
     cacheMap.clear();
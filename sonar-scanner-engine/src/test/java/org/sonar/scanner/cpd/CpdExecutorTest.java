@@ -239,6 +239,57 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void default_threads() {
+    assertThat(executor.getThreads()).isEqualTo(1);
+
+    settings.setProperty("sonar.cpd.threads", "0");
+    assertThat(executor.getThreads()).isEqualTo(1);
+  }
+
+  @Test
+  public void configured_threads() {
+    settings.setProperty("sonar.cpd.threads", "4");
+    assertThat(executor.getThreads()).isEqualTo(4);
+  }
+
+  @Test
+  public void detect_duplications_with_several_threads() {
+    settings.setProperty("sonar.cpd.threads", "4");
+    List<DefaultInputFile> components = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      DefaultInputFile component = new TestInputFileBuilder("foo", "src/Bar" + i + ".java")
+        .setModuleBaseDir(baseDir.toPath())
+        .setLanguage("java")
+        .setLines(20)
+        .build();
+      componentStore.put(component);
+      components.add(component);
+      List<Block> blocks = new ArrayList<>();
+      for (int j = 1; j <= 5; j++) {
+        blocks.add(Block.builder()
+          .setResourceId(component.key())
+          .setIndexInFile(j)
+          .setLines(j, j + 1)
+          .setUnit(j, j + 1)
+          .setBlockHash(new ByteArray((long) j))
+          .build());
+      }
+      index.insert((InputFile) component, blocks);
+    }
+
+    executor.execute(60_000);
+
+    for (DefaultInputFile component : components) {
+      CloseableIterator<Duplication> dups = reader.readComponentDuplications(component.batchId());
+      assertThat(dups.hasNext()).isTrue();
+      Duplication duplication = dups.next();
+      assertThat(duplication.getOriginPosition().getStartLine()).isEqualTo(1);
+      assertThat(duplication.getDuplicateList()).hasSize(9);
+      dups.close();
+    }
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
@@ -251,6 +251,35 @@ public class ScmMediumTest {
     assertThat(logTester.logs()).containsSubsequence(MISSING_BLAME_INFORMATION_FOR_THE_FOLLOWING_FILES, "  * " + noBlameScmOnServer.getPath().replaceAll("\\\\", "/"));
   }
 
+  @Test
+  public void blame_files_concurrently() throws IOException {
+    File baseDir = prepareProject();
+    File otherFile = new File(baseDir, SAME_CONTENT_NO_SCM_ON_SERVER_XOO);
+    FileUtils.write(otherFile, SAMPLE_XOO_CONTENT);
+    FileUtils.write(new File(baseDir, SAME_CONTENT_NO_SCM_ON_SERVER_XOO + ".scm"),
+      // revision,author,dateTime
+      "1,foo,2013-01-04\n" +
+        "1,bar,2013-01-04\n");
+
+    tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.projectDescription", "Description of Foo Project")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.blameThreads", "2")
+        .build())
+      .start();
+
+    assertThat(getChangesets(baseDir, "src/sample.xoo").getChangesetIndexByLineList()).hasSize(5);
+    assertThat(getChangesets(baseDir, SAME_CONTENT_NO_SCM_ON_SERVER_XOO).getChangesetIndexByLineList()).hasSize(2);
+    assertThat(logTester.logs()).containsSubsequence("2 files to be analyzed", "2/2 files analyzed");
+  }
+
   @Test
   public void forceReload() throws IOException {
 
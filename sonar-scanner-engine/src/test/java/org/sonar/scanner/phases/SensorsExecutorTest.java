@@ -0,0 +1,221 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.phases;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.batch.AnalysisMode;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.fs.InputModule;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
+import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.DefaultSensorContext;
+import org.sonar.scanner.sensor.SensorOptimizer;
+import org.sonar.scanner.sensor.SensorWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private DefaultInputModule module = new DefaultInputModule("project");
+  private ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
+  private SensorStorage storage = mock(SensorStorage.class);
+  private Settings settings = new MapSettings();
+  private DefaultSensorContext context;
+  private SensorsExecutor executor;
+
+  @Before
+  public void setUp() throws Exception {
+    context = new DefaultSensorContext(mock(InputModule.class), settings, new DefaultFileSystem(temp.newFolder().toPath()), new ActiveRulesBuilder().build(),
+      mock(AnalysisMode.class), storage, SonarRuntimeImpl.forSonarQube(Version.parse("6.3"), SonarQubeSide.SCANNER));
+    executor = new SensorsExecutor(selector, module, mock(EventBus.class), storage, settings);
+  }
+
+  @Test
+  public void execute_sensors_sequentially_by_default() {
+    CountDownLatch latch = new CountDownLatch(1);
+    Sensor first = wrap(new FakeSensor("first", true, null, latch));
+    Sensor second = wrap(new FakeSensor("second", true, latch, null));
+    when(selector.select(Sensor.class, module, true, null)).thenReturn(Arrays.asList(first, second));
+
+    executor.execute(mock(org.sonar.api.batch.SensorContext.class));
+
+    InOrder inOrder = inOrder(storage);
+    inOrder.verify(storage).storeProperty("first", "done");
+    inOrder.verify(storage).storeProperty("second", "done");
+  }
+
+  @Test
+  public void execute_thread_safe_sensors_concurrently_and_save_data_in_order_of_sensors() {
+    settings.setProperty(SensorsExecutor.SENSOR_THREADS_PROPERTY, 2);
+    CountDownLatch secondExecuted = new CountDownLatch(1);
+    // first sensor completes only once the second one is executed
+    Sensor first = wrap(new FakeSensor("first", true, secondExecuted, null));
+    Sensor second = wrap(new FakeSensor("second", true, null, secondExecuted));
+    Sensor third = wrap(new FakeSensor("third", false, null, null));
+    when(selector.select(Sensor.class, module, true, null)).thenReturn(Arrays.asList(first, second, third));
+
+    executor.execute(mock(org.sonar.api.batch.SensorContext.class));
+
+    InOrder inOrder = inOrder(storage);
+    inOrder.verify(storage).storeProperty("first", "done");
+    inOrder.verify(storage).storeProperty("second", "done");
+    inOrder.verify(storage).storeProperty("third", "done");
+  }
+
+  @Test
+  public void execute_sensors_concurrently_when_first_and_last_sensors_are_not_thread_safe() {
+    settings.setProperty(SensorsExecutor.SENSOR_THREADS_PROPERTY, 2);
+    CountDownLatch thirdExecuted = new CountDownLatch(1);
+    Sensor first = wrap(new FakeSensor("first", false, null, null));
+    Sensor second = wrap(new FakeSensor("second", true, thirdExecuted, null));
+    Sensor third = wrap(new FakeSensor("third", true, null, thirdExecuted));
+    Sensor fourth = wrap(new FakeSensor("fourth", false, null, null));
+    Sensor fifth = wrap(new FakeSensor("fifth", false, null, null));
+    when(selector.select(Sensor.class, module, true, null)).thenReturn(Arrays.asList(first, second, third, fourth, fifth));
+
+    executor.execute(mock(org.sonar.api.batch.SensorContext.class));
+
+    InOrder inOrder = inOrder(storage);
+    inOrder.verify(storage).storeProperty("first", "done");
+    inOrder.verify(storage).storeProperty("second", "done");
+    inOrder.verify(storage).storeProperty("third", "done");
+    inOrder.verify(storage).storeProperty("fourth", "done");
+    inOrder.verify(storage).storeProperty("fifth", "done");
+  }
+
+  @Test
+  public void first_sensor_of_batch_saves_data_directly_in_storage_of_module() {
+    settings.setProperty(SensorsExecutor.SENSOR_THREADS_PROPERTY, 2);
+    CountDownLatch firstExecuted = new CountDownLatch(1);
+    Sensor first = wrap(new FakeSensor("first", true, null, firstExecuted));
+    Sensor second = wrap(new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+        descriptor.threadSafe();
+      }
+
+      @Override
+      public void execute(SensorContext context) {
+        try {
+          assertThat(firstExecuted.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        verify(storage).storeProperty("first", "done");
+      }
+    });
+    when(selector.select(Sensor.class, module, true, null)).thenReturn(Arrays.asList(first, second));
+
+    executor.execute(mock(org.sonar.api.batch.SensorContext.class));
+  }
+
+  @Test
+  public void fail_with_error_of_sensor() {
+    settings.setProperty(SensorsExecutor.SENSOR_THREADS_PROPERTY, 2);
+    Sensor first = wrap(new FakeSensor("first", true, null, null));
+    Sensor second = wrap(new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+        descriptor.threadSafe();
+      }
+
+      @Override
+      public void execute(SensorContext context) {
+        throw new IllegalStateException("Boom");
+      }
+    });
+    when(selector.select(Sensor.class, module, true, null)).thenReturn(Arrays.asList(first, second));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Boom");
+
+    executor.execute(mock(org.sonar.api.batch.SensorContext.class));
+  }
+
+  private SensorWrapper wrap(org.sonar.api.batch.sensor.Sensor sensor) {
+    return new SensorWrapper(sensor, context, mock(SensorOptimizer.class));
+  }
+
+  private static class FakeSensor implements org.sonar.api.batch.sensor.Sensor {
+    private final String name;
+    private final boolean threadSafe;
+    private final CountDownLatch awaited;
+    private final CountDownLatch notified;
+
+    FakeSensor(String name, boolean threadSafe, CountDownLatch awaited, CountDownLatch notified) {
+      this.name = name;
+      this.threadSafe = threadSafe;
+      this.awaited = awaited;
+      this.notified = notified;
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      descriptor.name(name);
+      if (threadSafe) {
+        descriptor.threadSafe();
+      }
+    }
+
+    @Override
+    public void execute(SensorContext context) {
+      try {
+        if (awaited != null) {
+          assertThat(awaited.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      context.addContextProperty(name, "done");
+      if (notified != null) {
+        notified.countDown();
+      }
+    }
+  }
+}
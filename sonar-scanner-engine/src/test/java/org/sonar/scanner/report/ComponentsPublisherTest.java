@@ -29,6 +29,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.batch.fs.internal.DefaultInputDir;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -98,13 +99,13 @@ public class ComponentsPublisherTest {
     DefaultInputDir dir = new DefaultInputDir("module1", "src", 3);
     tree.index(dir, module1);
 
-    DefaultInputFile file = new TestInputFileBuilder("module1", "src/Foo.java", 4).setLines(2).build();
+    DefaultInputFile file = new TestInputFileBuilder("module1", "src/Foo.java", 4).setLines(2).setStatus(InputFile.Status.SAME).build();
     tree.index(file, dir);
 
     DefaultInputFile file2 = new TestInputFileBuilder("module1", "src/Foo2.java", 5).setPublish(false).setLines(2).build();
     tree.index(file2, dir);
 
-    DefaultInputFile fileWithoutLang = new TestInputFileBuilder("module1", "src/make", 6).setLines(10).build();
+    DefaultInputFile fileWithoutLang = new TestInputFileBuilder("module1", "src/make", 6).setLines(10).setStatus(InputFile.Status.CHANGED).build();
     tree.index(fileWithoutLang, dir);
 
     DefaultInputFile testFile = new TestInputFileBuilder("module1", "test/FooTest.java", 7).setType(Type.TEST).setLines(4).build();
@@ -136,6 +137,10 @@ public class ComponentsPublisherTest {
     assertThat(module1Protobuf.getKey()).isEqualTo("module1");
     assertThat(module1Protobuf.getDescription()).isEqualTo("Module description");
     assertThat(module1Protobuf.getVersion()).isEqualTo("1.0");
+
+    assertThat(reader.readComponent(4).getStatus()).isEqualTo(Component.FileStatus.SAME);
+    assertThat(reader.readComponent(6).getStatus()).isEqualTo(Component.FileStatus.CHANGED);
+    assertThat(reader.readComponent(7).getStatus()).isEqualTo(Component.FileStatus.UNAVAILABLE);
   }
 
   @Test
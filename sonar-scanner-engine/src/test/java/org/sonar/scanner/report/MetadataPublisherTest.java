@@ -32,12 +32,15 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.core.platform.PluginRepository;
 import org.sonar.scanner.ProjectAnalysisInfo;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.rule.ModuleQProfiles;
 import org.sonar.scanner.rule.QProfile;
+import org.sonar.updatecenter.common.Version;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -57,6 +60,7 @@ public class MetadataPublisherTest {
   private ModuleQProfiles qProfiles;
   private ProjectAnalysisInfo projectAnalysisInfo;
   private InputModuleHierarchy inputModuleHierarchy;
+  private PluginRepository pluginRepository;
 
   @Before
   public void prepare() {
@@ -68,7 +72,8 @@ public class MetadataPublisherTest {
     when(inputModuleHierarchy.root()).thenReturn(rootModule);
     settings = new MapSettings();
     qProfiles = mock(ModuleQProfiles.class);
-    underTest = new MetadataPublisher(projectAnalysisInfo, inputModuleHierarchy, settings, qProfiles);
+    pluginRepository = mock(PluginRepository.class);
+    underTest = new MetadataPublisher(projectAnalysisInfo, inputModuleHierarchy, settings, qProfiles, pluginRepository);
   }
 
   @Test
@@ -80,6 +85,7 @@ public class MetadataPublisherTest {
       .setName("Q1")
       .setLanguage("java")
       .setRulesUpdatedAt(date)));
+    when(pluginRepository.getPluginInfos()).thenReturn(asList(new PluginInfo("java").setVersion(Version.create("4.5")), new PluginInfo("xoo")));
     File outputDir = temp.newFolder();
     ScannerReportWriter writer = new ScannerReportWriter(outputDir);
 
@@ -91,12 +97,14 @@ public class MetadataPublisherTest {
     assertThat(metadata.getProjectKey()).isEqualTo("foo");
     assertThat(metadata.getProjectKey()).isEqualTo("foo");
     assertThat(metadata.getCrossProjectDuplicationActivated()).isTrue();
+    assertThat(metadata.getIncremental()).isFalse();
     assertThat(metadata.getQprofilesPerLanguage()).containsOnly(entry("java", org.sonar.scanner.protocol.output.ScannerReport.Metadata.QProfile.newBuilder()
       .setKey("q1")
       .setName("Q1")
       .setLanguage("java")
       .setRulesUpdatedAt(date.getTime())
       .build()));
+    assertThat(metadata.getPluginVersions()).containsOnly(entry("java", "4.5"), entry("xoo", ""));
   }
 
   @Test
@@ -134,4 +142,17 @@ public class MetadataPublisherTest {
     assertThat(metadata.getOrganizationKey()).isEqualTo("SonarSource");
   }
 
+  @Test
+  public void write_incremental_flag() throws Exception {
+    settings.setProperty(MetadataPublisher.INCREMENTAL_PROPERTY, "true");
+
+    File outputDir = temp.newFolder();
+    ScannerReportWriter writer = new ScannerReportWriter(outputDir);
+
+    underTest.publish(writer);
+
+    ScannerReportReader reader = new ScannerReportReader(outputDir);
+    ScannerReport.Metadata metadata = reader.readMetadata();
+    assertThat(metadata.getIncremental()).isTrue();
+  }
 }
@@ -113,4 +113,32 @@ public class SourcePublisherTest {
     File out = writer.getSourceFile(inputFile.batchId());
     assertThat(FileUtils.readFileToString(out, StandardCharsets.UTF_8)).isEqualTo("\n2\n3\n4\n5");
   }
+
+  @Test
+  public void publishNonAsciiSource() throws Exception {
+    FileUtils.write(sourceFile, "caf\u00e9\r\nna\u00efve", StandardCharsets.ISO_8859_1);
+
+    publisher.publish(writer);
+
+    File out = writer.getSourceFile(inputFile.batchId());
+    assertThat(FileUtils.readFileToString(out, StandardCharsets.UTF_8)).isEqualTo("caf\u00e9\nna\u00efve");
+  }
+
+  @Test
+  public void copyNormalizedUtf8Source() throws Exception {
+    String content = "\uFEFFcaf\u00e9\n\u1D11E\n";
+    FileUtils.write(new File(sourceFile.getParentFile(), "Bar.php"), content, StandardCharsets.UTF_8);
+    DefaultInputFile utf8File = new TestInputFileBuilder("foo", "src/Bar.php")
+      .setModuleBaseDir(sourceFile.getParentFile().getParentFile().toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .initMetadata(content.substring(1))
+      .build();
+    assertThat(utf8File.isNormalized()).isTrue();
+    componentStore.put(utf8File);
+
+    publisher.publish(writer);
+
+    File out = writer.getSourceFile(utf8File.batchId());
+    assertThat(FileUtils.readFileToString(out, StandardCharsets.UTF_8)).isEqualTo("caf\u00e9\n\u1D11E\n");
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceTranscoderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private SourceTranscoder transcoder = new SourceTranscoder();
+
+  @Test
+  public void normalize_line_endings() throws Exception {
+    assertThat(transcode("\r\nfoo\r\nbar\rbaz\n\r", StandardCharsets.UTF_8, false)).isEqualTo("\nfoo\nbar\nbaz\n\n");
+  }
+
+  @Test
+  public void remove_byte_order_mark() throws Exception {
+    assertThat(transcode("\uFEFFfoo\r\n", StandardCharsets.UTF_8, false)).isEqualTo("foo\n");
+    assertThat(transcode("\uFEFFfoo\n", StandardCharsets.UTF_8, true)).isEqualTo("foo\n");
+    assertThat(transcode("\uFEFFföo\r\n", StandardCharsets.UTF_16LE, false)).isEqualTo("föo\n");
+    assertThat(transcode("föo\r\n\u1D11E", StandardCharsets.UTF_16, false)).isEqualTo("föo\n\u1D11E");
+  }
+
+  @Test
+  public void replace_invalid_characters() throws Exception {
+    File source = temp.newFile();
+    FileUtils.write(source, "marker´s\n", Charset.forName("cp1252"));
+    File target = temp.newFile();
+
+    transcoder.transcode(source, StandardCharsets.UTF_8, false, target);
+
+    assertThat(FileUtils.readFileToString(target, StandardCharsets.UTF_8)).isEqualTo("marker\uFFFDs\n");
+  }
+
+  @Test
+  public void transcode_files_bigger_than_buffers() throws Exception {
+    StringBuilder content = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; content.length() < 300_000; i++) {
+      content.append("line é\uD834\uDD1E ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+      expected.append("line é\uD834\uDD1E ").append(i).append("\n");
+    }
+
+    assertThat(transcode(content.toString(), StandardCharsets.UTF_8, false)).isEqualTo(expected.toString());
+    assertThat(transcode(content.toString(), StandardCharsets.UTF_16BE, false)).isEqualTo(expected.toString());
+  }
+
+  @Test
+  public void reuse_transcoder_for_several_files() throws Exception {
+    assertThat(transcode("foo\r", StandardCharsets.ISO_8859_1, false)).isEqualTo("foo\n");
+    assertThat(transcode("\nbar", StandardCharsets.ISO_8859_1, false)).isEqualTo("\nbar");
+    assertThat(transcode("", StandardCharsets.UTF_8, true)).isEmpty();
+  }
+
+  private String transcode(String content, Charset charset, boolean normalized) throws Exception {
+    File source = temp.newFile();
+    FileUtils.write(source, content, charset);
+    File target = temp.newFile();
+
+    transcoder.transcode(source, charset, normalized, target);
+
+    return FileUtils.readFileToString(target, StandardCharsets.UTF_8);
+  }
+}
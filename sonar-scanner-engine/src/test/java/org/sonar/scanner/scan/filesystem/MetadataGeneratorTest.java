@@ -19,13 +19,17 @@
  */
 package org.sonar.scanner.scan.filesystem;
 
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -34,6 +38,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.batch.AnalysisMode;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
@@ -49,6 +54,8 @@ public class MetadataGeneratorTest {
   private StatusDetection statusDetection;
   @Mock
   private DefaultModuleFileSystem fs;
+  @Mock
+  private AnalysisMode analysisMode;
 
   private FileMetadata metadata;
   private MetadataGenerator generator;
@@ -57,7 +64,7 @@ public class MetadataGeneratorTest {
   public void setUp() {
     MockitoAnnotations.initMocks(this);
     metadata = new FileMetadata();
-    generator = new MetadataGenerator(new DefaultInputModule("module"), statusDetection, metadata);
+    generator = new MetadataGenerator(new DefaultInputModule("module"), statusDetection, metadata, analysisMode);
   }
 
   @Test
@@ -115,4 +122,20 @@ public class MetadataGeneratorTest {
     assertThat(inputFile.relativePath()).isEqualTo("src/main/java/foo/Bar.java");
     assertThat(inputFile.lines()).isEqualTo(1);
   }
+
+  @Test
+  public void keep_line_hashes_in_issues_mode() throws Exception {
+    when(analysisMode.isIssues()).thenReturn(true);
+    Path baseDir = temp.newFolder().toPath();
+    Path srcFile = baseDir.resolve("src/main/java/foo/Bar.java");
+    FileUtils.write(srcFile.toFile(), "foo\n\nb ar\n");
+
+    DefaultInputFile inputFile = createInputFileWithMetadata(generator, baseDir, "src/main/java/foo/Bar.java");
+    // hashes must not be computed again from the file
+    FileUtils.forceDelete(srcFile.toFile());
+
+    Map<Integer, String> hashes = new HashMap<>();
+    FileMetadata.computeLineHashesForIssueTracking(inputFile, (lineIdx, hash) -> hashes.put(lineIdx, Hex.encodeHexString(hash)));
+    assertThat(hashes).hasSize(2).containsEntry(1, md5Hex("foo")).containsEntry(3, md5Hex("bar"));
+  }
 }
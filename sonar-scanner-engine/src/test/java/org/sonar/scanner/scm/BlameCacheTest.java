@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Changeset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class BlameCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private FileCache fileCache;
+  private BlameCache cache;
+
+  @Before
+  public void setUp() throws IOException {
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    cache = new BlameCache(fileCache, "git", "foo");
+  }
+
+  @Test
+  public void reuse_blame_of_same_content() {
+    cache.put(file("src/Foo.java", "hash1"), changesets(12));
+
+    ScannerReport.Changesets cached = cache.get(file("src/Foo.java", "hash1"));
+
+    assertThat(cached).isNotNull();
+    assertThat(cached.getComponentRef()).isEqualTo(0);
+    assertThat(cached.getChangeset(0).getRevision()).isEqualTo("rev1");
+    assertThat(cached.getChangesetIndexByLineList()).containsExactly(0, 0);
+  }
+
+  @Test
+  public void do_not_reuse_blame_of_other_content_file_or_provider() {
+    cache.put(file("src/Foo.java", "hash1"), changesets(12));
+
+    assertThat(cache.get(file("src/Foo.java", "hash2"))).isNull();
+    assertThat(cache.get(file("src/Bar.java", "hash1"))).isNull();
+    assertThat(new BlameCache(fileCache, "svn", "foo").get(file("src/Foo.java", "hash1"))).isNull();
+    assertThat(new BlameCache(fileCache, "git", "bar").get(file("src/Foo.java", "hash1"))).isNull();
+  }
+
+  @Test
+  public void ignore_corrupted_cache() throws IOException {
+    DefaultInputFile file = file("src/Foo.java", "hash1");
+    cache.put(file, changesets(12));
+    for (File cachedFile : FileUtils.listFiles(fileCache.getDir(), new String[] {"pb"}, true)) {
+      // truncated varint
+      FileUtils.writeByteArrayToFile(cachedFile, new byte[] {(byte) 0xFF});
+    }
+
+    assertThat(cache.get(file)).isNull();
+  }
+
+  private static DefaultInputFile file(String path, String hash) {
+    return new TestInputFileBuilder("foo", path).setHash(hash).setLines(2).build();
+  }
+
+  private static ScannerReport.Changesets changesets(int componentRef) {
+    return ScannerReport.Changesets.newBuilder()
+      .setComponentRef(componentRef)
+      .addChangeset(Changeset.newBuilder().setRevision("rev1").setAuthor("john").setDate(123456789L))
+      .addChangesetIndexByLine(0)
+      .addChangesetIndexByLine(0)
+      .build();
+  }
+}
@@ -24,11 +24,20 @@ import java.util.Date;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scm.DefaultBlameOutput;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
 public class DefaultBlameOutputTest {
 
   @Rule
@@ -74,4 +83,17 @@ public class DefaultBlameOutputTest {
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
+  @Test
+  public void shouldStoreBlameInCache() {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/main/java/Foo.java").setLines(1).build();
+    BlameCache cache = mock(BlameCache.class);
+
+    new DefaultBlameOutput(mock(ScannerReportWriter.class), Arrays.<InputFile>asList(file), cache)
+      .blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+
+    ArgumentCaptor<ScannerReport.Changesets> changesets = ArgumentCaptor.forClass(ScannerReport.Changesets.class);
+    verify(cache).put(eq(file), changesets.capture());
+    assertThat(changesets.getValue().getChangeset(0).getRevision()).isEqualTo("1");
+  }
+
 }
@@ -41,6 +41,8 @@ import org.sonar.api.utils.Version;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class DefaultSensorContextTest {
@@ -87,4 +89,17 @@ public class DefaultSensorContextTest {
     assertThat(adaptor.isCancelled()).isFalse();
   }
 
+  @Test
+  public void copy_saves_data_in_given_storage() {
+    SensorStorage otherStorage = mock(SensorStorage.class);
+
+    DefaultSensorContext copy = adaptor.withStorage(otherStorage);
+    copy.addContextProperty("foo", "bar");
+
+    assertThat(copy.fileSystem()).isEqualTo(fs);
+    assertThat(copy.settings()).isEqualTo(settings);
+    verify(otherStorage).storeProperty("foo", "bar");
+    verifyZeroInteractions(sensorStorage);
+  }
+
 }
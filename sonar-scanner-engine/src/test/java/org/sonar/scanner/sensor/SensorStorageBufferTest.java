@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.sensor;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
+import org.sonar.api.batch.sensor.internal.SensorStorage;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonar.api.batch.sensor.measure.Measure;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class SensorStorageBufferTest {
+
+  private SensorStorageBuffer buffer = new SensorStorageBuffer();
+  private SensorStorage storage = mock(SensorStorage.class);
+
+  @Test
+  public void flush_data_in_order_it_was_saved() {
+    Measure measure = mock(Measure.class);
+    Issue issue = mock(Issue.class);
+    DefaultHighlighting highlighting = mock(DefaultHighlighting.class);
+
+    buffer.store(issue);
+    buffer.storeProperty("foo", "bar");
+    buffer.store(measure);
+    buffer.store(highlighting);
+    verifyZeroInteractions(storage);
+
+    buffer.flushTo(storage);
+
+    InOrder inOrder = inOrder(storage);
+    inOrder.verify(storage).store(issue);
+    inOrder.verify(storage).storeProperty("foo", "bar");
+    inOrder.verify(storage).store(measure);
+    inOrder.verify(storage).store(highlighting);
+    verifyNoMoreInteractions(storage);
+  }
+
+  @Test
+  public void buffer_is_empty_once_flushed() {
+    buffer.storeProperty("foo", "bar");
+    buffer.flushTo(mock(SensorStorage.class));
+
+    buffer.flushTo(storage);
+
+    verifyZeroInteractions(storage);
+  }
+
+  @Test
+  public void save_directly_in_storage_once_flushed() {
+    Issue issue = mock(Issue.class);
+    buffer.flushTo(storage);
+
+    buffer.store(issue);
+
+    verify(storage).store(issue);
+  }
+
+}
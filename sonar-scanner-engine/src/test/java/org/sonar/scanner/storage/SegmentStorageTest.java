@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.scanner.index.AbstractCachesTest;
+import org.sonar.scanner.storage.Storage.Entry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SegmentStorageTest extends AbstractCachesTest {
+
+  @Before
+  @Override
+  public void start() {
+    caches = new Storages(cachesManager, Storages.SEGMENTS_BACKEND);
+    caches.start();
+  }
+
+  @Test
+  public void create_segment_storage() {
+    assertThat(caches.<String>createCache("foo")).isInstanceOf(SegmentStorage.class);
+  }
+
+  @Test
+  public void one_part_key() {
+    Storage<String> cache = caches.createCache("capitals");
+
+    assertThat(cache.get("france")).isNull();
+
+    cache.put("france", "paris");
+    cache.put("italy", "rome");
+    assertThat(cache.get("france")).isEqualTo("paris");
+    assertThat(cache.keySet()).containsExactly("france", "italy");
+    assertThat(cache.keySet("france")).isEmpty();
+    assertThat(cache.values()).containsExactly("paris", "rome");
+    assertThat(cache.containsKey("france")).isTrue();
+
+    cache.put("france", "lyon");
+    assertThat(cache.get("france")).isEqualTo("lyon");
+
+    cache.remove("france");
+    assertThat(cache.get("france")).isNull();
+    assertThat(cache.keySet()).containsOnly("italy");
+
+    cache.clear();
+    assertThat(cache.values()).isEmpty();
+  }
+
+  @Test
+  public void three_parts_key() {
+    Storage<String> cache = caches.createCache("places");
+    cache.put("europe", "france", "paris", "eiffel tower");
+    cache.put("europe", "france", "annecy", "lake");
+    cache.put("europe", "italy", "rome", "colosseum");
+    cache.put("europe2", "ukrania", "kiev", "dunno");
+    cache.put("asia", "china", "pekin", "great wall");
+
+    assertThat(cache.get("europe", "france")).isNull();
+    assertThat(cache.get("europe", "france", "annecy")).isEqualTo("lake");
+    assertThat(cache.keySet()).containsExactly("asia", "europe", "europe2");
+    assertThat(cache.keySet("europe")).containsExactly("france", "italy");
+    assertThat(cache.keySet("europe", "france")).containsExactly("annecy", "paris");
+    assertThat(cache.values("europe")).containsExactly("lake", "eiffel tower", "colosseum");
+
+    Entry[] entries = Iterables.toArray(cache.entries("europe"), Entry.class);
+    assertThat(entries).hasSize(3);
+    assertThat(entries[0].key()).isEqualTo(new String[] {"europe", "france", "annecy"});
+    assertThat(entries[0].value()).isEqualTo("lake");
+
+    cache.clear("europe", "france");
+    assertThat(cache.values()).containsExactly("great wall", "colosseum", "dunno");
+
+    cache.clear("europe");
+    assertThat(cache.values()).containsExactly("great wall", "dunno");
+  }
+
+  @Test
+  public void integer_keys() {
+    Storage<String> cache = caches.createCache("issues");
+    cache.put(10, "b", "ten-b");
+    cache.put(2, "a", "two-a");
+    cache.put(0, "z", "zero-z");
+
+    assertThat(cache.values(2)).containsExactly("two-a");
+    assertThat(cache.keySet()).containsExactly(0, 2, 10);
+  }
+
+  @Test
+  public void values_larger_than_a_segment() {
+    Storage<String> cache = caches.createCache("large");
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < MappedSegments.DEFAULT_SEGMENT_SIZE / 10; i++) {
+      sb.append("0123456789");
+    }
+    String large = sb.toString();
+
+    cache.put("small", "value");
+    cache.put("large", large);
+
+    assertThat(cache.get("large")).isEqualTo(large);
+    assertThat(cache.get("small")).isEqualTo("value");
+  }
+
+  @Test
+  public void concurrent_writes_and_reads() throws Exception {
+    Storage<String> cache = caches.createCache("concurrent");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        String thread = "t" + t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            cache.put(thread, i, thread + "-" + i);
+            assertThat(cache.get(thread, i)).isEqualTo(thread + "-" + i);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(cache.keySet()).containsExactly("t0", "t1", "t2", "t3");
+    assertThat(cache.values()).hasSize(4_000);
+    assertThat(cache.values("t2")).hasSize(1_000).startsWith("t2-0", "t2-1");
+  }
+}
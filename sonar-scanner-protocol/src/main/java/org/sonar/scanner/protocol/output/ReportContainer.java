@@ -0,0 +1,254 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Analysis report stored in a single file, as written by {@link ReportContainerWriter}. Entries are
+ * read in place: each of them is decompressed on the fly from its position in the file, without
+ * extracting the container.
+ * <p>
+ * Entries can be read concurrently. The container must be closed once all entries have been read.
+ * </p>
+ */
+public class ReportContainer implements Closeable {
+
+  static final int MAGIC = 0x53515243;
+  static final byte VERSION = 1;
+  private static final int HEADER_SIZE = 5;
+  private static final int FOOTER_SIZE = 12;
+  private static final int BUFFER_SIZE = 8192;
+
+  private final File file;
+  private final RandomAccessFile randomAccessFile;
+  private final FileChannel channel;
+  private final Map<String, Entry> entries;
+
+  private ReportContainer(File file) throws IOException {
+    this.file = file;
+    this.randomAccessFile = new RandomAccessFile(file, "r");
+    this.channel = randomAccessFile.getChannel();
+    try {
+      this.entries = readIndex();
+    } catch (IOException | RuntimeException e) {
+      randomAccessFile.close();
+      throw e;
+    }
+  }
+
+  public static ReportContainer open(File file) {
+    try {
+      return new ReportContainer(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open report container " + file, e);
+    }
+  }
+
+  /**
+   * Whether {@code file} starts like a report container. Reports used to be zipped directories.
+   */
+  public static boolean isReportContainer(File file) {
+    if (!file.isFile() || file.length() < HEADER_SIZE + FOOTER_SIZE) {
+      return false;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      return raf.readInt() == MAGIC;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read file " + file, e);
+    }
+  }
+
+  /**
+   * Whether the stream starts like a report container. The stream must support {@link InputStream#mark(int)},
+   * it is reset to its current position.
+   */
+  public static boolean isReportContainer(InputStream input) throws IOException {
+    input.mark(4);
+    try {
+      return new DataInputStream(input).readInt() == MAGIC;
+    } catch (EOFException e) {
+      return false;
+    } finally {
+      input.reset();
+    }
+  }
+
+  private Map<String, Entry> readIndex() throws IOException {
+    long size = channel.size();
+    if (size < HEADER_SIZE + FOOTER_SIZE || randomAccessFile.readInt() != MAGIC) {
+      throw new IllegalStateException("Not a report container: " + file);
+    }
+    byte version = randomAccessFile.readByte();
+    if (version != VERSION) {
+      throw new IllegalStateException("Unsupported version " + version + " of report container: " + file);
+    }
+    randomAccessFile.seek(size - FOOTER_SIZE);
+    long indexOffset = randomAccessFile.readLong();
+    if (randomAccessFile.readInt() != MAGIC || indexOffset < HEADER_SIZE || indexOffset > size - FOOTER_SIZE) {
+      throw new IllegalStateException("Report container is truncated or corrupted: " + file);
+    }
+    try (DataInputStream index = new DataInputStream(new BufferedInputStream(new RegionInputStream(channel, indexOffset, size - FOOTER_SIZE - indexOffset)))) {
+      int count = index.readInt();
+      Map<String, Entry> res = new LinkedHashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        String name = index.readUTF();
+        res.put(name, new Entry(index.readLong(), index.readLong(), index.readLong()));
+      }
+      return Collections.unmodifiableMap(res);
+    }
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public Set<String> entryNames() {
+    return entries.keySet();
+  }
+
+  public boolean hasEntry(String name) {
+    return entries.containsKey(name);
+  }
+
+  /**
+   * Uncompressed length of the entry, in bytes.
+   *
+   * @throws IllegalArgumentException if the entry does not exist
+   */
+  public long entryLength(String name) {
+    return entry(name).length;
+  }
+
+  /**
+   * Opens a stream on the uncompressed content of an entry. The stream must be closed by caller.
+   *
+   * @throws IllegalArgumentException if the entry does not exist
+   */
+  public InputStream openEntry(String name) {
+    Entry entry = entry(name);
+    return new EntryInputStream(new RegionInputStream(channel, entry.offset, entry.compressedLength));
+  }
+
+  private Entry entry(String name) {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      throw new IllegalArgumentException("Entry " + name + " does not exist in report container " + file);
+    }
+    return entry;
+  }
+
+  @Override
+  public void close() throws IOException {
+    randomAccessFile.close();
+  }
+
+  private static final class Entry {
+    private final long offset;
+    private final long compressedLength;
+    private final long length;
+
+    private Entry(long offset, long compressedLength, long length) {
+      this.offset = offset;
+      this.compressedLength = compressedLength;
+      this.length = length;
+    }
+  }
+
+  private static final class EntryInputStream extends InflaterInputStream {
+    private boolean closed = false;
+
+    private EntryInputStream(InputStream in) {
+      super(in, new Inflater(), BUFFER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        inf.end();
+        super.close();
+      }
+    }
+  }
+
+  /**
+   * Reads a region of the file with positional reads, so that several regions can be read concurrently.
+   */
+  private static final class RegionInputStream extends InputStream {
+    private final FileChannel channel;
+    private long position;
+    private final long end;
+
+    private RegionInputStream(FileChannel channel, long offset, long length) {
+      this.channel = channel;
+      this.position = offset;
+      this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int read = read(b, 0, 1);
+      return read == -1 ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      long remaining = end - position;
+      if (remaining <= 0) {
+        return -1;
+      }
+      int toRead = (int) Math.min(len, remaining);
+      int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+      if (read > 0) {
+        position += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0L, Math.min(n, end - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+  }
+}
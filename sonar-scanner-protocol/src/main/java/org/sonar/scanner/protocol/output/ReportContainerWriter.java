@@ -0,0 +1,185 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import static org.sonar.scanner.protocol.output.ReportContainer.MAGIC;
+import static org.sonar.scanner.protocol.output.ReportContainer.VERSION;
+
+/**
+ * Writes the files of an analysis report into a single report container (see {@link ReportContainer}).
+ * <p>
+ * The container is written sequentially, without seeking, so that it can be streamed to the server
+ * while it is generated. Each entry is compressed on its own, so that it can be read in place.
+ * </p>
+ * <pre>
+ * header:  magic (int), version (byte)
+ * entries: compressed content of each entry (zlib)
+ * index:   number of entries (int), then name (UTF), offset, compressed length and length (longs) of each entry
+ * footer:  offset of index (long), magic (int)
+ * </pre>
+ */
+public class ReportContainerWriter {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final CountingOutputStream output;
+  private final DataOutputStream dataOutput;
+  private final Deflater deflater = new Deflater();
+  private final List<Entry> entries = new ArrayList<>();
+  private final Set<String> names = new HashSet<>();
+  private boolean finished = false;
+
+  public ReportContainerWriter(OutputStream output) throws IOException {
+    this.output = new CountingOutputStream(new BufferedOutputStream(output));
+    this.dataOutput = new DataOutputStream(this.output);
+    dataOutput.writeInt(MAGIC);
+    dataOutput.writeByte(VERSION);
+  }
+
+  /**
+   * Writes all the files of the report directory {@code dir} into a container streamed to {@code output}.
+   * The stream {@code output} is flushed but not closed.
+   */
+  public static void writeDirectory(File dir, OutputStream output) throws IOException {
+    File[] files = dir.listFiles(File::isFile);
+    if (files == null) {
+      throw new IllegalArgumentException("Directory of analysis report does not exist: " + dir);
+    }
+    Arrays.sort(files);
+    ReportContainerWriter writer = new ReportContainerWriter(output);
+    for (File file : files) {
+      writer.addFile(file.getName(), file);
+    }
+    writer.finish();
+  }
+
+  public ReportContainerWriter addFile(String name, File file) throws IOException {
+    try (InputStream input = new FileInputStream(file)) {
+      return addEntry(name, input);
+    }
+  }
+
+  /**
+   * Adds an entry which content is read from {@code content}. The stream is not closed.
+   */
+  public ReportContainerWriter addEntry(String name, InputStream content) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("Report container is already finished");
+    }
+    if (!names.add(name)) {
+      throw new IllegalArgumentException("Entry already exists in report container: " + name);
+    }
+    long offset = output.count;
+    deflater.reset();
+    DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(new NonClosingOutputStream(output), deflater, BUFFER_SIZE);
+    long length = IOUtils.copyLarge(content, deflaterOutput);
+    deflaterOutput.finish();
+    entries.add(new Entry(name, offset, output.count - offset, length));
+    return this;
+  }
+
+  /**
+   * Writes the index of entries and flushes the underlying stream, which is not closed.
+   */
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    deflater.end();
+    long indexOffset = output.count;
+    dataOutput.writeInt(entries.size());
+    for (Entry entry : entries) {
+      dataOutput.writeUTF(entry.name);
+      dataOutput.writeLong(entry.offset);
+      dataOutput.writeLong(entry.compressedLength);
+      dataOutput.writeLong(entry.length);
+    }
+    dataOutput.writeLong(indexOffset);
+    dataOutput.writeInt(MAGIC);
+    dataOutput.flush();
+  }
+
+  private static final class Entry {
+    private final String name;
+    private final long offset;
+    private final long compressedLength;
+    private final long length;
+
+    private Entry(String name, long offset, long compressedLength, long length) {
+      this.name = name;
+      this.offset = offset;
+      this.compressedLength = compressedLength;
+      this.length = length;
+    }
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count = 0L;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+
+  private static final class NonClosingOutputStream extends FilterOutputStream {
+    private NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() {
+      // the container is still being written
+    }
+  }
+}
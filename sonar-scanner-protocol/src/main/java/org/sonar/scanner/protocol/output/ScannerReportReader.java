@@ -19,162 +19,300 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.function.Predicate;
 import javax.annotation.CheckForNull;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 
+/**
+ * Reads an analysis report, either from the directory written by {@link ScannerReportWriter} or in place from
+ * a {@link ReportContainer}.
+ */
 public class ScannerReportReader {
 
+  @CheckForNull
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final ReportContainer container;
 
   public ScannerReportReader(File dir) {
     this.fileStructure = new FileStructure(dir);
+    this.container = null;
+  }
+
+  /**
+   * The container is not closed by this reader.
+   */
+  public ScannerReportReader(ReportContainer container) {
+    this.fileStructure = null;
+    this.container = container;
   }
 
   public ScannerReport.Metadata readMetadata() {
-    File file = fileStructure.metadataFile();
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Metadata file is missing in analysis report: " + file);
+    if (!exists(FileStructure.METADATA)) {
+      throw new IllegalStateException("Metadata file is missing in analysis report: " + location(FileStructure.METADATA));
     }
-    return Protobuf.read(file, ScannerReport.Metadata.parser());
+    return read(FileStructure.METADATA, ScannerReport.Metadata.parser());
   }
 
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
-    File file = fileStructure.activeRules();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
-    }
-    return Protobuf.readStream(file, ScannerReport.ActiveRule.parser());
+    return readStream(FileStructure.ACTIVE_RULES, ScannerReport.ActiveRule.parser());
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.MEASURES, componentRef), ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
+    String name = FileStructure.nameFor(FileStructure.Domain.CHANGESETS, componentRef);
+    if (exists(name)) {
+      return read(name, ScannerReport.Changesets.parser());
     }
     return null;
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    String name = FileStructure.nameFor(FileStructure.Domain.COMPONENT, componentRef);
+    if (!exists(name)) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + location(name));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return read(name, ScannerReport.Component.parser());
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.ISSUES, componentRef), ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.DUPLICATIONS, componentRef), ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef), ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.SYMBOLS, componentRef), ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return exists(FileStructure.nameFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef));
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef), ScannerReport.SyntaxHighlightingRule.parser());
+  }
+
+  /**
+   * Highlighting rules of which at least one line is in {@code fromLine} to {@code toLine} (inclusive).
+   */
+  public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef, int fromLine, int toLine) {
+    checkLineRange(fromLine, toLine);
+    return new FilteringIterator<>(readComponentSyntaxHighlighting(fileRef),
+      rule -> rule.getRange().getStartLine() <= toLine && rule.getRange().getEndLine() >= fromLine);
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return exists(FileStructure.nameFor(FileStructure.Domain.COVERAGES, componentRef));
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.nameFor(FileStructure.Domain.COVERAGES, fileRef), ScannerReport.LineCoverage.parser());
+  }
+
+  /**
+   * Coverage of lines {@code fromLine} to {@code toLine} (inclusive).
+   */
+  public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef, int fromLine, int toLine) {
+    checkLineRange(fromLine, toLine);
+    return new FilteringIterator<>(readComponentCoverage(fileRef), coverage -> coverage.getLine() >= fromLine && coverage.getLine() <= toLine);
   }
 
+  /**
+   * Only supported when reading a report directory, see {@link #openFileSource(int)}.
+   */
   @CheckForNull
   public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
-    if (fileExists(file)) {
-      return file;
-    }
-    return null;
+    return fileIfExists(FileStructure.Domain.SOURCE, fileRef);
   }
 
+  /**
+   * Only supported when reading a report directory, see {@link #openTests(int)}.
+   */
   @CheckForNull
   public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
-    }
-
-    return null;
+    return fileIfExists(FileStructure.Domain.TESTS, testFileRef);
   }
 
+  /**
+   * Only supported when reading a report directory, see {@link #openCoverageDetails(int)}.
+   */
   @CheckForNull
   public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+    return fileIfExists(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  }
+
+  /**
+   * Opens the source of a file, or returns {@code null} if the report does not contain it. The stream
+   * must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return openIfExists(FileStructure.nameFor(FileStructure.Domain.SOURCE, fileRef));
+  }
+
+  /**
+   * Opens the stream of {@link ScannerReport.Test} of a test file, or returns {@code null} if the report
+   * does not contain it. The stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return openIfExists(FileStructure.nameFor(FileStructure.Domain.TESTS, testFileRef));
+  }
+
+  /**
+   * Opens the stream of {@link ScannerReport.CoverageDetail} of a test file, or returns {@code null} if the
+   * report does not contain it. The stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return openIfExists(FileStructure.nameFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
+
+  /**
+   * Opens the logs of the scanner, or returns {@code null} if the report does not contain them. The stream
+   * must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openAnalysisLog() {
+    return openIfExists(FileStructure.ANALYSIS_LOG);
+  }
+
+  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
+    return readStream(FileStructure.CONTEXT_PROPERTIES, ScannerReport.ContextProperty.parser());
+  }
+
+  /**
+   * Only supported when reading a report directory.
+   */
+  public FileStructure getFileStructure() {
+    if (fileStructure == null) {
+      throw new IllegalStateException("Report is read from container " + container.getFile() + ", it has no directory");
+    }
+    return fileStructure;
+  }
+
+  @CheckForNull
+  private File fileIfExists(FileStructure.Domain domain, int componentRef) {
+    File file = getFileStructure().fileFor(domain, componentRef);
     if (fileExists(file)) {
       return file;
     }
-
     return null;
   }
 
-  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
-    File file = fileStructure.contextProperties();
-    if (!fileExists(file)) {
+  private <MSG extends Message> MSG read(String name, Parser<MSG> parser) {
+    if (container == null) {
+      return Protobuf.read(fileFor(name), parser);
+    }
+    return Protobuf.read(open(name), parser);
+  }
+
+  private <MSG extends Message> CloseableIterator<MSG> readStream(String name, Parser<MSG> parser) {
+    if (!exists(name)) {
       return emptyCloseableIterator();
     }
-    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
+    if (container == null) {
+      return Protobuf.readStream(fileFor(name), parser);
+    }
+    return Protobuf.readStream(open(name), parser);
+  }
+
+  private static void checkLineRange(int fromLine, int toLine) {
+    if (fromLine > toLine) {
+      throw new IllegalArgumentException("Line range is invalid: " + fromLine + " > " + toLine);
+    }
+  }
+
+  @CheckForNull
+  private InputStream openIfExists(String name) {
+    if (exists(name)) {
+      return open(name);
+    }
+    return null;
+  }
+
+  private boolean exists(String name) {
+    if (container == null) {
+      return fileExists(fileFor(name));
+    }
+    return container.hasEntry(name);
+  }
+
+  private InputStream open(String name) {
+    if (container == null) {
+      File file = fileFor(name);
+      try {
+        return new BufferedInputStream(new FileInputStream(file));
+      } catch (FileNotFoundException e) {
+        throw new IllegalStateException("Fail to open file " + file, e);
+      }
+    }
+    return new BufferedInputStream(container.openEntry(name));
+  }
+
+  private String location(String name) {
+    if (container == null) {
+      return fileFor(name).toString();
+    }
+    return name + " in " + container.getFile();
+  }
+
+  private File fileFor(String name) {
+    return new File(fileStructure.root(), name);
   }
 
   private static boolean fileExists(File file) {
     return file.exists() && file.isFile();
   }
 
-  public FileStructure getFileStructure() {
-    return fileStructure;
+  /**
+   * Messages of a stream which match a predicate.
+   */
+  private static final class FilteringIterator<MSG> extends CloseableIterator<MSG> {
+    private final CloseableIterator<MSG> delegate;
+    private final Predicate<MSG> predicate;
+
+    private FilteringIterator(CloseableIterator<MSG> delegate, Predicate<MSG> predicate) {
+      this.delegate = delegate;
+      this.predicate = predicate;
+    }
+
+    @Override
+    @CheckForNull
+    protected MSG doNext() {
+      while (delegate.hasNext()) {
+        MSG message = delegate.next();
+        if (predicate.test(message)) {
+          return message;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    protected void doClose() {
+      delegate.close();
+    }
   }
 }
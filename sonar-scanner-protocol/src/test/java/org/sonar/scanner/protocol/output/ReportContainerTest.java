@@ -0,0 +1,144 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportContainerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void write_directory_and_read_entries_in_place() throws IOException {
+    File dir = temp.newFolder();
+    FileUtils.write(new File(dir, "metadata.pb"), "metadata");
+    FileUtils.write(new File(dir, "source-1.txt"), "line1\nline2\n");
+    FileUtils.write(new File(dir, "empty.pb"), "");
+    byte[] random = new byte[100_000];
+    new Random(42).nextBytes(random);
+    FileUtils.writeByteArrayToFile(new File(dir, "random.pb"), random);
+    new File(dir, "subdir").mkdir();
+
+    File file = temp.newFile();
+    try (OutputStream output = new FileOutputStream(file)) {
+      ReportContainerWriter.writeDirectory(dir, output);
+    }
+
+    assertThat(ReportContainer.isReportContainer(file)).isTrue();
+    try (ReportContainer underTest = ReportContainer.open(file)) {
+      assertThat(underTest.entryNames()).containsExactly("empty.pb", "metadata.pb", "random.pb", "source-1.txt");
+      assertThat(underTest.hasEntry("subdir")).isFalse();
+      assertThat(underTest.entryLength("random.pb")).isEqualTo(100_000L);
+      // entries are read in any order, and several of them at the same time
+      try (InputStream source = underTest.openEntry("source-1.txt"); InputStream metadata = underTest.openEntry("metadata.pb")) {
+        assertThat(IOUtils.toString(metadata, StandardCharsets.UTF_8)).isEqualTo("metadata");
+        assertThat(IOUtils.toString(source, StandardCharsets.UTF_8)).isEqualTo("line1\nline2\n");
+      }
+      try (InputStream input = underTest.openEntry("random.pb")) {
+        assertThat(IOUtils.toByteArray(input)).isEqualTo(random);
+      }
+      try (InputStream input = underTest.openEntry("empty.pb")) {
+        assertThat(input.read()).isEqualTo(-1);
+      }
+    }
+  }
+
+  @Test
+  public void entries_are_compressed() throws IOException {
+    File file = temp.newFile();
+    byte[] content = new byte[100_000];
+    try (OutputStream output = new FileOutputStream(file)) {
+      new ReportContainerWriter(output).addEntry("zeros", new ByteArrayInputStream(content)).finish();
+    }
+
+    assertThat(file.length()).isLessThan(1_000L);
+  }
+
+  @Test
+  public void fail_to_add_entry_twice() throws IOException {
+    ReportContainerWriter writer = new ReportContainerWriter(new FileOutputStream(temp.newFile()));
+    writer.addEntry("foo", new ByteArrayInputStream(new byte[0]));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Entry already exists in report container: foo");
+
+    writer.addEntry("foo", new ByteArrayInputStream(new byte[0]));
+  }
+
+  @Test
+  public void fail_to_open_missing_entry() throws IOException {
+    File file = temp.newFile();
+    try (OutputStream output = new FileOutputStream(file)) {
+      new ReportContainerWriter(output).finish();
+    }
+
+    try (ReportContainer underTest = ReportContainer.open(file)) {
+      assertThat(underTest.entryNames()).isEmpty();
+
+      expectedException.expect(IllegalArgumentException.class);
+      expectedException.expectMessage("Entry foo does not exist in report container");
+
+      underTest.openEntry("foo");
+    }
+  }
+
+  @Test
+  public void fail_to_open_truncated_container() throws IOException {
+    File file = temp.newFile();
+    try (OutputStream output = new FileOutputStream(file)) {
+      new ReportContainerWriter(output).addEntry("foo", new ByteArrayInputStream(new byte[1000])).finish();
+    }
+    byte[] bytes = FileUtils.readFileToByteArray(file);
+    FileUtils.writeByteArrayToFile(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Report container is truncated or corrupted");
+
+    ReportContainer.open(file);
+  }
+
+  @Test
+  public void zip_file_is_not_a_report_container() throws IOException {
+    File file = temp.newFile();
+    FileUtils.writeByteArrayToFile(file, new byte[] {0x50, 0x4b, 0x03, 0x04, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+
+    assertThat(ReportContainer.isReportContainer(file)).isFalse();
+    assertThat(ReportContainer.isReportContainer(temp.newFolder())).isFalse();
+  }
+}
@@ -23,6 +23,9 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -297,6 +300,70 @@ public class ScannerReportReaderTest {
     }
   }
 
+  @Test
+  public void read_coverage_of_line_range() {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeComponentCoverage(1, ScannerReportWriterTest.coverageOfLines(1, 1000));
+
+    assertThat(lines(underTest.readComponentCoverage(1, 500, 503))).containsExactly(500, 501, 502, 503);
+    assertThat(lines(underTest.readComponentCoverage(1, 1, 2))).containsExactly(1, 2);
+    assertThat(lines(underTest.readComponentCoverage(1, 999, 2000))).containsExactly(999, 1000);
+    assertThat(lines(underTest.readComponentCoverage(1, 1001, 2000))).isEmpty();
+  }
+
+  @Test
+  public void read_coverage_of_line_range_not_sorted_by_line() {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    List<ScannerReport.LineCoverage> coverages = ScannerReportWriterTest.coverageOfLines(1, 1000);
+    Collections.reverse(coverages);
+    writer.writeComponentCoverage(1, coverages);
+
+    assertThat(lines(underTest.readComponentCoverage(1, 500, 503))).containsExactly(503, 502, 501, 500);
+  }
+
+  @Test
+  public void read_coverage_of_line_range_from_container() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeComponentCoverage(1, ScannerReportWriterTest.coverageOfLines(1, 1000));
+    File containerFile = temp.newFile();
+    try (FileOutputStream outputStream = new FileOutputStream(containerFile)) {
+      ReportContainerWriter.writeDirectory(dir, outputStream);
+    }
+
+    try (ReportContainer container = ReportContainer.open(containerFile)) {
+      ScannerReportReader reader = new ScannerReportReader(container);
+
+      assertThat(lines(reader.readComponentCoverage(1, 700, 702))).containsExactly(700, 701, 702);
+      assertThat(lines(reader.readComponentCoverage(UNKNOWN_COMPONENT_REF, 1, 10))).isEmpty();
+    }
+  }
+
+  @Test
+  public void read_highlighting_of_line_range_including_rules_overlapping_the_range() {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    List<ScannerReport.SyntaxHighlightingRule> rules = new ArrayList<>();
+    for (int line = 1; line <= 500; line++) {
+      rules.add(ScannerReport.SyntaxHighlightingRule.newBuilder()
+        .setRange(ScannerReport.TextRange.newBuilder().setStartLine(line).setEndLine(line + 1))
+        .setType(HighlightingType.COMMENT)
+        .build());
+    }
+    writer.writeComponentSyntaxHighlighting(1, rules);
+
+    try (CloseableIterator<ScannerReport.SyntaxHighlightingRule> it = underTest.readComponentSyntaxHighlighting(1, 300, 301)) {
+      // starts before the range, but ends on its first line
+      assertThat(it.next().getRange().getStartLine()).isEqualTo(299);
+      assertThat(it.next().getRange().getStartLine()).isEqualTo(300);
+      assertThat(it.next().getRange().getStartLine()).isEqualTo(301);
+      assertThat(it.hasNext()).isFalse();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fail_to_read_invalid_line_range() {
+    underTest.readComponentCoverage(1, 10, 9);
+  }
+
   @Test
   public void return_empty_iterator_if_no_coverage_found() {
     assertThat(underTest.readComponentCoverage(UNKNOWN_COMPONENT_REF)).isEmpty();
@@ -377,4 +444,60 @@ public class ScannerReportReaderTest {
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
   }
+
+  @Test
+  public void read_report_from_container() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").setRootComponentRef(1).build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setKey("PROJECT_A").build());
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("the message").build()));
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+    File containerFile = temp.newFile();
+    try (FileOutputStream outputStream = new FileOutputStream(containerFile)) {
+      ReportContainerWriter.writeDirectory(dir, outputStream);
+    }
+
+    try (ReportContainer container = ReportContainer.open(containerFile)) {
+      ScannerReportReader reader = new ScannerReportReader(container);
+
+      assertThat(reader.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+      assertThat(reader.readComponent(1).getKey()).isEqualTo("PROJECT_A");
+      try (CloseableIterator<ScannerReport.Issue> issues = reader.readComponentIssues(1)) {
+        assertThat(issues.next().getMsg()).isEqualTo("the message");
+        assertThat(issues.hasNext()).isFalse();
+      }
+      assertThat(reader.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
+      assertThat(reader.readChangesets(1)).isNull();
+      try (InputStream inputStream = reader.openFileSource(1)) {
+        assertThat(IOUtils.readLines(inputStream)).containsOnly("line1", "line2");
+      }
+      assertThat(reader.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+      assertThat(reader.openTests(1)).isNull();
+    }
+  }
+
+  @Test
+  public void open_file_source_from_directory() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+
+    try (InputStream inputStream = underTest.openFileSource(1)) {
+      assertThat(IOUtils.readLines(inputStream)).containsOnly("line1", "line2");
+    }
+    assertThat(underTest.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+  }
+
+  private static List<Integer> lines(CloseableIterator<ScannerReport.LineCoverage> coverages) {
+    List<Integer> res = new ArrayList<>();
+    try {
+      coverages.forEachRemaining(coverage -> res.add(coverage.getLine()));
+    } finally {
+      coverages.close();
+    }
+    return res;
+  }
 }
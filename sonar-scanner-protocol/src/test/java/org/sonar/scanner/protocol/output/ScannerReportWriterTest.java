@@ -21,6 +21,8 @@ package org.sonar.scanner.protocol.output;
 
 import com.google.common.collect.Iterators;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
@@ -299,4 +301,12 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  static List<ScannerReport.LineCoverage> coverageOfLines(int fromLine, int toLine) {
+    List<ScannerReport.LineCoverage> res = new ArrayList<>();
+    for (int line = fromLine; line <= toLine; line++) {
+      res.add(ScannerReport.LineCoverage.newBuilder().setLine(line).setHits(line % 2 == 0).build());
+    }
+    return res;
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.generator;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+
+/**
+ * Names of the Java classes and accessors generated by protoc, following the rules of its Java generator.
+ */
+class JavaNames {
+
+  private JavaNames() {
+    // only static stuff
+  }
+
+  static String javaPackage(FileDescriptorProto file) {
+    if (file.getOptions().hasJavaPackage()) {
+      return file.getOptions().getJavaPackage();
+    }
+    return file.getPackage();
+  }
+
+  static String outerClassName(FileDescriptorProto file) {
+    if (file.getOptions().hasJavaOuterClassname()) {
+      return file.getOptions().getJavaOuterClassname();
+    }
+    String name = file.getName();
+    name = name.substring(name.lastIndexOf('/') + 1);
+    if (name.endsWith(".proto")) {
+      name = name.substring(0, name.length() - ".proto".length());
+    }
+    name = underscoresToCamelCase(name, true);
+    return conflictsWithType(file, name) ? (name + "OuterClass") : name;
+  }
+
+  private static boolean conflictsWithType(FileDescriptorProto file, String name) {
+    for (DescriptorProto message : file.getMessageTypeList()) {
+      if (message.getName().equals(name)) {
+        return true;
+      }
+    }
+    for (EnumDescriptorProto enumType : file.getEnumTypeList()) {
+      if (enumType.getName().equals(name)) {
+        return true;
+      }
+    }
+    for (ServiceDescriptorProto service : file.getServiceList()) {
+      if (service.getName().equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static String writerPackage(FileDescriptorProto file) {
+    String javaPackage = javaPackage(file);
+    return javaPackage.isEmpty() ? "json" : (javaPackage + ".json");
+  }
+
+  static String writerSimpleClassName(FileDescriptorProto file) {
+    return outerClassName(file) + "JsonWriter";
+  }
+
+  static String writerClassName(FileDescriptorProto file) {
+    return writerPackage(file) + "." + writerSimpleClassName(file);
+  }
+
+  /**
+   * Name of a field or oneof as used in the accessors, for example "fooBar" for "get" + "FooBar" + "()".
+   */
+  static String capitalizedName(String name) {
+    return underscoresToCamelCase(name, true);
+  }
+
+  static String underscoresToCamelCase(String input, boolean capitalizeFirst) {
+    StringBuilder result = new StringBuilder(input.length());
+    boolean capitalizeNext = capitalizeFirst;
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if ('a' <= c && c <= 'z') {
+        result.append(capitalizeNext ? Character.toUpperCase(c) : c);
+        capitalizeNext = false;
+      } else if ('A' <= c && c <= 'Z') {
+        // capital letters after the first are left as-is
+        result.append(i == 0 && !capitalizeNext ? Character.toLowerCase(c) : c);
+        capitalizeNext = false;
+      } else if ('0' <= c && c <= '9') {
+        result.append(c);
+        capitalizeNext = true;
+      } else {
+        capitalizeNext = true;
+      }
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.generator;
+
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.sonarqube.ws.generator.ProtoTypes.MessageType;
+
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED;
+import static org.sonarqube.ws.generator.JavaNames.capitalizedName;
+
+/**
+ * Source of the class writing as JSON the messages declared by a proto file. Each message gets a method
+ * {@code writeFields(message, json)} which writes its fields, in the order of declaration, into an object
+ * started by the caller. Names of fields are encoded once, when the class is loaded.
+ */
+class JsonWriterSource {
+
+  static final String GENERATED_COMMENT = "// Generated by sonar-ws-generator. DO NOT EDIT!\n";
+  static final String JSON_PACKAGE = "org.sonarqube.ws.json";
+
+  private final ProtoTypes types;
+  private final FileDescriptorProto file;
+  private final List<MessageType> messages;
+  private final Map<String, String> nameConstants = new LinkedHashMap<>();
+  private final Set<String> constants = new HashSet<>();
+  private final StringBuilder methods = new StringBuilder();
+
+  JsonWriterSource(ProtoTypes types, FileDescriptorProto file, List<MessageType> messages) {
+    this.types = types;
+    this.file = file;
+    this.messages = messages;
+  }
+
+  String fileName() {
+    return JavaNames.writerClassName(file).replace('.', '/') + ".java";
+  }
+
+  String generate() {
+    for (MessageType message : messages) {
+      appendWriteFields(message);
+    }
+
+    String packageName = JavaNames.writerPackage(file);
+    String className = JavaNames.writerSimpleClassName(file);
+    StringBuilder source = new StringBuilder();
+    source.append(GENERATED_COMMENT);
+    source.append("// source: ").append(file.getName()).append("\n\n");
+    source.append("package ").append(packageName).append(";\n\n");
+    if (!JSON_PACKAGE.equals(packageName)) {
+      source.append("import ").append(JSON_PACKAGE).append(".JsonStream;\n\n");
+    }
+    source.append("public final class ").append(className).append(" {\n\n");
+    for (Map.Entry<String, String> nameConstant : nameConstants.entrySet()) {
+      source.append("  private static final byte[] ").append(nameConstant.getValue())
+        .append(" = JsonStream.encodeName(\"").append(nameConstant.getKey()).append("\");\n");
+    }
+    source.append("\n  private ").append(className).append("() {\n    // only static stuff\n  }\n");
+    source.append(methods);
+    source.append("}\n");
+    return source.toString();
+  }
+
+  private void appendWriteFields(MessageType message) {
+    line(0, "");
+    line(1, "public static void writeFields(" + message.javaName() + " message, JsonStream json) {");
+    for (FieldDescriptorProto field : message.descriptor().getFieldList()) {
+      appendField(message, field);
+    }
+    line(1, "}");
+  }
+
+  private void appendField(MessageType message, FieldDescriptorProto field) {
+    String accessor = "message.get" + capitalizedName(field.getName());
+    String name = nameConstant(field.getName());
+    if (field.getLabel() == LABEL_REPEATED) {
+      // repeated fields are always written, even when empty
+      line(2, "json.name(" + name + ");");
+      appendArray(field, accessor + "List()", 2, 0);
+    } else {
+      line(2, "if (" + presence(message, field) + ") {");
+      line(3, "json.name(" + name + ");");
+      appendValue(field, accessor + "()", 3, 0);
+      line(2, "}");
+    }
+  }
+
+  /**
+   * Same condition as {@link com.google.protobuf.Message#hasField} for a singular field. As proto3 scalar fields
+   * have no "has" accessor, they are present when different from their default value.
+   */
+  private static String presence(MessageType message, FieldDescriptorProto field) {
+    String capitalizedName = capitalizedName(field.getName());
+    if (field.hasOneofIndex()) {
+      String caseName = capitalizedName(message.descriptor().getOneofDecl(field.getOneofIndex()).getName()) + "Case";
+      return "message.get" + caseName + "() == " + message.javaName() + "." + caseName + "." + field.getName().toUpperCase(Locale.ENGLISH);
+    }
+    if (!message.isProto3() || ProtoTypes.isMessage(field)) {
+      return "message.has" + capitalizedName + "()";
+    }
+    String getter = "message.get" + capitalizedName + "()";
+    switch (field.getType()) {
+      case TYPE_STRING:
+        return "!" + getter + ".isEmpty()";
+      case TYPE_BOOL:
+        return getter;
+      case TYPE_DOUBLE:
+        // -0.0 differs from the default value
+        return "Double.doubleToRawLongBits(" + getter + ") != 0L";
+      case TYPE_ENUM:
+        return "message.get" + capitalizedName + "Value() != 0";
+      default:
+        return getter + " != 0";
+    }
+  }
+
+  private void appendArray(FieldDescriptorProto field, String list, int indent, int depth) {
+    String item = "item" + depth;
+    line(indent, "json.beginArray();");
+    line(indent, "for (" + javaType(field) + " " + item + " : " + list + ") {");
+    appendValue(field, item, indent + 1, depth + 1);
+    line(indent, "}");
+    line(indent, "json.endArray();");
+  }
+
+  private void appendValue(FieldDescriptorProto field, String value, int indent, int depth) {
+    switch (field.getType()) {
+      case TYPE_ENUM:
+        line(indent, "json.value(" + value + ".name());");
+        break;
+      case TYPE_MESSAGE:
+        MessageType type = messageType(field);
+        if (ProtoTypes.isWrapper(type)) {
+          FieldDescriptorProto wrapped = type.descriptor().getField(0);
+          appendArray(wrapped, value + ".get" + capitalizedName(wrapped.getName()) + "List()", indent, depth);
+        } else {
+          String writer = type.file().getName().equals(file.getName()) ? "writeFields" : (type.writerClassName() + ".writeFields");
+          line(indent, "json.beginObject();");
+          line(indent, writer + "(" + value + ", json);");
+          line(indent, "json.endObject();");
+        }
+        break;
+      default:
+        line(indent, "json.value(" + value + ");");
+    }
+  }
+
+  private String javaType(FieldDescriptorProto field) {
+    switch (field.getType()) {
+      case TYPE_DOUBLE:
+        return "double";
+      case TYPE_INT32:
+      case TYPE_UINT32:
+      case TYPE_SINT32:
+      case TYPE_FIXED32:
+      case TYPE_SFIXED32:
+        return "int";
+      case TYPE_INT64:
+      case TYPE_UINT64:
+      case TYPE_SINT64:
+      case TYPE_FIXED64:
+      case TYPE_SFIXED64:
+        return "long";
+      case TYPE_BOOL:
+        return "boolean";
+      case TYPE_STRING:
+        return "String";
+      case TYPE_ENUM:
+        return types.enumJavaName(field.getTypeName());
+      case TYPE_MESSAGE:
+        return messageType(field).javaName();
+      default:
+        throw new IllegalStateException("Unsupported type " + field.getType() + " of field " + field.getName());
+    }
+  }
+
+  private MessageType messageType(FieldDescriptorProto field) {
+    MessageType type = types.message(field.getTypeName());
+    if (type == null) {
+      throw new IllegalStateException("Unknown message " + field.getTypeName());
+    }
+    return type;
+  }
+
+  private String nameConstant(String name) {
+    String constant = nameConstants.get(name);
+    if (constant == null) {
+      String base = "NAME_" + toConstantCase(name);
+      constant = base;
+      for (int i = 2; !constants.add(constant); i++) {
+        constant = base + "_" + i;
+      }
+      nameConstants.put(name, constant);
+    }
+    return constant;
+  }
+
+  private static String toConstantCase(String name) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(name.charAt(i - 1))) {
+        result.append('_');
+      }
+      result.append(Character.isLetterOrDigit(c) ? Character.toUpperCase(c) : '_');
+    }
+    return result.toString();
+  }
+
+  private void line(int indent, String code) {
+    if (!code.isEmpty()) {
+      for (int i = 0; i < indent; i++) {
+        methods.append("  ");
+      }
+      methods.append(code);
+    }
+    methods.append('\n');
+  }
+}
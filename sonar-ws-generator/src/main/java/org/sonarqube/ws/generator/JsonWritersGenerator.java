@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.generator;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.sonarqube.ws.generator.ProtoTypes.MessageType;
+
+/**
+ * Plugin of protoc generating, for each proto file, a class which writes its messages as JSON without reflection.
+ * The output is the same as the reflective writer {@code org.sonar.core.util.ProtobufJsonFormat}. Messages which
+ * can't be written by generated code, for example because they contain maps, are not registered and are still
+ * written by the reflective writer.
+ * <p/>
+ * As any plugin of protoc, it reads a {@link CodeGeneratorRequest} from the standard input and writes a
+ * {@link CodeGeneratorResponse} to the standard output.
+ */
+public class JsonWritersGenerator {
+
+  static final String REGISTRY_CLASS = "GeneratedJsonWriters";
+
+  private JsonWritersGenerator() {
+    // only static stuff
+  }
+
+  public static void main(String[] args) throws IOException {
+    CodeGeneratorRequest request = CodeGeneratorRequest.parseFrom(System.in);
+    CodeGeneratorResponse response;
+    try {
+      response = generate(request);
+    } catch (RuntimeException e) {
+      response = CodeGeneratorResponse.newBuilder().setError(String.valueOf(e.getMessage())).build();
+    }
+    response.writeTo(System.out);
+    System.out.flush();
+  }
+
+  static CodeGeneratorResponse generate(CodeGeneratorRequest request) {
+    ProtoTypes types = new ProtoTypes(request.getProtoFileList(), request.getFileToGenerateList());
+    CodeGeneratorResponse.Builder response = CodeGeneratorResponse.newBuilder();
+    StringBuilder registrations = new StringBuilder();
+    for (FileDescriptorProto file : request.getProtoFileList()) {
+      if (!request.getFileToGenerateList().contains(file.getName())) {
+        continue;
+      }
+      List<MessageType> messages = new ArrayList<>();
+      String protoPrefix = file.getPackage().isEmpty() ? "." : ("." + file.getPackage() + ".");
+      for (DescriptorProto message : file.getMessageTypeList()) {
+        collectSupported(types, message, protoPrefix, messages);
+      }
+      if (messages.isEmpty()) {
+        continue;
+      }
+      JsonWriterSource source = new JsonWriterSource(types, file, messages);
+      response.addFile(CodeGeneratorResponse.File.newBuilder()
+        .setName(source.fileName())
+        .setContent(source.generate()));
+      for (MessageType message : messages) {
+        registrations.append("    writers.put(").append(message.javaName()).append(".class, (message, json) -> ")
+          .append(message.writerClassName()).append(".writeFields((").append(message.javaName()).append(") message, json));\n");
+      }
+    }
+    response.addFile(CodeGeneratorResponse.File.newBuilder()
+      .setName(JsonWriterSource.JSON_PACKAGE.replace('.', '/') + "/" + REGISTRY_CLASS + ".java")
+      .setContent(registry(registrations)));
+    return response.build();
+  }
+
+  private static void collectSupported(ProtoTypes types, DescriptorProto descriptor, String protoPrefix, List<MessageType> supported) {
+    String protoName = protoPrefix + descriptor.getName();
+    MessageType message = types.message(protoName);
+    if (message != null && types.isSupported(message)) {
+      supported.add(message);
+    }
+    for (DescriptorProto nested : descriptor.getNestedTypeList()) {
+      collectSupported(types, nested, protoName + ".", supported);
+    }
+  }
+
+  private static String registry(StringBuilder registrations) {
+    return JsonWriterSource.GENERATED_COMMENT + "\n"
+      + "package " + JsonWriterSource.JSON_PACKAGE + ";\n\n"
+      + "final class " + REGISTRY_CLASS + " {\n\n"
+      + "  private " + REGISTRY_CLASS + "() {\n"
+      + "    // only static stuff\n"
+      + "  }\n\n"
+      + "  static void register(java.util.Map<Class<? extends com.google.protobuf.Message>, MessageJsonWriter> writers) {\n"
+      + registrations
+      + "  }\n"
+      + "}\n";
+  }
+}
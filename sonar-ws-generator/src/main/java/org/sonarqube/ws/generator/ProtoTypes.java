@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.generator;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE;
+
+/**
+ * Index of the messages and enums declared by the proto files given to protoc, by their fully qualified proto name.
+ */
+class ProtoTypes {
+
+  private final Map<String, MessageType> messages = new HashMap<>();
+  private final Map<String, String> enumJavaNames = new HashMap<>();
+  private final Set<String> generatedFiles;
+  private final Map<MessageType, Boolean> supported = new HashMap<>();
+  private final Set<MessageType> inProgress = new HashSet<>();
+
+  ProtoTypes(List<FileDescriptorProto> files, Collection<String> generatedFiles) {
+    this.generatedFiles = new HashSet<>(generatedFiles);
+    for (FileDescriptorProto file : files) {
+      String protoPrefix = file.getPackage().isEmpty() ? "." : ("." + file.getPackage() + ".");
+      String javaPrefix = JavaNames.javaPackage(file) + ".";
+      if (!file.getOptions().getJavaMultipleFiles()) {
+        javaPrefix += JavaNames.outerClassName(file) + ".";
+      }
+      for (EnumDescriptorProto enumType : file.getEnumTypeList()) {
+        enumJavaNames.put(protoPrefix + enumType.getName(), javaPrefix + enumType.getName());
+      }
+      for (DescriptorProto message : file.getMessageTypeList()) {
+        index(file, message, protoPrefix, javaPrefix);
+      }
+    }
+  }
+
+  private void index(FileDescriptorProto file, DescriptorProto message, String protoPrefix, String javaPrefix) {
+    String protoName = protoPrefix + message.getName();
+    String javaName = javaPrefix + message.getName();
+    messages.put(protoName, new MessageType(file, message, javaName));
+    for (EnumDescriptorProto enumType : message.getEnumTypeList()) {
+      enumJavaNames.put(protoName + "." + enumType.getName(), javaName + "." + enumType.getName());
+    }
+    for (DescriptorProto nested : message.getNestedTypeList()) {
+      index(file, nested, protoName + ".", javaName + ".");
+    }
+  }
+
+  @CheckForNull
+  MessageType message(String protoName) {
+    return messages.get(protoName);
+  }
+
+  String enumJavaName(String protoName) {
+    String javaName = enumJavaNames.get(protoName);
+    if (javaName == null) {
+      throw new IllegalStateException("Unknown enum " + protoName);
+    }
+    return javaName;
+  }
+
+  /**
+   * A writer is generated only when all the fields of the message, and of the messages it contains, can be written.
+   * Maps, floats and bytes are left to the reflective writer, as well as messages declared by files that are not
+   * generated.
+   */
+  boolean isSupported(MessageType message) {
+    Boolean result = supported.get(message);
+    if (result != null) {
+      return result;
+    }
+    if (!inProgress.add(message)) {
+      // recursive type, support is decided by the other fields
+      return true;
+    }
+    boolean value = generatedFiles.contains(message.file().getName()) && !message.descriptor().getOptions().getMapEntry();
+    for (FieldDescriptorProto field : message.descriptor().getFieldList()) {
+      value &= isSupported(field);
+    }
+    inProgress.remove(message);
+    if (inProgress.isEmpty()) {
+      // result of a type nested in a recursion may depend on types which are not fully evaluated yet
+      supported.put(message, value);
+    }
+    return value;
+  }
+
+  private boolean isSupported(FieldDescriptorProto field) {
+    switch (field.getType()) {
+      case TYPE_FLOAT:
+      case TYPE_BYTES:
+      case TYPE_GROUP:
+        return false;
+      case TYPE_MESSAGE:
+        MessageType type = message(field.getTypeName());
+        return type != null && isSupported(type);
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Same convention as the reflective writer: a message with a single repeated field named as the message is
+   * written as the array of this field.
+   */
+  static boolean isMessage(FieldDescriptorProto field) {
+    return field.getType() == TYPE_MESSAGE;
+  }
+
+  static boolean isWrapper(MessageType message) {
+    List<FieldDescriptorProto> fields = message.descriptor().getFieldList();
+    return fields.size() == 1
+      && fields.get(0).getLabel() == LABEL_REPEATED
+      && fields.get(0).getName().equalsIgnoreCase(message.descriptor().getName());
+  }
+
+  static final class MessageType {
+    private final FileDescriptorProto file;
+    private final DescriptorProto descriptor;
+    private final String javaName;
+
+    private MessageType(FileDescriptorProto file, DescriptorProto descriptor, String javaName) {
+      this.file = file;
+      this.descriptor = descriptor;
+      this.javaName = javaName;
+    }
+
+    FileDescriptorProto file() {
+      return file;
+    }
+
+    DescriptorProto descriptor() {
+      return descriptor;
+    }
+
+    String javaName() {
+      return javaName;
+    }
+
+    boolean isProto3() {
+      return "proto3".equals(file.getSyntax());
+    }
+
+    String writerClassName() {
+      return JavaNames.writerClassName(file);
+    }
+  }
+}
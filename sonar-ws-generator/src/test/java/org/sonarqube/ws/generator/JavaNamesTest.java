@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.generator;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonarqube.ws.generator.JavaNames.underscoresToCamelCase;
+
+public class JavaNamesTest {
+
+  @Test
+  public void convert_names_as_protoc() {
+    assertThat(underscoresToCamelCase("key", true)).isEqualTo("Key");
+    assertThat(underscoresToCamelCase("componentId", true)).isEqualTo("ComponentId");
+    assertThat(underscoresToCamelCase("fUpdateAge", true)).isEqualTo("FUpdateAge");
+    assertThat(underscoresToCamelCase("f_update_age", true)).isEqualTo("FUpdateAge");
+    assertThat(underscoresToCamelCase("internal_key", true)).isEqualTo("InternalKey");
+    assertThat(underscoresToCamelCase("FileDataByPath", true)).isEqualTo("FileDataByPath");
+    assertThat(underscoresToCamelCase("FileDataByPath", false)).isEqualTo("fileDataByPath");
+    assertThat(underscoresToCamelCase("value2text", true)).isEqualTo("Value2Text");
+    assertThat(underscoresToCamelCase("ws-commons", true)).isEqualTo("WsCommons");
+  }
+
+  @Test
+  public void outer_class_name_is_java_option_if_defined() {
+    FileDescriptorProto file = FileDescriptorProto.newBuilder()
+      .setName("ws-commons.proto")
+      .setPackage("sonarqube.ws.commons")
+      .setOptions(FileOptions.newBuilder().setJavaPackage("org.sonarqube.ws").setJavaOuterClassname("Common"))
+      .build();
+
+    assertThat(JavaNames.outerClassName(file)).isEqualTo("Common");
+    assertThat(JavaNames.writerClassName(file)).isEqualTo("org.sonarqube.ws.json.CommonJsonWriter");
+  }
+
+  @Test
+  public void outer_class_name_is_deduced_from_file_name() {
+    FileDescriptorProto file = FileDescriptorProto.newBuilder()
+      .setName("org/sonar/ws_commons.proto")
+      .setPackage("sonar")
+      .build();
+
+    assertThat(JavaNames.outerClassName(file)).isEqualTo("WsCommons");
+    assertThat(JavaNames.writerClassName(file)).isEqualTo("sonar.json.WsCommonsJsonWriter");
+  }
+
+  @Test
+  public void outer_class_name_does_not_conflict_with_messages() {
+    FileDescriptorProto file = FileDescriptorProto.newBuilder()
+      .setName("foo.proto")
+      .addMessageType(DescriptorProto.newBuilder().setName("Foo"))
+      .build();
+
+    assertThat(JavaNames.outerClassName(file)).isEqualTo("FooOuterClass");
+    assertThat(JavaNames.writerClassName(file)).isEqualTo("json.FooOuterClassJsonWriter");
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.generator;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import com.google.protobuf.DescriptorProtos.MessageOptions;
+import com.google.protobuf.DescriptorProtos.OneofDescriptorProto;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import org.junit.Test;
+
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_BOOL;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_ENUM;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_FLOAT;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT32;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE;
+import static com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonWritersGeneratorTest {
+
+  private static final FileDescriptorProto COMMONS = FileDescriptorProto.newBuilder()
+    .setName("ws-commons.proto")
+    .setPackage("sonarqube.ws.commons")
+    .setOptions(FileOptions.newBuilder().setJavaPackage("org.sonarqube.ws").setJavaOuterClassname("Common"))
+    .addEnumType(EnumDescriptorProto.newBuilder().setName("Severity"))
+    .addMessageType(DescriptorProto.newBuilder().setName("Paging")
+      .addField(field("pageIndex", LABEL_OPTIONAL, TYPE_INT32)))
+    .addMessageType(DescriptorProto.newBuilder().setName("Ratio")
+      .addField(field("value", LABEL_OPTIONAL, TYPE_FLOAT)))
+    .build();
+
+  private static final FileDescriptorProto ISSUES = FileDescriptorProto.newBuilder()
+    .setName("ws-issues.proto")
+    .setPackage("sonarqube.ws.issues")
+    .setSyntax("proto2")
+    .setOptions(FileOptions.newBuilder().setJavaPackage("org.sonarqube.ws").setJavaOuterClassname("Issues"))
+    .addMessageType(DescriptorProto.newBuilder().setName("Issue")
+      .addField(field("key", LABEL_OPTIONAL, TYPE_STRING))
+      .addField(field("severity", LABEL_OPTIONAL, TYPE_ENUM).setTypeName(".sonarqube.ws.commons.Severity"))
+      .addField(field("tags", LABEL_REPEATED, TYPE_STRING))
+      .addField(field("transitions", LABEL_OPTIONAL, TYPE_MESSAGE).setTypeName(".sonarqube.ws.issues.Transitions"))
+      .addField(field("f_update_age", LABEL_OPTIONAL, TYPE_STRING)))
+    .addMessageType(DescriptorProto.newBuilder().setName("Transitions")
+      .addField(field("transitions", LABEL_REPEATED, TYPE_STRING)))
+    .addMessageType(DescriptorProto.newBuilder().setName("SearchWsResponse")
+      .addField(field("paging", LABEL_OPTIONAL, TYPE_MESSAGE).setTypeName(".sonarqube.ws.commons.Paging"))
+      .addField(field("issues", LABEL_REPEATED, TYPE_MESSAGE).setTypeName(".sonarqube.ws.issues.Issue")))
+    .addMessageType(DescriptorProto.newBuilder().setName("RatioWsResponse")
+      .addField(field("ratio", LABEL_OPTIONAL, TYPE_MESSAGE).setTypeName(".sonarqube.ws.commons.Ratio")))
+    .addMessageType(DescriptorProto.newBuilder().setName("Properties")
+      .addField(field("properties", LABEL_REPEATED, TYPE_MESSAGE).setTypeName(".sonarqube.ws.issues.Properties.PropertiesEntry"))
+      .addNestedType(DescriptorProto.newBuilder().setName("PropertiesEntry")
+        .setOptions(MessageOptions.newBuilder().setMapEntry(true))
+        .addField(field("key", LABEL_OPTIONAL, TYPE_STRING))
+        .addField(field("value", LABEL_OPTIONAL, TYPE_STRING))))
+    .build();
+
+  private static final FileDescriptorProto SETTINGS = FileDescriptorProto.newBuilder()
+    .setName("ws-settings.proto")
+    .setPackage("sonarqube.ws.settings")
+    .setSyntax("proto3")
+    .setOptions(FileOptions.newBuilder().setJavaPackage("org.sonarqube.ws").setJavaOuterClassname("Settings"))
+    .addMessageType(DescriptorProto.newBuilder().setName("Definition")
+      .addField(field("key", LABEL_OPTIONAL, TYPE_STRING))
+      .addField(field("name", LABEL_OPTIONAL, TYPE_STRING).setOneofIndex(0))
+      .addField(field("multiValues", LABEL_OPTIONAL, TYPE_BOOL))
+      .addField(field("parent", LABEL_OPTIONAL, TYPE_MESSAGE).setTypeName(".sonarqube.ws.settings.Definition"))
+      .addOneofDecl(OneofDescriptorProto.newBuilder().setName("nameOneOf")))
+    .build();
+
+  @Test
+  public void generate_writer_per_proto_file_and_registry() {
+    CodeGeneratorResponse response = generate(COMMONS, ISSUES, SETTINGS);
+
+    assertThat(response.hasError()).isFalse();
+    assertThat(response.getFileList()).extracting(CodeGeneratorResponse.File::getName).containsExactly(
+      "org/sonarqube/ws/json/CommonJsonWriter.java",
+      "org/sonarqube/ws/json/IssuesJsonWriter.java",
+      "org/sonarqube/ws/json/SettingsJsonWriter.java",
+      "org/sonarqube/ws/json/GeneratedJsonWriters.java");
+    assertThat(response.getFile(3).getContent())
+      .contains("writers.put(org.sonarqube.ws.Common.Paging.class, (message, json) -> "
+        + "org.sonarqube.ws.json.CommonJsonWriter.writeFields((org.sonarqube.ws.Common.Paging) message, json));")
+      .contains("writers.put(org.sonarqube.ws.Issues.Issue.class,")
+      .contains("writers.put(org.sonarqube.ws.Settings.Definition.class,");
+  }
+
+  @Test
+  public void write_fields_in_order_of_declaration() {
+    String source = generate(COMMONS, ISSUES, SETTINGS).getFile(1).getContent();
+
+    assertThat(source)
+      .contains("private static final byte[] NAME_KEY = JsonStream.encodeName(\"key\");")
+      .contains("private static final byte[] NAME_F_UPDATE_AGE = JsonStream.encodeName(\"f_update_age\");")
+      .contains("  public static void writeFields(org.sonarqube.ws.Issues.Issue message, JsonStream json) {\n" +
+        "    if (message.hasKey()) {\n" +
+        "      json.name(NAME_KEY);\n" +
+        "      json.value(message.getKey());\n" +
+        "    }\n" +
+        "    if (message.hasSeverity()) {\n" +
+        "      json.name(NAME_SEVERITY);\n" +
+        "      json.value(message.getSeverity().name());\n" +
+        "    }\n" +
+        "    json.name(NAME_TAGS);\n" +
+        "    json.beginArray();\n" +
+        "    for (String item0 : message.getTagsList()) {\n" +
+        "      json.value(item0);\n" +
+        "    }\n" +
+        "    json.endArray();\n" +
+        "    if (message.hasTransitions()) {\n" +
+        "      json.name(NAME_TRANSITIONS);\n" +
+        "      json.beginArray();\n" +
+        "      for (String item0 : message.getTransitions().getTransitionsList()) {\n" +
+        "        json.value(item0);\n" +
+        "      }\n" +
+        "      json.endArray();\n" +
+        "    }\n" +
+        "    if (message.hasFUpdateAge()) {\n" +
+        "      json.name(NAME_F_UPDATE_AGE);\n" +
+        "      json.value(message.getFUpdateAge());\n" +
+        "    }\n" +
+        "  }\n");
+  }
+
+  @Test
+  public void write_messages_declared_in_other_files_with_their_writer() {
+    String source = generate(COMMONS, ISSUES, SETTINGS).getFile(1).getContent();
+
+    assertThat(source).contains("    if (message.hasPaging()) {\n" +
+      "      json.name(NAME_PAGING);\n" +
+      "      json.beginObject();\n" +
+      "      org.sonarqube.ws.json.CommonJsonWriter.writeFields(message.getPaging(), json);\n" +
+      "      json.endObject();\n" +
+      "    }\n" +
+      "    json.name(NAME_ISSUES);\n" +
+      "    json.beginArray();\n" +
+      "    for (org.sonarqube.ws.Issues.Issue item0 : message.getIssuesList()) {\n" +
+      "      json.beginObject();\n" +
+      "      writeFields(item0, json);\n" +
+      "      json.endObject();\n" +
+      "    }\n" +
+      "    json.endArray();\n");
+  }
+
+  @Test
+  public void check_presence_of_proto3_fields() {
+    String source = generate(COMMONS, ISSUES, SETTINGS).getFile(2).getContent();
+
+    assertThat(source)
+      .contains("if (!message.getKey().isEmpty()) {")
+      .contains("if (message.getNameOneOfCase() == org.sonarqube.ws.Settings.Definition.NameOneOfCase.NAME) {")
+      .contains("if (message.getMultiValues()) {")
+      .contains("if (message.hasParent()) {");
+  }
+
+  @Test
+  public void do_not_generate_writers_of_messages_with_unsupported_fields() {
+    CodeGeneratorResponse response = generate(COMMONS, ISSUES, SETTINGS);
+
+    String registry = response.getFile(3).getContent();
+    assertThat(registry)
+      .doesNotContain("Common.Ratio.class")
+      .doesNotContain("Issues.RatioWsResponse.class")
+      .doesNotContain("Issues.Properties.class")
+      .doesNotContain("PropertiesEntry");
+  }
+
+  @Test
+  public void do_not_generate_writers_of_files_which_are_not_requested() {
+    CodeGeneratorResponse response = JsonWritersGenerator.generate(CodeGeneratorRequest.newBuilder()
+      .addProtoFile(COMMONS)
+      .addProtoFile(ISSUES)
+      .addFileToGenerate(ISSUES.getName())
+      .build());
+
+    assertThat(response.getFileList()).extracting(CodeGeneratorResponse.File::getName).containsExactly(
+      "org/sonarqube/ws/json/IssuesJsonWriter.java",
+      "org/sonarqube/ws/json/GeneratedJsonWriters.java");
+    assertThat(response.getFile(1).getContent())
+      .contains("Issues.Issue.class")
+      .doesNotContain("Issues.SearchWsResponse.class");
+  }
+
+  private static CodeGeneratorResponse generate(FileDescriptorProto... files) {
+    CodeGeneratorRequest.Builder request = CodeGeneratorRequest.newBuilder();
+    for (FileDescriptorProto file : files) {
+      request.addProtoFile(file).addFileToGenerate(file.getName());
+    }
+    return JsonWritersGenerator.generate(request.build());
+  }
+
+  private static FieldDescriptorProto.Builder field(String name, Label label, Type type) {
+    return FieldDescriptorProto.newBuilder().setName(name).setLabel(label).setType(type);
+  }
+}
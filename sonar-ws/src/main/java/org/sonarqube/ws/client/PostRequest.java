@@ -20,8 +20,11 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 5.3
@@ -51,19 +54,52 @@ public class PostRequest extends BaseRequest<PostRequest> {
   public static class Part {
     private final String mediaType;
     private final File file;
+    private final ContentWriter contentWriter;
 
     public Part(String mediaType, File file) {
       this.mediaType = mediaType;
       this.file = file;
+      this.contentWriter = null;
+    }
+
+    /**
+     * Part which content is streamed to the request body when it is sent, so that it does not need to
+     * be stored in a file.
+     *
+     * @since 6.3
+     */
+    public Part(String mediaType, ContentWriter contentWriter) {
+      this.mediaType = mediaType;
+      this.file = null;
+      this.contentWriter = contentWriter;
     }
 
     public String getMediaType() {
       return mediaType;
     }
 
+    @CheckForNull
     public File getFile() {
       return file;
     }
+
+    /**
+     * @since 6.3
+     */
+    @CheckForNull
+    public ContentWriter getContentWriter() {
+      return contentWriter;
+    }
+  }
+
+  /**
+   * Writes the content of a {@link Part}. It can be called more than once if the request is retried.
+   *
+   * @since 6.3
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+    void writeTo(OutputStream output) throws IOException;
   }
 
 }
@@ -0,0 +1,311 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact JSON encoded in UTF-8, written through a buffer which is reused by the responses of a thread. Strings are
+ * escaped as by {@code org.sonar.api.utils.text.JsonWriter}, so that generated writers and the reflective
+ * {@code org.sonar.core.util.ProtobufJsonFormat} produce the same output.
+ * <p/>
+ * Commas are added by the stream, the caller only has to balance objects and arrays and to write a name before
+ * each value of an object.
+ */
+public final class JsonStream {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  // enough for any escaped char, or for a long or a double
+  private static final int MAX_TOKEN_SIZE = 32;
+  private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+  private final OutputStream output;
+  private final byte[] buffer;
+  private int position = 0;
+  private boolean needsComma = false;
+
+  JsonStream(OutputStream output) {
+    this(output, BUFFERS.get());
+  }
+
+  private JsonStream(OutputStream output, byte[] buffer) {
+    this.output = output;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Encodes the name of a field, including quotes and colon, to be written with {@link #name(byte[])}.
+   */
+  public static byte[] encodeName(String name) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    JsonStream stream = new JsonStream(bytes, new byte[2 * MAX_TOKEN_SIZE]);
+    stream.string(name);
+    stream.writeByte(':');
+    stream.flush();
+    return bytes.toByteArray();
+  }
+
+  public void beginObject() {
+    separate();
+    writeByte('{');
+    needsComma = false;
+  }
+
+  public void endObject() {
+    writeByte('}');
+    needsComma = true;
+  }
+
+  public void beginArray() {
+    separate();
+    writeByte('[');
+    needsComma = false;
+  }
+
+  public void endArray() {
+    writeByte(']');
+    needsComma = true;
+  }
+
+  /**
+   * @param encodedName name returned by {@link #encodeName(String)}
+   */
+  public void name(byte[] encodedName) {
+    separate();
+    if (encodedName.length > buffer.length - position) {
+      flushBuffer();
+      if (encodedName.length > buffer.length) {
+        write(encodedName, 0, encodedName.length);
+        needsComma = false;
+        return;
+      }
+    }
+    System.arraycopy(encodedName, 0, buffer, position, encodedName.length);
+    position += encodedName.length;
+    needsComma = false;
+  }
+
+  public void value(String value) {
+    separate();
+    string(value);
+    needsComma = true;
+  }
+
+  public void value(boolean value) {
+    separate();
+    byte[] bytes = value ? TRUE : FALSE;
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+    needsComma = true;
+  }
+
+  public void value(int value) {
+    value((long) value);
+  }
+
+  public void value(long value) {
+    separate();
+    ensureCapacity(MAX_TOKEN_SIZE);
+    if (value == Long.MIN_VALUE) {
+      ascii(Long.toString(value));
+    } else {
+      long remaining = value;
+      if (remaining < 0) {
+        buffer[position] = '-';
+        position++;
+        remaining = -remaining;
+      }
+      int end = position + digits(remaining);
+      position = end;
+      do {
+        end--;
+        buffer[end] = (byte) ('0' + remaining % 10);
+        remaining /= 10;
+      } while (remaining != 0);
+    }
+    needsComma = true;
+  }
+
+  /**
+   * @throws IllegalArgumentException if value is NaN or infinite, as JSON does not support them
+   */
+  public void value(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+    }
+    separate();
+    ensureCapacity(MAX_TOKEN_SIZE);
+    ascii(Double.toString(value));
+    needsComma = true;
+  }
+
+  /**
+   * Writes the content of the buffer to the output stream, which is not flushed nor closed.
+   */
+  public void flush() {
+    flushBuffer();
+  }
+
+  private void separate() {
+    if (needsComma) {
+      writeByte(',');
+    }
+  }
+
+  private void string(String value) {
+    writeByte('"');
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      ensureCapacity(MAX_TOKEN_SIZE);
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        asciiChar(c);
+      } else if (c < 0x800) {
+        buffer[position] = (byte) (0xc0 | (c >> 6));
+        buffer[position + 1] = (byte) (0x80 | (c & 0x3f));
+        position += 2;
+      } else if (c == '\u2028' || c == '\u2029') {
+        unicodeEscape(c);
+      } else if (Character.isSurrogate(c)) {
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+          i++;
+          buffer[position] = (byte) (0xf0 | (codePoint >> 18));
+          buffer[position + 1] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+          buffer[position + 2] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+          buffer[position + 3] = (byte) (0x80 | (codePoint & 0x3f));
+          position += 4;
+        } else {
+          // unpaired surrogate, replaced as by the UTF-8 encoder of the JDK
+          buffer[position] = '?';
+          position++;
+        }
+      } else {
+        buffer[position] = (byte) (0xe0 | (c >> 12));
+        buffer[position + 1] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        buffer[position + 2] = (byte) (0x80 | (c & 0x3f));
+        position += 3;
+      }
+    }
+    writeByte('"');
+  }
+
+  private void asciiChar(char c) {
+    switch (c) {
+      case '"':
+      case '\\':
+        buffer[position] = '\\';
+        buffer[position + 1] = (byte) c;
+        position += 2;
+        break;
+      case '\t':
+        shortEscape('t');
+        break;
+      case '\b':
+        shortEscape('b');
+        break;
+      case '\n':
+        shortEscape('n');
+        break;
+      case '\r':
+        shortEscape('r');
+        break;
+      case '\f':
+        shortEscape('f');
+        break;
+      default:
+        if (c < 0x20) {
+          unicodeEscape(c);
+        } else {
+          buffer[position] = (byte) c;
+          position++;
+        }
+    }
+  }
+
+  private void shortEscape(char c) {
+    buffer[position] = '\\';
+    buffer[position + 1] = (byte) c;
+    position += 2;
+  }
+
+  private void unicodeEscape(char c) {
+    buffer[position] = '\\';
+    buffer[position + 1] = 'u';
+    buffer[position + 2] = HEX[(c >> 12) & 0xf];
+    buffer[position + 3] = HEX[(c >> 8) & 0xf];
+    buffer[position + 4] = HEX[(c >> 4) & 0xf];
+    buffer[position + 5] = HEX[c & 0xf];
+    position += 6;
+  }
+
+  /**
+   * Requires the capacity of the buffer to be already ensured.
+   */
+  private void ascii(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      buffer[position + i] = (byte) value.charAt(i);
+    }
+    position += value.length();
+  }
+
+  private static int digits(long value) {
+    int digits = 1;
+    for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+      digits++;
+    }
+    return digits;
+  }
+
+  private void writeByte(char c) {
+    ensureCapacity(1);
+    buffer[position] = (byte) c;
+    position++;
+  }
+
+  private void ensureCapacity(int length) {
+    if (buffer.length - position < length) {
+      flushBuffer();
+    }
+  }
+
+  private void flushBuffer() {
+    if (position > 0) {
+      write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  private void write(byte[] bytes, int offset, int length) {
+    try {
+      output.write(bytes, offset, length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.json;
+
+import com.google.protobuf.Message;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * Writes the Web Service responses as JSON, with the writers generated at build time from the proto files. They
+ * don't use reflection and write the output encoded in UTF-8 directly into a reused buffer.
+ * <p/>
+ * The JSON is the same as the one written by {@code org.sonar.core.util.ProtobufJsonFormat}, which remains in charge
+ * of the messages that have no generated writer, for example because they contain maps.
+ *
+ * @since 6.3
+ */
+public class JsonWriters {
+
+  private static final Map<Class<? extends Message>, MessageJsonWriter> WRITERS;
+
+  static {
+    Map<Class<? extends Message>, MessageJsonWriter> writers = new HashMap<>();
+    GeneratedJsonWriters.register(writers);
+    WRITERS = unmodifiableMap(writers);
+  }
+
+  private JsonWriters() {
+    // only static stuff
+  }
+
+  public static boolean canWrite(Message message) {
+    return WRITERS.containsKey(message.getClass());
+  }
+
+  /**
+   * Writes the message as a JSON object. The output stream is not closed.
+   *
+   * @throws IllegalArgumentException if no writer is generated for the type of the message, see {@link #canWrite(Message)}
+   * @throws java.io.UncheckedIOException if the message can't be written to the output stream
+   */
+  public static void write(Message message, OutputStream output) {
+    MessageJsonWriter writer = WRITERS.get(message.getClass());
+    if (writer == null) {
+      throw new IllegalArgumentException("No JSON writer is generated for " + message.getDescriptorForType().getFullName());
+    }
+    JsonStream json = new JsonStream(output);
+    json.beginObject();
+    writer.writeFields(message, json);
+    json.endObject();
+    json.flush();
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import javax.net.ssl.SSLSocketFactory;
 import okhttp3.ConnectionSpec;
@@ -241,6 +242,27 @@ public class HttpConnectorTest {
       .contains("the report content");
   }
 
+  @Test
+  public void upload_streamed_part() throws Exception {
+    answerHelloWorld();
+    PostRequest request = new PostRequest("api/report/upload")
+      .setParam("project", "theKey")
+      .setPart("report", new PostRequest.Part(MediaTypes.TXT, output -> output.write("the streamed content".getBytes(StandardCharsets.UTF_8))))
+      .setMediaType(MediaTypes.PROTOBUF);
+
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+    WsResponse response = underTest.call(request);
+
+    assertThat(response.hasContent()).isTrue();
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertThat(recordedRequest.getPath()).isEqualTo("/api/report/upload?project=theKey");
+    String body = IOUtils.toString(recordedRequest.getBody().inputStream());
+    assertThat(body)
+      .contains("Content-Disposition: form-data; name=\"report\"")
+      .contains("Content-Type: text/plain")
+      .contains("the streamed content");
+  }
+
   @Test
   public void http_error() throws Exception {
     server.enqueue(new MockResponse().setResponseCode(404));
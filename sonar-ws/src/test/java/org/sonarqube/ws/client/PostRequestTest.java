@@ -57,4 +57,16 @@ public class PostRequestTest {
     assertThat(part.getMediaType()).isEqualTo(MediaTypes.JSON);
     assertThat(part.getFile()).isSameAs(reportFile);
   }
+
+  @Test
+  public void add_streamed_part() {
+    PostRequest request = new PostRequest("api/issues/search");
+    PostRequest.ContentWriter contentWriter = output -> output.write(42);
+    request.setPart("report", new PostRequest.Part(MediaTypes.JSON, contentWriter));
+
+    PostRequest.Part part = request.getParts().get("report");
+    assertThat(part.getMediaType()).isEqualTo(MediaTypes.JSON);
+    assertThat(part.getFile()).isNull();
+    assertThat(part.getContentWriter()).isSameAs(contentWriter);
+  }
 }
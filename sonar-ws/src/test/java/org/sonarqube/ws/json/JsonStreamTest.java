@@ -0,0 +1,156 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.json;
+
+import com.google.common.base.Strings;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonStreamTest {
+
+  private static final byte[] NAME = JsonStream.encodeName("name");
+  private static final byte[] OTHER = JsonStream.encodeName("other");
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private JsonStream underTest = new JsonStream(output);
+
+  @Test
+  public void write_objects_and_arrays() {
+    underTest.beginObject();
+    underTest.name(NAME);
+    underTest.beginArray();
+    underTest.beginObject();
+    underTest.endObject();
+    underTest.beginObject();
+    underTest.name(OTHER);
+    underTest.value(true);
+    underTest.endObject();
+    underTest.beginArray();
+    underTest.endArray();
+    underTest.endArray();
+    underTest.name(OTHER);
+    underTest.value(false);
+    underTest.endObject();
+
+    assertThat(flushedOutput()).isEqualTo("{\"name\":[{},{\"other\":true},[]],\"other\":false}");
+  }
+
+  @Test
+  public void write_numbers() {
+    underTest.beginArray();
+    underTest.value(0);
+    underTest.value(-42);
+    underTest.value(Integer.MIN_VALUE);
+    underTest.value(Long.MAX_VALUE);
+    underTest.value(Long.MIN_VALUE);
+    underTest.value(1000000000L);
+    underTest.value(3.14);
+    underTest.value(-0.0);
+    underTest.value(1.0E20);
+    underTest.endArray();
+
+    assertThat(flushedOutput()).isEqualTo("[0,-42,-2147483648,9223372036854775807,-9223372036854775808,1000000000,3.14,-0.0,1.0E20]");
+  }
+
+  @Test
+  public void fail_to_write_non_finite_number() {
+    underTest.beginArray();
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Numeric values must be finite, but was NaN");
+
+    underTest.value(Double.NaN);
+  }
+
+  @Test
+  public void escape_strings() {
+    underTest.beginArray();
+    underTest.value("");
+    underTest.value("\"quoted\" back\\slash");
+    underTest.value("\t\b\n\r\f\u0000\u001f\u007f");
+    underTest.value("<html>&'");
+    underTest.value("\u2028\u2029");
+    underTest.endArray();
+
+    assertThat(flushedOutput()).isEqualTo("[\"\",\"\\\"quoted\\\" back\\\\slash\",\"\\t\\b\\n\\r\\f\\u0000\\u001f\u007f\",\"<html>&'\",\"\\u2028\\u2029\"]");
+  }
+
+  @Test
+  public void encode_strings_in_utf8() {
+    underTest.value("\u00e9\u20ac\ud83d\ude00");
+
+    assertThat(flushedOutput()).isEqualTo("\"\u00e9\u20ac\ud83d\ude00\"");
+  }
+
+  @Test
+  public void replace_unpaired_surrogates() {
+    underTest.beginArray();
+    underTest.value("a\ud83db");
+    underTest.value("\ude00");
+    underTest.endArray();
+
+    assertThat(flushedOutput()).isEqualTo("[\"a?b\",\"?\"]");
+  }
+
+  @Test
+  public void write_content_larger_than_buffer() {
+    String longValue = Strings.repeat("\u00e9\"", 10_000);
+    byte[] longName = JsonStream.encodeName(Strings.repeat("n", 10_000));
+
+    underTest.beginObject();
+    underTest.name(longName);
+    underTest.value(longValue);
+    underTest.endObject();
+
+    assertThat(flushedOutput()).isEqualTo("{\"" + Strings.repeat("n", 10_000) + "\":\"" + Strings.repeat("\u00e9\\\"", 10_000) + "\"}");
+  }
+
+  @Test
+  public void fail_with_unchecked_exception_when_output_fails() {
+    JsonStream stream = new JsonStream(new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("BOOM");
+      }
+    });
+    stream.value("foo");
+
+    expectedException.expect(UncheckedIOException.class);
+    expectedException.expectMessage("BOOM");
+
+    stream.flush();
+  }
+
+  private String flushedOutput() {
+    underTest.flush();
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
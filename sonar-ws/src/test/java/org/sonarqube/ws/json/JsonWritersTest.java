@@ -0,0 +1,109 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.Licenses;
+import org.sonarqube.ws.Settings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonWritersTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  @Test
+  public void write_fields_in_order_of_declaration() {
+    Issues.Issue msg = Issues.Issue.newBuilder()
+      .setType(Common.RuleType.BUG)
+      .setKey("I1")
+      .setOrganization("org")
+      .setSeverity(Common.Severity.MAJOR)
+      .setLine(12)
+      .setTextRange(Common.TextRange.newBuilder().setStartLine(12).setEndOffset(4))
+      .build();
+
+    assertThat(write(msg)).isEqualTo("{\"organization\":\"org\",\"key\":\"I1\",\"severity\":\"MAJOR\",\"line\":12," +
+      "\"textRange\":{\"startLine\":12,\"endOffset\":4},\"flows\":[],\"tags\":[],\"type\":\"BUG\"}");
+  }
+
+  @Test
+  public void write_empty_values_which_are_set() {
+    Issues.Issue msg = Issues.Issue.newBuilder()
+      .setKey("")
+      .setLine(0)
+      .setTextRange(Common.TextRange.getDefaultInstance())
+      .build();
+
+    assertThat(write(msg)).isEqualTo("{\"key\":\"\",\"line\":0,\"textRange\":{},\"flows\":[],\"tags\":[]}");
+  }
+
+  @Test
+  public void write_wrapper_of_repeated_field_as_array() {
+    Issues.Issue msg = Issues.Issue.newBuilder()
+      .addTags("t1")
+      .addTags("t2")
+      .setTransitions(Issues.Transitions.newBuilder().addTransitions("confirm").addTransitions("resolve"))
+      .setComments(Issues.Comments.getDefaultInstance())
+      .build();
+
+    assertThat(write(msg)).isEqualTo("{\"flows\":[],\"tags\":[\"t1\",\"t2\"],\"transitions\":[\"confirm\",\"resolve\"],\"comments\":[]}");
+  }
+
+  @Test
+  public void write_only_set_fields_of_proto3_messages() {
+    Settings.Definition msg = Settings.Definition.newBuilder()
+      .setKey("sonar.foo")
+      .setName("")
+      .setType(Settings.Type.INTEGER)
+      .addFields(Settings.Field.newBuilder().setKey("bar").setType(Settings.Type.STRING))
+      .build();
+
+    assertThat(write(msg)).isEqualTo("{\"key\":\"sonar.foo\",\"name\":\"\",\"type\":\"INTEGER\",\"options\":[]," +
+      "\"fields\":[{\"key\":\"bar\",\"options\":[]}]}");
+  }
+
+  @Test
+  public void no_writer_for_messages_with_maps() {
+    Licenses.AdditionalProperties msg = Licenses.AdditionalProperties.getDefaultInstance();
+
+    assertThat(JsonWriters.canWrite(msg)).isFalse();
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("No JSON writer is generated for sonarqube.ws.licenses.AdditionalProperties");
+
+    JsonWriters.write(msg, output);
+  }
+
+  private String write(com.google.protobuf.Message msg) {
+    assertThat(JsonWriters.canWrite(msg)).isTrue();
+    JsonWriters.write(msg, output);
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
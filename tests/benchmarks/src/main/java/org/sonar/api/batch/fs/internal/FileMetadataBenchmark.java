@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.benchmark.SyntheticData;
+
+/**
+ * Computation of the metadata (lines, hash and line offsets) of every indexed file by the scanner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileMetadataBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int lines;
+
+  private final FileMetadata fileMetadata = new FileMetadata();
+  private String source;
+  private File file;
+
+  @Setup
+  public void setUp() throws IOException {
+    source = SyntheticData.join(SyntheticData.sourceLines(SyntheticData.newRandom(), lines));
+    file = File.createTempFile("FileMetadataBenchmark", ".java");
+    Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Benchmark
+  public Metadata readMetadataOfFile() {
+    return fileMetadata.readMetadata(file, StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public Metadata readMetadataOfReader() {
+    return fileMetadata.readMetadata(new StringReader(source));
+  }
+}
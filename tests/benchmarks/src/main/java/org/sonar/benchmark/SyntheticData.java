@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generators of synthetic source code shared by benchmarks. All generators are deterministic for a given
+ * {@link Random}, so that benchmarks created with {@link #newRandom()} work on the same data from one run to another
+ * and their results can be compared.
+ */
+public final class SyntheticData {
+
+  public static final long SEED = 20170101L;
+
+  private static final String[] TYPES = {"int", "long", "String", "List<String>", "Map<String, Integer>", "boolean"};
+  private static final String[] STATEMENTS = {
+    "    %s value%d = compute(%d);",
+    "    if (value%d > %d) {",
+    "      return value%d;",
+    "    }",
+    "    for (int i = 0; i < %d; i++) {",
+    "      LOG.debug(\"iteration {}\", i);",
+    "    // TODO check value %d",
+    "",
+    "    %s result%d = service.call(\"key_%d\", %d);",
+    "    throw new IllegalStateException(\"Invalid value %d\");"
+  };
+
+  private SyntheticData() {
+    // only static methods
+  }
+
+  public static Random newRandom() {
+    return new Random(SEED);
+  }
+
+  /**
+   * Java-like lines of code. Statements are picked among a small set of templates, so that lines and blocks of
+   * lines are repeated within and across generated files like in real code.
+   */
+  public static List<String> sourceLines(Random random, int count) {
+    List<String> lines = new ArrayList<>(count);
+    lines.add("package org.sonar.generated;");
+    lines.add("");
+    lines.add("public class Generated" + random.nextInt(1000) + " {");
+    while (lines.size() < count - 1) {
+      if (random.nextInt(20) == 0) {
+        lines.add("  public void method" + lines.size() + "() {");
+      } else {
+        lines.add(statement(random));
+      }
+    }
+    lines.add("}");
+    return lines;
+  }
+
+  private static String statement(Random random) {
+    String template = STATEMENTS[random.nextInt(STATEMENTS.length)];
+    int value = random.nextInt(100);
+    if (template.startsWith("    %s")) {
+      return String.format(template, TYPES[random.nextInt(TYPES.length)], value, random.nextInt(100), random.nextInt(100));
+    }
+    return String.format(template, value, random.nextInt(100));
+  }
+
+  /**
+   * Copy of {@code lines} where about {@code changeRatio} of the lines have been modified, inserted or removed,
+   * as between two analyses of the same file.
+   */
+  public static List<String> edit(Random random, List<String> lines, double changeRatio) {
+    List<String> result = new ArrayList<>(lines.size());
+    for (String line : lines) {
+      if (random.nextDouble() >= changeRatio) {
+        result.add(line);
+        continue;
+      }
+      switch (random.nextInt(3)) {
+        case 0:
+          result.add(statement(random));
+          break;
+        case 1:
+          result.add(line);
+          result.add(statement(random));
+          break;
+        default:
+          // line removed
+          break;
+      }
+    }
+    return result;
+  }
+
+  public static String join(List<String> lines) {
+    return String.join("\n", lines);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.benchmark.SyntheticData;
+
+/**
+ * Tracking of the issues of a file between two analyses, the file being edited in between.
+ * {@link BlockRecognizer} is benchmarked separately as it is the most expensive step of {@link Tracker}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  private static final int RULES = 20;
+
+  @Param({"1000", "10000"})
+  private int lines;
+
+  @Param({"1", "10"})
+  private int issuesPerHundredLines;
+
+  private final Tracker<FakeIssue, FakeIssue> tracker = new Tracker<>();
+  private FakeInput rawInput;
+  private FakeInput baseInput;
+
+  @Setup
+  public void setUp() {
+    Random random = SyntheticData.newRandom();
+    List<String> baseLines = SyntheticData.sourceLines(random, lines);
+    List<String> rawLines = SyntheticData.edit(random, baseLines, 0.05);
+    baseInput = new FakeInput(baseLines, random, issuesPerHundredLines);
+    rawInput = new FakeInput(rawLines, random, issuesPerHundredLines);
+  }
+
+  @Benchmark
+  public Tracking<FakeIssue, FakeIssue> track() {
+    return tracker.track(rawInput, baseInput);
+  }
+
+  @Benchmark
+  public Tracking<FakeIssue, FakeIssue> recognizeBlocks() {
+    Tracking<FakeIssue, FakeIssue> tracking = new Tracking<>(rawInput, baseInput);
+    new BlockRecognizer<FakeIssue, FakeIssue>().match(rawInput, baseInput, tracking);
+    return tracking;
+  }
+
+  private static final class FakeInput implements Input<FakeIssue> {
+    private final LineHashSequence lineHashSequence;
+    private final BlockHashSequence blockHashSequence;
+    private final List<FakeIssue> issues = new ArrayList<>();
+
+    private FakeInput(List<String> lines, Random random, int issuesPerHundredLines) {
+      this.lineHashSequence = LineHashSequence.createForLines(lines);
+      this.blockHashSequence = BlockHashSequence.create(lineHashSequence);
+      int issueCount = Math.max(1, lines.size() * issuesPerHundredLines / 100);
+      for (int i = 0; i < issueCount; i++) {
+        int line = 1 + random.nextInt(lines.size());
+        RuleKey ruleKey = RuleKey.of("squid", "S" + random.nextInt(RULES));
+        issues.add(new FakeIssue(line, lineHashSequence.getHashForLine(line), ruleKey, "Message of " + ruleKey));
+      }
+    }
+
+    @Override
+    public LineHashSequence getLineHashSequence() {
+      return lineHashSequence;
+    }
+
+    @Override
+    public BlockHashSequence getBlockHashSequence() {
+      return blockHashSequence;
+    }
+
+    @Override
+    public Collection<FakeIssue> getIssues() {
+      return issues;
+    }
+  }
+
+  private static final class FakeIssue implements Trackable {
+    private final Integer line;
+    private final String lineHash;
+    private final RuleKey ruleKey;
+    private final String message;
+
+    private FakeIssue(Integer line, String lineHash, RuleKey ruleKey, String message) {
+      this.line = line;
+      this.lineHash = lineHash;
+      this.ruleKey = ruleKey;
+      this.message = message;
+    }
+
+    @CheckForNull
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @CheckForNull
+    @Override
+    public String getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public RuleKey getRuleKey() {
+      return ruleKey;
+    }
+  }
+}
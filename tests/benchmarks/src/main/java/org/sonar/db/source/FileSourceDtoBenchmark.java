@@ -0,0 +1,90 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.benchmark.SyntheticData;
+import org.sonar.db.protobuf.DbFileSources;
+
+/**
+ * Encoding and decoding of the data of a file, as stored in column FILE_SOURCES.BINARY_DATA.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileSourceDtoBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  private int lines;
+
+  private final FileSourceDto dto = new FileSourceDto();
+  private DbFileSources.Data data;
+  private byte[] encodedData;
+
+  @Setup
+  public void setUp() {
+    Random random = SyntheticData.newRandom();
+    List<String> sourceLines = SyntheticData.sourceLines(random, lines);
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < sourceLines.size(); i++) {
+      String source = sourceLines.get(i);
+      DbFileSources.Line.Builder line = builder.addLinesBuilder()
+        .setLine(i + 1)
+        .setSource(source)
+        .setScmRevision("rev" + random.nextInt(50))
+        .setScmAuthor("author" + random.nextInt(10) + "@sonarsource.com")
+        .setScmDate(1_480_000_000_000L + random.nextInt(1_000_000_000));
+      if (random.nextBoolean()) {
+        line.setLineHits(random.nextInt(5));
+      }
+      if (source.length() > 4) {
+        line.setHighlighting("0,4,k");
+      }
+    }
+    data = builder.build();
+    encodedData = FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public byte[] encodeSourceData() {
+    return FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public DbFileSources.Data decodeSourceData() {
+    return dto.decodeSourceData(encodedData);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.benchmark.SyntheticData;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+
+/**
+ * Population and lookups of the index of blocks used to detect duplications of a project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PackedMemoryCloneIndexBenchmark {
+
+  @Param({"100", "1000"})
+  private int files;
+
+  @Param({"500"})
+  private int blocksPerFile;
+
+  private List<Block> blocks;
+  private List<ByteArray> lookedUpHashes;
+  private PackedMemoryCloneIndex populatedIndex;
+
+  @Setup
+  public void setUp() {
+    Random random = SyntheticData.newRandom();
+    blocks = blocks(random, files, blocksPerFile);
+    populatedIndex = new PackedMemoryCloneIndex();
+    blocks.forEach(populatedIndex::insert);
+    lookedUpHashes = new ArrayList<>(blocksPerFile);
+    for (int i = 0; i < blocksPerFile; i++) {
+      lookedUpHashes.add(blocks.get(random.nextInt(blocks.size())).getBlockHash());
+    }
+  }
+
+  @Benchmark
+  public PackedMemoryCloneIndex insert() {
+    PackedMemoryCloneIndex index = new PackedMemoryCloneIndex();
+    blocks.forEach(index::insert);
+    // first query sorts the index
+    index.getBySequenceHash(lookedUpHashes.get(0));
+    return index;
+  }
+
+  @Benchmark
+  public int getBySequenceHash() {
+    int found = 0;
+    for (ByteArray hash : lookedUpHashes) {
+      found += populatedIndex.getBySequenceHash(hash).size();
+    }
+    return found;
+  }
+
+  @Benchmark
+  public Collection<Block> getByResourceId() {
+    return populatedIndex.getByResourceId(resourceId(files / 2));
+  }
+
+  /**
+   * Blocks of {@code files} files. About a tenth of the blocks of a file are copied, by runs of 5 to 20 consecutive
+   * blocks, from a file generated previously, like duplicated pieces of code.
+   */
+  public static List<Block> blocks(Random random, int files, int blocksPerFile) {
+    long[][] hashes = new long[files][blocksPerFile];
+    long nextHash = 0;
+    List<Block> blocks = new ArrayList<>(files * blocksPerFile);
+    for (int file = 0; file < files; file++) {
+      int i = 0;
+      while (i < blocksPerFile) {
+        if (file > 0 && random.nextInt(100) < 2) {
+          int run = Math.min(5 + random.nextInt(16), blocksPerFile - i);
+          long[] source = hashes[random.nextInt(file)];
+          System.arraycopy(source, random.nextInt(blocksPerFile - run + 1), hashes[file], i, run);
+          i += run;
+        } else {
+          hashes[file][i] = nextHash;
+          nextHash++;
+          i++;
+        }
+      }
+      for (int index = 0; index < blocksPerFile; index++) {
+        blocks.add(Block.builder()
+          .setResourceId(resourceId(file))
+          .setBlockHash(new ByteArray(hashes[file][index]))
+          .setIndexInFile(index)
+          .setLines(index + 1, index + 10)
+          .setUnit(index, index + 9)
+          .build());
+      }
+    }
+    return blocks;
+  }
+
+  public static String resourceId(int file) {
+    return "org.sonar.generated:File" + file;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.internal.DefaultTempFolder;
+import org.sonar.benchmark.SyntheticData;
+
+/**
+ * Comparison of the backends of the scanner storages, see {@link Storages#STORAGE_BACKEND_PROPERTY}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StoragesBenchmark {
+
+  @Param({Storages.PERSISTIT_BACKEND, Storages.SEGMENTS_BACKEND})
+  private String backend;
+
+  @Param({"10000"})
+  private int entries;
+
+  private StoragesManager storagesManager;
+  private Storages storages;
+  private Storage<String> writtenStorage;
+  private Storage<String> readStorage;
+  private String[] keys;
+  private String[] values;
+  private int next = 0;
+
+  @Setup
+  public void setUp() throws IOException {
+    storagesManager = new StoragesManager(new DefaultTempFolder(Files.createTempDirectory("StoragesBenchmark").toFile(), true));
+    storages = new Storages(storagesManager, backend);
+    writtenStorage = storages.createCache("written");
+    readStorage = storages.createCache("read");
+
+    Random random = SyntheticData.newRandom();
+    keys = new String[entries];
+    values = new String[entries];
+    for (int i = 0; i < entries; i++) {
+      keys[i] = "org.sonar.generated:File" + i;
+      values[i] = SyntheticData.join(SyntheticData.sourceLines(random, 10));
+      readStorage.put(keys[i], values[i]);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    storages.stop();
+    storagesManager.stop();
+  }
+
+  @Benchmark
+  public Storage<String> put() {
+    int i = nextIndex();
+    return writtenStorage.put(keys[i], values[i]);
+  }
+
+  @Benchmark
+  public String get() {
+    return readStorage.get(keys[nextIndex()]);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int iterateValues() {
+    int length = 0;
+    for (String value : readStorage.values()) {
+      length += value.length();
+    }
+    return length;
+  }
+
+  private int nextIndex() {
+    next = (next + 1) % entries;
+    return next;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.formula.counter;
+
+import com.google.common.base.Optional;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.benchmark.SyntheticData;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.formula.CounterInitializationContext;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.period.Period;
+
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+/**
+ * Initialization of counters from the measures of every file of a project and aggregation of the counters, as done
+ * when computing measures with formulas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FormulaCountersBenchmark {
+
+  private static final String INT_METRIC_KEY = "ncloc";
+  private static final String LONG_METRIC_KEY = "development_cost";
+
+  @Param({"10000"})
+  private int files;
+
+  private final Period period = new Period(1, "previous_version", null, 1_480_000_000_000L, "ANALYSIS_UUID");
+  private LeafContext[] leaves;
+
+  @Setup
+  public void setUp() {
+    Random random = SyntheticData.newRandom();
+    leaves = new LeafContext[files];
+    for (int i = 0; i < files; i++) {
+      // some files have no measure, like files excluded from the computation of the metric
+      leaves[i] = new LeafContext(
+        random.nextInt(10) == 0 ? null : newMeasureBuilder().create(random.nextInt(2_000)),
+        newMeasureBuilder().create((long) random.nextInt(100_000)),
+        Collections.singletonList(period));
+    }
+  }
+
+  @Benchmark
+  public Optional<Integer> intSumCounter() {
+    IntSumCounter total = new IntSumCounter(INT_METRIC_KEY);
+    for (LeafContext leaf : leaves) {
+      IntSumCounter counter = new IntSumCounter(INT_METRIC_KEY);
+      counter.initialize(leaf);
+      total.aggregate(counter);
+    }
+    return total.getValue();
+  }
+
+  @Benchmark
+  public Optional<Long> longSumCounter() {
+    LongSumCounter total = new LongSumCounter(LONG_METRIC_KEY);
+    for (LeafContext leaf : leaves) {
+      LongSumCounter counter = new LongSumCounter(LONG_METRIC_KEY);
+      counter.initialize(leaf);
+      total.aggregate(counter);
+    }
+    return total.getValue();
+  }
+
+  @Benchmark
+  public IntVariationValue.Array intVariationValues() {
+    IntVariationValue.Array total = IntVariationValue.newArray();
+    for (LeafContext leaf : leaves) {
+      IntVariationValue.Array values = IntVariationValue.newArray();
+      for (Period leafPeriod : leaf.getPeriods()) {
+        Optional<Measure> measure = leaf.getMeasure(INT_METRIC_KEY);
+        if (measure.isPresent()) {
+          values.increment(leafPeriod, measure.get().getIntValue());
+        }
+      }
+      total.incrementAll(values);
+    }
+    return total;
+  }
+
+  private static final class LeafContext implements CounterInitializationContext {
+    private final Optional<Measure> intMeasure;
+    private final Optional<Measure> longMeasure;
+    private final List<Period> periods;
+
+    private LeafContext(@Nullable Measure intMeasure, Measure longMeasure, List<Period> periods) {
+      this.intMeasure = Optional.fromNullable(intMeasure);
+      this.longMeasure = Optional.of(longMeasure);
+      this.periods = periods;
+    }
+
+    @Override
+    public Component getLeaf() {
+      throw new UnsupportedOperationException("Counters of this benchmark do not depend on the leaf");
+    }
+
+    @Override
+    public Optional<Measure> getMeasure(String metricKey) {
+      if (INT_METRIC_KEY.equals(metricKey)) {
+        return intMeasure;
+      }
+      if (LONG_METRIC_KEY.equals(metricKey)) {
+        return longMeasure;
+      }
+      return Optional.absent();
+    }
+
+    @Override
+    public List<Period> getPeriods() {
+      return periods;
+    }
+  }
+}
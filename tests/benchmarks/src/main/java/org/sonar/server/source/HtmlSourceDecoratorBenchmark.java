@@ -0,0 +1,105 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.benchmark.SyntheticData;
+
+/**
+ * Decoration with HTML tags of the lines of a file, as returned by web services displaying sources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HtmlSourceDecoratorBenchmark {
+
+  private static final String[] HIGHLIGHTING_TYPES = {"k", "c", "s", "cppd", "a"};
+
+  @Param({"1000"})
+  private int lines;
+
+  private final HtmlSourceDecorator decorator = new HtmlSourceDecorator();
+  private String[] sources;
+  private String[] highlightings;
+  private String[] symbols;
+
+  @Setup
+  public void setUp() {
+    Random random = SyntheticData.newRandom();
+    List<String> sourceLines = SyntheticData.sourceLines(random, lines);
+    sources = sourceLines.toArray(new String[lines]);
+    highlightings = new String[lines];
+    symbols = new String[lines];
+    for (int i = 0; i < lines; i++) {
+      highlightings[i] = ranges(random, sources[i].length(), HIGHLIGHTING_TYPES);
+      symbols[i] = ranges(random, sources[i].length(), null);
+    }
+  }
+
+  /**
+   * Non-overlapping ranges of the line, serialized like in FILE_SOURCES. Symbol ranges, when {@code types} is null,
+   * are suffixed by a symbol id instead of a type.
+   */
+  @CheckForNull
+  private static String ranges(Random random, int length, @Nullable String[] types) {
+    StringBuilder sb = new StringBuilder();
+    int start = 0;
+    while (start < length - 1) {
+      start += random.nextInt(4);
+      int end = Math.min(length, start + 1 + random.nextInt(8));
+      if (start >= end) {
+        break;
+      }
+      if (sb.length() > 0) {
+        sb.append(';');
+      }
+      sb.append(start).append(',').append(end).append(',');
+      sb.append(types == null ? String.valueOf(random.nextInt(50)) : types[random.nextInt(types.length)]);
+      start = end;
+    }
+    return sb.length() == 0 ? null : sb.toString();
+  }
+
+  @Benchmark
+  public void decorateLines(Blackhole blackhole) {
+    for (int i = 0; i < lines; i++) {
+      blackhole.consume(decorator.getDecoratedSourceAsHtml(sources[i], highlightings[i], symbols[i]));
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.System2;
+import org.sonar.benchmark.SyntheticData;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.issue.DefaultIssueCodec;
+
+/**
+ * Round trip of the issues of a project through the disk cache of the Compute Engine, with Java serialization or
+ * with the binary codec of issues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DiskCacheBenchmark {
+
+  @Param({"10000"})
+  private int issues;
+
+  @Param({"serialization", "codec"})
+  private String encoding;
+
+  private final List<DefaultIssue> values = new ArrayList<>();
+  private File file;
+
+  @Setup
+  public void setUp() throws IOException {
+    Random random = SyntheticData.newRandom();
+    for (int i = 0; i < issues; i++) {
+      int fileIndex = random.nextInt(issues / 10 + 1);
+      values.add(new DefaultIssue()
+        .setKey("AV" + i)
+        .setComponentUuid("FILE_UUID_" + fileIndex)
+        .setComponentKey("org.sonar.generated:File" + fileIndex)
+        .setProjectUuid("PROJECT_UUID")
+        .setRuleKey(RuleKey.of("squid", "S" + random.nextInt(20)))
+        .setSeverity("MAJOR")
+        .setMessage("Message " + random.nextInt(100))
+        .setLine(1 + random.nextInt(1000))
+        .setStatus("OPEN")
+        .setChecksum(Integer.toHexString(random.nextInt()))
+        .setCreationDate(new Date(1_480_000_000_000L + i)));
+    }
+    file = File.createTempFile("DiskCacheBenchmark", ".dat");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+  }
+
+  @Benchmark
+  public int appendAndTraverse() {
+    DiskCache<DefaultIssue> cache = new DiskCache<>(file, System2.INSTANCE, "codec".equals(encoding) ? new DefaultIssueCodec() : null);
+    try (DiskCache<DefaultIssue>.DiskAppender appender = cache.newAppender()) {
+      values.forEach(appender::append);
+    }
+    int count = 0;
+    try (CloseableIterator<DefaultIssue> it = cache.traverse()) {
+      while (it.hasNext()) {
+        it.next();
+        count++;
+      }
+    }
+    return count;
+  }
+}